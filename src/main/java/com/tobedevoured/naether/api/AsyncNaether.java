@@ -0,0 +1,64 @@
+package com.tobedevoured.naether.api;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.util.List;
+import java.util.concurrent.Future;
+
+import com.tobedevoured.naether.deploy.DeployArtifact;
+
+/**
+ * Asynchronous Naether. Every request runs with its own {@link Naether}, so requests do
+ * not share dependencies or results and can run concurrently. Failures are thrown by
+ * {@link Future#get()} as an {@link java.util.concurrent.ExecutionException} caused by
+ * the {@link com.tobedevoured.naether.NaetherException}.
+ *
+ * @author Michael Guymon
+ *
+ */
+public interface AsyncNaether {
+
+    /**
+     * Resolve dependencies
+     *
+     * @param request {@link ResolutionRequest}
+     * @return {@link Future} of {@link ResolutionResult}
+     */
+    Future<ResolutionResult> resolveAsync(ResolutionRequest request);
+
+    /**
+     * Download artifacts without their dependencies
+     *
+     * @param notations List of String
+     * @return {@link Future} of {@link DownloadResult}
+     */
+    Future<DownloadResult> downloadAsync(List<String> notations);
+
+    /**
+     * Deploy an artifact
+     *
+     * @param deployArtifact {@link DeployArtifact}
+     * @return {@link Future} completing when deployed
+     */
+    Future<Void> deployAsync(DeployArtifact deployArtifact);
+
+    /**
+     * Stop accepting requests. Requests already submitted still run.
+     */
+    void shutdown();
+}
@@ -0,0 +1,70 @@
+package com.tobedevoured.naether.api;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable result of downloading a batch of artifacts, the artifacts that were downloaded
+ * and the artifacts that failed. Both are keyed by notation in the order requested.
+ * 
+ * @author Michael Guymon
+ *
+ */
+public final class DownloadResult {
+
+    private final Map<String,File> files;
+    private final Map<String,Exception> failures;
+
+    /**
+     * Create new instance, copying the downloaded and failed artifacts
+     *
+     * @param files Map of notation to {@link File}, in the order requested
+     * @param failures Map of notation to the {@link Exception} that caused the failure, in the order requested
+     */
+    public DownloadResult( Map<String,File> files, Map<String,Exception> failures ) {
+        this.files = Collections.unmodifiableMap( new LinkedHashMap<String,File>( files ) );
+        this.failures = Collections.unmodifiableMap( new LinkedHashMap<String,Exception>( failures ) );
+    }
+
+    /**
+     * Downloaded artifacts
+     * 
+     * @return Map of notation to {@link File}
+     */
+    public Map<String,File> getFiles() {
+        return files;
+    }
+
+    /**
+     * Artifacts that failed to download
+     * 
+     * @return Map of notation to the {@link Exception} that caused the failure
+     */
+    public Map<String,Exception> getFailures() {
+        return failures;
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+}
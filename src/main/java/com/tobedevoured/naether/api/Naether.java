@@ -149,6 +149,20 @@ public interface Naether {
      */
     void addRemoteRepositoryByUrl(String url, String username,String password) throws URLException;
 
+    /**
+     * Add a {@link RemoteRepository} by String url with an update and checksum
+     * policy. A repository of immutable releases can use the update policy
+     * never, so its metadata is not rechecked.
+     * 
+     * @param url String
+     * @param username String, null for no authentication
+     * @param password String
+     * @param updatePolicy String never, always, daily or interval:N minutes, null for daily
+     * @param checksumPolicy String ignore, warn or fail, null for warn
+     * @throws URLException exception
+     */
+    void addRemoteRepositoryByUrl(String url, String username, String password, String updatePolicy, String checksumPolicy) throws URLException;
+
     /**
      * Add a {@link RemoteRepository}
      * 
@@ -158,6 +172,18 @@ public interface Naether {
      */
     void addRemoteRepository(String id, String type, String url);
 
+    /**
+     * Add a {@link RemoteRepository} with an update and checksum policy
+     * 
+     * @param id String
+     * @param type String
+     * @param url String
+     * @param updatePolicy String never, always, daily or interval:N minutes, null for daily
+     * @param checksumPolicy String ignore, warn or fail, null for warn
+     * @throws NaetherException if a policy is not valid
+     */
+    void addRemoteRepository(String id, String type, String url, String updatePolicy, String checksumPolicy) throws NaetherException;
+
     /**
      * Add {@link RemoteRepository}
      * 
@@ -165,6 +191,59 @@ public interface Naether {
      */
     void addRemoteRepository(RemoteRepository remoteRepository);
 
+    /**
+     * Add a {@link RemoteRepository} that artifacts of the groupIds are only
+     * resolved from, see {@link #addRoutingRule(String, String)}
+     * 
+     * @param id String
+     * @param type String
+     * @param url String
+     * @param groupPatterns List of String groupId patterns, such as <code>com.example.*</code>
+     */
+    void addRemoteRepository(String id, String type, String url, List<String> groupPatterns);
+
+    /**
+     * Resolve artifacts of the groupIds matching the pattern only from the
+     * repository, and from other repositories routed to with the same pattern.
+     * The pattern is a groupId, or a groupId followed by <code>.*</code> to
+     * also match the groupIds below it. Artifacts matching no rule are resolved
+     * from every repository.
+     * 
+     * @param groupPattern String
+     * @param repositoryId String
+     */
+    void addRoutingRule(String groupPattern, String repositoryId);
+
+    /**
+     * Get the routing rules, the groupId patterns mapped to the ids of the
+     * repositories they are routed to.
+     * 
+     * @return Map
+     */
+    Map<String,Set<String>> getRoutingRules();
+
+    /**
+     * Add a mirror of remote repositories, such as <code>central</code>, <code>*</code>
+     * or <code>external:*,!snapshots</code>. Requests to a mirrored repository go to the mirror.
+     * 
+     * @param id String
+     * @param url String
+     * @param mirrorOf String pattern of the repository ids to mirror
+     * @throws URLException if the url is not valid
+     */
+    void addMirror(String id, String url, String mirrorOf) throws URLException;
+
+    /**
+     * Add a mirror of remote repositories that fails over to the next url when the current url
+     * is slow or failing.
+     * 
+     * @param id String
+     * @param urls List of String, the primary url followed by the urls to fail over to
+     * @param mirrorOf String pattern of the repository ids to mirror
+     * @throws URLException if a url is not valid
+     */
+    void addMirror(String id, List<String> urls, String mirrorOf) throws URLException;
+
     /**
      * Set {@link List} of {@link RemoteRepository}
      * 
@@ -287,6 +366,347 @@ public interface Naether {
      */
     String getLocalRepoPath();
 
+    /**
+     * Set the number of artifacts downloaded concurrently. Defaults to 5,
+     * a value of 1 downloads serially.
+     * 
+     * @param threads int
+     */
+    void setDownloadThreads(int threads);
+
+    /**
+     * Get the number of artifacts downloaded concurrently.
+     * 
+     * @return int
+     */
+    int getDownloadThreads();
+
+    /**
+     * Set the number of dependency descriptors read concurrently while collecting
+     * dependencies. Defaults to 1, which reads descriptors serially.
+     * 
+     * @param threads int
+     */
+    void setCollectThreads(int threads);
+
+    /**
+     * Get the number of dependency descriptors read concurrently while collecting dependencies.
+     * 
+     * @return int
+     */
+    int getCollectThreads();
+
+    /**
+     * Set the number of levels of the dependency graph whose descriptors are read in the
+     * background ahead of collecting them. Defaults to 0, which does not read ahead.
+     * 
+     * @param depth int
+     */
+    void setPrefetchDepth(int depth);
+
+    /**
+     * Get the number of levels of the dependency graph read ahead of collecting them.
+     * 
+     * @return int
+     */
+    int getPrefetchDepth();
+
+    /**
+     * Set the path of a content store shared by local repositories. Downloaded artifacts are
+     * stored once by their sha1 and hard linked into each local repository, and an artifact another
+     * local repository downloaded from the same remote repository is linked instead of
+     * downloaded, after checking its sha1. Defaults to null, which
+     * does not use a store.
+     * 
+     * @param path String
+     */
+    void setContentStore(String path);
+
+    /**
+     * Get the path of the content store shared by local repositories.
+     * 
+     * @return String
+     */
+    String getContentStore();
+
+    /**
+     * Set the max number of concurrent transfers to a single remote
+     * repository. Defaults to 0, which is unbounded.
+     * 
+     * @param threads int
+     */
+    void setRepositoryThreads(int threads);
+
+    /**
+     * Get the max number of concurrent transfers to a single remote repository.
+     * 
+     * @return int
+     */
+    int getRepositoryThreads();
+
+    /**
+     * Set the timeout for connecting to a remote repository. Defaults to 0,
+     * which uses the connector default.
+     * 
+     * @param timeout int milliseconds
+     */
+    void setConnectTimeout(int timeout);
+
+    /**
+     * Get the timeout for connecting to a remote repository.
+     * 
+     * @return int milliseconds
+     */
+    int getConnectTimeout();
+
+    /**
+     * Set the timeout for reading from a remote repository. Defaults to 0,
+     * which uses the connector default.
+     * 
+     * @param timeout int milliseconds
+     */
+    void setReadTimeout(int timeout);
+
+    /**
+     * Get the timeout for reading from a remote repository.
+     * 
+     * @return int milliseconds
+     */
+    int getReadTimeout();
+
+    /**
+     * Set the max number of concurrent connections to a single http host,
+     * shared by all repositories on the host. Defaults to 0, which is unbounded.
+     * 
+     * @param connections int
+     */
+    void setMaxConnectionsPerHost(int connections);
+
+    /**
+     * Get the max number of concurrent connections to a single http host.
+     * 
+     * @return int
+     */
+    int getMaxConnectionsPerHost();
+
+    /**
+     * Download from http and https repositories with a connector built on
+     * HttpURLConnection instead of Wagon. Defaults to false.
+     * 
+     * @param httpConnector boolean
+     */
+    void setHttpConnector(boolean httpConnector);
+
+    /**
+     * If the http connector is used instead of Wagon.
+     * 
+     * @return boolean
+     */
+    boolean isHttpConnector();
+
+    /**
+     * Set the size in bytes above which the http connector splits a download
+     * into chunks downloaded concurrently with range requests. A failed download
+     * is kept and resumed from where it stopped by the next attempt. Defaults to 0,
+     * which does not split downloads.
+     * 
+     * @param chunkSize long bytes
+     */
+    void setDownloadChunkSize(long chunkSize);
+
+    /**
+     * Get the size in bytes above which the http connector splits a download.
+     * 
+     * @return long bytes
+     */
+    long getDownloadChunkSize();
+
+    /**
+     * Set the max retries of a transfer that failed with a transient error,
+     * such as a reset connection, a timeout or a 503. Retries back off
+     * exponentially with jitter. Defaults to 0, which does not retry.
+     * 
+     * @param retries int
+     */
+    void setRetries(int retries);
+
+    /**
+     * Get the max retries of a transfer that failed with a transient error.
+     * 
+     * @return int
+     */
+    int getRetries();
+
+    /**
+     * Get the number of transfers retried after a transient error, by all
+     * resolvers in the JVM.
+     * 
+     * @return long
+     */
+    long getRetryCount();
+
+    /**
+     * Set how long an artifact or metadata not found in a remote repository is
+     * not requested again from that repository. The misses are kept in the
+     * local repository across runs. Defaults to 0, which requests them every time.
+     * 
+     * @param ttl long milliseconds
+     */
+    void setNotFoundTtl(long ttl);
+
+    /**
+     * Get how long an artifact or metadata not found in a remote repository is
+     * not requested again.
+     * 
+     * @return long milliseconds
+     */
+    long getNotFoundTtl();
+
+    /**
+     * Forget the artifacts and metadata not found in a remote repository, such
+     * as after deploying to it.
+     * 
+     * @param url String of the remote repository, null for all repositories
+     */
+    void invalidateNotFound(String url);
+
+    /**
+     * Resolve only from the local repository, remote repositories are
+     * never contacted. Defaults to false.
+     * 
+     * @param offline boolean
+     */
+    void setOffline(boolean offline);
+
+    /**
+     * If only the local repository is used for resolution.
+     * 
+     * @return boolean
+     */
+    boolean isOffline();
+
+    /**
+     * Resolve from the local repository first, remote repositories are
+     * only contacted for artifacts and metadata missing from the local
+     * repository. SNAPSHOTs and version ranges are not updated once they
+     * are in the local repository. Defaults to false.
+     * 
+     * @param localFirst boolean
+     */
+    void setLocalFirst(boolean localFirst);
+
+    /**
+     * If the local repository is used before checking remote repositories.
+     * 
+     * @return boolean
+     */
+    boolean isLocalFirst();
+
+    /**
+     * Find artifacts in the local repository from an index kept in the local
+     * repository, instead of reading the tracking files of every artifact.
+     * Artifacts deleted from the local repository by hand are dropped from
+     * the index when next found. Defaults to false.
+     * 
+     * @param indexed boolean
+     */
+    void setIndexedLocalRepository(boolean indexed);
+
+    /**
+     * If artifacts in the local repository are found from an index.
+     * 
+     * @return boolean
+     */
+    boolean isIndexedLocalRepository();
+
+    /**
+     * Cache resolved dependencies under the local repository. A call to
+     * resolve the same dependencies, repositories, properties and build
+     * artifacts reuses the cached result without collecting the graph,
+     * as long as the resolved files still exist. Defaults to false.
+     * 
+     * @param cacheResolution boolean
+     */
+    void setCacheResolution(boolean cacheResolution);
+
+    /**
+     * If resolved dependencies are cached under the local repository.
+     * 
+     * @return boolean
+     */
+    boolean isCacheResolution();
+
+    /**
+     * Resolve dependencies incrementally. The graph collected for each dependency is
+     * kept, so resolving again after adding a dependency only collects the new or
+     * changed dependencies, and versions are mediated over the merged graph. The new
+     * or changed dependencies are collected with the collect threads, if more than one.
+     * Defaults to false.
+     * 
+     * @param incrementalResolution boolean
+     */
+    void setIncrementalResolution(boolean incrementalResolution);
+
+    /**
+     * If dependencies are resolved incrementally.
+     * 
+     * @return boolean
+     */
+    boolean isIncrementalResolution();
+
+    /**
+     * Resolve the dependencies of a request without changing this Naether, so requests can
+     * be resolved concurrently by many threads. The request is resolved with the repositories
+     * and settings of this Naether, which should not change while requests are resolved.
+     * 
+     * @param request {@link ResolutionRequest}
+     * @return {@link ResolutionResult}
+     * @throws URLException if a repository url is not valid
+     * @throws DependencyException if the dependencies could not be resolved
+     */
+    ResolutionResult resolve(ResolutionRequest request) throws URLException, DependencyException;
+
+    /**
+     * Add a listener notified as dependencies are collected and artifacts are resolved,
+     * instead of waiting for the whole resolution to finish.
+     * 
+     * @param listener {@link ResolutionListener}
+     */
+    void addResolutionListener(ResolutionListener listener);
+
+    /**
+     * Remove a listener added with {@link #addResolutionListener(ResolutionListener)}
+     * 
+     * @param listener {@link ResolutionListener}
+     */
+    void removeResolutionListener(ResolutionListener listener);
+
+    /**
+     * Resolve dependencies from a lockfile. If the lockfile was written for the same
+     * dependencies, repositories, properties and build artifacts, the locked artifacts are
+     * downloaded in one batch and verified against their sha1 without collecting the graph.
+     * Otherwise the dependencies are resolved and the lockfile is rewritten.
+     * 
+     * @param lockfile String path, null to not use a lockfile
+     */
+    void setLockfile(String lockfile);
+
+    /**
+     * Get the path of the lockfile
+     * 
+     * @return String
+     */
+    String getLockfile();
+
+    /**
+     * Write a lockfile of the resolved dependencies, with the repository, sha1 and
+     * local path of each artifact.
+     * 
+     * @param path String
+     * @throws NaetherException if dependencies are not resolved or the lockfile could not be written
+     */
+    void writeLockfile(String path) throws NaetherException;
+
     /**
      * Set the {@link List} of {@link Dependency}
      * 
@@ -328,4 +748,18 @@ public interface Naether {
     List<File> downloadArtifacts(List artifactsOrNotations)
             throws NaetherException;
 
+    /**
+     * Download to the local repository a List of Artifact or String
+     * notations in a single batch. Unlike {@link #downloadArtifacts(List)}
+     * this does not fail on the first missing artifact, the failures
+     * are returned with the downloaded artifacts.
+     * 
+     * @param artifactsOrNotations {@link List} of Artifact or String notation
+     * @return {@link DownloadResult}
+     * @throws NaetherException exception
+     */
+    @SuppressWarnings("rawtypes")
+    DownloadResult batchDownloadArtifacts(List artifactsOrNotations)
+            throws NaetherException;
+
 }
\ No newline at end of file
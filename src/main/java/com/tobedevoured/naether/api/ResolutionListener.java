@@ -0,0 +1,59 @@
+package com.tobedevoured.naether.api;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+
+/**
+ * Listener for the progress of resolving dependencies and downloading artifacts, so work on
+ * early artifacts can start while later artifacts are still downloading.
+ *
+ * Artifacts are resolved concurrently, so events can be fired from several threads at once.
+ * An exception thrown by a listener is logged and does not stop the resolution.
+ *
+ * @author Michael Guymon
+ *
+ */
+public interface ResolutionListener {
+
+    /**
+     * A dependency was collected. Fired for every dependency in the graph, in preorder,
+     * once the graph is collected and before its artifacts are downloaded.
+     *
+     * @param notation String
+     * @param scope String
+     */
+    void dependencyCollected(String notation, String scope);
+
+    /**
+     * An artifact was resolved to a file, from the local repository or by downloading it
+     *
+     * @param notation String
+     * @param file {@link File}
+     */
+    void artifactResolved(String notation, File file);
+
+    /**
+     * An artifact could not be resolved from any repository
+     *
+     * @param notation String
+     * @param exception {@link Exception}
+     */
+    void artifactFailed(String notation, Exception exception);
+}
@@ -0,0 +1,110 @@
+package com.tobedevoured.naether.api;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Request to resolve dependencies with {@link Naether#resolve(ResolutionRequest)} or
+ * {@link AsyncNaether}. An async request is copied when submitted, so it can be changed
+ * and submitted again.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class ResolutionRequest {
+
+    private Map<String,String> dependencies = new LinkedHashMap<String,String>();
+    private Map<String,String> properties = new HashMap<String,String>();
+    private boolean downloadArtifacts = true;
+
+    public ResolutionRequest() {
+    }
+
+    /**
+     * Copy a request
+     *
+     * @param request {@link ResolutionRequest}
+     */
+    public ResolutionRequest( ResolutionRequest request ) {
+        this.dependencies = new LinkedHashMap<String,String>( request.dependencies );
+        this.properties = new HashMap<String,String>( request.properties );
+        this.downloadArtifacts = request.downloadArtifacts;
+    }
+
+    /**
+     * Add dependency by String notation with default compile scope
+     *
+     * groupId:artifactId:type:version
+     * groupId:artifactId:type:classifier:version
+     *
+     * @param notation String
+     * @return this {@link ResolutionRequest}
+     */
+    public ResolutionRequest addDependency( String notation ) {
+        return addDependency( notation, "compile" );
+    }
+
+    /**
+     * Add dependency by String notation and scope
+     *
+     * @param notation String
+     * @param scope String
+     * @return this {@link ResolutionRequest}
+     */
+    public ResolutionRequest addDependency( String notation, String scope ) {
+        dependencies.put( notation, scope );
+        return this;
+    }
+
+    /**
+     * Dependencies in the order added
+     *
+     * @return Map of notation to scope
+     */
+    public Map<String,String> getDependencies() {
+        return Collections.unmodifiableMap( dependencies );
+    }
+
+    public ResolutionRequest setProperties( Map<String,String> properties ) {
+        this.properties = new HashMap<String,String>( properties );
+        return this;
+    }
+
+    public Map<String,String> getProperties() {
+        return Collections.unmodifiableMap( properties );
+    }
+
+    /**
+     * Download the artifacts of the resolved dependencies, defaults to true
+     *
+     * @param downloadArtifacts boolean
+     * @return this {@link ResolutionRequest}
+     */
+    public ResolutionRequest setDownloadArtifacts( boolean downloadArtifacts ) {
+        this.downloadArtifacts = downloadArtifacts;
+        return this;
+    }
+
+    public boolean isDownloadArtifacts() {
+        return downloadArtifacts;
+    }
+}
@@ -0,0 +1,104 @@
+package com.tobedevoured.naether.api;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable result of resolving dependencies with {@link Naether#resolve(ResolutionRequest)}
+ * or {@link AsyncNaether}
+ *
+ * @author Michael Guymon
+ *
+ */
+public final class ResolutionResult {
+
+    private final Set<String> dependenciesNotation;
+    private final Map<String,String> dependenciesPath;
+    @SuppressWarnings("rawtypes")
+    private final Map<String,Map> dependenciesGraph;
+    private final String resolvedClassPath;
+
+    /**
+     * Create new instance from a {@link Naether} that resolved dependencies
+     *
+     * @param naether {@link Naether}
+     */
+    @SuppressWarnings("rawtypes")
+    public ResolutionResult( Naether naether ) {
+        this.dependenciesNotation = Collections.unmodifiableSet( new HashSet<String>( naether.getDependenciesNotation() ) );
+        this.dependenciesPath = Collections.unmodifiableMap( new HashMap<String,String>( naether.getDependenciesPath() ) );
+        this.dependenciesGraph = freeze( naether.getDependenciesGraph() );
+        this.resolvedClassPath = naether.getResolvedClassPath();
+    }
+
+    /**
+     * Copy a dependency graph into unmodifiable maps, all the way down to the leaves
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static Map<String,Map> freeze( Map<String,Map> graph ) {
+        Map<String,Map> frozen = new HashMap<String,Map>();
+        for ( Map.Entry<String,Map> entry : graph.entrySet() ) {
+            frozen.put( entry.getKey(), entry.getValue() != null ? freeze( entry.getValue() ) : null );
+        }
+
+        return Collections.unmodifiableMap( frozen );
+    }
+
+    /**
+     * Resolved dependencies as notations
+     *
+     * @return Set of String
+     */
+    public Set<String> getDependenciesNotation() {
+        return dependenciesNotation;
+    }
+
+    /**
+     * Resolved dependencies with a downloaded artifact
+     *
+     * @return Map of notation to the path of the artifact
+     */
+    public Map<String,String> getDependenciesPath() {
+        return dependenciesPath;
+    }
+
+    /**
+     * Graph of the resolved dependencies, the requested dependencies mapped to their
+     * transitive dependencies
+     *
+     * @return Map
+     */
+    @SuppressWarnings("rawtypes")
+    public Map<String,Map> getDependenciesGraph() {
+        return dependenciesGraph;
+    }
+
+    /**
+     * Classpath of the resolved dependencies
+     *
+     * @return String
+     */
+    public String getResolvedClassPath() {
+        return resolvedClassPath;
+    }
+}
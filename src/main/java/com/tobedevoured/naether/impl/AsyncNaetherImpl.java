@@ -0,0 +1,150 @@
+package com.tobedevoured.naether.impl;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.tobedevoured.naether.api.AsyncNaether;
+import com.tobedevoured.naether.api.DownloadResult;
+import com.tobedevoured.naether.api.ResolutionRequest;
+import com.tobedevoured.naether.api.ResolutionResult;
+import com.tobedevoured.naether.deploy.DeployArtifact;
+import com.tobedevoured.naether.util.DaemonThreadFactory;
+
+/**
+ * {@link AsyncNaether} running each request with a new {@link NaetherImpl} created from a
+ * template, see {@link NaetherImpl#NaetherImpl(NaetherImpl)}. The template is the place to
+ * configure repositories, mirrors and listeners, and should not be changed while requests run.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class AsyncNaetherImpl implements AsyncNaether {
+
+    /**
+     * Default number of concurrent requests
+     */
+    public static final int DEFAULT_THREADS = 4;
+
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private final NaetherImpl template;
+    private final ExecutorService executor;
+
+    /**
+     * Create new instance running requests on a pool of {@link #DEFAULT_THREADS} daemon threads
+     *
+     * @param template {@link NaetherImpl}
+     */
+    public AsyncNaetherImpl( NaetherImpl template ) {
+        this( template, DEFAULT_THREADS );
+    }
+
+    /**
+     * Create new instance running requests on a pool of daemon threads
+     *
+     * @param template {@link NaetherImpl}
+     * @param threads int max number of concurrent requests
+     */
+    public AsyncNaetherImpl( NaetherImpl template, int threads ) {
+        this( template, newExecutor( threads ) );
+    }
+
+    /**
+     * Create new instance running requests on an executor
+     *
+     * @param template {@link NaetherImpl}
+     * @param executor {@link ExecutorService}
+     */
+    public AsyncNaetherImpl( NaetherImpl template, ExecutorService executor ) {
+        this.template = template;
+        this.executor = executor;
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.AsyncNaether#resolveAsync(com.tobedevoured.naether.api.ResolutionRequest)
+     */
+    public Future<ResolutionResult> resolveAsync( ResolutionRequest request ) {
+        final ResolutionRequest copy = new ResolutionRequest( request );
+        return executor.submit( new Callable<ResolutionResult>() {
+            public ResolutionResult call() throws Exception {
+                return template.resolve( copy );
+            }
+        });
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.AsyncNaether#downloadAsync(java.util.List)
+     */
+    public Future<DownloadResult> downloadAsync( List<String> notations ) {
+        final List<String> copy = new ArrayList<String>( notations );
+        return executor.submit( new Callable<DownloadResult>() {
+            public DownloadResult call() throws Exception {
+                NaetherImpl naether = newNaether();
+                try {
+                    return naether.batchDownloadArtifacts( copy );
+                } finally {
+                    naether.shutdown();
+                }
+            }
+        });
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.AsyncNaether#deployAsync(com.tobedevoured.naether.deploy.DeployArtifact)
+     */
+    public Future<Void> deployAsync( final DeployArtifact deployArtifact ) {
+        return executor.submit( new Callable<Void>() {
+            public Void call() throws Exception {
+                NaetherImpl naether = newNaether();
+                try {
+                    naether.deployArtifact( deployArtifact );
+                    return null;
+                } finally {
+                    naether.shutdown();
+                }
+            }
+        });
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.AsyncNaether#shutdown()
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Create the {@link NaetherImpl} for a request
+     *
+     * @return {@link NaetherImpl}
+     */
+    protected NaetherImpl newNaether() {
+        return new NaetherImpl( template );
+    }
+
+    private static ExecutorService newExecutor( int threads ) {
+        return Executors.newFixedThreadPool( threads, new DaemonThreadFactory( "naether-async-" + POOL_COUNT.incrementAndGet() ) );
+    }
+}
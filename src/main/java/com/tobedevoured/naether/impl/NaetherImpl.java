@@ -52,9 +52,6 @@ import org.sonatype.aether.repository.RemoteRepository;
 import org.sonatype.aether.resolution.ArtifactRequest;
 import org.sonatype.aether.resolution.ArtifactResolutionException;
 import org.sonatype.aether.resolution.ArtifactResult;
-import org.sonatype.aether.resolution.DependencyRequest;
-import org.sonatype.aether.resolution.DependencyResolutionException;
-import org.sonatype.aether.resolution.DependencyResult;
 import org.sonatype.aether.util.artifact.DefaultArtifact;
 import org.sonatype.aether.util.artifact.DefaultArtifactType;
 import org.sonatype.aether.util.artifact.SubArtifact;
@@ -66,13 +63,26 @@ import com.tobedevoured.naether.DependencyException;
 import com.tobedevoured.naether.NaetherException;
 import com.tobedevoured.naether.ResolveException;
 import com.tobedevoured.naether.URLException;
+import com.tobedevoured.naether.api.DownloadResult;
 import com.tobedevoured.naether.api.Naether;
+import com.tobedevoured.naether.api.ResolutionListener;
+import com.tobedevoured.naether.api.ResolutionRequest;
+import com.tobedevoured.naether.api.ResolutionResult;
 import com.tobedevoured.naether.deploy.DeployArtifact;
 import com.tobedevoured.naether.deploy.DeployException;
 import com.tobedevoured.naether.deploy.InstallException;
 import com.tobedevoured.naether.maven.Project;
 import com.tobedevoured.naether.maven.ProjectException;
+import com.tobedevoured.naether.repo.DelegatingRepositoryConnectorFactory;
+import com.tobedevoured.naether.repo.FailoverMirrorSelector;
+import com.tobedevoured.naether.repo.IncrementalCollector;
+import com.tobedevoured.naether.repo.Lockfile;
+import com.tobedevoured.naether.repo.ParallelArtifactResolver;
+import com.tobedevoured.naether.repo.ParallelDependencyCollector;
 import com.tobedevoured.naether.repo.RepositoryClient;
+import com.tobedevoured.naether.repo.ResolutionCache;
+import com.tobedevoured.naether.repo.ResolutionEventDispatcher;
+import com.tobedevoured.naether.repo.RoutingRules;
 import com.tobedevoured.naether.util.Notation;
 import com.tobedevoured.naether.util.RepoBuilder;
 
@@ -85,6 +95,7 @@ import com.tobedevoured.naether.util.RepoBuilder;
 public class NaetherImpl implements Naether {
 
     public static final String MIRROR_ENV = "NAETHER_MIRROR";
+    public static final String MIRROR_OF_ENV = "NAETHER_MIRROR_OF";
     public static final RemoteRepository DEFAULT_REPOSITORY =
         new RemoteRepository("central", "default", "https://repo1.maven.org/maven2/");
 
@@ -96,6 +107,30 @@ public class NaetherImpl implements Naether {
     private Set<RemoteRepository> remoteRepositories;
     private Set<String> repositoryIds;
     private PreorderNodeListGenerator preorderedNodeList;
+    private RepositoryClient repositoryClient;
+    private FailoverMirrorSelector mirrorSelector = new FailoverMirrorSelector();
+    private RoutingRules routingRules = new RoutingRules();
+    private ParallelArtifactResolver artifactResolver;
+    private ParallelDependencyCollector parallelCollector;
+    private int downloadThreads = ParallelArtifactResolver.DEFAULT_THREADS;
+    private int repositoryThreads = 0;
+    private int prefetchDepth = 0;
+    private String contentStore;
+    private int connectTimeout = 0;
+    private int readTimeout = 0;
+    private int maxConnectionsPerHost = 0;
+    private long downloadChunkSize = 0;
+    private int retries = DelegatingRepositoryConnectorFactory.DEFAULT_RETRIES;
+    private long notFoundTtl = 0;
+    private boolean httpConnector = false;
+    private boolean cacheResolution = false;
+    private boolean offline = false;
+    private boolean localFirst = false;
+    private boolean indexedLocalRepository = false;
+    private String lockfile;
+    private IncrementalCollector incrementalCollector;
+    private String resolutionKey;
+    private final ResolutionEventDispatcher resolutionEvents;
 
     /**
      * Create new instance. Default local repository is environment M2_REPO
@@ -103,6 +138,10 @@ public class NaetherImpl implements Naether {
      * downloaded metadata and artifacts.
      *
      * The default remote repository is https://repo1.maven.org/maven2/
+     *
+     * The environment NAETHER_MIRROR adds a remote repository. If NAETHER_MIRROR_OF is also set,
+     * NAETHER_MIRROR is instead a comma separated list of urls mirroring the repositories
+     * matching NAETHER_MIRROR_OF, such as central.
      */
     public NaetherImpl() {
 
@@ -120,9 +159,78 @@ public class NaetherImpl implements Naether {
 
         this.localRepoPath = Env.getLocalRepository();
 
+        this.resolutionEvents = new ResolutionEventDispatcher();
+
         String naetherMirror = Env.get(MIRROR_ENV);
         if (naetherMirror != null) {
-            addRemoteRepository("naetherMirror", "default", naetherMirror);
+            String mirrorOf = Env.get(MIRROR_OF_ENV);
+            if (mirrorOf != null) {
+                mirrorSelector.add("naetherMirror", Arrays.asList(naetherMirror.split("\\s*,\\s*")), mirrorOf);
+            } else {
+                addRemoteRepository("naetherMirror", "default", naetherMirror);
+            }
+        }
+    }
+
+    /**
+     * Create new instance with the configuration of a template, such as the local and remote
+     * repositories, mirrors, build artifacts, timeouts and resolution listeners, but without
+     * its dependencies or lockfile. The configuration is copied, so changing the template
+     * does not change a copy that is resolving. The download and collect threads and the
+     * incremental collector of the template are shared, so instances can resolve concurrently
+     * without setting up their own; release them with {@link #shutdown()}.
+     *
+     * @param template {@link NaetherImpl}
+     */
+    public NaetherImpl(NaetherImpl template) {
+        this.dependencies = new HashSet<Dependency>();
+        this.buildArtifacts = new ArrayList<Artifact>(template.buildArtifacts);
+        this.remoteRepositories = new LinkedHashSet<RemoteRepository>(template.remoteRepositories);
+        this.repositoryIds = new HashSet<String>(template.repositoryIds);
+        this.localRepoPath = template.localRepoPath;
+        this.mirrorSelector = new FailoverMirrorSelector(template.mirrorSelector);
+        this.routingRules = new RoutingRules(template.routingRules);
+        this.downloadThreads = template.downloadThreads;
+        this.repositoryThreads = template.repositoryThreads;
+        this.prefetchDepth = template.prefetchDepth;
+        this.contentStore = template.contentStore;
+        this.connectTimeout = template.connectTimeout;
+        this.readTimeout = template.readTimeout;
+        this.maxConnectionsPerHost = template.maxConnectionsPerHost;
+        this.downloadChunkSize = template.downloadChunkSize;
+        this.retries = template.retries;
+        this.notFoundTtl = template.notFoundTtl;
+        this.httpConnector = template.httpConnector;
+        this.cacheResolution = template.cacheResolution;
+        this.offline = template.offline;
+        this.localFirst = template.localFirst;
+        this.indexedLocalRepository = template.indexedLocalRepository;
+        this.incrementalCollector = template.incrementalCollector;
+        this.resolutionEvents = new ResolutionEventDispatcher(template.resolutionEvents);
+
+        synchronized (template) {
+            this.parallelCollector = template.parallelCollector != null ? template.parallelCollector.retain() : null;
+            this.artifactResolver = template.getArtifactResolver().retain();
+        }
+
+        this.repositoryClient = new RepositoryClient(template.getRepositoryClient());
+        this.repositoryClient.setMirrorSelector(mirrorSelector);
+        this.repositoryClient.setRoutingRules(routingRules);
+    }
+
+    /**
+     * Release the download and collect threads. Threads shared with a template or copies
+     * are stopped once every instance sharing them released them.
+     */
+    public synchronized void shutdown() {
+        if ( artifactResolver != null ) {
+            artifactResolver.shutdown();
+            artifactResolver = null;
+        }
+
+        if ( parallelCollector != null ) {
+            parallelCollector.shutdown();
+            parallelCollector = null;
         }
     }
 
@@ -352,6 +460,39 @@ public class NaetherImpl implements Naether {
         }
     }
 
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#addRemoteRepositoryByUrl(java.lang.String, java.lang.String, java.lang.String, java.lang.String, java.lang.String)
+     */
+    public void addRemoteRepositoryByUrl(String url, String username, String password, String updatePolicy, String checksumPolicy) throws URLException {
+        RemoteRepository remoteRepo;
+        try {
+            remoteRepo = RepoBuilder.remoteRepositoryFromUrl(url, updatePolicy, checksumPolicy);
+        } catch (MalformedURLException e) {
+            throw new URLException(e);
+        } catch (IllegalArgumentException e) {
+            throw new URLException(e.getMessage(), e);
+        }
+
+        if ( username != null ) {
+            remoteRepo = remoteRepo.setAuthentication(new Authentication(username, password));
+        }
+        addRemoteRepository(remoteRepo);
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#addRemoteRepository(java.lang.String, java.lang.String, java.lang.String, java.lang.String, java.lang.String)
+     */
+    public void addRemoteRepository(String id, String type, String url, String updatePolicy, String checksumPolicy) throws NaetherException {
+        RemoteRepository remoteRepo;
+        try {
+            remoteRepo = RepoBuilder.setPolicy(new RemoteRepository(id, type, url), updatePolicy, checksumPolicy);
+        } catch (IllegalArgumentException e) {
+            throw new NaetherException(e.getMessage(), e);
+        }
+
+        addRemoteRepository(remoteRepo);
+    }
+
     /* (non-Javadoc)
      * @see com.tobedevoured.naether.api.Naether#addRemoteRepository(org.sonatype.aether.repository.RemoteRepository)
      */
@@ -361,6 +502,84 @@ public class NaetherImpl implements Naether {
         }
     }
 
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#addRemoteRepository(java.lang.String, java.lang.String, java.lang.String, java.util.List)
+     */
+    public void addRemoteRepository(String id, String type, String url, List<String> groupPatterns) {
+        for (String groupPattern : groupPatterns) {
+            routingRules.add(groupPattern, id);
+        }
+
+        addRemoteRepository(id, type, url);
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#addRoutingRule(java.lang.String, java.lang.String)
+     */
+    public void addRoutingRule(String groupPattern, String repositoryId) {
+        routingRules.add(groupPattern, repositoryId);
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#getRoutingRules()
+     */
+    public Map<String,Set<String>> getRoutingRules() {
+        return routingRules.getRules();
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#addMirror(java.lang.String, java.lang.String, java.lang.String)
+     */
+    public void addMirror(String id, String url, String mirrorOf) throws URLException {
+        addMirror(id, Arrays.asList(url), mirrorOf);
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#addMirror(java.lang.String, java.util.List, java.lang.String)
+     */
+    public void addMirror(String id, List<String> urls, String mirrorOf) throws URLException {
+        for (String url : urls) {
+            try {
+                new URL(url);
+            } catch (MalformedURLException e) {
+                throw new URLException("Invalid url for mirror " + id + ": " + url, e);
+            }
+        }
+
+        mirrorSelector.add(id, urls, mirrorOf);
+    }
+
+    /**
+     * The remote repositories to resolve from. Mirrored repositories are replaced by
+     * their mirror, and repositories that are slow or failing are ordered last.
+     *
+     * @return List of {@link RemoteRepository}
+     */
+    protected List<RemoteRepository> getResolutionRepositories() {
+        return RepositoryClient.getRepositoryHealth().order(getMirroredRepositories());
+    }
+
+    /**
+     * The remote repositories with mirrors applied, in the order they were added. Unlike
+     * {@link #getResolutionRepositories()} the order does not change with their health,
+     * so it identifies the repositories of a resolution.
+     *
+     * @return Collection of {@link RemoteRepository}
+     */
+    private Collection<RemoteRepository> getMirroredRepositories() {
+        Map<String,RemoteRepository> repositories = new LinkedHashMap<String,RemoteRepository>();
+        for (RemoteRepository repo : getRemoteRepositories()) {
+            RemoteRepository mirror = mirrorSelector.getMirror(repo);
+            if (mirror == null) {
+                repositories.put(repo.getId(), repo);
+            } else if (!repositories.containsKey(mirror.getId())) {
+                repositories.put(mirror.getId(), mirror);
+            }
+        }
+
+        return repositories.values();
+    }
+
     /* (non-Javadoc)
      * @see com.tobedevoured.naether.api.Naether#setRemoteRepositories(java.util.Set)
      */
@@ -416,7 +635,34 @@ public class NaetherImpl implements Naether {
             }
         }
 
-        RepositoryClient repoClient = new RepositoryClient(this.getLocalRepoPath());
+        String lockKey = ResolutionCache.key( getDependencies(), getMirroredRepositories(), routingRules.getRules(), properties, buildArtifacts, true );
+        if ( lockfile != null && resolveFromLockfile( new File( lockfile ), lockKey, downloadArtifacts ) ) {
+            resolutionKey = lockKey;
+            return;
+        }
+
+        ResolutionCache resolutionCache = null;
+        String cacheKey = null;
+        if ( cacheResolution ) {
+            resolutionCache = new ResolutionCache( getLocalRepoPath() );
+            cacheKey = ResolutionCache.key( getDependencies(), getMirroredRepositories(), routingRules.getRules(), properties, buildArtifacts, downloadArtifacts );
+
+            DependencyNode cachedRoot = resolutionCache.load( cacheKey, downloadArtifacts );
+            if ( cachedRoot != null ) {
+                log.debug( "Using cached resolution {}", cacheKey );
+                preorderedNodeList = new PreorderNodeListGenerator();
+                cachedRoot.accept( preorderedNodeList );
+                resolutionEvents.fireCollected( cachedRoot );
+                if ( downloadArtifacts ) {
+                    resolutionEvents.fireResolved( cachedRoot );
+                }
+                resolutionKey = lockKey;
+                storeLockfile();
+                return;
+            }
+        }
+
+        RepositoryClient repoClient = new RepositoryClient(getRepositoryClient());
         if ( properties != null ) {
             repoClient.setProperties( properties );
         }
@@ -436,45 +682,183 @@ public class NaetherImpl implements Naether {
             throw new URLException("Failed to add local repo to request", e);
         }
 
-        for (RemoteRepository repo : getRemoteRepositories()) {
+        for (RemoteRepository repo : getResolutionRepositories()) {
             collectRequest.addRepository(repo);
         }
 
         CollectResult collectResult;
         try {
-            collectResult = repoClient.collectDependencies(collectRequest);
+            if ( incrementalCollector != null ) {
+                // the local repo followed by the repositories in a stable order
+                List<RemoteRepository> contextRepositories = new ArrayList<RemoteRepository>( collectRequest.getRepositories().subList( 0, 1 ) );
+                contextRepositories.addAll( getMirroredRepositories() );
+                String context = ResolutionCache.key( Collections.<Dependency>emptyList(), contextRepositories, routingRules.getRules(), properties, buildArtifacts, false );
+                collectResult = incrementalCollector.collectDependencies( repoClient, collectRequest, context, parallelCollector );
+            } else if ( parallelCollector != null ) {
+                collectResult = parallelCollector.collectDependencies( repoClient, collectRequest );
+            } else {
+                collectResult = repoClient.collectDependencies(collectRequest);
+            }
         } catch (DependencyCollectionException e) {
             throw new DependencyException(e);
         }
 
+        resolutionEvents.fireCollected( collectResult.getRoot() );
+
         preorderedNodeList = new PreorderNodeListGenerator();
         if (downloadArtifacts) {
-            DependencyRequest dependencyRequest = new DependencyRequest(collectRequest, null);
-
             log.debug("Resolving dependencies to files");
-            DependencyResult dependencyResult;
             try {
-                dependencyResult = repoClient.resolveDependencies(dependencyRequest);
-            } catch (DependencyResolutionException e) {
+                // only dispatch the artifacts of the graph, not the poms read collecting it
+                if ( resolutionEvents.hasListeners() ) {
+                    repoClient.setRepositoryListener( resolutionEvents );
+                }
+                getArtifactResolver().resolveDependencies(repoClient, collectResult.getRoot());
+            } catch (ArtifactResolutionException e) {
                 throw new DependencyException(e);
             }
-            dependencyResult.getRoot().accept(preorderedNodeList);
+        }
 
-        } else {
-            collectResult.getRoot().accept(preorderedNodeList);
+        collectResult.getRoot().accept(preorderedNodeList);
+
+        if ( resolutionCache != null ) {
+            resolutionCache.store( cacheKey, collectResult.getRoot() );
         }
 
+        resolutionKey = lockKey;
+        storeLockfile();
+
         //this.setDependencies( new HashSet<Dependency>(preorderedNodeList.getDependencies(true)));
         log.debug("Setting resolved dependencies: {}", this.getDependencies());
     }
 
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#resolve(com.tobedevoured.naether.api.ResolutionRequest)
+     */
+    public ResolutionResult resolve(ResolutionRequest request) throws URLException, DependencyException {
+        NaetherImpl naether = new NaetherImpl( this );
+        try {
+            for ( Map.Entry<String,String> dependency : request.getDependencies().entrySet() ) {
+                naether.addDependency( dependency.getKey(), dependency.getValue() );
+            }
+
+            Map<String,String> properties = request.getProperties().isEmpty() ? null : request.getProperties();
+            naether.resolveDependencies( request.isDownloadArtifacts(), properties );
+
+            return new ResolutionResult( naether );
+        } finally {
+            naether.shutdown();
+        }
+    }
+
+    /**
+     * Resolve the dependencies from a lockfile, fetching the locked artifacts in one batch
+     * without collecting the graph.
+     *
+     * @param file {@link File} lockfile
+     * @param key String of the resolution inputs
+     * @param downloadArtifacts boolean
+     * @return boolean false if there is no lockfile for the key
+     * @throws DependencyException if the locked artifacts could not be resolved or do not match
+     */
+    private boolean resolveFromLockfile(File file, String key, boolean downloadArtifacts) throws DependencyException {
+        if ( !file.exists() ) {
+            return false;
+        }
+
+        Lockfile lock;
+        try {
+            lock = Lockfile.read( file );
+        } catch ( IOException e ) {
+            log.warn( "Ignoring lockfile {}", file, e );
+            return false;
+        }
+
+        if ( !key.equals( lock.getKey() ) ) {
+            log.info( "Lockfile {} is out of date, resolving dependencies", file );
+            return false;
+        }
+
+        log.debug( "Resolving {} dependencies from lockfile {}", lock.getEntries().size(), file );
+
+        DependencyNode root = lock.toGraph( getResolutionRepositories() );
+        resolutionEvents.fireCollected( root );
+        if ( downloadArtifacts ) {
+            try {
+                getArtifactResolver().resolveDependencies( getDownloadClient(), root );
+            } catch ( ArtifactResolutionException e ) {
+                throw new DependencyException( e );
+            }
+
+            List<Artifact> mismatches;
+            try {
+                mismatches = lock.verify( root );
+            } catch ( IOException e ) {
+                throw new DependencyException( "Failed to verify artifacts against lockfile " + file, e );
+            }
+
+            if ( mismatches.size() > 0 ) {
+                throw new DependencyException( "Artifacts do not match the sha1 of lockfile " + file + ": " + mismatches );
+            }
+        }
+
+        preorderedNodeList = new PreorderNodeListGenerator();
+        root.accept( preorderedNodeList );
+
+        return true;
+    }
+
+    /**
+     * Write the lockfile after resolving, if a lockfile is set
+     *
+     * @throws DependencyException if the lockfile could not be written
+     */
+    private void storeLockfile() throws DependencyException {
+        if ( lockfile != null ) {
+            try {
+                writeLockfile( lockfile );
+            } catch ( NaetherException e ) {
+                throw new DependencyException( e.getMessage(), e.getCause() );
+            }
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#writeLockfile(java.lang.String)
+     */
+    public void writeLockfile(String path) throws NaetherException {
+        if ( preorderedNodeList == null ) {
+            throw new NaetherException( "Dependencies must be resolved before writing a lockfile" );
+        }
+
+        try {
+            Lockfile.create( resolutionKey, preorderedNodeList.getNodes(), getRepositoryClient().getSystemSession() ).write( new File( path ) );
+        } catch ( IOException e ) {
+            throw new NaetherException( "Failed to write lockfile " + path, e );
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#setLockfile(java.lang.String)
+     */
+    public void setLockfile(String lockfile) {
+        this.lockfile = lockfile;
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#getLockfile()
+     */
+    public String getLockfile() {
+        return lockfile;
+    }
+
     /* (non-Javadoc)
      * @see com.tobedevoured.naether.api.Naether#deployArtifact(com.tobedevoured.naether.deploy.DeployArtifact)
      */
     public void deployArtifact(DeployArtifact deployArtifact) throws DeployException {
         log.debug("deploy artifact: {} ", deployArtifact.getNotation());
 
-        RepositoryClient repoClient = new RepositoryClient(this.getLocalRepoPath());
+        RepositoryClient repoClient = getRepositoryClient();
 
         DeployRequest deployRequest = new DeployRequest();
         deployRequest.addArtifact(deployArtifact.getJarArtifact());
@@ -498,7 +882,7 @@ public class NaetherImpl implements Naether {
     public void install(String notation, String pomPath, String filePath ) throws InstallException {
         log.debug("installing artifact: {} ", notation);
 
-        RepositoryClient repoClient = new RepositoryClient(this.getLocalRepoPath());
+        RepositoryClient repoClient = getRepositoryClient();
         InstallRequest installRequest = new InstallRequest();
 
         if ( filePath != null ) {
@@ -627,8 +1011,9 @@ public class NaetherImpl implements Naether {
     /* (non-Javadoc)
      * @see com.tobedevoured.naether.api.Naether#setLocalRepoPath(java.lang.String)
      */
-    public void setLocalRepoPath(String repoPath) {
+    public synchronized void setLocalRepoPath(String repoPath) {
         this.localRepoPath = repoPath;
+        this.repositoryClient = null;
     }
 
     /* (non-Javadoc)
@@ -638,6 +1023,403 @@ public class NaetherImpl implements Naether {
         return localRepoPath;
     }
 
+    /**
+     * Get the {@link RepositoryClient} for the local repository. The client is created
+     * on first use and reused across calls until the local repository path changes.
+     *
+     * @return {@link RepositoryClient}
+     */
+    protected synchronized RepositoryClient getRepositoryClient() {
+        if ( repositoryClient == null ) {
+            repositoryClient = new RepositoryClient( getLocalRepoPath() );
+            repositoryClient.setRepositoryThreads( repositoryThreads );
+            repositoryClient.setPrefetchDepth( prefetchDepth );
+            repositoryClient.setContentStore( contentStore );
+            repositoryClient.setIndexedLocalRepository( indexedLocalRepository );
+            repositoryClient.setConnectTimeout( connectTimeout );
+            repositoryClient.setReadTimeout( readTimeout );
+            repositoryClient.setMaxConnectionsPerHost( maxConnectionsPerHost );
+            repositoryClient.setDownloadChunkSize( downloadChunkSize );
+            repositoryClient.setRetries( retries );
+            repositoryClient.setNotFoundTtl( notFoundTtl );
+            repositoryClient.setHttpConnector( httpConnector );
+            repositoryClient.setOffline( offline );
+            repositoryClient.setLocalFirst( localFirst );
+            repositoryClient.setMirrorSelector( mirrorSelector );
+            repositoryClient.setRoutingRules( routingRules );
+        }
+
+        return repositoryClient;
+    }
+
+    /**
+     * Get the {@link RepositoryClient} to download artifacts with, dispatching the resolved
+     * artifacts to the {@link ResolutionListener}s when there are any.
+     *
+     * @return {@link RepositoryClient}
+     */
+    protected RepositoryClient getDownloadClient() {
+        if ( !resolutionEvents.hasListeners() ) {
+            return getRepositoryClient();
+        }
+
+        RepositoryClient client = new RepositoryClient( getRepositoryClient() );
+        client.setRepositoryListener( resolutionEvents );
+        return client;
+    }
+
+    /**
+     * Get the {@link ParallelArtifactResolver} used to download artifacts, created on first
+     * use with the current download threads.
+     *
+     * @return {@link ParallelArtifactResolver}
+     */
+    protected synchronized ParallelArtifactResolver getArtifactResolver() {
+        if ( artifactResolver == null ) {
+            artifactResolver = new ParallelArtifactResolver( downloadThreads );
+        }
+
+        return artifactResolver;
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#setDownloadThreads(int)
+     */
+    public synchronized void setDownloadThreads(int threads) {
+        this.downloadThreads = threads;
+
+        if ( artifactResolver != null ) {
+            artifactResolver.shutdown();
+            artifactResolver = null;
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#getDownloadThreads()
+     */
+    public int getDownloadThreads() {
+        return downloadThreads;
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#setCollectThreads(int)
+     */
+    public synchronized void setCollectThreads(int threads) {
+        if ( parallelCollector != null ) {
+            parallelCollector.shutdown();
+            parallelCollector = null;
+        }
+
+        if ( threads > 1 ) {
+            parallelCollector = new ParallelDependencyCollector( threads );
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#getCollectThreads()
+     */
+    public int getCollectThreads() {
+        return parallelCollector != null ? parallelCollector.getThreads() : 1;
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#setPrefetchDepth(int)
+     */
+    public void setPrefetchDepth(int depth) {
+        this.prefetchDepth = depth;
+
+        if ( repositoryClient != null ) {
+            repositoryClient.setPrefetchDepth( depth );
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#getPrefetchDepth()
+     */
+    public int getPrefetchDepth() {
+        return prefetchDepth;
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#setContentStore(java.lang.String)
+     */
+    public void setContentStore(String path) {
+        this.contentStore = path;
+
+        if ( repositoryClient != null ) {
+            repositoryClient.setContentStore( path );
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#getContentStore()
+     */
+    public String getContentStore() {
+        return contentStore;
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#setRepositoryThreads(int)
+     */
+    public void setRepositoryThreads(int threads) {
+        this.repositoryThreads = threads;
+
+        if ( repositoryClient != null ) {
+            repositoryClient.setRepositoryThreads( threads );
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#getRepositoryThreads()
+     */
+    public int getRepositoryThreads() {
+        return repositoryThreads;
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#setConnectTimeout(int)
+     */
+    public void setConnectTimeout(int timeout) {
+        this.connectTimeout = timeout;
+
+        if ( repositoryClient != null ) {
+            repositoryClient.setConnectTimeout( timeout );
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#getConnectTimeout()
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#setReadTimeout(int)
+     */
+    public void setReadTimeout(int timeout) {
+        this.readTimeout = timeout;
+
+        if ( repositoryClient != null ) {
+            repositoryClient.setReadTimeout( timeout );
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#getReadTimeout()
+     */
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#setMaxConnectionsPerHost(int)
+     */
+    public void setMaxConnectionsPerHost(int connections) {
+        this.maxConnectionsPerHost = connections;
+
+        if ( repositoryClient != null ) {
+            repositoryClient.setMaxConnectionsPerHost( connections );
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#getMaxConnectionsPerHost()
+     */
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#setHttpConnector(boolean)
+     */
+    public void setHttpConnector(boolean httpConnector) {
+        this.httpConnector = httpConnector;
+
+        if ( repositoryClient != null ) {
+            repositoryClient.setHttpConnector( httpConnector );
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#isHttpConnector()
+     */
+    public boolean isHttpConnector() {
+        return httpConnector;
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#setDownloadChunkSize(long)
+     */
+    public void setDownloadChunkSize(long chunkSize) {
+        this.downloadChunkSize = chunkSize;
+
+        if ( repositoryClient != null ) {
+            repositoryClient.setDownloadChunkSize( chunkSize );
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#getDownloadChunkSize()
+     */
+    public long getDownloadChunkSize() {
+        return downloadChunkSize;
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#setRetries(int)
+     */
+    public void setRetries(int retries) {
+        this.retries = retries;
+
+        if ( repositoryClient != null ) {
+            repositoryClient.setRetries( retries );
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#getRetries()
+     */
+    public int getRetries() {
+        return retries;
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#getRetryCount()
+     */
+    public long getRetryCount() {
+        return RepositoryClient.getRepositoryHealth().getRetries();
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#setNotFoundTtl(long)
+     */
+    public void setNotFoundTtl(long ttl) {
+        this.notFoundTtl = ttl;
+
+        if ( repositoryClient != null ) {
+            repositoryClient.setNotFoundTtl( ttl );
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#getNotFoundTtl()
+     */
+    public long getNotFoundTtl() {
+        return notFoundTtl;
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#invalidateNotFound(java.lang.String)
+     */
+    public void invalidateNotFound(String url) {
+        if ( url == null ) {
+            getRepositoryClient().getNegativeCache().clear();
+        } else {
+            getRepositoryClient().getNegativeCache().invalidate( url );
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#setOffline(boolean)
+     */
+    public void setOffline(boolean offline) {
+        this.offline = offline;
+
+        if ( repositoryClient != null ) {
+            repositoryClient.setOffline( offline );
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#isOffline()
+     */
+    public boolean isOffline() {
+        return offline;
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#setLocalFirst(boolean)
+     */
+    public void setLocalFirst(boolean localFirst) {
+        this.localFirst = localFirst;
+
+        if ( repositoryClient != null ) {
+            repositoryClient.setLocalFirst( localFirst );
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#isLocalFirst()
+     */
+    public boolean isLocalFirst() {
+        return localFirst;
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#setIndexedLocalRepository(boolean)
+     */
+    public void setIndexedLocalRepository(boolean indexed) {
+        this.indexedLocalRepository = indexed;
+
+        if ( repositoryClient != null ) {
+            repositoryClient.setIndexedLocalRepository( indexed );
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#isIndexedLocalRepository()
+     */
+    public boolean isIndexedLocalRepository() {
+        return indexedLocalRepository;
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#setCacheResolution(boolean)
+     */
+    public void setCacheResolution(boolean cacheResolution) {
+        this.cacheResolution = cacheResolution;
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#isCacheResolution()
+     */
+    public boolean isCacheResolution() {
+        return cacheResolution;
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#setIncrementalResolution(boolean)
+     */
+    public void setIncrementalResolution(boolean incrementalResolution) {
+        if ( !incrementalResolution ) {
+            incrementalCollector = null;
+        } else if ( incrementalCollector == null ) {
+            incrementalCollector = new IncrementalCollector();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#isIncrementalResolution()
+     */
+    public boolean isIncrementalResolution() {
+        return incrementalCollector != null;
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#addResolutionListener(com.tobedevoured.naether.api.ResolutionListener)
+     */
+    public void addResolutionListener(ResolutionListener listener) {
+        resolutionEvents.addListener( listener );
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#removeResolutionListener(com.tobedevoured.naether.api.ResolutionListener)
+     */
+    public void removeResolutionListener(ResolutionListener listener) {
+        resolutionEvents.removeListener( listener );
+    }
+
     /* (non-Javadoc)
      * @see com.tobedevoured.naether.api.Naether#setDependencies(java.util.Set)
      */
@@ -671,6 +1453,53 @@ public class NaetherImpl implements Naether {
      */
     @SuppressWarnings("rawtypes")
     public List<File> downloadArtifacts( List artifactsOrNotations ) throws NaetherException {
+        List<ArtifactResult> artifactResults;
+        try {
+            artifactResults = getArtifactResolver().resolveArtifacts( getDownloadClient(), toArtifactRequests( artifactsOrNotations ) );
+        } catch (ArtifactResolutionException e) {
+            throw new ResolveException(e);
+        }
+
+        List<File> files = new ArrayList<File>();
+        for ( ArtifactResult artifactResult : artifactResults ) {
+            Artifact downloadedArtifact = artifactResult.getArtifact();
+            files.add( downloadedArtifact.getFile() );
+        }
+
+        return files;
+    }
+
+    /* (non-Javadoc)
+     * @see com.tobedevoured.naether.api.Naether#batchDownloadArtifacts(java.util.List)
+     */
+    @SuppressWarnings("rawtypes")
+    public DownloadResult batchDownloadArtifacts( List artifactsOrNotations ) throws NaetherException {
+        List<ArtifactResult> artifactResults;
+        try {
+            artifactResults = getArtifactResolver().resolveArtifacts( getDownloadClient(), toArtifactRequests( artifactsOrNotations ) );
+        } catch (ArtifactResolutionException e) {
+            artifactResults = e.getResults();
+        }
+
+        Map<String,File> files = new LinkedHashMap<String,File>();
+        Map<String,Exception> failures = new LinkedHashMap<String,Exception>();
+        for ( ArtifactResult artifactResult : artifactResults ) {
+            String notation = Notation.generate( artifactResult.getRequest().getArtifact() );
+            if ( artifactResult.isResolved() ) {
+                files.put( notation, artifactResult.getArtifact().getFile() );
+            } else {
+                Exception exception = artifactResult.getExceptions().isEmpty() ?
+                    new ResolveException( "Failed to resolve " + notation ) : artifactResult.getExceptions().get(0);
+                log.debug( "Failed to download {}", notation, exception );
+                failures.put( notation, exception );
+            }
+        }
+
+        return new DownloadResult( files, failures );
+    }
+
+    @SuppressWarnings("rawtypes")
+    private List<ArtifactRequest> toArtifactRequests( List artifactsOrNotations ) throws NaetherException {
 
         List<Artifact> artifacts = new ArrayList<Artifact>();
 
@@ -688,31 +1517,20 @@ public class NaetherImpl implements Naether {
             }
         }
 
-        List<File> files = new ArrayList<File>();
-
+        List<ArtifactRequest> artifactRequests = new ArrayList<ArtifactRequest>();
         for ( Artifact artifact : artifacts ) {
 
             log.debug( "Downloading {}", artifact );
 
             ArtifactRequest artifactRequest = new ArtifactRequest();
             artifactRequest.setArtifact( artifact );
-            for ( RemoteRepository repo : this.getRemoteRepositories() ) {
+            for ( RemoteRepository repo : getResolutionRepositories() ) {
                 artifactRequest.addRepository( repo );
             }
 
-            RepositoryClient repoClient = new RepositoryClient(this.getLocalRepoPath());
-
-            ArtifactResult artifactResult = null;
-            try {
-                artifactResult = repoClient.resolveArtifact(artifactRequest );
-            } catch (ArtifactResolutionException e) {
-                throw new ResolveException(e);
-            }
-
-            Artifact downloadedArtifact = artifactResult.getArtifact();
-            files.add( downloadedArtifact.getFile() );
+            artifactRequests.add( artifactRequest );
         }
 
-        return files;
+        return artifactRequests;
     }
 }
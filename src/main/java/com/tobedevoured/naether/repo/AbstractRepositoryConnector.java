@@ -0,0 +1,378 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.RequestTrace;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
+import org.sonatype.aether.spi.connector.ArtifactDownload;
+import org.sonatype.aether.spi.connector.ArtifactUpload;
+import org.sonatype.aether.spi.connector.MetadataDownload;
+import org.sonatype.aether.spi.connector.MetadataUpload;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
+import org.sonatype.aether.spi.connector.Transfer;
+import org.sonatype.aether.transfer.ArtifactNotFoundException;
+import org.sonatype.aether.transfer.ArtifactTransferException;
+import org.sonatype.aether.transfer.ChecksumFailureException;
+import org.sonatype.aether.transfer.MetadataNotFoundException;
+import org.sonatype.aether.transfer.MetadataTransferException;
+import org.sonatype.aether.transfer.TransferCancelledException;
+import org.sonatype.aether.transfer.TransferEvent;
+import org.sonatype.aether.transfer.TransferListener;
+import org.sonatype.aether.util.ChecksumUtils;
+import org.sonatype.aether.util.layout.MavenDefaultLayout;
+import org.sonatype.aether.util.layout.RepositoryLayout;
+import org.sonatype.aether.util.listener.DefaultTransferEvent;
+import org.sonatype.aether.util.listener.DefaultTransferResource;
+
+/**
+ * Base of the {@link RepositoryConnector} of Naether. Turns the downloads and uploads of a batch
+ * into a {@link GetTask} or {@link PutTask} each, which fire the transfer events, verify downloads
+ * with the checksums of the repository and report failures on their transfer. The connector only
+ * moves the bytes.
+ *
+ * @author Michael Guymon
+ *
+ */
+abstract class AbstractRepositoryConnector implements RepositoryConnector {
+
+    static final String[] CHECKSUM_ALGORITHMS = { Checksums.SHA1, Checksums.MD5 };
+    static final String[] CHECKSUM_EXTENSIONS = { ".sha1", ".md5" };
+
+    final RemoteRepository repository;
+    final RepositoryLayout layout = new MavenDefaultLayout();
+    private final TransferListener listener;
+
+    private volatile boolean closed;
+
+    AbstractRepositoryConnector( RepositorySystemSession session, RemoteRepository repository ) {
+        this.repository = repository;
+        this.listener = session.getTransferListener();
+    }
+
+    public void get( Collection<? extends ArtifactDownload> artifactDownloads, Collection<? extends MetadataDownload> metadataDownloads ) {
+        checkClosed();
+
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        for ( ArtifactDownload download : safe( artifactDownloads ) ) {
+            tasks.add( newGetTask( download, layout.getPath( download.getArtifact() ).toString(), download.getFile(),
+                download.getChecksumPolicy(), download.isExistenceCheck(), download.getTrace() ) );
+        }
+        for ( MetadataDownload download : safe( metadataDownloads ) ) {
+            tasks.add( newGetTask( download, layout.getPath( download.getMetadata() ).toString(), download.getFile(),
+                download.getChecksumPolicy(), false, download.getTrace() ) );
+        }
+
+        run( tasks );
+    }
+
+    public void put( Collection<? extends ArtifactUpload> artifactUploads, Collection<? extends MetadataUpload> metadataUploads ) {
+        checkClosed();
+
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        for ( ArtifactUpload upload : safe( artifactUploads ) ) {
+            tasks.add( newPutTask( upload, layout.getPath( upload.getArtifact() ).toString(), upload.getFile(), upload.getTrace() ) );
+        }
+        for ( MetadataUpload upload : safe( metadataUploads ) ) {
+            tasks.add( newPutTask( upload, layout.getPath( upload.getMetadata() ).toString(), upload.getFile(), upload.getTrace() ) );
+        }
+
+        run( tasks );
+    }
+
+    public void close() {
+        closed = true;
+    }
+
+    abstract GetTask newGetTask( Transfer transfer, String path, File file, String checksumPolicy, boolean existenceCheck, RequestTrace trace );
+
+    abstract PutTask newPutTask( Transfer transfer, String path, File file, RequestTrace trace );
+
+    /**
+     * Run the tasks of a batch and wait for all of them, one after the other unless overridden
+     */
+    void run( List<Runnable> tasks ) {
+        for ( Runnable task : tasks ) {
+            task.run();
+        }
+    }
+
+    void checkClosed() {
+        if ( closed ) {
+            throw new IllegalStateException( "connector closed" );
+        }
+    }
+
+    void fire( TransferEvent.EventType type, TransferEvent.RequestType requestType, DefaultTransferResource resource,
+               long transferred, Exception exception ) throws TransferCancelledException {
+        fire( type, requestType, resource, transferred, null, 0, exception );
+    }
+
+    void fire( TransferEvent.EventType type, TransferEvent.RequestType requestType, DefaultTransferResource resource,
+               long transferred, byte[] buffer, int length, Exception exception ) throws TransferCancelledException {
+        if ( listener == null ) {
+            return;
+        }
+
+        DefaultTransferEvent event = new DefaultTransferEvent();
+        event.setType( type );
+        event.setRequestType( requestType );
+        event.setResource( resource );
+        event.setTransferredBytes( transferred );
+        event.setException( exception );
+        if ( buffer != null ) {
+            event.setDataBuffer( buffer, 0, length );
+        }
+
+        switch ( type ) {
+            case INITIATED:
+                listener.transferInitiated( event );
+                break;
+            case STARTED:
+                listener.transferStarted( event );
+                break;
+            case PROGRESSED:
+                listener.transferProgressed( event );
+                break;
+            case CORRUPTED:
+                listener.transferCorrupted( event );
+                break;
+            case SUCCEEDED:
+                listener.transferSucceeded( event );
+                break;
+            case FAILED:
+                listener.transferFailed( event );
+                break;
+        }
+    }
+
+    private void fireFailed( TransferEvent.RequestType requestType, DefaultTransferResource resource, Exception exception ) {
+        try {
+            fire( TransferEvent.EventType.FAILED, requestType, resource, 0, exception );
+        } catch ( TransferCancelledException e ) {
+            // already failed
+        }
+    }
+
+    /**
+     * Set the exception of a failed transfer, the not found exception if the repository does
+     * not have the resource
+     */
+    private void failed( Transfer transfer, Exception exception, boolean notFound ) {
+        if ( transfer instanceof ArtifactDownload ) {
+            ArtifactDownload download = (ArtifactDownload) transfer;
+            download.setException( notFound ? new ArtifactNotFoundException( download.getArtifact(), repository )
+                : new ArtifactTransferException( download.getArtifact(), repository, exception ) );
+        } else if ( transfer instanceof MetadataDownload ) {
+            MetadataDownload download = (MetadataDownload) transfer;
+            download.setException( notFound ? new MetadataNotFoundException( download.getMetadata(), repository )
+                : new MetadataTransferException( download.getMetadata(), repository, exception ) );
+        } else if ( transfer instanceof ArtifactUpload ) {
+            ArtifactUpload upload = (ArtifactUpload) transfer;
+            upload.setException( new ArtifactTransferException( upload.getArtifact(), repository, exception ) );
+        } else if ( transfer instanceof MetadataUpload ) {
+            MetadataUpload upload = (MetadataUpload) transfer;
+            upload.setException( new MetadataTransferException( upload.getMetadata(), repository, exception ) );
+        }
+    }
+
+    static <T> Collection<T> safe( Collection<T> collection ) {
+        return collection != null ? collection : Collections.<T>emptyList();
+    }
+
+    /**
+     * Download of an artifact or metadata, with checksum verification. A resource missing from
+     * the repository is reported by throwing {@link FileNotFoundException}.
+     */
+    abstract class GetTask implements Runnable {
+
+        final Transfer transfer;
+        final String path;
+        final File file;
+        final String checksumPolicy;
+        final boolean existenceCheck;
+        final DefaultTransferResource resource;
+
+        /**
+         * Digests of the download, calculated when verifying it
+         */
+        Map<String,String> digests;
+
+        GetTask( Transfer transfer, String path, File file, String checksumPolicy, boolean existenceCheck, RequestTrace trace ) {
+            this.transfer = transfer;
+            this.path = path;
+            this.file = file;
+            this.checksumPolicy = checksumPolicy;
+            this.existenceCheck = existenceCheck;
+            this.resource = new DefaultTransferResource( repository.getUrl(), path, file, trace );
+        }
+
+        /**
+         * Check the resource exists in the repository
+         */
+        abstract void exists() throws Exception;
+
+        /**
+         * Download the resource to the file, firing the started and progressed events
+         */
+        abstract void download() throws Exception;
+
+        /**
+         * The checksum of the repository for a download
+         *
+         * @param downloaded File
+         * @param extension String of the checksum, such as .sha1
+         * @return File of the checksum, null if the repository does not have it
+         */
+        abstract File checksum( File downloaded, String extension ) throws IOException;
+
+        public void run() {
+            transfer.setState( Transfer.State.ACTIVE );
+            try {
+                fire( TransferEvent.EventType.INITIATED, TransferEvent.RequestType.GET, resource, 0, null );
+
+                if ( existenceCheck ) {
+                    exists();
+                } else {
+                    download();
+                }
+
+                fire( TransferEvent.EventType.SUCCEEDED, TransferEvent.RequestType.GET, resource, Math.max( 0, resource.getContentLength() ), null );
+            } catch ( FileNotFoundException e ) {
+                fireFailed( TransferEvent.RequestType.GET, resource, e );
+                failed( transfer, e, true );
+            } catch ( Exception e ) {
+                fireFailed( TransferEvent.RequestType.GET, resource, e );
+                failed( transfer, e, false );
+            } finally {
+                transfer.setState( Transfer.State.DONE );
+            }
+        }
+
+        /**
+         * Digests of a download, in a single pass so the local repository can trust them
+         */
+        Map<String,String> digests( File downloaded ) throws IOException {
+            return Checksums.calc( downloaded, Checksums.ALGORITHMS );
+        }
+
+        /**
+         * A checksum that did not match the download
+         */
+        void rejected( File checksum ) {
+        }
+
+        /**
+         * Verify a download with the first checksum the repository has
+         *
+         * @param downloaded File
+         * @return File the checksum of the repository, null if not verified
+         */
+        File verify( File downloaded ) throws IOException, ChecksumFailureException, TransferCancelledException {
+            if ( RepositoryPolicy.CHECKSUM_POLICY_IGNORE.equals( checksumPolicy ) ) {
+                return null;
+            }
+
+            for ( int x = 0; x < CHECKSUM_ALGORITHMS.length; x++ ) {
+                File checksum = checksum( downloaded, CHECKSUM_EXTENSIONS[x] );
+                if ( checksum == null ) {
+                    continue;
+                }
+
+                String expected = ChecksumUtils.read( checksum );
+                if ( digests == null ) {
+                    digests = digests( downloaded );
+                }
+
+                String actual = digests.get( CHECKSUM_ALGORITHMS[x] );
+                if ( !expected.equalsIgnoreCase( actual ) ) {
+                    rejected( checksum );
+                    digests = null;
+                    corrupted( new ChecksumFailureException( expected, actual ) );
+                    return null;
+                }
+
+                return checksum;
+            }
+
+            corrupted( new ChecksumFailureException( "Checksum validation failed, no checksums available from the repository" ) );
+            return null;
+        }
+
+        private void corrupted( ChecksumFailureException exception ) throws ChecksumFailureException, TransferCancelledException {
+            if ( RepositoryPolicy.CHECKSUM_POLICY_FAIL.equals( checksumPolicy ) ) {
+                throw exception;
+            }
+
+            fire( TransferEvent.EventType.CORRUPTED, TransferEvent.RequestType.GET, resource, 0, exception );
+        }
+    }
+
+    /**
+     * Upload of an artifact or metadata, followed by its checksums
+     */
+    abstract class PutTask implements Runnable {
+
+        final Transfer transfer;
+        final String path;
+        final File file;
+        final DefaultTransferResource resource;
+
+        PutTask( Transfer transfer, String path, File file, RequestTrace trace ) {
+            this.transfer = transfer;
+            this.path = path;
+            this.file = file;
+            this.resource = new DefaultTransferResource( repository.getUrl(), path, file, trace );
+        }
+
+        /**
+         * Upload the file and its checksums, firing the progressed events
+         *
+         * @return long bytes uploaded
+         */
+        abstract long upload() throws Exception;
+
+        public void run() {
+            transfer.setState( Transfer.State.ACTIVE );
+            try {
+                fire( TransferEvent.EventType.INITIATED, TransferEvent.RequestType.PUT, resource, 0, null );
+
+                resource.setContentLength( file.length() );
+                fire( TransferEvent.EventType.STARTED, TransferEvent.RequestType.PUT, resource, 0, null );
+                long transferred = upload();
+
+                fire( TransferEvent.EventType.SUCCEEDED, TransferEvent.RequestType.PUT, resource, transferred, null );
+            } catch ( Exception e ) {
+                fireFailed( TransferEvent.RequestType.PUT, resource, e );
+                failed( transfer, e, false );
+            } finally {
+                transfer.setState( Transfer.State.DONE );
+            }
+        }
+    }
+}
@@ -32,6 +32,10 @@ public class BuildWorkspaceReader implements WorkspaceReader {
         artifacts.put( Notation.generate( artifact ), artifact );
     }
 
+    public Map<String,Artifact> getArtifacts() {
+        return Collections.unmodifiableMap( artifacts );
+    }
+
     public File findArtifact(Artifact artifact) {
         Artifact buildArtifact = artifacts.get( Notation.generate( artifact ) );
         if ( buildArtifact != null ) {
@@ -0,0 +1,121 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+import org.sonatype.aether.impl.internal.DefaultFileProcessor;
+import org.sonatype.aether.spi.io.FileProcessor;
+
+/**
+ * {@link FileProcessor} that copies files with {@link FileChannel#transferTo}, so installing
+ * an artifact into the local repository is copied by the kernel instead of through buffers in
+ * the JVM. Copies are written to a temporary file and renamed over the target, and moves are
+ * renames when the source and target are on the same file system.
+ *
+ * A copy with a {@link FileProcessor.ProgressListener} needs the copied data and falls back
+ * to the {@link DefaultFileProcessor}.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class ChannelFileProcessor implements FileProcessor {
+
+    private final DefaultFileProcessor streams = new DefaultFileProcessor();
+
+    public boolean mkdirs( File directory ) {
+        return streams.mkdirs( directory );
+    }
+
+    public void write( File file, String data ) throws IOException {
+        streams.write( file, data );
+    }
+
+    public long copy( File source, File target, ProgressListener listener ) throws IOException {
+        if ( listener != null ) {
+            return streams.copy( source, target, listener );
+        }
+
+        return transfer( source, target );
+    }
+
+    public void move( File source, File target ) throws IOException {
+        mkdirs( target.getAbsoluteFile().getParentFile() );
+        try {
+            Files.move( source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+        } catch ( IOException e ) {
+            transfer( source, target );
+            target.setLastModified( source.lastModified() );
+            source.delete();
+        }
+    }
+
+    /**
+     * Copy a file with {@link FileChannel#transferTo}, replacing the target once copied
+     *
+     * @param source {@link File}
+     * @param target {@link File}
+     * @return long bytes copied
+     * @throws IOException if the file could not be copied completely
+     */
+    static long transfer( File source, File target ) throws IOException {
+        File parent = target.getAbsoluteFile().getParentFile();
+        if ( !parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory() ) {
+            throw new IOException( "Failed to create directory " + parent );
+        }
+
+        File tmp = new File( parent, target.getName() + "-" + UUID.randomUUID().toString().substring( 0, 8 ) + ".tmp" );
+        try {
+            long total = 0;
+            FileChannel in = FileChannel.open( source.toPath(), StandardOpenOption.READ );
+            try {
+                FileChannel out = FileChannel.open( tmp.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE );
+                try {
+                    long size = in.size();
+                    while ( total < size ) {
+                        long transferred = in.transferTo( total, size - total, out );
+                        if ( transferred <= 0 ) {
+                            break;
+                        }
+                        total += transferred;
+                    }
+
+                    // the source shrank while copying, never replace the target with a partial copy
+                    if ( total != size ) {
+                        throw new IOException( "Copied " + total + " of " + size + " bytes of " + source );
+                    }
+                } finally {
+                    out.close();
+                }
+            } finally {
+                in.close();
+            }
+
+            Files.move( tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+            return total;
+        } finally {
+            tmp.delete();
+        }
+    }
+}
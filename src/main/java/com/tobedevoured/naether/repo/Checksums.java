@@ -0,0 +1,294 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.tobedevoured.naether.util.DaemonThreadFactory;
+
+/**
+ * Digests of artifacts in the local repository. The digests are calculated in a single pass
+ * over the file, read through a direct buffer, and recorded next to the file, so they are only
+ * calculated again when the size or modified time of the file changes.
+ *
+ * Files are read through a channel instead of mapped, since a mapped file can not be unmapped
+ * on Java 7 and stays locked on Windows, while downloads are renamed right after verifying them.
+ *
+ * @author Michael Guymon
+ *
+ */
+public final class Checksums {
+
+    public static final String SHA1 = "SHA-1";
+    public static final String SHA256 = "SHA-256";
+    public static final String MD5 = "MD5";
+
+    /**
+     * Algorithms of the digests recorded in the local repository
+     */
+    public static final List<String> ALGORITHMS = Collections.unmodifiableList( Arrays.asList( SHA1, SHA256, MD5 ) );
+
+    /**
+     * Extension of the file the digests are recorded in
+     */
+    public static final String EXTENSION = ".digests";
+
+    private static Logger log = LoggerFactory.getLogger(Checksums.class);
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final String SIZE = "size";
+    private static final String MODIFIED = "modified";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<ByteBuffer> buffers = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocateDirect( BUFFER_SIZE );
+        }
+    };
+
+    private static ExecutorService executor;
+
+    private Checksums() { }
+
+    /**
+     * Calculate digests of a file in a single pass
+     *
+     * @param file {@link File}
+     * @param algorithms Collection of the algorithm names
+     * @return Map of algorithm to hex digest
+     * @throws IOException if the file could not be read
+     */
+    public static Map<String,String> calc( File file, Collection<String> algorithms ) throws IOException {
+        List<MessageDigest> digests = new ArrayList<MessageDigest>( algorithms.size() );
+        for ( String algorithm : algorithms ) {
+            try {
+                digests.add( MessageDigest.getInstance( algorithm ) );
+            } catch ( NoSuchAlgorithmException e ) {
+                throw new IllegalArgumentException( "Unsupported digest " + algorithm, e );
+            }
+        }
+
+        ByteBuffer buffer = buffers.get();
+        FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ );
+        try {
+            buffer.clear();
+            while ( channel.read( buffer ) != -1 ) {
+                buffer.flip();
+                for ( MessageDigest digest : digests ) {
+                    buffer.mark();
+                    digest.update( buffer );
+                    buffer.reset();
+                }
+                buffer.clear();
+            }
+        } finally {
+            channel.close();
+        }
+
+        Map<String,String> result = new LinkedHashMap<String,String>();
+        for ( MessageDigest digest : digests ) {
+            result.put( digest.getAlgorithm(), hex( digest.digest() ) );
+        }
+        return result;
+    }
+
+    /**
+     * Get the digests of a file, from the digests recorded for it or calculated and recorded
+     *
+     * @param file {@link File}
+     * @return Map of algorithm to hex digest, see {@link #ALGORITHMS}
+     * @throws IOException if the file could not be read
+     */
+    public static Map<String,String> digests( File file ) throws IOException {
+        Map<String,String> digests = recorded( file );
+        if ( digests == null ) {
+            digests = calc( file, ALGORITHMS );
+            record( file, digests );
+        }
+
+        return digests;
+    }
+
+    /**
+     * Get the sha1 of a file, see {@link #digests(File)}
+     *
+     * @param file {@link File}
+     * @return String hex sha1
+     * @throws IOException if the file could not be read
+     */
+    public static String sha1( File file ) throws IOException {
+        return digests( file ).get( SHA1 );
+    }
+
+    /**
+     * Get the digests of files concurrently, see {@link #digests(File)}
+     *
+     * @param files Collection of {@link File}
+     * @return Map of file to its digests
+     * @throws IOException if a file could not be read
+     */
+    public static Map<File,Map<String,String>> digests( Collection<File> files ) throws IOException {
+        Map<File,Future<Map<String,String>>> futures = new LinkedHashMap<File,Future<Map<String,String>>>();
+        for ( final File file : files ) {
+            if ( !futures.containsKey( file ) ) {
+                futures.put( file, getExecutor().submit( new Callable<Map<String,String>>() {
+                    public Map<String,String> call() throws IOException {
+                        return digests( file );
+                    }
+                } ) );
+            }
+        }
+
+        Map<File,Map<String,String>> result = new LinkedHashMap<File,Map<String,String>>();
+        for ( Map.Entry<File,Future<Map<String,String>>> entry : futures.entrySet() ) {
+            try {
+                result.put( entry.getKey(), entry.getValue().get() );
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new IOException( "Interrupted hashing " + entry.getKey(), e );
+            } catch ( ExecutionException e ) {
+                if ( e.getCause() instanceof IOException ) {
+                    throw (IOException) e.getCause();
+                } else if ( e.getCause() instanceof Error ) {
+                    throw (Error) e.getCause();
+                }
+                throw new IOException( "Failed to hash " + entry.getKey(), e.getCause() );
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Record the digests of a file, along with its size and modified time
+     *
+     * @param file {@link File}
+     * @param digests Map of algorithm to hex digest
+     */
+    public static void record( File file, Map<String,String> digests ) {
+        File recorded = new File( file.getPath() + EXTENSION );
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter( new FileOutputStream( recorded ), "UTF-8" );
+            writer.write( SIZE + "=" + file.length() + "\n" );
+            writer.write( MODIFIED + "=" + file.lastModified() + "\n" );
+            for ( Map.Entry<String,String> digest : digests.entrySet() ) {
+                writer.write( digest.getKey() + "=" + digest.getValue() + "\n" );
+            }
+        } catch ( IOException e ) {
+            log.debug( "Failed to record digests of {}", file, e );
+        } finally {
+            close( writer );
+        }
+    }
+
+    /**
+     * Get the digests recorded for a file
+     *
+     * @param file {@link File}
+     * @return Map of algorithm to hex digest, null if not recorded for the current content
+     */
+    public static Map<String,String> recorded( File file ) {
+        File recorded = new File( file.getPath() + EXTENSION );
+        if ( !recorded.isFile() ) {
+            return null;
+        }
+
+        Map<String,String> values = new LinkedHashMap<String,String>();
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader( new InputStreamReader( new FileInputStream( recorded ), "UTF-8" ) );
+            String line;
+            while ( ( line = reader.readLine() ) != null ) {
+                int separator = line.indexOf( '=' );
+                if ( separator > 0 ) {
+                    values.put( line.substring( 0, separator ), line.substring( separator + 1 ) );
+                }
+            }
+        } catch ( IOException e ) {
+            log.debug( "Failed to read {}", recorded, e );
+            return null;
+        } finally {
+            close( reader );
+        }
+
+        if ( !String.valueOf( file.length() ).equals( values.remove( SIZE ) )
+                || !String.valueOf( file.lastModified() ).equals( values.remove( MODIFIED ) )
+                || !values.keySet().containsAll( ALGORITHMS ) ) {
+            return null;
+        }
+
+        return values;
+    }
+
+    private static synchronized ExecutorService getExecutor() {
+        if ( executor == null ) {
+            executor = Executors.newFixedThreadPool( Runtime.getRuntime().availableProcessors(), new DaemonThreadFactory( "naether-checksum" ) );
+        }
+
+        return executor;
+    }
+
+    private static String hex( byte[] bytes ) {
+        char[] hex = new char[bytes.length * 2];
+        for ( int x = 0; x < bytes.length; x++ ) {
+            hex[x * 2] = HEX[( bytes[x] >> 4 ) & 0xf];
+            hex[x * 2 + 1] = HEX[bytes[x] & 0xf];
+        }
+        return new String( hex );
+    }
+
+    private static void close( Closeable closeable ) {
+        if ( closeable != null ) {
+            try {
+                closeable.close();
+            } catch ( IOException e ) {
+                log.debug( "Failed to close", e );
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.metadata.Metadata;
+import org.sonatype.aether.repository.LocalArtifactRegistration;
+import org.sonatype.aether.repository.LocalArtifactRequest;
+import org.sonatype.aether.repository.LocalArtifactResult;
+import org.sonatype.aether.repository.LocalMetadataRegistration;
+import org.sonatype.aether.repository.LocalMetadataRequest;
+import org.sonatype.aether.repository.LocalMetadataResult;
+import org.sonatype.aether.repository.LocalRepository;
+import org.sonatype.aether.repository.LocalRepositoryManager;
+import org.sonatype.aether.repository.RemoteRepository;
+
+/**
+ * {@link LocalRepositoryManager} that shares artifacts with other local repositories through
+ * a {@link ContentStore}. Artifacts added to the local repository are stored and replaced with
+ * a link to the stored content, and an artifact missing from the local repository is linked
+ * from the store before Aether downloads it.
+ *
+ * The content is verified against the checksums of the repository when first downloaded, and
+ * the store records the repositories it was downloaded from. An artifact is only linked from
+ * the store for a request resolving from one of those repositories, and is registered for that
+ * repository. Snapshots change without changing their path and are never stored, neither are
+ * installed artifacts.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class ContentAddressedLocalRepositoryManager implements LocalRepositoryManager {
+
+    private static Logger log = LoggerFactory.getLogger(ContentAddressedLocalRepositoryManager.class);
+
+    private final LocalRepositoryManager delegate;
+    private final ContentStore store;
+
+    /**
+     * Create new instance
+     *
+     * @param delegate {@link LocalRepositoryManager} of the local repository
+     * @param store {@link ContentStore}
+     */
+    public ContentAddressedLocalRepositoryManager( LocalRepositoryManager delegate, ContentStore store ) {
+        this.delegate = delegate;
+        this.store = store;
+    }
+
+    public ContentStore getContentStore() {
+        return store;
+    }
+
+    public LocalRepositoryManager getDelegate() {
+        return delegate;
+    }
+
+    public LocalRepository getRepository() {
+        return delegate.getRepository();
+    }
+
+    public String getPathForLocalArtifact( Artifact artifact ) {
+        return delegate.getPathForLocalArtifact( artifact );
+    }
+
+    public String getPathForRemoteArtifact( Artifact artifact, RemoteRepository repository, String context ) {
+        return delegate.getPathForRemoteArtifact( artifact, repository, context );
+    }
+
+    public String getPathForLocalMetadata( Metadata metadata ) {
+        return delegate.getPathForLocalMetadata( metadata );
+    }
+
+    public String getPathForRemoteMetadata( Metadata metadata, RemoteRepository repository, String context ) {
+        return delegate.getPathForRemoteMetadata( metadata, repository, context );
+    }
+
+    public LocalArtifactResult find( RepositorySystemSession session, LocalArtifactRequest request ) {
+        LocalArtifactResult result = delegate.find( session, request );
+        Artifact artifact = request.getArtifact();
+        if ( result.isAvailable() || artifact.isSnapshot() ) {
+            return result;
+        }
+
+        String path = delegate.getPathForLocalArtifact( artifact );
+        File file = new File( getRepository().getBasedir(), path );
+        RemoteRepository repository = store.link( path, file, request.getRepositories() );
+        if ( repository == null ) {
+            return result;
+        }
+
+        delegate.add( session, new LocalArtifactRegistration( artifact.setFile( file ), repository,
+            Collections.singleton( request.getContext() ) ) );
+
+        return delegate.find( session, request );
+    }
+
+    public void add( RepositorySystemSession session, LocalArtifactRegistration request ) {
+        delegate.add( session, request );
+
+        // installed artifacts can be rewritten in place, which would change the stored content
+        Artifact artifact = request.getArtifact();
+        if ( artifact.isSnapshot() || request.getRepository() == null ) {
+            return;
+        }
+
+        String path = delegate.getPathForLocalArtifact( artifact );
+        File file = new File( getRepository().getBasedir(), path );
+        if ( file.isFile() ) {
+            try {
+                store.store( path, file, request.getRepository() );
+            } catch ( IOException e ) {
+                log.warn( "Failed to store {} in content store", file, e );
+            }
+        }
+    }
+
+    public LocalMetadataResult find( RepositorySystemSession session, LocalMetadataRequest request ) {
+        return delegate.find( session, request );
+    }
+
+    public void add( RepositorySystemSession session, LocalMetadataRegistration request ) {
+        delegate.add( session, request );
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf( getRepository() ) + " " + store;
+    }
+}
@@ -0,0 +1,340 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonatype.aether.repository.RemoteRepository;
+
+/**
+ * Content addressed store of artifacts shared by local repositories. Each artifact is stored
+ * once under its sha1 and linked into the local repositories with a hard link, falling back to
+ * a copy when the store and the local repository are on different file systems. The store also
+ * records the sha1 of each path of the repository layout along with the remote repositories
+ * the content was downloaded from, so an artifact stored by one local repository is linked into
+ * another resolving from the same remote repository without downloading it.
+ *
+ * A stored object shares its content with every linked file, so a tool rewriting one of those
+ * files in place changes the object. The sha1 of an object is checked before it is linked and
+ * an object that no longer matches is dropped from the store. Only downloaded content is stored,
+ * installed artifacts are left to the local repository.
+ *
+ * The store is laid out as <code>objects/ab/abcdef...</code> for the content and
+ * <code>paths/group/artifact/version/artifact-version.jar.sha1</code> for the paths, holding the
+ * sha1 on the first line followed by a line of <code>id\turl</code> for each source repository.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class ContentStore {
+
+    private static Logger log = LoggerFactory.getLogger(ContentStore.class);
+
+    private final File basedir;
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong linked = new AtomicLong();
+    private final AtomicLong copied = new AtomicLong();
+
+    /**
+     * Create new instance
+     *
+     * @param basedir File of the store
+     */
+    public ContentStore( File basedir ) {
+        this.basedir = basedir.getAbsoluteFile();
+    }
+
+    public File getBasedir() {
+        return basedir;
+    }
+
+    /**
+     * Store a file downloaded into a local repository, replacing the file with a link to the
+     * stored content
+     *
+     * @param path String of the file in the repository layout
+     * @param file File in the local repository
+     * @param repository {@link RemoteRepository} the file was downloaded from
+     * @return String sha1 of the file
+     * @throws IOException if the file could not be stored
+     */
+    public String store( String path, File file, RemoteRepository repository ) throws IOException {
+        String sha1 = Checksums.sha1( file );
+        File object = getObject( sha1 );
+
+        if ( !object.exists() || !verify( object, sha1 ) ) {
+            mkdirs( object.getParentFile() );
+            try {
+                Files.createLink( object.toPath(), file.toPath() );
+            } catch ( IOException e ) {
+                copy( file, object );
+            } catch ( UnsupportedOperationException e ) {
+                copy( file, object );
+            }
+            stored.incrementAndGet();
+        } else if ( !Files.isSameFile( object.toPath(), file.toPath() ) ) {
+            replaceWithLink( object, file );
+        }
+
+        synchronized ( this ) {
+            List<String> sources = new ArrayList<String>();
+            List<String> record = readPath( path );
+            if ( record != null && record.get( 0 ).equals( sha1 ) ) {
+                sources.addAll( record.subList( 1, record.size() ) );
+            }
+
+            if ( !sources.contains( source( repository ) ) ) {
+                sources.add( source( repository ) );
+            }
+
+            writePath( path, sha1, sources );
+        }
+
+        return sha1;
+    }
+
+    /**
+     * Link the stored content of a path into a local repository, if the content was downloaded
+     * from one of the remote repositories
+     *
+     * @param path String of the file in the repository layout
+     * @param file File in the local repository to create
+     * @param repositories List of {@link RemoteRepository} the file may come from
+     * @return {@link RemoteRepository} the linked content was downloaded from, or null if nothing was linked
+     */
+    public RemoteRepository link( String path, File file, List<RemoteRepository> repositories ) {
+        List<String> record = readPath( path );
+        if ( record == null ) {
+            return null;
+        }
+
+        RemoteRepository source = null;
+        for ( RemoteRepository repository : repositories ) {
+            if ( record.subList( 1, record.size() ).contains( source( repository ) ) ) {
+                source = repository;
+                break;
+            }
+        }
+
+        if ( source == null ) {
+            log.debug( "{} is not stored for {}", path, repositories );
+            return null;
+        }
+
+        File object = getObject( record.get( 0 ) );
+        if ( !object.isFile() || !verify( object, record.get( 0 ) ) ) {
+            return null;
+        }
+
+        try {
+            mkdirs( file.getParentFile() );
+            replaceWithLink( object, file );
+        } catch ( IOException e ) {
+            log.warn( "Failed to link {} to {}", object, file, e );
+            return null;
+        }
+
+        log.debug( "Linked {} of {} from content store", path, source.getId() );
+        return source;
+    }
+
+    /**
+     * Get the stored content of a sha1
+     *
+     * @param sha1 String
+     * @return File, which may not exist
+     */
+    public File getObject( String sha1 ) {
+        return new File( basedir, "objects/" + sha1.substring( 0, 2 ) + "/" + sha1 );
+    }
+
+    /**
+     * Files added to the store
+     *
+     * @return long
+     */
+    public long getStored() {
+        return stored.get();
+    }
+
+    /**
+     * Files of local repositories linked to stored content
+     *
+     * @return long
+     */
+    public long getLinked() {
+        return linked.get();
+    }
+
+    /**
+     * Files of local repositories copied from stored content, since they could not be linked
+     *
+     * @return long
+     */
+    public long getCopied() {
+        return copied.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ContentStore[" + basedir + ", stored=" + stored + ", linked=" + linked + ", copied=" + copied + "]";
+    }
+
+    /**
+     * Check the content of an object still matches its sha1, dropping the object if not
+     *
+     * @return boolean true if the object matches
+     */
+    private boolean verify( File object, String sha1 ) {
+        try {
+            if ( sha1.equals( Checksums.sha1( object ) ) ) {
+                return true;
+            }
+        } catch ( IOException e ) {
+            log.debug( "Failed to read {}", object, e );
+        }
+
+        log.warn( "Stored content {} was changed, dropping it from the content store", object );
+        object.delete();
+        return false;
+    }
+
+    private void replaceWithLink( File object, File file ) throws IOException {
+        File tmp = new File( file.getParentFile(), file.getName() + "-" + UUID.randomUUID().toString().substring( 0, 8 ) + ".tmp" );
+        try {
+            try {
+                Files.createLink( tmp.toPath(), object.toPath() );
+                linked.incrementAndGet();
+            } catch ( IOException e ) {
+                Files.copy( object.toPath(), tmp.toPath() );
+                copied.incrementAndGet();
+            } catch ( UnsupportedOperationException e ) {
+                Files.copy( object.toPath(), tmp.toPath() );
+                copied.incrementAndGet();
+            }
+
+            Files.move( tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+        } finally {
+            tmp.delete();
+        }
+    }
+
+    private void copy( File file, File object ) throws IOException {
+        File tmp = new File( object.getPath() + "-" + UUID.randomUUID().toString().substring( 0, 8 ) + ".tmp" );
+        try {
+            Files.copy( file.toPath(), tmp.toPath() );
+            Files.move( tmp.toPath(), object.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+        } finally {
+            tmp.delete();
+        }
+    }
+
+    private static String source( RemoteRepository repository ) {
+        String url = repository.getUrl();
+        while ( url.endsWith( "/" ) ) {
+            url = url.substring( 0, url.length() - 1 );
+        }
+
+        return repository.getId() + "\t" + url;
+    }
+
+    private List<String> readPath( String path ) {
+        File file = new File( basedir, "paths/" + path + ".sha1" );
+        if ( !file.isFile() ) {
+            return null;
+        }
+
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader( new InputStreamReader( new FileInputStream( file ), "UTF-8" ) );
+            String sha1 = reader.readLine();
+            if ( sha1 == null || sha1.trim().length() != 40 ) {
+                return null;
+            }
+
+            List<String> record = new ArrayList<String>();
+            record.add( sha1.trim() );
+            for ( String line = reader.readLine(); line != null; line = reader.readLine() ) {
+                if ( line.trim().length() > 0 ) {
+                    record.add( line.trim() );
+                }
+            }
+
+            return record;
+        } catch ( IOException e ) {
+            log.debug( "Failed to read {}", file, e );
+            return null;
+        } finally {
+            close( reader );
+        }
+    }
+
+    private void writePath( String path, String sha1, List<String> sources ) throws IOException {
+        File file = new File( basedir, "paths/" + path + ".sha1" );
+        mkdirs( file.getParentFile() );
+
+        File tmp = new File( file.getPath() + "-" + UUID.randomUUID().toString().substring( 0, 8 ) + ".tmp" );
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter( new FileOutputStream( tmp ), "UTF-8" );
+            writer.write( sha1 );
+            for ( String source : sources ) {
+                writer.write( "\n" + source );
+            }
+            writer.close();
+            writer = null;
+
+            Files.move( tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+        } finally {
+            close( writer );
+            tmp.delete();
+        }
+    }
+
+    private static void mkdirs( File dir ) throws IOException {
+        if ( !dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory() ) {
+            throw new IOException( "Failed to create directory " + dir );
+        }
+    }
+
+    private static void close( Closeable closeable ) {
+        if ( closeable != null ) {
+            try {
+                closeable.close();
+            } catch ( IOException e ) {
+                log.debug( "Failed to close", e );
+            }
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
+import org.sonatype.aether.spi.connector.RepositoryConnectorFactory;
+import org.sonatype.aether.spi.locator.Service;
+import org.sonatype.aether.spi.locator.ServiceLocator;
+import org.sonatype.aether.transfer.NoRepositoryConnectorException;
+import org.sonatype.aether.util.ConfigUtils;
+import org.sonatype.aether.util.DefaultRepositorySystemSession;
+
+/**
+ * {@link RepositoryConnectorFactory} that delegates to the highest priority factory registered
+ * with the {@link ServiceLocator} and wraps the connector to cap the number of concurrent
+ * transfers to a single remote repository and to a single http host.
+ * 
+ * The caps are read from the session config properties {@link #CONFIG_REPOSITORY_THREADS} and
+ * {@link #CONFIG_MAX_CONNECTIONS_PER_HOST}, a value of 0 or less leaves the cap off. The
+ * connect and read timeouts of the session are passed to the wagons as a wagon configuration,
+ * see {@link ManualWagonProvider}.
+ *
+ * Downloads are recorded with the {@link RepositoryHealth} shared by the clients. A repository
+ * that is down gets no connector, and a mirror from a {@link FailoverMirrorSelector} uses its
+ * healthiest url, retrying failed downloads with its other urls. Transfers failing with a
+ * transient error are first retried with the same url, see {@link RetryingRepositoryConnector}.
+ * With {@link #CONFIG_NOT_FOUND_TTL} set, resources a repository did not have are not requested
+ * again until the time to live has passed, see {@link NegativeCachingRepositoryConnector}.
+ * Artifacts the {@link RoutingRules} of {@link #CONFIG_ROUTING_RULES} do not route to a
+ * repository are never requested from it. Connectors other than the {@link HttpRepositoryConnector}
+ * have the digests of their downloads recorded afterwards, see {@link DigestingRepositoryConnector}.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class DelegatingRepositoryConnectorFactory implements RepositoryConnectorFactory, Service {
+
+    /**
+     * Session config property for the max concurrent transfers per remote repository
+     */
+    public static final String CONFIG_REPOSITORY_THREADS = "naether.connector.repositoryThreads";
+
+    /**
+     * Session config property for the max concurrent connections to a single http host
+     */
+    public static final String CONFIG_MAX_CONNECTIONS_PER_HOST = "naether.connector.maxConnectionsPerHost";
+
+    /**
+     * Session config property for the max retries of a transfer failing with a transient error
+     */
+    public static final String CONFIG_RETRIES = "naether.connector.retries";
+
+    /**
+     * Session config property for the milliseconds before the first retry, doubled for every retry
+     */
+    public static final String CONFIG_RETRY_BACKOFF = "naether.connector.retryBackoff";
+
+    /**
+     * Session config property for the max milliseconds between retries
+     */
+    public static final String CONFIG_RETRY_MAX_BACKOFF = "naether.connector.retryMaxBackoff";
+
+    /**
+     * Session config property for the milliseconds a resource not found in a repository is
+     * not requested again, see {@link NegativeCache}
+     */
+    public static final String CONFIG_NOT_FOUND_TTL = "naether.connector.notFoundTtl";
+
+    /**
+     * Session config property for the {@link RoutingRules} of artifacts to repositories
+     */
+    public static final String CONFIG_ROUTING_RULES = "naether.connector.routingRules";
+
+    /**
+     * Default max retries of a transfer
+     */
+    public static final int DEFAULT_RETRIES = 0;
+
+    /**
+     * Default milliseconds before the first retry
+     */
+    public static final long DEFAULT_RETRY_BACKOFF = 500;
+
+    /**
+     * Default max milliseconds between retries
+     */
+    public static final long DEFAULT_RETRY_MAX_BACKOFF = 10000;
+
+    private static final String CONNECT_TIMEOUT = "aether.connector.connectTimeout";
+    private static final String REQUEST_TIMEOUT = "aether.connector.requestTimeout";
+    private static final String WAGON_CONFIG = "aether.connector.wagon.config.";
+    private static final String WAGON_THREADS = "aether.connector.wagon.threads";
+    private static final int DEFAULT_THREADS = 5;
+
+    private static final ConcurrentMap<String,Semaphore> PERMITS = new ConcurrentHashMap<String,Semaphore>();
+
+    private ServiceLocator locator;
+    private List<RepositoryConnectorFactory> factories;
+
+    public void initService( ServiceLocator locator ) {
+        this.locator = locator;
+    }
+
+    public RepositoryConnector newInstance( RepositorySystemSession session, RemoteRepository repository ) throws NoRepositoryConnectorException {
+        List<RemoteRepository> failovers = Collections.emptyList();
+        if ( session.getMirrorSelector() instanceof FailoverMirrorSelector ) {
+            FailoverMirrorSelector mirrorSelector = (FailoverMirrorSelector)session.getMirrorSelector();
+            repository = mirrorSelector.failover( repository );
+            failovers = mirrorSelector.getFailovers( repository );
+        }
+
+        RepositoryConnector connector = newConnector( session, repository );
+        if ( !failovers.isEmpty() ) {
+            connector = new FailoverRepositoryConnector( this, session, connector, failovers );
+        }
+
+        Object rules = session.getConfigProperties().get( CONFIG_ROUTING_RULES );
+        if ( rules instanceof RoutingRules && !( (RoutingRules) rules ).isEmpty() ) {
+            connector = new RoutingRepositoryConnector( connector, (RoutingRules) rules, repository );
+        }
+
+        return connector;
+    }
+
+    /**
+     * Create a connector for the repository without failing over
+     */
+    RepositoryConnector newConnector( RepositorySystemSession session, RemoteRepository repository ) throws NoRepositoryConnectorException {
+        RepositoryHealth health = RepositoryClient.getRepositoryHealth();
+        if ( health.isDown( repository.getUrl() ) ) {
+            throw new NoRepositoryConnectorException( repository, "Repository " + repository.getUrl() + " is down, skipping until its cool-down has passed" );
+        }
+
+        int hostLimit = isHttp( repository ) ? ConfigUtils.getInteger( session, 0, CONFIG_MAX_CONNECTIONS_PER_HOST ) : 0;
+        RepositorySystemSession connectorSession = getConnectorSession( session, repository, hostLimit );
+
+        for ( RepositoryConnectorFactory factory : getFactories() ) {
+            RepositoryConnector connector;
+            try {
+                connector = factory.newInstance( connectorSession, repository );
+            } catch ( NoRepositoryConnectorException e ) {
+                continue;
+            }
+
+            // the http connector records the digests while verifying a download
+            if ( !( connector instanceof HttpRepositoryConnector ) ) {
+                connector = new DigestingRepositoryConnector( connector );
+            }
+
+            // when retrying, the retrying connector records the final failure so only the final
+            // outcome counts against the repository
+            int retries = ConfigUtils.getInteger( session, DEFAULT_RETRIES, CONFIG_RETRIES );
+            connector = new HealthTrackingRepositoryConnector( connector, health, repository.getUrl(), retries == 0 );
+
+            // host permits are acquired last, so a connector never waits on the host while
+            // holding permits another connector to the host needs
+            if ( hostLimit > 0 ) {
+                connector = new ThrottledRepositoryConnector( connector, getPermits( "host|" + hostLimit + "|" + getHost( repository ), hostLimit ), hostLimit );
+            }
+
+            int limit = ConfigUtils.getInteger( session, 0, CONFIG_REPOSITORY_THREADS );
+            if ( limit > 0 ) {
+                connector = new ThrottledRepositoryConnector( connector, getPermits( limit + "|" + repository.getUrl(), limit ), limit );
+            }
+
+            // retried outside the throttles, so no permits are held while backing off
+            if ( retries > 0 ) {
+                connector = new RetryingRepositoryConnector( connector, health, repository.getUrl(), retries,
+                    ConfigUtils.getLong( session, DEFAULT_RETRY_BACKOFF, CONFIG_RETRY_BACKOFF ),
+                    ConfigUtils.getLong( session, DEFAULT_RETRY_MAX_BACKOFF, CONFIG_RETRY_MAX_BACKOFF ) );
+            }
+
+            // outside the throttles and health tracking, a cached miss takes no permit and is no transfer
+            long notFoundTtl = ConfigUtils.getLong( session, 0, CONFIG_NOT_FOUND_TTL );
+            if ( notFoundTtl > 0 && session.getLocalRepository() != null ) {
+                connector = new NegativeCachingRepositoryConnector( connector, NegativeCache.get( session.getLocalRepository().getBasedir() ),
+                    repository, notFoundTtl );
+            }
+
+            return connector;
+        }
+
+        throw new NoRepositoryConnectorException( repository );
+    }
+
+    public int getPriority() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * The other registered factories, highest priority first. Resolved lazily since the
+     * locator is still initializing the factories when this service is initialized.
+     *
+     * @return List of {@link RepositoryConnectorFactory}
+     */
+    private synchronized List<RepositoryConnectorFactory> getFactories() {
+        if ( factories == null ) {
+            factories = new ArrayList<RepositoryConnectorFactory>();
+            if ( locator != null ) {
+                for ( RepositoryConnectorFactory factory : locator.getServices( RepositoryConnectorFactory.class ) ) {
+                    if ( !( factory instanceof DelegatingRepositoryConnectorFactory ) ) {
+                        factories.add( factory );
+                    }
+                }
+            }
+
+            Collections.sort( factories, new Comparator<RepositoryConnectorFactory>() {
+                public int compare( RepositoryConnectorFactory o1, RepositoryConnectorFactory o2 ) {
+                    return o2.getPriority() - o1.getPriority();
+                }
+            });
+        }
+
+        return factories;
+    }
+
+    /**
+     * The session for the wrapped connector. Passes the timeouts to the wagons and keeps the
+     * connector threads within the host limit, returns the session unchanged if neither applies.
+     */
+    private static RepositorySystemSession getConnectorSession( RepositorySystemSession session, RemoteRepository repository, int hostLimit ) {
+        int connectTimeout = ConfigUtils.getInteger( session, 0, CONNECT_TIMEOUT );
+        int readTimeout = ConfigUtils.getInteger( session, 0, REQUEST_TIMEOUT );
+        String wagonConfigKey = WAGON_CONFIG + repository.getId();
+
+        boolean configureWagon = ( connectTimeout > 0 || readTimeout > 0 ) && session.getConfigProperties().get( wagonConfigKey ) == null;
+        boolean limitThreads = hostLimit > 0 && ( ConfigUtils.getInteger( session, DEFAULT_THREADS, WAGON_THREADS ) > hostLimit ||
+            ConfigUtils.getInteger( session, DEFAULT_THREADS, HttpRepositoryConnectorFactory.CONFIG_THREADS ) > hostLimit );
+        if ( !configureWagon && !limitThreads ) {
+            return session;
+        }
+
+        Map<String,Object> config = new HashMap<String,Object>( session.getConfigProperties() );
+        if ( configureWagon ) {
+            Map<String,Integer> wagonConfig = new HashMap<String,Integer>();
+            if ( connectTimeout > 0 ) {
+                wagonConfig.put( "connectTimeout", connectTimeout );
+            }
+            if ( readTimeout > 0 ) {
+                wagonConfig.put( "readTimeout", readTimeout );
+            }
+            config.put( wagonConfigKey, wagonConfig );
+        }
+
+        if ( limitThreads ) {
+            config.put( WAGON_THREADS, hostLimit );
+            config.put( HttpRepositoryConnectorFactory.CONFIG_THREADS, hostLimit );
+        }
+
+        return new DefaultRepositorySystemSession( session ).setConfigProps( config );
+    }
+
+    private static boolean isHttp( RemoteRepository repository ) {
+        return "http".equals( repository.getProtocol() ) || "https".equals( repository.getProtocol() );
+    }
+
+    /**
+     * The protocol, host and port of the repository
+     */
+    private static String getHost( RemoteRepository repository ) {
+        try {
+            URI uri = new URI( repository.getUrl() );
+            return uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+        } catch ( URISyntaxException e ) {
+            return repository.getUrl();
+        }
+    }
+
+    /**
+     * Permits are shared for all connectors with the same key, such as the repository url,
+     * so the limit holds across sessions and threads.
+     */
+    private static Semaphore getPermits( String key, int limit ) {
+        Semaphore permits = PERMITS.get( key );
+        if ( permits == null ) {
+            Semaphore created = new Semaphore( limit, true );
+            permits = PERMITS.putIfAbsent( key, created );
+            if ( permits == null ) {
+                permits = created;
+            }
+        }
+
+        return permits;
+    }
+}
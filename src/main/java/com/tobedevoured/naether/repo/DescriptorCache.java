@@ -0,0 +1,402 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.sonatype.aether.RepositoryCache;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.repository.LocalRepositoryManager;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.WorkspaceReader;
+import org.sonatype.aether.util.ConfigUtils;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+/**
+ * {@link RepositoryCache} that shares parsed artifact descriptors between sessions, so
+ * repeated collections do not re-read and re-parse the same POMs.
+ *
+ * Descriptors are held in a bounded LRU, keyed by the artifact and a partition describing
+ * everything else that affects a descriptor: the remote repositories, the local repository,
+ * the workspace and the user properties. The partition is passed with the session config
+ * property {@link #CONFIG_PARTITION}, see {@link #partition(RepositorySystemSession, Collection)}.
+ * A session without a partition, snapshot descriptors and failed descriptors are only cached
+ * for the life of the session, as is all other data Aether stores in the cache. A shared
+ * descriptor is dropped if its POM is removed from the local repository.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class DescriptorCache implements RepositoryCache {
+
+    /**
+     * Default max number of cached descriptors
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 2048;
+
+    /**
+     * Session config property for the descriptor partition
+     */
+    public static final String CONFIG_PARTITION = "naether.cache.descriptorPartition";
+
+    /**
+     * Cache key of the descriptors used by Aether's dependency collector
+     */
+    static final String DESCRIPTORS = "org.sonatype.aether.impl.internal.DataPool$Descriptors";
+
+    private static final String BAD_DESCRIPTOR = "BadDescriptor";
+
+    private final Map<RepositorySystemSession,Map<Object,Object>> sessions =
+        Collections.synchronizedMap( new WeakHashMap<RepositorySystemSession,Map<Object,Object>>() );
+
+    private final LinkedHashMap<DescriptorKey,Descriptor> descriptors;
+    private int maxEntries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Create new instance with {@link #DEFAULT_MAX_ENTRIES}
+     */
+    public DescriptorCache() {
+        this( DEFAULT_MAX_ENTRIES );
+    }
+
+    /**
+     * Create new instance
+     *
+     * @param maxEntries int max number of cached descriptors
+     */
+    public DescriptorCache( int maxEntries ) {
+        this.maxEntries = maxEntries;
+
+        descriptors = new LinkedHashMap<DescriptorKey,Descriptor>( 256, 0.75f, true ) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<DescriptorKey,Descriptor> eldest ) {
+                if ( size() > DescriptorCache.this.maxEntries ) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Generate the partition for collecting from repositories with a session
+     *
+     * @param session {@link RepositorySystemSession}
+     * @param repositories Collection of {@link RemoteRepository}
+     * @return String
+     */
+    public static String partition( RepositorySystemSession session, Collection<RemoteRepository> repositories ) {
+        StringBuilder partition = new StringBuilder();
+
+        for ( RemoteRepository repository : repositories ) {
+            partition.append( repository.getId() ).append( '=' ).append( repository.getUrl() ).append( ',' );
+        }
+
+        if ( session.getLocalRepository() != null ) {
+            partition.append( '|' ).append( session.getLocalRepository().getBasedir().getAbsolutePath() );
+        }
+
+        WorkspaceReader workspaceReader = session.getWorkspaceReader();
+        if ( workspaceReader instanceof BuildWorkspaceReader ) {
+            partition.append( '|' );
+            for ( Map.Entry<String,Artifact> entry : new TreeMap<String,Artifact>( ( (BuildWorkspaceReader) workspaceReader ).getArtifacts() ).entrySet() ) {
+                partition.append( entry.getKey() ).append( '=' ).append( entry.getValue().getFile() ).append( ',' );
+            }
+        } else if ( workspaceReader != null ) {
+            partition.append( '|' ).append( System.identityHashCode( workspaceReader ) );
+        }
+
+        partition.append( '|' ).append( new TreeMap<String,String>( session.getUserProperties() ) );
+
+        return partition.toString();
+    }
+
+    public Object get( RepositorySystemSession session, Object key ) {
+        if ( DESCRIPTORS.equals( key ) ) {
+            String partition = ConfigUtils.getString( session, null, CONFIG_PARTITION );
+            if ( partition != null ) {
+                return new PartitionView( partition, session, getSessionData( session ) );
+            }
+        }
+
+        return getSessionData( session ).get( key );
+    }
+
+    public void put( RepositorySystemSession session, Object key, Object data ) {
+        getSessionData( session ).put( key, data );
+    }
+
+    /**
+     * Get a cached descriptor. A descriptor whose POM has been removed from the local
+     * repository is dropped, so the POM is downloaded again.
+     *
+     * @param partition String
+     * @param artifact Object key of the descriptor
+     * @return Object descriptor or null
+     */
+    Object getDescriptor( String partition, Object artifact ) {
+        DescriptorKey key = new DescriptorKey( partition, artifact );
+        Descriptor descriptor;
+        synchronized ( descriptors ) {
+            descriptor = descriptors.get( key );
+        }
+
+        if ( descriptor != null && descriptor.pom != null && !descriptor.pom.exists() ) {
+            synchronized ( descriptors ) {
+                descriptors.remove( key );
+            }
+            descriptor = null;
+        }
+
+        if ( descriptor != null ) {
+            hits.incrementAndGet();
+            return descriptor.data;
+        } else {
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * If a descriptor is cached, without counting a hit or miss
+     *
+     * @param partition String
+     * @param artifact Object key of the descriptor
+     * @return boolean
+     */
+    boolean contains( String partition, Object artifact ) {
+        synchronized ( descriptors ) {
+            return descriptors.containsKey( new DescriptorKey( partition, artifact ) );
+        }
+    }
+
+    /**
+     * Cache a descriptor
+     *
+     * @param partition String
+     * @param artifact Object key of the descriptor
+     * @param descriptor Object
+     * @param pom File of the descriptor in the local repository, may be null
+     */
+    void putDescriptor( String partition, Object artifact, Object descriptor, File pom ) {
+        synchronized ( descriptors ) {
+            descriptors.put( new DescriptorKey( partition, artifact ), new Descriptor( descriptor, pom ) );
+        }
+    }
+
+    /**
+     * Set the max number of cached descriptors, evicting the least recently used if the
+     * cache is larger
+     *
+     * @param maxEntries int
+     */
+    public void setMaxEntries( int maxEntries ) {
+        synchronized ( descriptors ) {
+            this.maxEntries = maxEntries;
+
+            Iterator<DescriptorKey> keys = descriptors.keySet().iterator();
+            while ( descriptors.size() > maxEntries && keys.hasNext() ) {
+                keys.next();
+                keys.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Number of cached descriptors
+     *
+     * @return int
+     */
+    public int size() {
+        synchronized ( descriptors ) {
+            return descriptors.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Remove all cached descriptors and reset the counters
+     */
+    public void clear() {
+        synchronized ( descriptors ) {
+            descriptors.clear();
+        }
+
+        hits.set( 0 );
+        misses.set( 0 );
+        evictions.set( 0 );
+    }
+
+    @Override
+    public String toString() {
+        return "DescriptorCache[size=" + size() + ", max=" + maxEntries + ", hits=" + hits + ", misses=" +
+            misses + ", evictions=" + evictions + "]";
+    }
+
+    private Map<Object,Object> getSessionData( RepositorySystemSession session ) {
+        synchronized ( sessions ) {
+            Map<Object,Object> data = sessions.get( session );
+            if ( data == null ) {
+                data = Collections.synchronizedMap( new HashMap<Object,Object>() );
+                sessions.put( session, data );
+            }
+
+            return data;
+        }
+    }
+
+    /**
+     * The descriptors of a partition as the Map expected by the collector, which only
+     * uses get and put.
+     */
+    private class PartitionView extends AbstractMap<Object,Object> {
+
+        private final String partition;
+        private final RepositorySystemSession session;
+        private final Map<Object,Object> sessionData;
+
+        PartitionView( String partition, RepositorySystemSession session, Map<Object,Object> sessionData ) {
+            this.partition = partition;
+            this.session = session;
+            this.sessionData = sessionData;
+        }
+
+        @Override
+        public Object get( Object key ) {
+            Object descriptor = sessionData.get( new DescriptorKey( partition, key ) );
+            if ( descriptor == null ) {
+                descriptor = getDescriptor( partition, key );
+            }
+
+            return descriptor;
+        }
+
+        @Override
+        public boolean containsKey( Object key ) {
+            return get( key ) != null;
+        }
+
+        @Override
+        public Object put( Object key, Object descriptor ) {
+            boolean shared = !( key instanceof Artifact && ( (Artifact) key ).isSnapshot() ) &&
+                !BAD_DESCRIPTOR.equals( descriptor.getClass().getSimpleName() );
+
+            if ( shared ) {
+                putDescriptor( partition, key, descriptor, getLocalPom( key ) );
+            } else {
+                sessionData.put( new DescriptorKey( partition, key ), descriptor );
+            }
+
+            return null;
+        }
+
+        @Override
+        public Set<Map.Entry<Object,Object>> entrySet() {
+            return Collections.emptySet();
+        }
+
+        private File getLocalPom( Object key ) {
+            LocalRepositoryManager manager = session.getLocalRepositoryManager();
+            if ( !( key instanceof Artifact ) || manager == null ) {
+                return null;
+            }
+
+            Artifact artifact = (Artifact) key;
+            Artifact pom = new DefaultArtifact( artifact.getGroupId(), artifact.getArtifactId(), "", "pom", artifact.getVersion() );
+            return new File( manager.getRepository().getBasedir(), manager.getPathForLocalArtifact( pom ) );
+        }
+    }
+
+    private static final class Descriptor {
+
+        private final Object data;
+        private final File pom;
+
+        Descriptor( Object data, File pom ) {
+            this.data = data;
+            this.pom = pom;
+        }
+    }
+
+    private static final class DescriptorKey {
+
+        private final String partition;
+        private final Object artifact;
+        private final int hashCode;
+
+        DescriptorKey( String partition, Object artifact ) {
+            this.partition = partition;
+            this.artifact = artifact;
+            this.hashCode = 31 * partition.hashCode() + artifact.hashCode();
+        }
+
+        @Override
+        public boolean equals( Object obj ) {
+            if ( this == obj ) {
+                return true;
+            }
+            if ( !( obj instanceof DescriptorKey ) ) {
+                return false;
+            }
+
+            DescriptorKey that = (DescriptorKey) obj;
+            return partition.equals( that.partition ) && artifact.equals( that.artifact );
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.graph.Dependency;
+import org.sonatype.aether.impl.ArtifactDescriptorReader;
+import org.sonatype.aether.impl.RemoteRepositoryManager;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.resolution.ArtifactDescriptorException;
+import org.sonatype.aether.resolution.ArtifactDescriptorRequest;
+import org.sonatype.aether.resolution.ArtifactDescriptorResult;
+import org.sonatype.aether.util.artifact.ArtifactProperties;
+
+import com.tobedevoured.naether.util.DaemonThreadFactory;
+
+/**
+ * Speculatively reads the descriptors of the dependencies listed in a descriptor in the
+ * background, while the collector processes the descriptor, so the POMs are already
+ * downloaded and parsed when the collector reaches them. The look-ahead is the number of
+ * levels of the graph read ahead, set with the session config property {@link #CONFIG_DEPTH}.
+ *
+ * Dependencies the default Maven selector drops, optional, test, provided and system scoped,
+ * are not read ahead, nor are snapshots and version ranges. The versions of the dependencies
+ * are managed by the descriptor that lists them, other dependency management is only known to
+ * the collector and can cause a prefetched descriptor to go unused. The number of pending
+ * reads is bounded, a read that does not fit is dropped.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class DescriptorPrefetcher {
+
+    /**
+     * Session config property for the number of levels read ahead, 0 or less disables
+     */
+    public static final String CONFIG_DEPTH = "naether.descriptors.prefetchDepth";
+
+    /**
+     * Default number of threads reading ahead
+     */
+    public static final int DEFAULT_THREADS = 4;
+
+    /**
+     * Default max number of prefetched descriptors, read or waiting to be read
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 512;
+
+    private static Logger log = LoggerFactory.getLogger(DescriptorPrefetcher.class);
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private final ThreadPoolExecutor executor;
+    private final LinkedHashMap<String,Prefetch> prefetched;
+    private final int maxEntries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong scheduled = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong wasted = new AtomicLong();
+
+    /**
+     * Create new instance with {@link #DEFAULT_THREADS} and {@link #DEFAULT_MAX_ENTRIES}
+     */
+    public DescriptorPrefetcher() {
+        this( DEFAULT_THREADS, DEFAULT_MAX_ENTRIES );
+    }
+
+    /**
+     * Create new instance
+     *
+     * @param threads int number of threads reading ahead
+     * @param maxEntries int max number of prefetched descriptors
+     */
+    public DescriptorPrefetcher( int threads, int maxEntries ) {
+        this.maxEntries = maxEntries;
+
+        executor = new ThreadPoolExecutor( threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>( maxEntries ),
+            new DaemonThreadFactory( "naether-prefetch-" + POOL_COUNT.incrementAndGet() ) );
+        executor.allowCoreThreadTimeOut( true );
+
+        prefetched = new LinkedHashMap<String,Prefetch>( 256, 0.75f, true ) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<String,Prefetch> eldest ) {
+                if ( size() > DescriptorPrefetcher.this.maxEntries ) {
+                    if ( !eldest.getValue().used ) {
+                        wasted.incrementAndGet();
+                    }
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Read a descriptor, using the prefetched descriptor if there is one, then read ahead
+     * the descriptors of its dependencies.
+     *
+     * @param reader {@link ArtifactDescriptorReader} reading descriptors
+     * @param repositoryManager {@link RemoteRepositoryManager} aggregating the repositories of descriptors
+     * @param session {@link RepositorySystemSession}
+     * @param request {@link ArtifactDescriptorRequest}
+     * @param depth int number of levels to read ahead
+     * @return {@link ArtifactDescriptorResult}
+     * @throws ArtifactDescriptorException if the descriptor could not be read
+     */
+    public ArtifactDescriptorResult read( ArtifactDescriptorReader reader, RemoteRepositoryManager repositoryManager,
+            RepositorySystemSession session, ArtifactDescriptorRequest request, int depth ) throws ArtifactDescriptorException {
+        ArtifactDescriptorResult result = take( key( session, request.getArtifact(), request.getRepositories() ) );
+        if ( result == null ) {
+            result = reader.readArtifactDescriptor( session, request );
+        }
+
+        readAhead( reader, repositoryManager, session, request.getRepositories(), result, depth );
+
+        return result;
+    }
+
+    private ArtifactDescriptorResult take( String key ) {
+        Prefetch prefetch;
+        synchronized ( prefetched ) {
+            prefetch = prefetched.get( key );
+            if ( prefetch == null || prefetch.used ) {
+                misses.incrementAndGet();
+                return null;
+            }
+            prefetch.used = true;
+        }
+
+        hits.incrementAndGet();
+
+        // read now if still waiting for a thread
+        prefetch.task.run();
+        try {
+            return prefetch.task.get();
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        } catch ( ExecutionException e ) {
+            log.debug( "Failed to prefetch descriptor {}", key, e.getCause() );
+        }
+
+        return null;
+    }
+
+    private void readAhead( final ArtifactDescriptorReader reader, final RemoteRepositoryManager repositoryManager,
+            final RepositorySystemSession session, List<RemoteRepository> repositories, ArtifactDescriptorResult result, final int depth ) {
+        if ( depth <= 0 || result.getDependencies().isEmpty() ) {
+            return;
+        }
+
+        final List<RemoteRepository> childRepositories = repositoryManager.aggregateRepositories( session, repositories, result.getRepositories(), true );
+
+        Map<String,String> managedVersions = new HashMap<String,String>();
+        for ( Dependency managed : result.getManagedDependencies() ) {
+            managedVersions.put( versionlessId( managed.getArtifact() ), managed.getArtifact().getVersion() );
+        }
+
+        for ( Dependency dependency : result.getDependencies() ) {
+            if ( !isReadAhead( dependency ) ) {
+                continue;
+            }
+
+            Artifact artifact = dependency.getArtifact();
+            String managedVersion = managedVersions.get( versionlessId( artifact ) );
+            if ( managedVersion != null ) {
+                artifact = artifact.setVersion( managedVersion );
+            }
+            if ( artifact.isSnapshot() || isRange( artifact.getVersion() ) ) {
+                continue;
+            }
+
+            final ArtifactDescriptorRequest request = new ArtifactDescriptorRequest( artifact, childRepositories, null );
+            Prefetch prefetch = new Prefetch( new FutureTask<ArtifactDescriptorResult>( new Callable<ArtifactDescriptorResult>() {
+                public ArtifactDescriptorResult call() throws Exception {
+                    ArtifactDescriptorResult result = reader.readArtifactDescriptor( session, request );
+                    readAhead( reader, repositoryManager, session, childRepositories, result, depth - 1 );
+                    return result;
+                }
+            }));
+
+            String key = key( session, artifact, childRepositories );
+            synchronized ( prefetched ) {
+                if ( prefetched.containsKey( key ) ) {
+                    continue;
+                }
+                prefetched.put( key, prefetch );
+            }
+
+            try {
+                executor.execute( prefetch.task );
+                scheduled.incrementAndGet();
+            } catch ( RejectedExecutionException e ) {
+                synchronized ( prefetched ) {
+                    prefetched.remove( key );
+                }
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    private static boolean isReadAhead( Dependency dependency ) {
+        String scope = dependency.getScope();
+        return !dependency.isOptional() && !"test".equals( scope ) && !"provided".equals( scope ) && !"system".equals( scope ) &&
+            dependency.getArtifact().getProperty( ArtifactProperties.LOCAL_PATH, null ) == null;
+    }
+
+    private static boolean isRange( String version ) {
+        return version.startsWith( "[" ) || version.startsWith( "(" ) || version.contains( "," );
+    }
+
+    private static String versionlessId( Artifact artifact ) {
+        return artifact.getGroupId() + ':' + artifact.getArtifactId() + ':' + artifact.getExtension() + ':' + artifact.getClassifier();
+    }
+
+    private static String key( RepositorySystemSession session, Artifact artifact, List<RemoteRepository> repositories ) {
+        return DescriptorCache.partition( session, repositories ) + '|' + artifact;
+    }
+
+    /**
+     * Prefetched descriptors used by the collector
+     *
+     * @return long
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Descriptors read by the collector without a prefetched descriptor, while prefetching
+     *
+     * @return long
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Ratio of descriptors read by the collector that were prefetched
+     *
+     * @return double between 0 and 1
+     */
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total > 0 ? (double)hits.get() / total : 0;
+    }
+
+    /**
+     * Descriptors scheduled to be read ahead
+     *
+     * @return long
+     */
+    public long getScheduled() {
+        return scheduled.get();
+    }
+
+    /**
+     * Descriptors not read ahead since too many reads were pending
+     *
+     * @return long
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Prefetched descriptors evicted without being used by the collector
+     *
+     * @return long
+     */
+    public long getWasted() {
+        return wasted.get();
+    }
+
+    /**
+     * Remove the prefetched descriptors and reset the counters
+     */
+    public void clear() {
+        synchronized ( prefetched ) {
+            prefetched.clear();
+        }
+
+        hits.set( 0 );
+        misses.set( 0 );
+        scheduled.set( 0 );
+        dropped.set( 0 );
+        wasted.set( 0 );
+    }
+
+    @Override
+    public String toString() {
+        return "DescriptorPrefetcher[hits=" + hits + ", misses=" + misses + ", scheduled=" + scheduled +
+            ", dropped=" + dropped + ", wasted=" + wasted + "]";
+    }
+
+    private static final class Prefetch {
+        private final FutureTask<ArtifactDescriptorResult> task;
+        private volatile boolean used;
+
+        Prefetch( FutureTask<ArtifactDescriptorResult> task ) {
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonatype.aether.spi.connector.ArtifactDownload;
+import org.sonatype.aether.spi.connector.ArtifactUpload;
+import org.sonatype.aether.spi.connector.MetadataDownload;
+import org.sonatype.aether.spi.connector.MetadataUpload;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
+
+/**
+ * {@link RepositoryConnector} that records the {@link Checksums} of the artifacts downloaded
+ * by a connector that does not, such as the Wagon connector. The wrapped connector verifies the
+ * checksums of the repository while downloading, the downloaded artifacts of a batch are then
+ * hashed concurrently on the {@link Checksums} threads and their digests recorded, so the lockfile
+ * and content store do not hash them again.
+ *
+ * @author Michael Guymon
+ *
+ */
+class DigestingRepositoryConnector implements RepositoryConnector {
+
+    private static Logger log = LoggerFactory.getLogger(DigestingRepositoryConnector.class);
+
+    private final RepositoryConnector connector;
+
+    DigestingRepositoryConnector( RepositoryConnector connector ) {
+        this.connector = connector;
+    }
+
+    public void get( Collection<? extends ArtifactDownload> artifactDownloads, Collection<? extends MetadataDownload> metadataDownloads ) {
+        connector.get( artifactDownloads, metadataDownloads );
+
+        if ( artifactDownloads == null ) {
+            return;
+        }
+
+        List<File> files = new ArrayList<File>();
+        for ( ArtifactDownload download : artifactDownloads ) {
+            if ( download.getException() == null && !download.isExistenceCheck() && download.getFile() != null && download.getFile().isFile() ) {
+                files.add( download.getFile() );
+            }
+        }
+
+        if ( !files.isEmpty() ) {
+            try {
+                Checksums.digests( files );
+            } catch ( IOException e ) {
+                log.debug( "Failed to record digests of {}", files, e );
+            }
+        }
+    }
+
+    public void put( Collection<? extends ArtifactUpload> artifactUploads, Collection<? extends MetadataUpload> metadataUploads ) {
+        connector.put( artifactUploads, metadataUploads );
+    }
+
+    public void close() {
+        connector.close();
+    }
+
+    @Override
+    public String toString() {
+        return "digesting " + connector;
+    }
+}
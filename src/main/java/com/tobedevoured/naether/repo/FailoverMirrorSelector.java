@@ -0,0 +1,190 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.sonatype.aether.repository.MirrorSelector;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.util.repository.DefaultMirrorSelector;
+
+/**
+ * {@link MirrorSelector} with Maven mirror-of semantics, where a mirror can have secondary
+ * urls to fail over to. The mirror uses the first of its urls that is not demoted by the
+ * {@link RepositoryHealth}.
+ *
+ * The mirror-of pattern is the same as Maven's settings, such as <code>central</code>,
+ * <code>*</code>, <code>external:*</code> or <code>*,!snapshots</code>.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class FailoverMirrorSelector implements MirrorSelector {
+
+    private final RepositoryHealth health;
+    private final Map<String,Mirror> mirrors = new LinkedHashMap<String,Mirror>();
+    private DefaultMirrorSelector selector = new DefaultMirrorSelector();
+
+    /**
+     * Create new instance using the {@link RepositoryHealth} shared by all clients
+     */
+    public FailoverMirrorSelector() {
+        this( RepositoryClient.getRepositoryHealth() );
+    }
+
+    /**
+     * Create new instance
+     *
+     * @param health {@link RepositoryHealth}
+     */
+    public FailoverMirrorSelector( RepositoryHealth health ) {
+        this.health = health;
+    }
+
+    /**
+     * Create a copy with the mirrors of the original, sharing its {@link RepositoryHealth}.
+     * Mirrors added to either afterwards are not seen by the other.
+     *
+     * @param original {@link FailoverMirrorSelector}
+     */
+    public FailoverMirrorSelector( FailoverMirrorSelector original ) {
+        this( original.health );
+
+        synchronized ( original ) {
+            for ( Map.Entry<String,Mirror> entry : original.mirrors.entrySet() ) {
+                add( entry.getKey(), entry.getValue().urls, entry.getValue().mirrorOf );
+            }
+        }
+    }
+
+    /**
+     * Add a mirror, replacing an existing mirror with the same id
+     *
+     * @param id String
+     * @param urls List of String, the primary url followed by the urls to fail over to
+     * @param mirrorOf String pattern of the repository ids to mirror
+     * @return this
+     */
+    public synchronized FailoverMirrorSelector add( String id, List<String> urls, String mirrorOf ) {
+        if ( urls == null || urls.isEmpty() ) {
+            throw new IllegalArgumentException( "Mirror " + id + " has no urls" );
+        }
+
+        mirrors.put( id, new Mirror( new ArrayList<String>( urls ), mirrorOf ) );
+
+        selector = new DefaultMirrorSelector();
+        for ( Map.Entry<String,Mirror> entry : mirrors.entrySet() ) {
+            selector.add( entry.getKey(), entry.getValue().urls.get( 0 ), null, false, entry.getValue().mirrorOf, null );
+        }
+
+        return this;
+    }
+
+    public synchronized RemoteRepository getMirror( RemoteRepository repository ) {
+        RemoteRepository mirror = selector.getMirror( repository );
+        if ( mirror != null ) {
+            mirror.setUrl( health.select( mirrors.get( mirror.getId() ).urls ) );
+        }
+
+        return mirror;
+    }
+
+    /**
+     * Fail over a mirror to its healthiest url, if its current url is demoted
+     *
+     * @param repository {@link RemoteRepository}
+     * @return {@link RemoteRepository} the repository or a copy with another url
+     */
+    public RemoteRepository failover( RemoteRepository repository ) {
+        Mirror mirror;
+        synchronized ( this ) {
+            mirror = mirrors.get( repository.getId() );
+        }
+
+        if ( mirror == null || repository.getMirroredRepositories().isEmpty() || !health.isDemoted( repository.getUrl() ) ) {
+            return repository;
+        }
+
+        String url = health.select( mirror.urls );
+        if ( url.equals( repository.getUrl() ) ) {
+            return repository;
+        }
+
+        return new RemoteRepository( repository ).setUrl( url );
+    }
+
+    /**
+     * Copies of a mirror with each of its other urls, healthiest first, to fail over to when
+     * downloads from the mirror fail
+     *
+     * @param repository {@link RemoteRepository}
+     * @return List of {@link RemoteRepository}, empty if the repository is not a mirror
+     */
+    public List<RemoteRepository> getFailovers( RemoteRepository repository ) {
+        Mirror mirror;
+        synchronized ( this ) {
+            mirror = mirrors.get( repository.getId() );
+        }
+
+        List<RemoteRepository> failovers = new ArrayList<RemoteRepository>();
+        if ( mirror == null || repository.getMirroredRepositories().isEmpty() ) {
+            return failovers;
+        }
+
+        for ( String url : mirror.urls ) {
+            if ( !url.equals( repository.getUrl() ) ) {
+                failovers.add( new RemoteRepository( repository ).setUrl( url ) );
+            }
+        }
+
+        return health.order( failovers );
+    }
+
+    /**
+     * The urls of the mirrors by id
+     *
+     * @return Map
+     */
+    public synchronized Map<String,List<String>> getMirrors() {
+        Map<String,List<String>> urls = new LinkedHashMap<String,List<String>>();
+        for ( Map.Entry<String,Mirror> entry : mirrors.entrySet() ) {
+            urls.put( entry.getKey(), Collections.unmodifiableList( entry.getValue().urls ) );
+        }
+
+        return urls;
+    }
+
+    public synchronized boolean isEmpty() {
+        return mirrors.isEmpty();
+    }
+
+    private static final class Mirror {
+        private final List<String> urls;
+        private final String mirrorOf;
+
+        Mirror( List<String> urls, String mirrorOf ) {
+            this.urls = urls;
+            this.mirrorOf = mirrorOf;
+        }
+    }
+}
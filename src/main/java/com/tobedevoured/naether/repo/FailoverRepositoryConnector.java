@@ -0,0 +1,154 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.spi.connector.ArtifactDownload;
+import org.sonatype.aether.spi.connector.ArtifactUpload;
+import org.sonatype.aether.spi.connector.MetadataDownload;
+import org.sonatype.aether.spi.connector.MetadataUpload;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
+import org.sonatype.aether.spi.connector.Transfer;
+import org.sonatype.aether.transfer.NoRepositoryConnectorException;
+
+/**
+ * {@link RepositoryConnector} for a mirror that retries failed downloads with the other urls
+ * of the mirror, in turn, until the downloads succeed or the urls run out. Uploads only go
+ * to the current url.
+ *
+ * @author Michael Guymon
+ *
+ */
+class FailoverRepositoryConnector implements RepositoryConnector {
+
+    private static Logger log = LoggerFactory.getLogger(FailoverRepositoryConnector.class);
+
+    private final DelegatingRepositoryConnectorFactory factory;
+    private final RepositorySystemSession session;
+    private final RepositoryConnector connector;
+    private final List<RemoteRepository> failovers;
+    private final List<RepositoryConnector> failoverConnectors = new ArrayList<RepositoryConnector>();
+
+    FailoverRepositoryConnector( DelegatingRepositoryConnectorFactory factory, RepositorySystemSession session,
+                                 RepositoryConnector connector, List<RemoteRepository> failovers ) {
+        this.factory = factory;
+        this.session = session;
+        this.connector = connector;
+        this.failovers = failovers;
+    }
+
+    public void get( Collection<? extends ArtifactDownload> artifactDownloads, Collection<? extends MetadataDownload> metadataDownloads ) {
+        connector.get( artifactDownloads, metadataDownloads );
+
+        List<ArtifactDownload> failedArtifacts = failedArtifacts( artifactDownloads );
+        List<MetadataDownload> failedMetadata = failedMetadata( metadataDownloads );
+
+        for ( RemoteRepository failover : failovers ) {
+            if ( failedArtifacts.isEmpty() && failedMetadata.isEmpty() ) {
+                return;
+            }
+
+            RepositoryConnector failoverConnector;
+            try {
+                failoverConnector = getConnector( failover );
+            } catch ( NoRepositoryConnectorException e ) {
+                log.debug( "Skipping failover to {}: {}", failover.getUrl(), e.getMessage() );
+                continue;
+            }
+
+            log.info( "Failing over {} downloads to {}", failedArtifacts.size() + failedMetadata.size(), failover.getUrl() );
+
+            for ( ArtifactDownload download : failedArtifacts ) {
+                download.setException( null );
+                download.setState( Transfer.State.NEW );
+            }
+            for ( MetadataDownload download : failedMetadata ) {
+                download.setException( null );
+                download.setState( Transfer.State.NEW );
+            }
+
+            failoverConnector.get( failedArtifacts, failedMetadata );
+
+            failedArtifacts = failedArtifacts( failedArtifacts );
+            failedMetadata = failedMetadata( failedMetadata );
+        }
+    }
+
+    public void put( Collection<? extends ArtifactUpload> artifactUploads, Collection<? extends MetadataUpload> metadataUploads ) {
+        connector.put( artifactUploads, metadataUploads );
+    }
+
+    public void close() {
+        connector.close();
+
+        synchronized ( failoverConnectors ) {
+            for ( RepositoryConnector failoverConnector : failoverConnectors ) {
+                failoverConnector.close();
+            }
+            failoverConnectors.clear();
+        }
+    }
+
+    private RepositoryConnector getConnector( RemoteRepository failover ) throws NoRepositoryConnectorException {
+        RepositoryConnector failoverConnector = factory.newConnector( session, failover );
+        synchronized ( failoverConnectors ) {
+            failoverConnectors.add( failoverConnector );
+        }
+
+        return failoverConnector;
+    }
+
+    private static List<ArtifactDownload> failedArtifacts( Collection<? extends ArtifactDownload> downloads ) {
+        List<ArtifactDownload> failed = new ArrayList<ArtifactDownload>();
+        if ( downloads != null ) {
+            for ( ArtifactDownload download : downloads ) {
+                if ( HealthTrackingRepositoryConnector.isFailure( download ) ) {
+                    failed.add( download );
+                }
+            }
+        }
+
+        return failed;
+    }
+
+    private static List<MetadataDownload> failedMetadata( Collection<? extends MetadataDownload> downloads ) {
+        List<MetadataDownload> failed = new ArrayList<MetadataDownload>();
+        if ( downloads != null ) {
+            for ( MetadataDownload download : downloads ) {
+                if ( HealthTrackingRepositoryConnector.isFailure( download ) ) {
+                    failed.add( download );
+                }
+            }
+        }
+
+        return failed;
+    }
+
+    @Override
+    public String toString() {
+        return "failover" + failovers + " " + connector;
+    }
+}
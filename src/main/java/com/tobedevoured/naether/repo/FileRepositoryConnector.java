@@ -0,0 +1,166 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.RequestTrace;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
+import org.sonatype.aether.spi.connector.Transfer;
+import org.sonatype.aether.transfer.TransferEvent;
+
+/**
+ * {@link RepositoryConnector} for file repositories that copies with
+ * {@link java.nio.channels.FileChannel#transferTo}, see {@link ChannelFileProcessor}.
+ *
+ * A download whose source is the file it is downloaded to, such as resolving from the local
+ * repository added as a file repository, is not copied. Checksums are verified against the
+ * digests recorded with {@link Checksums}, so an artifact of a file repository is only hashed
+ * once.
+ *
+ * @author Michael Guymon
+ *
+ */
+class FileRepositoryConnector extends AbstractRepositoryConnector {
+
+    private final File basedir;
+
+    FileRepositoryConnector( RepositorySystemSession session, RemoteRepository repository ) {
+        super( session, repository );
+        this.basedir = basedir( repository.getUrl() );
+    }
+
+    GetTask newGetTask( Transfer transfer, String path, File file, String checksumPolicy, boolean existenceCheck, RequestTrace trace ) {
+        return new FileGetTask( transfer, path, file, checksumPolicy, existenceCheck, trace );
+    }
+
+    PutTask newPutTask( Transfer transfer, String path, File file, RequestTrace trace ) {
+        return new FilePutTask( transfer, path, file, trace );
+    }
+
+    /**
+     * The directory of a file repository url, such as file:///home/user/.m2/repository or
+     * the relative file:target/repo
+     *
+     * @param url String
+     * @return {@link File}
+     */
+    static File basedir( String url ) {
+        String path = url.substring( "file:".length() );
+        if ( path.startsWith( "//" ) ) {
+            path = path.substring( 2 );
+        }
+
+        try {
+            path = URLDecoder.decode( path.replace( "+", "%2B" ), "UTF-8" );
+        } catch ( UnsupportedEncodingException e ) {
+            throw new IllegalStateException( e );
+        }
+
+        return new File( path );
+    }
+
+    /**
+     * Copy of an artifact or metadata from the repository
+     */
+    private class FileGetTask extends GetTask {
+
+        private final File source;
+
+        FileGetTask( Transfer transfer, String path, File file, String checksumPolicy, boolean existenceCheck, RequestTrace trace ) {
+            super( transfer, path, file, checksumPolicy, existenceCheck, trace );
+            this.source = new File( basedir, path );
+        }
+
+        void exists() throws FileNotFoundException {
+            if ( !source.isFile() ) {
+                throw new FileNotFoundException( source.getPath() );
+            }
+
+            resource.setContentLength( source.length() );
+        }
+
+        void download() throws Exception {
+            exists();
+            fire( TransferEvent.EventType.STARTED, TransferEvent.RequestType.GET, resource, 0, null );
+
+            // the local repository resolving from itself as a file repository
+            if ( file.exists() && Files.isSameFile( source.toPath(), file.toPath() ) ) {
+                return;
+            }
+
+            File checksum = verify( source );
+            ChannelFileProcessor.transfer( source, file );
+            if ( checksum != null ) {
+                Files.copy( checksum.toPath(), new File( file.getPath() + checksum.getName().substring( source.getName().length() ) ).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING );
+            }
+            if ( digests != null ) {
+                Checksums.record( file, digests );
+            }
+        }
+
+        File checksum( File downloaded, String extension ) {
+            File checksum = new File( downloaded.getPath() + extension );
+            return checksum.isFile() ? checksum : null;
+        }
+
+        /**
+         * The digests recorded for the source, so an artifact of a file repository is only hashed once
+         */
+        @Override
+        Map<String,String> digests( File downloaded ) throws IOException {
+            return Checksums.digests( downloaded );
+        }
+    }
+
+    /**
+     * Copy of an artifact or metadata to the repository, followed by its checksums
+     */
+    private class FilePutTask extends PutTask {
+
+        private final File target;
+
+        FilePutTask( Transfer transfer, String path, File file, RequestTrace trace ) {
+            super( transfer, path, file, trace );
+            this.target = new File( basedir, path );
+        }
+
+        long upload() throws IOException {
+            long transferred = ChannelFileProcessor.transfer( file, target );
+
+            Map<String,String> digests = Checksums.calc( target, Checksums.ALGORITHMS );
+            for ( int x = 0; x < CHECKSUM_ALGORITHMS.length; x++ ) {
+                Files.write( new File( target.getPath() + CHECKSUM_EXTENSIONS[x] ).toPath(),
+                    digests.get( CHECKSUM_ALGORITHMS[x] ).getBytes( "UTF-8" ) );
+            }
+            Checksums.record( target, digests );
+
+            return transferred;
+        }
+    }
+}
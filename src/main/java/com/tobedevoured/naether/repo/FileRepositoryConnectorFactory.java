@@ -0,0 +1,61 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
+import org.sonatype.aether.spi.connector.RepositoryConnectorFactory;
+import org.sonatype.aether.transfer.NoRepositoryConnectorException;
+import org.sonatype.aether.util.ConfigUtils;
+
+/**
+ * {@link RepositoryConnectorFactory} for the {@link FileRepositoryConnector}. Creates
+ * connectors for file repositories with the default layout, unless disabled by the
+ * session config property {@link #CONFIG_ENABLED}, then the Wagon connector is used.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class FileRepositoryConnectorFactory implements RepositoryConnectorFactory {
+
+    /**
+     * Session config property to use the file connector instead of Wagon, defaults to true
+     */
+    public static final String CONFIG_ENABLED = "naether.connector.file";
+
+    private int priority = 10;
+
+    public RepositoryConnector newInstance( RepositorySystemSession session, RemoteRepository repository ) throws NoRepositoryConnectorException {
+        if ( !"file".equals( repository.getProtocol() ) || !"default".equals( repository.getContentType() )
+                || !ConfigUtils.getBoolean( session, true, CONFIG_ENABLED ) ) {
+            throw new NoRepositoryConnectorException( repository );
+        }
+
+        return new FileRepositoryConnector( session, repository );
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public FileRepositoryConnectorFactory setPriority( int priority ) {
+        this.priority = priority;
+        return this;
+    }
+}
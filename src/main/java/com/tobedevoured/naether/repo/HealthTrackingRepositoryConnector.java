@@ -0,0 +1,129 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Collection;
+
+import org.sonatype.aether.spi.connector.ArtifactDownload;
+import org.sonatype.aether.spi.connector.ArtifactUpload;
+import org.sonatype.aether.spi.connector.MetadataDownload;
+import org.sonatype.aether.spi.connector.MetadataUpload;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
+import org.sonatype.aether.transfer.ArtifactNotFoundException;
+import org.sonatype.aether.transfer.ChecksumFailureException;
+import org.sonatype.aether.transfer.MetadataNotFoundException;
+
+/**
+ * {@link RepositoryConnector} that records the outcome and duration of downloads with
+ * the {@link RepositoryHealth}. Failures are left to the caller when the downloads are
+ * retried, so only the final outcome of a retried download counts against the repository.
+ *
+ * @author Michael Guymon
+ *
+ */
+class HealthTrackingRepositoryConnector implements RepositoryConnector {
+
+    private final RepositoryConnector connector;
+    private final RepositoryHealth health;
+    private final String url;
+    private final boolean recordFailures;
+
+    HealthTrackingRepositoryConnector( RepositoryConnector connector, RepositoryHealth health, String url ) {
+        this( connector, health, url, true );
+    }
+
+    /**
+     * @param connector {@link RepositoryConnector} to track
+     * @param health {@link RepositoryHealth}
+     * @param url String of the repository
+     * @param recordFailures boolean false if the caller records failures, such as a {@link RetryingRepositoryConnector}
+     */
+    HealthTrackingRepositoryConnector( RepositoryConnector connector, RepositoryHealth health, String url, boolean recordFailures ) {
+        this.connector = connector;
+        this.health = health;
+        this.url = url;
+        this.recordFailures = recordFailures;
+    }
+
+    public void get( Collection<? extends ArtifactDownload> artifactDownloads, Collection<? extends MetadataDownload> metadataDownloads ) {
+        long start = System.currentTimeMillis();
+        connector.get( artifactDownloads, metadataDownloads );
+        long elapsed = System.currentTimeMillis() - start;
+
+        int transfers = 0;
+        int failures = 0;
+        if ( artifactDownloads != null ) {
+            for ( ArtifactDownload download : artifactDownloads ) {
+                transfers++;
+                if ( isFailure( download ) ) {
+                    failures++;
+                }
+            }
+        }
+        if ( metadataDownloads != null ) {
+            for ( MetadataDownload download : metadataDownloads ) {
+                transfers++;
+                if ( isFailure( download ) ) {
+                    failures++;
+                }
+            }
+        }
+
+        if ( failures > 0 ) {
+            if ( recordFailures ) {
+                health.recordFailure( url );
+            }
+        } else if ( transfers > 0 ) {
+            health.recordSuccess( url, elapsed / transfers );
+        }
+    }
+
+    public void put( Collection<? extends ArtifactUpload> artifactUploads, Collection<? extends MetadataUpload> metadataUploads ) {
+        connector.put( artifactUploads, metadataUploads );
+    }
+
+    public void close() {
+        connector.close();
+    }
+
+    /**
+     * If the download failed because of the repository, not because the artifact is missing
+     * or its checksum does not match
+     */
+    static boolean isFailure( ArtifactDownload download ) {
+        return isFailure( download.getException() ) && !( download.getException() instanceof ArtifactNotFoundException );
+    }
+
+    /**
+     * If the download failed because of the repository, not because the metadata is missing
+     * or its checksum does not match
+     */
+    static boolean isFailure( MetadataDownload download ) {
+        return isFailure( download.getException() ) && !( download.getException() instanceof MetadataNotFoundException );
+    }
+
+    private static boolean isFailure( Exception exception ) {
+        return exception != null && !( exception.getCause() instanceof ChecksumFailureException );
+    }
+
+    @Override
+    public String toString() {
+        return "health(" + url + ") " + connector;
+    }
+}
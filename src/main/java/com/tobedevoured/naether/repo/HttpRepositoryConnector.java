@@ -0,0 +1,645 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.codehaus.plexus.util.Base64;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sonatype.aether.ConfigurationProperties;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.RequestTrace;
+import org.sonatype.aether.repository.Authentication;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
+import org.sonatype.aether.spi.connector.Transfer;
+import org.sonatype.aether.transfer.ChecksumFailureException;
+import org.sonatype.aether.transfer.TransferCancelledException;
+import org.sonatype.aether.transfer.TransferEvent;
+import org.sonatype.aether.util.ChecksumUtils;
+import org.sonatype.aether.util.ConfigUtils;
+import org.sonatype.aether.util.listener.DefaultTransferResource;
+
+import com.tobedevoured.naether.util.DaemonThreadFactory;
+
+/**
+ * {@link RepositoryConnector} for http and https repositories built directly on
+ * {@link HttpURLConnection}, without Wagon.
+ *
+ * The transfers of a batch run concurrently on the threads of the connector. Connections
+ * are kept alive by the JVM and reused by later transfers to the same host, so a batch of
+ * downloads only pays for a TCP connection and TLS handshake per thread.
+ *
+ * @author Michael Guymon
+ *
+ */
+class HttpRepositoryConnector extends AbstractRepositoryConnector {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+    private static final int CHUNK_ATTEMPTS = 3;
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private static Logger log = LoggerFactory.getLogger(HttpRepositoryConnector.class);
+
+    private static ExecutorService chunkExecutor;
+
+    private final String baseUrl;
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final int threads;
+    private final boolean resume;
+    private final long chunkSize;
+    private final Map<String,String> headers = new LinkedHashMap<String,String>();
+    private final Proxy proxy;
+
+    private ExecutorService executor;
+
+    HttpRepositoryConnector( RepositorySystemSession session, RemoteRepository repository ) {
+        super( session, repository );
+        this.baseUrl = repository.getUrl().endsWith( "/" ) ? repository.getUrl() : repository.getUrl() + "/";
+
+        connectTimeout = ConfigUtils.getInteger( session, 10000, ConfigurationProperties.CONNECT_TIMEOUT );
+        readTimeout = ConfigUtils.getInteger( session, 60000, ConfigurationProperties.REQUEST_TIMEOUT );
+        threads = ConfigUtils.getInteger( session, 5, HttpRepositoryConnectorFactory.CONFIG_THREADS );
+        resume = ConfigUtils.getBoolean( session, true, HttpRepositoryConnectorFactory.CONFIG_RESUME );
+        chunkSize = ConfigUtils.getLong( session, 0, HttpRepositoryConnectorFactory.CONFIG_CHUNK_SIZE );
+
+        headers.put( "User-Agent", ConfigUtils.getString( session, ConfigurationProperties.DEFAULT_USER_AGENT, ConfigurationProperties.USER_AGENT ) );
+        headers.put( "Pragma", "no-cache" );
+        Map<?,?> configHeaders = ConfigUtils.getMap( session, null, ConfigurationProperties.HTTP_HEADERS + "." + repository.getId(),
+            ConfigurationProperties.HTTP_HEADERS );
+        if ( configHeaders != null ) {
+            for ( Map.Entry<?,?> entry : configHeaders.entrySet() ) {
+                if ( entry.getKey() instanceof String && entry.getValue() instanceof String ) {
+                    headers.put( (String) entry.getKey(), (String) entry.getValue() );
+                }
+            }
+        }
+
+        String encoding = ConfigUtils.getString( session, ConfigurationProperties.DEFAULT_HTTP_CREDENTIAL_ENCODING,
+            ConfigurationProperties.HTTP_CREDENTIAL_ENCODING + "." + repository.getId(), ConfigurationProperties.HTTP_CREDENTIAL_ENCODING );
+        if ( repository.getAuthentication() != null ) {
+            headers.put( "Authorization", basic( repository.getAuthentication(), encoding ) );
+        }
+
+        if ( repository.getProxy() != null ) {
+            proxy = new Proxy( Proxy.Type.HTTP, new InetSocketAddress( repository.getProxy().getHost(), repository.getProxy().getPort() ) );
+            if ( repository.getProxy().getAuthentication() != null ) {
+                headers.put( "Proxy-Authorization", basic( repository.getProxy().getAuthentication(), encoding ) );
+            }
+        } else {
+            proxy = null;
+        }
+    }
+
+    GetTask newGetTask( Transfer transfer, String path, File file, String checksumPolicy, boolean existenceCheck, RequestTrace trace ) {
+        return new HttpGetTask( transfer, path, file, checksumPolicy, existenceCheck, trace );
+    }
+
+    PutTask newPutTask( Transfer transfer, String path, File file, RequestTrace trace ) {
+        return new HttpPutTask( transfer, path, file, trace );
+    }
+
+    @Override
+    public void close() {
+        super.close();
+
+        synchronized ( this ) {
+            if ( executor != null ) {
+                executor.shutdown();
+                executor = null;
+            }
+        }
+    }
+
+    /**
+     * Run the tasks of a batch, concurrently if there is more than one, and wait for all of them
+     */
+    @Override
+    void run( List<Runnable> tasks ) {
+        if ( tasks.size() < 2 || threads < 2 ) {
+            for ( Runnable task : tasks ) {
+                task.run();
+            }
+            return;
+        }
+
+        final CountDownLatch done = new CountDownLatch( tasks.size() );
+        ExecutorService executor = getExecutor();
+        for ( final Runnable task : tasks ) {
+            executor.execute( new Runnable() {
+                public void run() {
+                    try {
+                        task.run();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+
+        boolean interrupted = false;
+        while ( done.getCount() > 0 ) {
+            try {
+                done.await();
+            } catch ( InterruptedException e ) {
+                interrupted = true;
+            }
+        }
+
+        if ( interrupted ) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if ( executor == null ) {
+            executor = Executors.newFixedThreadPool( threads, new DaemonThreadFactory( "naether-http-" + POOL_COUNT.incrementAndGet() ) );
+        }
+
+        return executor;
+    }
+
+    /**
+     * Executor for the chunks of downloads, shared by every connector. Separate from the
+     * executor of the connector, whose threads wait for the chunks.
+     */
+    private static synchronized ExecutorService getChunkExecutor() {
+        if ( chunkExecutor == null ) {
+            chunkExecutor = Executors.newCachedThreadPool( new DaemonThreadFactory( "naether-http-chunk" ) );
+        }
+
+        return chunkExecutor;
+    }
+
+    /**
+     * The validator a range request can be made with, a strong ETag or else the Last-Modified
+     *
+     * @param connection {@link HttpURLConnection}
+     * @return String, null if the response has neither
+     */
+    static String validator( HttpURLConnection connection ) {
+        String etag = connection.getHeaderField( "ETag" );
+        if ( etag != null && !etag.startsWith( "W/" ) ) {
+            return etag;
+        }
+
+        return connection.getHeaderField( "Last-Modified" );
+    }
+
+    /**
+     * Open a connection to a resource of the repository
+     *
+     * @param path String relative to the repository url
+     * @param method String http method
+     * @return {@link HttpURLConnection}
+     * @throws IOException
+     */
+    HttpURLConnection open( String path, String method ) throws IOException {
+        URL url = new URL( baseUrl + path );
+        HttpURLConnection connection = (HttpURLConnection) ( proxy != null ? url.openConnection( proxy ) : url.openConnection() );
+        connection.setRequestMethod( method );
+        connection.setConnectTimeout( connectTimeout );
+        connection.setReadTimeout( readTimeout );
+        connection.setUseCaches( false );
+        for ( Map.Entry<String,String> header : headers.entrySet() ) {
+            connection.setRequestProperty( header.getKey(), header.getValue() );
+        }
+
+        return connection;
+    }
+
+    /**
+     * Check the response of a connection, error responses are drained so the connection
+     * can be reused
+     */
+    private static void checkResponse( HttpURLConnection connection ) throws IOException {
+        int responseCode = connection.getResponseCode();
+        if ( responseCode == HttpURLConnection.HTTP_NOT_FOUND || responseCode == HttpURLConnection.HTTP_GONE ) {
+            KeepAliveHttpWagon.drain( connection );
+            throw new FileNotFoundException( connection.getURL().toString() );
+        } else if ( responseCode >= HttpURLConnection.HTTP_MULT_CHOICE ) {
+            KeepAliveHttpWagon.drain( connection );
+            throw new IOException( "Failed to transfer " + connection.getURL() + ". Return code is: " + responseCode +
+                ", ReasonPhrase: " + connection.getResponseMessage() );
+        }
+    }
+
+    /**
+     * Copy a stream, firing progress events
+     */
+    private long copy( InputStream in, OutputStream out, TransferEvent.RequestType requestType, DefaultTransferResource resource )
+        throws IOException, TransferCancelledException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long transferred = 0;
+        int read;
+        while ( ( read = in.read( buffer ) ) != -1 ) {
+            out.write( buffer, 0, read );
+            transferred += read;
+            fire( TransferEvent.EventType.PROGRESSED, requestType, resource, transferred, buffer, read, null );
+        }
+
+        return transferred;
+    }
+
+    /**
+     * Download of an artifact or metadata
+     */
+    private class HttpGetTask extends GetTask {
+
+        HttpGetTask( Transfer transfer, String path, File file, String checksumPolicy, boolean existenceCheck, RequestTrace trace ) {
+            super( transfer, path, file, checksumPolicy, existenceCheck, trace );
+        }
+
+        void exists() throws IOException {
+            checkResponse( open( path, "HEAD" ) );
+        }
+
+        void download() throws IOException, TransferCancelledException, ChecksumFailureException {
+            PartFile part = resume ? PartFile.lock( file ) : null;
+            if ( part == null ) {
+                downloadTmp();
+                return;
+            }
+
+            boolean keep = false;
+            try {
+                try {
+                    fetch( part );
+                } catch ( IOException e ) {
+                    keep = true;
+                    throw e;
+                }
+
+                File checksum = verify( part.getFile() );
+                part.moveTo( file );
+                moveChecksum( checksum, part.getFile() );
+            } finally {
+                part.release( keep );
+            }
+        }
+
+        /**
+         * Download to a tmp file that is dropped if the download fails
+         */
+        private void downloadTmp() throws IOException, TransferCancelledException, ChecksumFailureException {
+            File tmp = tmpFile( file );
+            try {
+                HttpURLConnection connection = open( path, "GET" );
+                checkResponse( connection );
+                long length = connection.getContentLengthLong();
+                resource.setContentLength( length );
+                fire( TransferEvent.EventType.STARTED, TransferEvent.RequestType.GET, resource, 0, null, 0, null );
+
+                FileChannel out = FileChannel.open( tmp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE );
+                try {
+                    transfer( connection, out, 0, length, new AtomicLong() );
+                } finally {
+                    out.close();
+                }
+
+                File checksum = verify( tmp );
+                Files.move( tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING );
+                moveChecksum( checksum, tmp );
+            } finally {
+                tmp.delete();
+            }
+        }
+
+        /**
+         * Download to the part, resuming with a range request from what an earlier attempt
+         * downloaded. The range is only honored if the ETag or Last-Modified of the resource
+         * still matches the part, otherwise the server sends the whole resource.
+         */
+        private void fetch( PartFile part ) throws IOException, TransferCancelledException {
+            long offset = part.getResumeOffset();
+            HttpURLConnection connection = open( path, "GET" );
+            if ( offset > 0 ) {
+                connection.setRequestProperty( "Range", "bytes=" + offset + "-" );
+                connection.setRequestProperty( "If-Range", part.getValidator() );
+
+                if ( connection.getResponseCode() == HTTP_RANGE_NOT_SATISFIABLE ) {
+                    KeepAliveHttpWagon.drain( connection );
+                    offset = 0;
+                    connection = open( path, "GET" );
+                }
+            }
+            checkResponse( connection );
+
+            if ( connection.getResponseCode() == HttpURLConnection.HTTP_PARTIAL ) {
+                log.info( "Resuming {} at {} bytes", path, offset );
+            } else {
+                offset = 0;
+                part.restart( validator( connection ) );
+            }
+
+            long length = connection.getContentLengthLong();
+            resource.setContentLength( length >= 0 ? offset + length : -1 );
+            fire( TransferEvent.EventType.STARTED, TransferEvent.RequestType.GET, resource, offset, null, 0, null );
+
+            AtomicLong transferred = new AtomicLong( offset );
+            if ( offset == 0 && chunkSize > 0 && length > chunkSize && part.getValidator() != null
+                    && "bytes".equalsIgnoreCase( connection.getHeaderField( "Accept-Ranges" ) ) ) {
+                fetchChunks( connection, part, length, transferred );
+            } else {
+                transfer( connection, part.getChannel(), offset, length, transferred );
+            }
+        }
+
+        /**
+         * Download in chunks of {@link #chunkSize} with concurrent range requests. The first
+         * chunk is read from the response already open. A chunk that fails is retried from
+         * where it stopped, and if it still fails the part is cut back to the bytes downloaded
+         * without gaps, so the next attempt resumes from there.
+         */
+        private void fetchChunks( HttpURLConnection first, final PartFile part, final long length, final AtomicLong transferred )
+            throws IOException, TransferCancelledException {
+            int chunks = (int) ( ( length + chunkSize - 1 ) / chunkSize );
+            final AtomicLongArray done = new AtomicLongArray( chunks );
+
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for ( int x = 1; x < chunks; x++ ) {
+                final int chunk = x;
+                futures.add( getChunkExecutor().submit( new Callable<Void>() {
+                    public Void call() throws Exception {
+                        fetchChunk( part, chunk, length, done, transferred );
+                        return null;
+                    }
+                }));
+            }
+
+            Exception failure = null;
+            try {
+                transfer( first, part.getChannel(), 0, chunkSize, transferred, done, 0 );
+            } catch ( Exception e ) {
+                failure = e;
+            } finally {
+                first.disconnect();
+            }
+
+            for ( Future<Void> future : futures ) {
+                try {
+                    future.get();
+                } catch ( InterruptedException e ) {
+                    Thread.currentThread().interrupt();
+                    failure = failure != null ? failure : e;
+                } catch ( ExecutionException e ) {
+                    if ( e.getCause() instanceof Error ) {
+                        throw (Error) e.getCause();
+                    }
+                    failure = failure != null ? failure : e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+
+            if ( failure != null ) {
+                long contiguous = 0;
+                for ( int x = 0; x < chunks; x++ ) {
+                    contiguous += done.get( x );
+                    if ( done.get( x ) < chunkLength( x, length ) ) {
+                        break;
+                    }
+                }
+                part.truncate( contiguous );
+
+                if ( failure instanceof TransferCancelledException ) {
+                    throw (TransferCancelledException) failure;
+                }
+                throw failure instanceof IOException ? (IOException) failure : new IOException( failure );
+            }
+        }
+
+        private void fetchChunk( PartFile part, int chunk, long length, AtomicLongArray done, AtomicLong transferred )
+            throws IOException, TransferCancelledException {
+            long start = chunk * chunkSize;
+            long end = start + chunkLength( chunk, length ) - 1;
+
+            for ( int attempt = 1; ; attempt++ ) {
+                try {
+                    long from = start + done.get( chunk );
+                    HttpURLConnection connection = open( path, "GET" );
+                    connection.setRequestProperty( "Range", "bytes=" + from + "-" + end );
+                    connection.setRequestProperty( "If-Range", part.getValidator() );
+                    checkResponse( connection );
+                    if ( connection.getResponseCode() != HttpURLConnection.HTTP_PARTIAL ) {
+                        KeepAliveHttpWagon.drain( connection );
+                        throw new IOException( "Range of " + path + " not served, the resource changed while downloading" );
+                    }
+
+                    transfer( connection, part.getChannel(), from, end - from + 1, transferred, done, chunk );
+                    return;
+                } catch ( IOException e ) {
+                    if ( attempt >= CHUNK_ATTEMPTS ) {
+                        throw e;
+                    }
+                    log.debug( "Retrying chunk {} of {}", chunk, path, e );
+                }
+            }
+        }
+
+        private long chunkLength( int chunk, long length ) {
+            return Math.min( chunkSize, length - chunk * chunkSize );
+        }
+
+        private void transfer( HttpURLConnection connection, FileChannel out, long position, long length, AtomicLong transferred )
+            throws IOException, TransferCancelledException {
+            transfer( connection, out, position, length, transferred, null, 0 );
+        }
+
+        /**
+         * Write the response to a channel at a position, firing progress events
+         *
+         * @param length long bytes expected, less than 0 if unknown
+         * @param done AtomicLongArray bytes written for each chunk, may be null
+         */
+        private void transfer( HttpURLConnection connection, FileChannel out, long position, long length, AtomicLong transferred,
+                               AtomicLongArray done, int chunk ) throws IOException, TransferCancelledException {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long written = 0;
+            InputStream in = connection.getInputStream();
+            try {
+                int read;
+                while ( ( length < 0 || written < length )
+                        && ( read = in.read( buffer, 0, (int) ( length < 0 ? buffer.length : Math.min( buffer.length, length - written ) ) ) ) != -1 ) {
+                    ByteBuffer data = ByteBuffer.wrap( buffer, 0, read );
+                    while ( data.hasRemaining() ) {
+                        out.write( data, position + written + data.position() );
+                    }
+                    written += read;
+                    if ( done != null ) {
+                        done.addAndGet( chunk, read );
+                    }
+                    fire( TransferEvent.EventType.PROGRESSED, TransferEvent.RequestType.GET, resource, transferred.addAndGet( read ), buffer, read, null );
+                }
+            } finally {
+                in.close();
+            }
+
+            if ( length >= 0 && written < length ) {
+                throw new IOException( "Premature end of " + path + ", received " + written + " of " + length + " bytes" );
+            }
+        }
+
+        private void moveChecksum( File checksum, File downloaded ) throws IOException {
+            if ( checksum != null ) {
+                String extension = checksum.getName().substring( downloaded.getName().length() );
+                Files.move( checksum.toPath(), new File( file.getPath() + extension ).toPath(), StandardCopyOption.REPLACE_EXISTING );
+            }
+            if ( digests != null ) {
+                Checksums.record( file, digests );
+            }
+        }
+
+        /**
+         * Download the checksum of the repository next to the download
+         */
+        File checksum( File downloaded, String extension ) throws IOException {
+            File checksum = new File( downloaded.getPath() + extension );
+            try {
+                HttpURLConnection connection = open( path + extension, "GET" );
+                checkResponse( connection );
+                InputStream in = connection.getInputStream();
+                try {
+                    Files.copy( in, checksum.toPath(), StandardCopyOption.REPLACE_EXISTING );
+                } finally {
+                    in.close();
+                }
+            } catch ( FileNotFoundException e ) {
+                return null;
+            }
+
+            return checksum;
+        }
+
+        @Override
+        void rejected( File checksum ) {
+            checksum.delete();
+        }
+    }
+
+    /**
+     * Upload of an artifact or metadata, followed by its checksums
+     */
+    private class HttpPutTask extends PutTask {
+
+        HttpPutTask( Transfer transfer, String path, File file, RequestTrace trace ) {
+            super( transfer, path, file, trace );
+        }
+
+        long upload() throws IOException, TransferCancelledException {
+            HttpURLConnection connection = open( path, "PUT" );
+            connection.setDoOutput( true );
+            connection.setFixedLengthStreamingMode( file.length() );
+
+            long transferred;
+            InputStream in = new FileInputStream( file );
+            try {
+                OutputStream out = connection.getOutputStream();
+                try {
+                    transferred = copy( in, out, TransferEvent.RequestType.PUT, resource );
+                } finally {
+                    out.close();
+                }
+            } finally {
+                in.close();
+            }
+            checkResponse( connection );
+            connection.getInputStream().close();
+
+            Map<String,Object> checksums = ChecksumUtils.calc( file, Arrays.asList( CHECKSUM_ALGORITHMS ) );
+            for ( int x = 0; x < CHECKSUM_ALGORITHMS.length; x++ ) {
+                Object checksum = checksums.get( CHECKSUM_ALGORITHMS[x] );
+                if ( checksum instanceof String ) {
+                    byte[] content = ( (String) checksum ).getBytes( "UTF-8" );
+                    HttpURLConnection checksumConnection = open( path + CHECKSUM_EXTENSIONS[x], "PUT" );
+                    checksumConnection.setDoOutput( true );
+                    checksumConnection.setFixedLengthStreamingMode( content.length );
+                    OutputStream out = checksumConnection.getOutputStream();
+                    try {
+                        out.write( content );
+                    } finally {
+                        out.close();
+                    }
+                    checkResponse( checksumConnection );
+                    checksumConnection.getInputStream().close();
+                }
+            }
+
+            return transferred;
+        }
+    }
+
+    private static File tmpFile( File file ) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if ( !parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory() ) {
+            throw new IOException( "Failed to create directory " + parent );
+        }
+
+        return new File( parent, file.getName() + "-" + UUID.randomUUID().toString().substring( 0, 8 ) + ".tmp" );
+    }
+
+    /**
+     * Basic authorization header value
+     */
+    static String basic( Authentication authentication, String encoding ) {
+        String credentials = authentication.getUsername() + ":" + ( authentication.getPassword() != null ? authentication.getPassword() : "" );
+        try {
+            return "Basic " + new String( Base64.encodeBase64( credentials.getBytes( encoding ) ), "US-ASCII" );
+        } catch ( UnsupportedEncodingException e ) {
+            throw new IllegalArgumentException( "Unsupported credential encoding " + encoding, e );
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "http(" + repository.getUrl() + ")";
+    }
+}
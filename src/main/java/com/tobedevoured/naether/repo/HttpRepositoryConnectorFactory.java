@@ -0,0 +1,79 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
+import org.sonatype.aether.spi.connector.RepositoryConnectorFactory;
+import org.sonatype.aether.transfer.NoRepositoryConnectorException;
+import org.sonatype.aether.util.ConfigUtils;
+
+/**
+ * {@link RepositoryConnectorFactory} for the {@link HttpRepositoryConnector}. Only creates
+ * connectors for http and https repositories with the default layout when enabled by the
+ * session config property {@link #CONFIG_ENABLED}, otherwise the Wagon connector is used.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class HttpRepositoryConnectorFactory implements RepositoryConnectorFactory {
+
+    /**
+     * Session config property to use the http connector instead of Wagon
+     */
+    public static final String CONFIG_ENABLED = "naether.connector.http";
+
+    /**
+     * Session config property for the number of concurrent transfers of a connector
+     */
+    public static final String CONFIG_THREADS = "naether.connector.http.threads";
+
+    /**
+     * Session config property to keep failed downloads as <code>.part</code> files and resume
+     * them with a range request, defaults to true
+     */
+    public static final String CONFIG_RESUME = "naether.connector.http.resume";
+
+    /**
+     * Session config property for the size in bytes above which a download is split into
+     * chunks downloaded concurrently with range requests, defaults to 0 which does not split
+     */
+    public static final String CONFIG_CHUNK_SIZE = "naether.connector.http.chunkSize";
+
+    private int priority = 10;
+
+    public RepositoryConnector newInstance( RepositorySystemSession session, RemoteRepository repository ) throws NoRepositoryConnectorException {
+        boolean http = "http".equals( repository.getProtocol() ) || "https".equals( repository.getProtocol() );
+        if ( !http || !"default".equals( repository.getContentType() ) || !ConfigUtils.getBoolean( session, false, CONFIG_ENABLED ) ) {
+            throw new NoRepositoryConnectorException( repository );
+        }
+
+        return new HttpRepositoryConnector( session, repository );
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public HttpRepositoryConnectorFactory setPriority( int priority ) {
+        this.priority = priority;
+        return this;
+    }
+}
@@ -0,0 +1,393 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonatype.aether.RepositoryException;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.collection.CollectRequest;
+import org.sonatype.aether.collection.CollectResult;
+import org.sonatype.aether.collection.DependencyCollectionException;
+import org.sonatype.aether.collection.DependencyGraphTransformationContext;
+import org.sonatype.aether.graph.Dependency;
+import org.sonatype.aether.graph.DependencyNode;
+import org.sonatype.aether.graph.DependencyVisitor;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.util.graph.DefaultDependencyNode;
+import org.sonatype.aether.util.graph.transformer.NoopDependencyGraphTransformer;
+import org.sonatype.aether.version.Version;
+import org.sonatype.aether.version.VersionConstraint;
+
+/**
+ * Collects dependency graphs incrementally. The subtree collected for each direct dependency
+ * is kept before version mediation, so collecting again after adding a dependency only collects
+ * the new or changed direct dependencies. The subtrees are merged under a new root and the
+ * graph transformer of the session, which mediates versions and scopes, is run over a copy of
+ * the merged graph.
+ *
+ * The subtrees are kept apart by the context of the collection, such as the repositories or
+ * user properties, with the subtrees of the least recently used contexts dropped past
+ * {@link #DEFAULT_MAX_CONTEXTS}. Direct dependencies with a version range are always
+ * collected, since the range can resolve to a new version.
+ *
+ * Collections run concurrently, the collector is only locked while reading and keeping
+ * subtrees. Concurrent collections missing the same subtree both collect it.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class IncrementalCollector {
+
+    private static Logger log = LoggerFactory.getLogger(IncrementalCollector.class);
+
+    /**
+     * Default max number of contexts subtrees are kept for
+     */
+    public static final int DEFAULT_MAX_CONTEXTS = 8;
+
+    private final LinkedHashMap<String,Map<String,DependencyNode>> contexts;
+
+    /**
+     * Create new instance with {@link #DEFAULT_MAX_CONTEXTS}
+     */
+    public IncrementalCollector() {
+        this( DEFAULT_MAX_CONTEXTS );
+    }
+
+    /**
+     * Create new instance
+     *
+     * @param maxContexts int max number of contexts subtrees are kept for
+     */
+    public IncrementalCollector( final int maxContexts ) {
+        contexts = new LinkedHashMap<String,Map<String,DependencyNode>>( 16, 0.75f, true ) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<String,Map<String,DependencyNode>> eldest ) {
+                return size() > maxContexts;
+            }
+        };
+    }
+
+    /**
+     * Collect the dependencies of the request, reusing the subtrees of direct dependencies
+     * collected before in the same context.
+     *
+     * @param client {@link RepositoryClient}
+     * @param request {@link CollectRequest}
+     * @param context String identifying everything besides the direct dependencies that
+     *                affects collection, see {@link ResolutionCache#key}
+     * @return {@link CollectResult}
+     * @throws DependencyCollectionException if collecting failed
+     */
+    public CollectResult collectDependencies( RepositoryClient client, CollectRequest request, String context ) throws DependencyCollectionException {
+        return collectDependencies( client, request, context, null );
+    }
+
+    /**
+     * Collect the dependencies of the request, reusing the subtrees of direct dependencies
+     * collected before in the same context. The direct dependencies without a subtree are
+     * collected by the {@link ParallelDependencyCollector}, if any.
+     *
+     * @param client {@link RepositoryClient}
+     * @param request {@link CollectRequest}
+     * @param context String identifying everything besides the direct dependencies that
+     *                affects collection, see {@link ResolutionCache#key}
+     * @param parallelCollector {@link ParallelDependencyCollector}, or null to collect on the
+     *                          calling thread
+     * @return {@link CollectResult}
+     * @throws DependencyCollectionException if collecting failed
+     */
+    public CollectResult collectDependencies( RepositoryClient client, CollectRequest request, String context, ParallelDependencyCollector parallelCollector ) throws DependencyCollectionException {
+        Map<String,DependencyNode> collected = new HashMap<String,DependencyNode>();
+        List<Dependency> missing = new ArrayList<Dependency>();
+        synchronized ( this ) {
+            Map<String,DependencyNode> subtrees = getSubtrees( context );
+            for ( Dependency dependency : request.getDependencies() ) {
+                String key = ResolutionCache.describe( dependency );
+                DependencyNode subtree = subtrees.get( key );
+                if ( subtree != null ) {
+                    collected.put( key, subtree );
+                } else {
+                    missing.add( dependency );
+                }
+            }
+        }
+
+        log.debug( "Collecting {} of {} direct dependencies", missing.size(), request.getDependencies().size() );
+
+        if ( !missing.isEmpty() ) {
+            RepositoryClient collector = new RepositoryClient( client );
+            collector.getSystemSession().setDependencyGraphTransformer( new NoopDependencyGraphTransformer() );
+
+            CollectRequest missingRequest = new CollectRequest( missing, request.getManagedDependencies(), request.getRepositories() );
+            missingRequest.setRequestContext( request.getRequestContext() );
+            List<DependencyNode> children = collect( collector, missingRequest, parallelCollector ).getRoot().getChildren();
+
+            // a dependency can be filtered out or, with a version range, collected more than
+            // once, then the children can not be matched with the dependencies
+            if ( children.size() != missing.size() ) {
+                log.debug( "Collected {} nodes for {} dependencies, collecting all", children.size(), missing.size() );
+                return collect( client, request, parallelCollector );
+            }
+
+            synchronized ( this ) {
+                Map<String,DependencyNode> subtrees = getSubtrees( context );
+                for ( int x = 0; x < missing.size(); x++ ) {
+                    String key = ResolutionCache.describe( missing.get( x ) );
+                    collected.put( key, children.get( x ) );
+                    if ( !isRange( missing.get( x ) ) ) {
+                        subtrees.put( key, children.get( x ) );
+                    }
+                }
+            }
+        }
+
+        DependencyNode merged = new DefaultDependencyNode();
+        for ( Dependency dependency : request.getDependencies() ) {
+            merged.getChildren().add( collected.get( ResolutionCache.describe( dependency ) ) );
+        }
+
+        // the transformer changes the graph, so the kept subtrees are never transformed
+        RepositorySystemSession session = client.getSystemSession();
+        CollectResult result = new CollectResult( request );
+        try {
+            result.setRoot( session.getDependencyGraphTransformer().transformGraph( copy( merged ), new TransformationContext( session ) ) );
+        } catch ( RepositoryException e ) {
+            result.addException( e );
+            throw new DependencyCollectionException( result );
+        }
+
+        return result;
+    }
+
+    private static CollectResult collect( RepositoryClient client, CollectRequest request, ParallelDependencyCollector parallelCollector ) throws DependencyCollectionException {
+        if ( parallelCollector != null ) {
+            return parallelCollector.collectDependencies( client, request );
+        }
+
+        return client.collectDependencies( request );
+    }
+
+    private Map<String,DependencyNode> getSubtrees( String context ) {
+        Map<String,DependencyNode> subtrees = contexts.get( context );
+        if ( subtrees == null ) {
+            subtrees = new HashMap<String,DependencyNode>();
+            contexts.put( context, subtrees );
+        }
+
+        return subtrees;
+    }
+
+    /**
+     * Drop the collected subtrees
+     */
+    public synchronized void clear() {
+        contexts.clear();
+    }
+
+    /**
+     * Number of direct dependencies with a collected subtree, over every context
+     *
+     * @return int
+     */
+    public synchronized int size() {
+        int size = 0;
+        for ( Map<String,DependencyNode> subtrees : contexts.values() ) {
+            size += subtrees.size();
+        }
+
+        return size;
+    }
+
+    private static boolean isRange( Dependency dependency ) {
+        String version = dependency.getArtifact().getVersion();
+        return version.startsWith( "[" ) || version.startsWith( "(" ) || version.contains( "," );
+    }
+
+    /**
+     * Copy a graph. Nodes sharing a list of children in the original share the copied list,
+     * which also keeps cycles intact.
+     */
+    static DependencyNode copy( DependencyNode node ) {
+        return copy( node, new IdentityHashMap<List<DependencyNode>,List<DependencyNode>>() );
+    }
+
+    private static DependencyNode copy( DependencyNode node, Map<List<DependencyNode>,List<DependencyNode>> lists ) {
+        List<DependencyNode> children = lists.get( node.getChildren() );
+        boolean copyChildren = children == null;
+        if ( copyChildren ) {
+            children = new ArrayList<DependencyNode>( node.getChildren().size() );
+            lists.put( node.getChildren(), children );
+        }
+
+        DependencyNode copy = new CopiedNode( node, children );
+        if ( copyChildren ) {
+            for ( DependencyNode child : node.getChildren() ) {
+                children.add( copy( child, lists ) );
+            }
+        }
+
+        return copy;
+    }
+
+    /**
+     * A copied {@link DependencyNode} with a list of children that can be shared
+     */
+    private static final class CopiedNode implements DependencyNode {
+        private final List<DependencyNode> children;
+        private final List<Artifact> relocations;
+        private final Collection<Artifact> aliases;
+        private final VersionConstraint versionConstraint;
+        private final Version version;
+        private final String premanagedVersion;
+        private final String premanagedScope;
+        private final List<RemoteRepository> repositories;
+        private final Map<Object,Object> data;
+        private Dependency dependency;
+        private String requestContext;
+
+        CopiedNode( DependencyNode node, List<DependencyNode> children ) {
+            this.children = children;
+            this.dependency = node.getDependency();
+            this.relocations = node.getRelocations();
+            this.aliases = node.getAliases();
+            this.versionConstraint = node.getVersionConstraint();
+            this.version = node.getVersion();
+            this.premanagedVersion = node.getPremanagedVersion();
+            this.premanagedScope = node.getPremanagedScope();
+            this.repositories = node.getRepositories();
+            this.requestContext = node.getRequestContext();
+            this.data = new HashMap<Object,Object>( node.getData() );
+        }
+
+        public List<DependencyNode> getChildren() {
+            return children;
+        }
+
+        public Dependency getDependency() {
+            return dependency;
+        }
+
+        public void setArtifact( Artifact artifact ) {
+            dependency = dependency.setArtifact( artifact );
+        }
+
+        public List<Artifact> getRelocations() {
+            return relocations;
+        }
+
+        public Collection<Artifact> getAliases() {
+            return aliases;
+        }
+
+        public VersionConstraint getVersionConstraint() {
+            return versionConstraint;
+        }
+
+        public Version getVersion() {
+            return version;
+        }
+
+        public void setScope( String scope ) {
+            dependency = dependency.setScope( scope );
+        }
+
+        public String getPremanagedVersion() {
+            return premanagedVersion;
+        }
+
+        public String getPremanagedScope() {
+            return premanagedScope;
+        }
+
+        public List<RemoteRepository> getRepositories() {
+            return repositories;
+        }
+
+        public String getRequestContext() {
+            return requestContext;
+        }
+
+        public void setRequestContext( String requestContext ) {
+            this.requestContext = requestContext;
+        }
+
+        public Map<Object,Object> getData() {
+            return data;
+        }
+
+        public void setData( Object key, Object value ) {
+            if ( value == null ) {
+                data.remove( key );
+            } else {
+                data.put( key, value );
+            }
+        }
+
+        public boolean accept( DependencyVisitor visitor ) {
+            if ( visitor.visitEnter( this ) ) {
+                for ( DependencyNode child : children ) {
+                    if ( !child.accept( visitor ) ) {
+                        break;
+                    }
+                }
+            }
+
+            return visitor.visitLeave( this );
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf( dependency );
+        }
+    }
+
+    private static final class TransformationContext implements DependencyGraphTransformationContext {
+        private final RepositorySystemSession session;
+        private final Map<Object,Object> values = new HashMap<Object,Object>();
+
+        TransformationContext( RepositorySystemSession session ) {
+            this.session = session;
+        }
+
+        public RepositorySystemSession getSession() {
+            return session;
+        }
+
+        public Object get( Object key ) {
+            return values.get( key );
+        }
+
+        public Object put( Object key, Object value ) {
+            return values.put( key, value );
+        }
+    }
+}
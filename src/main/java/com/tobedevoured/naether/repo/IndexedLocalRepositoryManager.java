@@ -0,0 +1,360 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.metadata.Metadata;
+import org.sonatype.aether.repository.LocalArtifactRegistration;
+import org.sonatype.aether.repository.LocalArtifactRequest;
+import org.sonatype.aether.repository.LocalArtifactResult;
+import org.sonatype.aether.repository.LocalMetadataRegistration;
+import org.sonatype.aether.repository.LocalMetadataRequest;
+import org.sonatype.aether.repository.LocalMetadataResult;
+import org.sonatype.aether.repository.LocalRepository;
+import org.sonatype.aether.repository.LocalRepositoryManager;
+import org.sonatype.aether.repository.RemoteRepository;
+
+/**
+ * {@link LocalRepositoryManager} that answers finding artifacts from an index, instead of
+ * checking the file system and reading the <code>_remote.repositories</code> of every artifact.
+ * The index records the path of each artifact found in or added to the local repository with the
+ * repository it is available from, and is kept in the local repository as an append only log,
+ * so the next process starts warm. New entries are buffered and appended with {@link #flush()},
+ * which the {@link RepositoryClient} calls once a resolve is done, and when the JVM exits. The
+ * index is shared by every manager of the same local repository in the JVM.
+ *
+ * An artifact found from the index is still checked to exist, a single stat instead of reading
+ * its <code>_remote.repositories</code>, and its entry is dropped when it was deleted outside of
+ * Naether. Artifacts of a repository manager serving mirrored repositories and metadata are always
+ * found with the wrapped manager.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class IndexedLocalRepositoryManager implements LocalRepositoryManager {
+
+    /**
+     * Name of the index in the local repository
+     */
+    public static final String INDEX = "_naether.index";
+
+    private static Logger log = LoggerFactory.getLogger(IndexedLocalRepositoryManager.class);
+
+    private static final Map<File,Index> indexes = new ConcurrentHashMap<File,Index>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook( new Thread( "naether-index-flush" ) {
+            @Override
+            public void run() {
+                for ( Index index : indexes.values() ) {
+                    index.flush();
+                }
+            }
+        });
+    }
+
+    private static final String LOCAL = "";
+
+    private final LocalRepositoryManager delegate;
+    private final Index index;
+
+    /**
+     * Create new instance
+     *
+     * @param delegate {@link LocalRepositoryManager} of the local repository
+     */
+    public IndexedLocalRepositoryManager( LocalRepositoryManager delegate ) {
+        this.delegate = delegate;
+        this.index = getIndex( delegate.getRepository().getBasedir() );
+    }
+
+    public LocalRepositoryManager getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Artifacts found from the index
+     *
+     * @return long
+     */
+    public long getHits() {
+        return index.hits.get();
+    }
+
+    /**
+     * Artifacts found with the wrapped manager
+     *
+     * @return long
+     */
+    public long getMisses() {
+        return index.misses.get();
+    }
+
+    /**
+     * Drop the index of the local repository
+     */
+    public void clear() {
+        index.clear();
+    }
+
+    /**
+     * Append the entries added since the last flush to the index in the local repository
+     */
+    public void flush() {
+        index.flush();
+    }
+
+    public LocalRepository getRepository() {
+        return delegate.getRepository();
+    }
+
+    public String getPathForLocalArtifact( Artifact artifact ) {
+        return delegate.getPathForLocalArtifact( artifact );
+    }
+
+    public String getPathForRemoteArtifact( Artifact artifact, RemoteRepository repository, String context ) {
+        return delegate.getPathForRemoteArtifact( artifact, repository, context );
+    }
+
+    public String getPathForLocalMetadata( Metadata metadata ) {
+        return delegate.getPathForLocalMetadata( metadata );
+    }
+
+    public String getPathForRemoteMetadata( Metadata metadata, RemoteRepository repository, String context ) {
+        return delegate.getPathForRemoteMetadata( metadata, repository, context );
+    }
+
+    public LocalArtifactResult find( RepositorySystemSession session, LocalArtifactRequest request ) {
+        String path = delegate.getPathForLocalArtifact( request.getArtifact() );
+
+        Set<String> origins = index.get( path );
+        if ( origins != null ) {
+            LocalArtifactResult result = new LocalArtifactResult( request );
+            if ( origins.contains( LOCAL ) ) {
+                result.setAvailable( true );
+            } else {
+                for ( RemoteRepository repository : request.getRepositories() ) {
+                    if ( !repository.isRepositoryManager() && origins.contains( repository.getId() ) ) {
+                        result.setAvailable( true );
+                        result.setRepository( repository );
+                        break;
+                    }
+                }
+            }
+
+            File file = new File( getRepository().getBasedir(), path );
+            if ( result.isAvailable() && file.isFile() ) {
+                index.hits.incrementAndGet();
+                result.setFile( file );
+                return result;
+            } else if ( result.isAvailable() ) {
+                log.debug( "{} was deleted, dropping it from the index", file );
+                index.remove( path, origins );
+            }
+        }
+
+        index.misses.incrementAndGet();
+        LocalArtifactResult result = delegate.find( session, request );
+        if ( result.isAvailable() ) {
+            if ( result.getRepository() == null ) {
+                index.add( path, LOCAL );
+            } else if ( !result.getRepository().isRepositoryManager() ) {
+                index.add( path, result.getRepository().getId() );
+            }
+        }
+
+        return result;
+    }
+
+    public void add( RepositorySystemSession session, LocalArtifactRegistration request ) {
+        delegate.add( session, request );
+
+        String path = delegate.getPathForLocalArtifact( request.getArtifact() );
+        if ( request.getRepository() == null ) {
+            index.add( path, LOCAL );
+        } else if ( !request.getRepository().isRepositoryManager() ) {
+            index.add( path, request.getRepository().getId() );
+        }
+    }
+
+    public LocalMetadataResult find( RepositorySystemSession session, LocalMetadataRequest request ) {
+        return delegate.find( session, request );
+    }
+
+    public void add( RepositorySystemSession session, LocalMetadataRegistration request ) {
+        delegate.add( session, request );
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf( getRepository() ) + " indexed";
+    }
+
+    private static Index getIndex( File basedir ) {
+        File file = new File( basedir.getAbsoluteFile(), INDEX );
+        synchronized ( indexes ) {
+            Index index = indexes.get( file );
+            if ( index == null ) {
+                index = new Index( file );
+                indexes.put( file, index );
+            } else {
+                index.validate();
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Paths of a local repository with the ids of the repositories they are available from,
+     * an empty id for installed artifacts. New entries are buffered until flushed to the log.
+     * Entries dropped for deleted artifacts stay in the log and are dropped again by the next
+     * process, until the artifact is downloaded again.
+     */
+    private static final class Index {
+        private final File file;
+        private final ConcurrentHashMap<String,Set<String>> entries = new ConcurrentHashMap<String,Set<String>>();
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final StringBuilder pending = new StringBuilder();
+
+        Index( File file ) {
+            this.file = file;
+            load();
+        }
+
+        Set<String> get( String path ) {
+            return entries.get( path );
+        }
+
+        void add( String path, String origin ) {
+            Set<String> origins = entries.get( path );
+            if ( origins == null ) {
+                origins = Collections.newSetFromMap( new ConcurrentHashMap<String,Boolean>() );
+                Set<String> existing = entries.putIfAbsent( path, origins );
+                if ( existing != null ) {
+                    origins = existing;
+                }
+            }
+
+            if ( origins.add( origin ) ) {
+                synchronized ( this ) {
+                    pending.append( path ).append( '\t' ).append( origin ).append( '\n' );
+                }
+            }
+        }
+
+        void remove( String path, Set<String> origins ) {
+            entries.remove( path, origins );
+        }
+
+        /**
+         * Drop the entries when the local repository was deleted since they were flushed
+         */
+        synchronized void validate() {
+            if ( !entries.isEmpty() && pending.length() == 0 && !file.isFile() ) {
+                log.debug( "{} was deleted, dropping the index", file );
+                entries.clear();
+            }
+        }
+
+        synchronized void clear() {
+            entries.clear();
+            pending.setLength( 0 );
+            if ( file.exists() && !file.delete() ) {
+                log.warn( "Failed to delete {}", file );
+            }
+        }
+
+        synchronized void flush() {
+            if ( pending.length() == 0 || !file.getParentFile().isDirectory() ) {
+                return;
+            }
+
+            Writer writer = null;
+            try {
+                writer = new OutputStreamWriter( new FileOutputStream( file, true ), "UTF-8" );
+                writer.write( pending.toString() );
+                pending.setLength( 0 );
+            } catch ( IOException e ) {
+                log.debug( "Failed to append to {}", file, e );
+            } finally {
+                close( writer );
+            }
+        }
+
+        private void load() {
+            if ( !file.isFile() ) {
+                return;
+            }
+
+            BufferedReader reader = null;
+            try {
+                reader = new BufferedReader( new InputStreamReader( new FileInputStream( file ), "UTF-8" ) );
+                String line;
+                while ( (line = reader.readLine()) != null ) {
+                    // a line cut short by a crash is skipped
+                    int tab = line.indexOf( '\t' );
+                    if ( tab > 0 && line.indexOf( '\t', tab + 1 ) == -1 ) {
+                        String path = line.substring( 0, tab );
+                        Set<String> origins = entries.get( path );
+                        if ( origins == null ) {
+                            origins = Collections.newSetFromMap( new ConcurrentHashMap<String,Boolean>() );
+                            entries.put( path, origins );
+                        }
+                        origins.add( line.substring( tab + 1 ) );
+                    }
+                }
+            } catch ( IOException e ) {
+                log.warn( "Failed to load {}, starting with an empty index", file, e );
+                entries.clear();
+            } finally {
+                close( reader );
+            }
+
+            log.debug( "Loaded {} artifacts from {}", entries.size(), file );
+        }
+
+        private static void close( Closeable closeable ) {
+            if ( closeable != null ) {
+                try {
+                    closeable.close();
+                } catch ( IOException e ) {
+                    log.debug( "Failed to close", e );
+                }
+            }
+        }
+    }
+}
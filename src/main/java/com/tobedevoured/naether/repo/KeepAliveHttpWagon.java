@@ -0,0 +1,206 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.maven.wagon.InputData;
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.TransferFailedException;
+import org.apache.maven.wagon.authorization.AuthorizationException;
+import org.apache.maven.wagon.providers.http.LightweightHttpWagon;
+import org.apache.maven.wagon.resource.Resource;
+
+/**
+ * {@link LightweightHttpWagon} that applies connect and read timeouts to downloads and
+ * leaves every connection reusable by the JVM's HTTP keep-alive cache, including after
+ * error responses. Serves both http and https urls.
+ *
+ * The timeouts default to the wagon timeout set by the connector. Idle keep-alive
+ * connections per host are limited by the <code>http.maxConnections</code> system property.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class KeepAliveHttpWagon extends LightweightHttpWagon {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private int connectTimeout = 0;
+    private int readTimeout = 0;
+
+    public void fillInputData( InputData inputData ) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+        Resource resource = inputData.getResource();
+        String url = buildUrl( resource.getName() );
+
+        HttpURLConnection connection;
+        try {
+            connection = (HttpURLConnection) new URL( url ).openConnection();
+        } catch ( MalformedURLException e ) {
+            throw new ResourceDoesNotExistException( "Invalid repository URL: " + e.getMessage(), e );
+        } catch ( IOException e ) {
+            throw new TransferFailedException( "Error transferring file: " + e.getMessage(), e );
+        }
+
+        connection.setConnectTimeout( getConnectTimeout() );
+        connection.setReadTimeout( getReadTimeout() );
+        connection.setUseCaches( isUseCache() );
+        connection.setRequestProperty( "Accept-Encoding", "gzip" );
+        if ( !isUseCache() ) {
+            connection.setRequestProperty( "Pragma", "no-cache" );
+        }
+        addHeaders( connection );
+
+        try {
+            int responseCode = connection.getResponseCode();
+            if ( responseCode == HttpURLConnection.HTTP_FORBIDDEN || responseCode == HttpURLConnection.HTTP_UNAUTHORIZED ) {
+                drain( connection );
+                throw new AuthorizationException( "Access denied to: " + url );
+            } else if ( responseCode == HttpURLConnection.HTTP_NOT_FOUND || responseCode == HttpURLConnection.HTTP_GONE ) {
+                drain( connection );
+                throw new ResourceDoesNotExistException( "Unable to locate resource in repository: " + url );
+            } else if ( responseCode >= HttpURLConnection.HTTP_BAD_REQUEST ) {
+                drain( connection );
+                throw new TransferFailedException( "Failed to transfer file: " + url + ". Return code is: " + responseCode );
+            }
+
+            InputStream inputStream = connection.getInputStream();
+            if ( "gzip".equalsIgnoreCase( connection.getHeaderField( "Content-Encoding" ) ) ) {
+                inputStream = new GZIPInputStream( inputStream );
+            }
+
+            inputData.setInputStream( inputStream );
+            resource.setLastModified( connection.getLastModified() );
+            resource.setContentLength( connection.getContentLength() );
+        } catch ( IOException e ) {
+            throw new TransferFailedException( "Error transferring file: " + e.getMessage(), e );
+        }
+    }
+
+    /**
+     * Set the timeouts from a wagon configuration, a Map with the Integer values
+     * <code>connectTimeout</code> and <code>readTimeout</code>
+     *
+     * @param config Map
+     */
+    public void configure( Map<?,?> config ) {
+        Object value = config.get( "connectTimeout" );
+        if ( value instanceof Number ) {
+            setConnectTimeout( ( (Number) value ).intValue() );
+        }
+
+        value = config.get( "readTimeout" );
+        if ( value instanceof Number ) {
+            setReadTimeout( ( (Number) value ).intValue() );
+        }
+    }
+
+    /**
+     * Clear the connection and configuration of a disconnected wagon, so it can be reused
+     * for another repository. The connector only connects a wagon without a repository,
+     * connecting replaces the proxy.
+     */
+    public void reset() {
+        repository = null;
+        authenticationInfo = null;
+        connectTimeout = 0;
+        readTimeout = 0;
+        setHttpHeaders( new Properties() );
+        setUseCache( false );
+    }
+
+    /**
+     * Connect timeout in milliseconds, the wagon timeout if not set
+     *
+     * @return int
+     */
+    public int getConnectTimeout() {
+        return connectTimeout > 0 ? connectTimeout : getTimeout();
+    }
+
+    public void setConnectTimeout( int connectTimeout ) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * Read timeout in milliseconds, the wagon timeout if not set
+     *
+     * @return int
+     */
+    public int getReadTimeout() {
+        return readTimeout > 0 ? readTimeout : getTimeout();
+    }
+
+    public void setReadTimeout( int readTimeout ) {
+        this.readTimeout = readTimeout;
+    }
+
+    private String buildUrl( String path ) {
+        String repoUrl = getRepository().getUrl();
+        path = path.replace( ' ', '+' );
+
+        if ( repoUrl.charAt( repoUrl.length() - 1 ) != '/' ) {
+            return repoUrl + '/' + path;
+        }
+
+        return repoUrl + path;
+    }
+
+    private void addHeaders( URLConnection connection ) {
+        Properties headers = getHttpHeaders();
+        if ( headers != null ) {
+            for ( String name : headers.stringPropertyNames() ) {
+                connection.setRequestProperty( name, headers.getProperty( name ) );
+            }
+        }
+    }
+
+    /**
+     * Read the rest of an error response, otherwise the connection can not be reused
+     */
+    static void drain( HttpURLConnection connection ) {
+        InputStream errorStream = connection.getErrorStream();
+        if ( errorStream == null ) {
+            return;
+        }
+
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while ( errorStream.read( buffer ) != -1 ) {
+                // discard
+            }
+        } catch ( IOException e ) {
+            // connection will not be reused
+        } finally {
+            try {
+                errorStream.close();
+            } catch ( IOException e ) {
+                // ignore
+            }
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.graph.Dependency;
+import org.sonatype.aether.graph.DependencyNode;
+import org.sonatype.aether.repository.LocalArtifactRequest;
+import org.sonatype.aether.repository.LocalArtifactResult;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+import org.sonatype.aether.util.graph.DefaultDependencyNode;
+
+/**
+ * Lockfile of a resolution. Records every resolved dependency with its scope, its properties,
+ * the repository it was downloaded from and its sha1, along with the key of the resolution
+ * inputs, see {@link ResolutionCache#key}. The local files are not recorded, so a lockfile
+ * can be shared between machines.
+ *
+ * A lockfile rebuilds the dependency graph without collecting it, so the artifacts can be
+ * fetched in one batch without reading any descriptors, and verified against their sha1.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class Lockfile {
+
+    private static final String HEADER = "naether-lock 2";
+    private static final String KEY = "key";
+    private static final String ARTIFACT = "artifact";
+    private static final int NO_PARENT = -1;
+
+    private static Logger log = LoggerFactory.getLogger(Lockfile.class);
+
+    private final String key;
+    private final List<Entry> entries;
+
+    private Lockfile( String key, List<Entry> entries ) {
+        this.key = key;
+        this.entries = entries;
+    }
+
+    /**
+     * Create a lockfile from resolved nodes
+     *
+     * @param key String of the resolution inputs
+     * @param nodes List of {@link DependencyNode} in preorder, such as from a PreorderNodeListGenerator
+     * @param session {@link RepositorySystemSession} to find the repository of each artifact
+     * @return {@link Lockfile}
+     * @throws IOException if the sha1 of an artifact could not be read
+     */
+    public static Lockfile create( String key, List<DependencyNode> nodes, RepositorySystemSession session ) throws IOException {
+        Map<DependencyNode,Integer> ids = new IdentityHashMap<DependencyNode,Integer>();
+        for ( DependencyNode node : nodes ) {
+            ids.put( node, ids.size() );
+        }
+
+        // a node was visited under the nearest node before it that lists it as a child, so
+        // the graph rebuilt as a tree of those parents has the same preorder
+        int[] parents = new int[nodes.size()];
+        Arrays.fill( parents, NO_PARENT );
+        for ( DependencyNode node : nodes ) {
+            int id = ids.get( node );
+            for ( DependencyNode child : node.getChildren() ) {
+                Integer childId = ids.get( child );
+                if ( childId != null && childId > id ) {
+                    parents[childId] = id;
+                }
+            }
+        }
+
+        List<File> files = new ArrayList<File>( nodes.size() );
+        for ( DependencyNode node : nodes ) {
+            File file = node.getDependency().getArtifact().getFile();
+            if ( file != null && file.isFile() ) {
+                files.add( file );
+            }
+        }
+        Map<File,Map<String,String>> digests = Checksums.digests( files );
+
+        List<Entry> entries = new ArrayList<Entry>( nodes.size() );
+        for ( DependencyNode node : nodes ) {
+            Dependency dependency = node.getDependency();
+            Artifact artifact = dependency.getArtifact();
+
+            RemoteRepository repository = null;
+            if ( session != null && artifact.getFile() != null ) {
+                LocalArtifactResult result = session.getLocalRepositoryManager().find( session,
+                    new LocalArtifactRequest( artifact, node.getRepositories(), node.getRequestContext() ) );
+                repository = result.getRepository();
+            }
+
+            String sha1 = digests.containsKey( artifact.getFile() ) ? digests.get( artifact.getFile() ).get( Checksums.SHA1 ) : null;
+
+            entries.add( new Entry( artifact.setFile( null ), dependency.getScope(), dependency.isOptional(), parents[entries.size()],
+                repository != null ? repository.getId() : null, repository != null ? repository.getUrl() : null, sha1 ) );
+        }
+
+        return new Lockfile( key, entries );
+    }
+
+    /**
+     * Read a lockfile
+     *
+     * @param file {@link File}
+     * @return {@link Lockfile}
+     * @throws IOException if the file could not be read or is not a lockfile
+     */
+    public static Lockfile read( File file ) throws IOException {
+        String key = null;
+        List<Entry> entries = new ArrayList<Entry>();
+
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader( new InputStreamReader( new FileInputStream( file ), "UTF-8" ) );
+
+            if ( !HEADER.equals( reader.readLine() ) ) {
+                throw new IOException( "Unknown lockfile format: " + file );
+            }
+
+            String line;
+            while ( ( line = reader.readLine() ) != null ) {
+                String[] fields = line.split( " ", -1 );
+
+                if ( KEY.equals( fields[0] ) ) {
+                    key = fields[1];
+
+                } else if ( ARTIFACT.equals( fields[0] ) ) {
+                    String[] coords = decode( fields[1] ).split( ":", -1 );
+                    Artifact artifact = new DefaultArtifact( coords[0], coords[1], coords[3], coords[2], coords[4],
+                        ResolutionCache.decodeProperties( decode( fields[8] ) ), (File) null );
+
+                    entries.add( new Entry( artifact, decode( fields[2] ), Boolean.valueOf( fields[3] ), Integer.parseInt( fields[4] ),
+                        blank( decode( fields[5] ) ), blank( decode( fields[6] ) ), blank( fields[7] ) ) );
+                }
+            }
+        } catch ( RuntimeException e ) {
+            throw new IOException( "Corrupt lockfile: " + file, e );
+        } finally {
+            close( reader );
+        }
+
+        return new Lockfile( key, entries );
+    }
+
+    /**
+     * Write the lockfile, replacing the file atomically
+     *
+     * @param file {@link File}
+     * @throws IOException if the file could not be written
+     */
+    public void write( File file ) throws IOException {
+        StringBuilder content = new StringBuilder( HEADER ).append( '\n' );
+        content.append( KEY ).append( ' ' ).append( key ).append( '\n' );
+
+        for ( Entry entry : entries ) {
+            Artifact artifact = entry.getArtifact();
+            String coords = artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getExtension() +
+                    ":" + artifact.getClassifier() + ":" + artifact.getVersion();
+
+            content.append( ARTIFACT )
+                .append( ' ' ).append( encode( coords ) )
+                .append( ' ' ).append( encode( entry.getScope() ) )
+                .append( ' ' ).append( entry.isOptional() )
+                .append( ' ' ).append( entry.getParent() )
+                .append( ' ' ).append( encode( entry.getRepositoryId() ) )
+                .append( ' ' ).append( encode( entry.getRepositoryUrl() ) )
+                .append( ' ' ).append( entry.getSha1() != null ? entry.getSha1() : "" )
+                .append( ' ' ).append( encode( ResolutionCache.encodeProperties( artifact.getProperties() ) ) )
+                .append( '\n' );
+        }
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        if ( parent != null ) {
+            parent.mkdirs();
+        }
+
+        File tmp = new File( file.getPath() + ".tmp" + Thread.currentThread().getId() );
+        BufferedWriter writer = null;
+        try {
+            writer = new BufferedWriter( new OutputStreamWriter( new FileOutputStream( tmp ), "UTF-8" ) );
+            writer.write( content.toString() );
+            writer.close();
+            writer = null;
+
+            Files.move( tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+        } finally {
+            close( writer );
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Rebuild the dependency graph. Each node resolves from the repositories, with the
+     * repository the artifact was locked from first.
+     *
+     * @param repositories List of {@link RemoteRepository} to resolve from
+     * @return {@link DependencyNode} root of the graph
+     */
+    public DependencyNode toGraph( List<RemoteRepository> repositories ) {
+        DependencyNode root = new DefaultDependencyNode();
+        List<DependencyNode> nodes = new ArrayList<DependencyNode>( entries.size() );
+
+        for ( Entry entry : entries ) {
+            DefaultDependencyNode node = new DefaultDependencyNode(
+                new Dependency( entry.getArtifact(), entry.getScope(), entry.isOptional() ) );
+            node.setRepositories( getRepositories( entry, repositories ) );
+            nodes.add( node );
+
+            DependencyNode parent = entry.getParent() == NO_PARENT ? root : nodes.get( entry.getParent() );
+            parent.getChildren().add( node );
+        }
+
+        return root;
+    }
+
+    /**
+     * Verify the sha1 of the resolved artifacts of the graph against the lockfile
+     *
+     * @param root {@link DependencyNode} from {@link #toGraph(List)}
+     * @return List of {@link Artifact} that do not match
+     * @throws IOException if an artifact could not be read
+     */
+    public List<Artifact> verify( DependencyNode root ) throws IOException {
+        List<Artifact> mismatches = new ArrayList<Artifact>();
+
+        List<DependencyNode> nodes = new ArrayList<DependencyNode>( entries.size() );
+        preorder( root, nodes );
+
+        List<File> files = new ArrayList<File>( nodes.size() );
+        for ( DependencyNode node : nodes ) {
+            if ( node.getDependency().getArtifact().getFile() != null ) {
+                files.add( node.getDependency().getArtifact().getFile() );
+            }
+        }
+        Map<File,Map<String,String>> digests = Checksums.digests( files );
+
+        int index = 0;
+        for ( DependencyNode node : nodes ) {
+            Entry entry = entries.get( index++ );
+            Artifact artifact = node.getDependency().getArtifact();
+            if ( entry.getSha1() != null && ( artifact.getFile() == null || !entry.getSha1().equals( digests.get( artifact.getFile() ).get( Checksums.SHA1 ) ) ) ) {
+                log.warn( "Checksum of {} does not match the lockfile", artifact );
+                mismatches.add( artifact );
+            }
+        }
+
+        return mismatches;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList( entries );
+    }
+
+    private static void preorder( DependencyNode node, List<DependencyNode> nodes ) {
+        if ( node.getDependency() != null ) {
+            nodes.add( node );
+        }
+        for ( DependencyNode child : node.getChildren() ) {
+            preorder( child, nodes );
+        }
+    }
+
+    private static List<RemoteRepository> getRepositories( Entry entry, List<RemoteRepository> repositories ) {
+        List<RemoteRepository> ordered = new ArrayList<RemoteRepository>( repositories.size() + 1 );
+        if ( entry.getRepositoryId() == null ) {
+            ordered.addAll( repositories );
+            return ordered;
+        }
+
+        RemoteRepository locked = null;
+        for ( RemoteRepository repository : repositories ) {
+            if ( entry.getRepositoryId().equals( repository.getId() ) ) {
+                locked = repository;
+            } else {
+                ordered.add( repository );
+            }
+        }
+
+        if ( locked == null ) {
+            // declared in a pom, which is not read when resolving from a lockfile
+            locked = new RemoteRepository( entry.getRepositoryId(), "default", entry.getRepositoryUrl() );
+        }
+        ordered.add( 0, locked );
+
+        return ordered;
+    }
+
+    private static String blank( String value ) {
+        return value.length() > 0 ? value : null;
+    }
+
+    private static String encode( String value ) throws UnsupportedEncodingException {
+        return URLEncoder.encode( value != null ? value : "", "UTF-8" );
+    }
+
+    private static String decode( String value ) throws UnsupportedEncodingException {
+        return URLDecoder.decode( value, "UTF-8" );
+    }
+
+    private static void close( Closeable closeable ) {
+        if ( closeable != null ) {
+            try {
+                closeable.close();
+            } catch ( IOException e ) {
+                log.debug( "Failed to close", e );
+            }
+        }
+    }
+
+    /**
+     * A locked dependency
+     */
+    public static class Entry {
+        private final Artifact artifact;
+        private final String scope;
+        private final boolean optional;
+        private final int parent;
+        private final String repositoryId;
+        private final String repositoryUrl;
+        private final String sha1;
+
+        Entry( Artifact artifact, String scope, boolean optional, int parent, String repositoryId, String repositoryUrl, String sha1 ) {
+            this.artifact = artifact;
+            this.scope = scope;
+            this.optional = optional;
+            this.parent = parent;
+            this.repositoryId = repositoryId;
+            this.repositoryUrl = repositoryUrl;
+            this.sha1 = sha1;
+        }
+
+        /**
+         * The artifact with its properties, without a file
+         *
+         * @return {@link Artifact}
+         */
+        public Artifact getArtifact() {
+            return artifact;
+        }
+
+        public String getScope() {
+            return scope;
+        }
+
+        public boolean isOptional() {
+            return optional;
+        }
+
+        /**
+         * Index of the parent entry, or -1 for a direct dependency
+         *
+         * @return int
+         */
+        public int getParent() {
+            return parent;
+        }
+
+        /**
+         * Id of the repository the artifact was downloaded from, null if it was not downloaded
+         *
+         * @return String
+         */
+        public String getRepositoryId() {
+            return repositoryId;
+        }
+
+        public String getRepositoryUrl() {
+            return repositoryUrl;
+        }
+
+        /**
+         * Hex sha1 of the artifact, null if the artifact was not resolved to a file
+         *
+         * @return String
+         */
+        public String getSha1() {
+            return sha1;
+        }
+    }
+}
@@ -18,31 +18,96 @@ package com.tobedevoured.naether.repo;
  * limitations under the License.
  */
 
+import java.util.LinkedList;
+import java.util.Map;
+
 import org.apache.maven.wagon.Wagon;
 import org.apache.maven.wagon.providers.file.FileWagon;
-import org.apache.maven.wagon.providers.http.LightweightHttpWagon;
-import org.apache.maven.wagon.providers.http.LightweightHttpsWagon;
+import org.sonatype.aether.connector.wagon.WagonConfigurator;
 import org.sonatype.aether.connector.wagon.WagonProvider;
 
 /**
  * A simplistic provider for wagon instances when no Plexus-compatible IoC
  * container is used.
+ *
+ * Http and https are served by {@link KeepAliveHttpWagon}, which is configured with a Map
+ * of timeouts, see {@link KeepAliveHttpWagon#configure(Map)}. Released http wagons
+ * are pooled and handed out again by {@link #lookup(String)}, up to {@link #DEFAULT_MAX_IDLE}
+ * idle wagons.
  */
-public class ManualWagonProvider implements WagonProvider {
+public class ManualWagonProvider implements WagonProvider, WagonConfigurator {
+
+    /**
+     * Default max number of idle http wagons
+     */
+    public static final int DEFAULT_MAX_IDLE = 16;
+
+    private final LinkedList<KeepAliveHttpWagon> pool = new LinkedList<KeepAliveHttpWagon>();
+    private final int maxIdle;
+
+    /**
+     * Create new instance with {@link #DEFAULT_MAX_IDLE}
+     */
+    public ManualWagonProvider() {
+        this( DEFAULT_MAX_IDLE );
+    }
+
+    /**
+     * Create new instance
+     *
+     * @param maxIdle int max number of idle http wagons, 0 disables pooling
+     */
+    public ManualWagonProvider( int maxIdle ) {
+        this.maxIdle = maxIdle;
+    }
 
     public Wagon lookup(String roleHint) {
-        if ("http".equals(roleHint)) {
-            return new LightweightHttpWagon();
-        } else if ("https".equals(roleHint)) {
-            return new LightweightHttpsWagon();
+        if ("http".equals(roleHint) || "https".equals(roleHint)) {
+            synchronized ( pool ) {
+                if ( !pool.isEmpty() ) {
+                    return pool.removeFirst();
+                }
+            }
+            return new KeepAliveHttpWagon();
         } else if ( "file".equals(roleHint) ) {
             return new FileWagon();
         }
         return null;
     }
 
+    /**
+     * Return a disconnected http wagon to the pool
+     */
     public void release(Wagon wagon) {
+        if ( !( wagon instanceof KeepAliveHttpWagon ) ) {
+            return;
+        }
 
+        KeepAliveHttpWagon httpWagon = (KeepAliveHttpWagon)wagon;
+        httpWagon.reset();
+
+        synchronized ( pool ) {
+            if ( pool.size() < maxIdle && !pool.contains( httpWagon ) ) {
+                pool.addFirst( httpWagon );
+            }
+        }
+    }
+
+    public void configure(Wagon wagon, Object configuration) {
+        if ( wagon instanceof KeepAliveHttpWagon && configuration instanceof Map ) {
+            ((KeepAliveHttpWagon)wagon).configure( (Map<?,?>)configuration );
+        }
+    }
+
+    /**
+     * Number of idle http wagons in the pool
+     *
+     * @return int
+     */
+    public int getIdleCount() {
+        synchronized ( pool ) {
+            return pool.size();
+        }
     }
 
 }
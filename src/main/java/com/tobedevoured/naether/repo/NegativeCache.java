@@ -0,0 +1,306 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Remembers the artifacts and metadata a remote repository did not have, so they are not
+ * requested again until their time to live has passed. Consulted by the
+ * {@link NegativeCachingRepositoryConnector} before a request is made.
+ *
+ * The cache is kept in the local repository as an append only log of the repository url,
+ * path and expiry of every miss, so the next process starts warm. A miss removed because the
+ * resource was found is logged with an expiry of 0. The log is compacted when loaded. The
+ * cache is shared by every client of the same local repository in the JVM.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class NegativeCache {
+
+    /**
+     * Name of the cache in the local repository
+     */
+    public static final String CACHE = "_naether.missing";
+
+    private static Logger log = LoggerFactory.getLogger(NegativeCache.class);
+
+    private static final Map<File,NegativeCache> caches = new ConcurrentHashMap<File,NegativeCache>();
+
+    private final File file;
+    private final ConcurrentHashMap<String,Long> entries = new ConcurrentHashMap<String,Long>();
+    private final AtomicLong hits = new AtomicLong();
+
+    NegativeCache( File file ) {
+        this.file = file;
+        load();
+    }
+
+    /**
+     * Get the cache of a local repository
+     *
+     * @param basedir {@link File} of the local repository
+     * @return {@link NegativeCache}
+     */
+    public static NegativeCache get( File basedir ) {
+        File file = new File( basedir.getAbsoluteFile(), CACHE );
+        synchronized ( caches ) {
+            NegativeCache cache = caches.get( file );
+            if ( cache == null ) {
+                cache = new NegativeCache( file );
+                caches.put( file, cache );
+            } else {
+                cache.validate();
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * If the repository did not have the resource when last requested and the time to live
+     * of the miss has not passed
+     *
+     * @param url String of the repository
+     * @param path String of the resource in the repository
+     * @return boolean
+     */
+    public boolean isMissing( String url, String path ) {
+        Long expires = entries.get( key( url, path ) );
+        if ( expires != null && expires > System.currentTimeMillis() ) {
+            hits.incrementAndGet();
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Record that the repository does not have the resource
+     *
+     * @param url String of the repository
+     * @param path String of the resource in the repository
+     * @param ttl long milliseconds until the resource is requested again
+     */
+    public void addMissing( String url, String path, long ttl ) {
+        String key = key( url, path );
+        long expires = System.currentTimeMillis() + ttl;
+        entries.put( key, expires );
+        append( key + "\t" + expires + "\n" );
+    }
+
+    /**
+     * Remove a miss, for a resource the repository has after all
+     *
+     * @param url String of the repository
+     * @param path String of the resource in the repository
+     */
+    public void remove( String url, String path ) {
+        String key = key( url, path );
+        if ( entries.remove( key ) != null ) {
+            append( key + "\t0\n" );
+        }
+    }
+
+    /**
+     * Remove every miss of a repository, for after artifacts were deployed to it
+     *
+     * @param url String of the repository
+     */
+    public synchronized void invalidate( String url ) {
+        String prefix = normalize( url ) + "\t";
+        boolean removed = false;
+        for ( Iterator<String> keys = entries.keySet().iterator(); keys.hasNext(); ) {
+            if ( keys.next().startsWith( prefix ) ) {
+                keys.remove();
+                removed = true;
+            }
+        }
+
+        if ( removed ) {
+            write();
+        }
+    }
+
+    /**
+     * Remove every miss of every repository
+     */
+    public synchronized void clear() {
+        entries.clear();
+        if ( file.exists() && !file.delete() ) {
+            log.warn( "Failed to delete {}", file );
+        }
+    }
+
+    /**
+     * Requests answered from the cache
+     *
+     * @return long
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Number of misses recorded, including expired ones
+     *
+     * @return int
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Drop the entries when the local repository was deleted since they were loaded
+     */
+    private synchronized void validate() {
+        if ( !entries.isEmpty() && !file.isFile() ) {
+            log.debug( "{} was deleted, dropping the cache", file );
+            entries.clear();
+        }
+    }
+
+    private synchronized void append( String line ) {
+        if ( !file.getParentFile().isDirectory() ) {
+            return;
+        }
+
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter( new FileOutputStream( file, true ), "UTF-8" );
+            writer.write( line );
+        } catch ( IOException e ) {
+            log.debug( "Failed to append to {}", file, e );
+        } finally {
+            close( writer );
+        }
+    }
+
+    /**
+     * Rewrite the log with only the entries that have not expired
+     */
+    private synchronized void write() {
+        if ( !file.getParentFile().isDirectory() ) {
+            return;
+        }
+
+        File tmp = new File( file.getPath() + ".tmp" );
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter( new FileOutputStream( tmp ), "UTF-8" );
+            long now = System.currentTimeMillis();
+            for ( Map.Entry<String,Long> entry : entries.entrySet() ) {
+                if ( entry.getValue() > now ) {
+                    writer.write( entry.getKey() + "\t" + entry.getValue() + "\n" );
+                }
+            }
+            writer.close();
+            writer = null;
+
+            if ( !tmp.renameTo( file ) ) {
+                file.delete();
+                if ( !tmp.renameTo( file ) ) {
+                    log.warn( "Failed to replace {}", file );
+                }
+            }
+        } catch ( IOException e ) {
+            log.debug( "Failed to write {}", file, e );
+        } finally {
+            close( writer );
+            tmp.delete();
+        }
+    }
+
+    private synchronized void load() {
+        if ( !file.isFile() ) {
+            return;
+        }
+
+        int lines = 0;
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader( new InputStreamReader( new FileInputStream( file ), "UTF-8" ) );
+            String line;
+            long now = System.currentTimeMillis();
+            while ( (line = reader.readLine()) != null ) {
+                lines++;
+
+                // a line cut short by a crash is skipped, later lines replace earlier ones
+                String[] fields = line.split( "\t" );
+                if ( fields.length == 3 ) {
+                    try {
+                        long expires = Long.parseLong( fields[2] );
+                        String key = fields[0] + "\t" + fields[1];
+                        if ( expires > now ) {
+                            entries.put( key, expires );
+                        } else {
+                            entries.remove( key );
+                        }
+                    } catch ( NumberFormatException e ) {
+                        log.debug( "Skipping {} in {}", line, file );
+                    }
+                }
+            }
+        } catch ( IOException e ) {
+            log.warn( "Failed to load {}, starting with an empty cache", file, e );
+            entries.clear();
+        } finally {
+            close( reader );
+        }
+
+        log.debug( "Loaded {} misses from {}", entries.size(), file );
+
+        if ( lines > entries.size() ) {
+            write();
+        }
+    }
+
+    private static String key( String url, String path ) {
+        return normalize( url ) + "\t" + path;
+    }
+
+    private static String normalize( String url ) {
+        return url.endsWith( "/" ) ? url.substring( 0, url.length() - 1 ) : url;
+    }
+
+    private static void close( Closeable closeable ) {
+        if ( closeable != null ) {
+            try {
+                closeable.close();
+            } catch ( IOException e ) {
+                log.debug( "Failed to close", e );
+            }
+        }
+    }
+}
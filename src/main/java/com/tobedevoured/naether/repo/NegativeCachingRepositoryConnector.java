@@ -0,0 +1,165 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.metadata.Metadata;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
+import org.sonatype.aether.spi.connector.ArtifactDownload;
+import org.sonatype.aether.spi.connector.ArtifactUpload;
+import org.sonatype.aether.spi.connector.MetadataDownload;
+import org.sonatype.aether.spi.connector.MetadataUpload;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
+import org.sonatype.aether.spi.connector.Transfer;
+import org.sonatype.aether.transfer.ArtifactNotFoundException;
+import org.sonatype.aether.transfer.MetadataNotFoundException;
+import org.sonatype.aether.util.layout.MavenDefaultLayout;
+import org.sonatype.aether.util.layout.RepositoryLayout;
+
+/**
+ * {@link RepositoryConnector} that fails downloads the {@link NegativeCache} knows the
+ * repository does not have, without making a request, and records the downloads that were
+ * not found. Resources whose update policy is always are not cached.
+ *
+ * @author Michael Guymon
+ *
+ */
+class NegativeCachingRepositoryConnector implements RepositoryConnector {
+
+    private final RepositoryLayout layout = new MavenDefaultLayout();
+
+    private final RepositoryConnector connector;
+    private final NegativeCache cache;
+    private final RemoteRepository repository;
+    private final long ttl;
+
+    NegativeCachingRepositoryConnector( RepositoryConnector connector, NegativeCache cache, RemoteRepository repository, long ttl ) {
+        this.connector = connector;
+        this.cache = cache;
+        this.repository = repository;
+        this.ttl = ttl;
+    }
+
+    public void get( Collection<? extends ArtifactDownload> artifactDownloads, Collection<? extends MetadataDownload> metadataDownloads ) {
+        List<ArtifactDownload> artifacts = new ArrayList<ArtifactDownload>();
+        if ( artifactDownloads != null ) {
+            for ( ArtifactDownload download : artifactDownloads ) {
+                if ( isCached( download.getArtifact() ) && cache.isMissing( repository.getUrl(), path( download.getArtifact() ) ) ) {
+                    download.setException( new ArtifactNotFoundException( download.getArtifact(), repository,
+                        "Could not find artifact " + download.getArtifact() + " in " + repository.getId() + " (" + repository.getUrl() +
+                        "), it was not found when last requested" ) );
+                    download.setState( Transfer.State.DONE );
+                } else {
+                    artifacts.add( download );
+                }
+            }
+        }
+
+        List<MetadataDownload> metadata = new ArrayList<MetadataDownload>();
+        if ( metadataDownloads != null ) {
+            for ( MetadataDownload download : metadataDownloads ) {
+                if ( isCached( download.getMetadata() ) && cache.isMissing( repository.getUrl(), path( download.getMetadata() ) ) ) {
+                    download.setException( new MetadataNotFoundException( download.getMetadata(), repository,
+                        "Could not find metadata " + download.getMetadata() + " in " + repository.getId() + " (" + repository.getUrl() +
+                        "), it was not found when last requested" ) );
+                    download.setState( Transfer.State.DONE );
+                } else {
+                    metadata.add( download );
+                }
+            }
+        }
+
+        if ( artifacts.isEmpty() && metadata.isEmpty() ) {
+            return;
+        }
+
+        connector.get( artifacts, metadata );
+
+        for ( ArtifactDownload download : artifacts ) {
+            if ( download.getException() instanceof ArtifactNotFoundException ) {
+                if ( isCached( download.getArtifact() ) ) {
+                    cache.addMissing( repository.getUrl(), path( download.getArtifact() ), ttl );
+                }
+            } else if ( download.getException() == null ) {
+                cache.remove( repository.getUrl(), path( download.getArtifact() ) );
+            }
+        }
+
+        for ( MetadataDownload download : metadata ) {
+            if ( download.getException() instanceof MetadataNotFoundException ) {
+                if ( isCached( download.getMetadata() ) ) {
+                    cache.addMissing( repository.getUrl(), path( download.getMetadata() ), ttl );
+                }
+            } else if ( download.getException() == null ) {
+                cache.remove( repository.getUrl(), path( download.getMetadata() ) );
+            }
+        }
+    }
+
+    public void put( Collection<? extends ArtifactUpload> artifactUploads, Collection<? extends MetadataUpload> metadataUploads ) {
+        connector.put( artifactUploads, metadataUploads );
+
+        // a deployed resource is no longer missing
+        if ( artifactUploads != null ) {
+            for ( ArtifactUpload upload : artifactUploads ) {
+                if ( upload.getException() == null ) {
+                    cache.remove( repository.getUrl(), path( upload.getArtifact() ) );
+                }
+            }
+        }
+        if ( metadataUploads != null ) {
+            for ( MetadataUpload upload : metadataUploads ) {
+                if ( upload.getException() == null ) {
+                    cache.remove( repository.getUrl(), path( upload.getMetadata() ) );
+                }
+            }
+        }
+    }
+
+    public void close() {
+        connector.close();
+    }
+
+    private boolean isCached( Artifact artifact ) {
+        return !RepositoryPolicy.UPDATE_POLICY_ALWAYS.equals( repository.getPolicy( artifact.isSnapshot() ).getUpdatePolicy() );
+    }
+
+    private boolean isCached( Metadata metadata ) {
+        boolean snapshot = metadata.getNature() != Metadata.Nature.RELEASE;
+        return !RepositoryPolicy.UPDATE_POLICY_ALWAYS.equals( repository.getPolicy( snapshot ).getUpdatePolicy() );
+    }
+
+    private String path( Artifact artifact ) {
+        return layout.getPath( artifact ).toString();
+    }
+
+    private String path( Metadata metadata ) {
+        return layout.getPath( metadata ).toString();
+    }
+
+    @Override
+    public String toString() {
+        return "negative-cached " + connector;
+    }
+}
@@ -0,0 +1,282 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.graph.DependencyNode;
+import org.sonatype.aether.graph.DependencyVisitor;
+import org.sonatype.aether.resolution.ArtifactRequest;
+import org.sonatype.aether.resolution.ArtifactResolutionException;
+import org.sonatype.aether.resolution.ArtifactResult;
+import org.sonatype.aether.util.graph.TreeDependencyVisitor;
+
+import com.tobedevoured.naether.util.DaemonThreadFactory;
+
+/**
+ * Resolves independent artifacts concurrently using a bounded pool of threads. Results
+ * are always returned in the order of the requests. Idle threads stop after
+ * {@link #IDLE_TIMEOUT_SECONDS}, so a resolver that is never shut down does not keep them.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class ParallelArtifactResolver {
+
+    /**
+     * Default number of concurrent downloads, matches Aether's default connector threads
+     */
+    public static final int DEFAULT_THREADS = 5;
+
+    /**
+     * Seconds an idle download thread is kept
+     */
+    public static final long IDLE_TIMEOUT_SECONDS = 60;
+
+    /**
+     * The requests are split into this many chunks per thread, so a slow chunk does not
+     * leave the other threads idle
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private static Logger log = LoggerFactory.getLogger(ParallelArtifactResolver.class);
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private final int threads;
+    private final AtomicInteger users = new AtomicInteger( 1 );
+    private ThreadPoolExecutor executor;
+
+    /**
+     * Create new instance
+     *
+     * @param threads int max number of concurrent downloads, 1 or less resolves serially
+     */
+    public ParallelArtifactResolver( int threads ) {
+        this( threads, IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS );
+    }
+
+    ParallelArtifactResolver( int threads, long idleTimeout, TimeUnit unit ) {
+        this.threads = threads;
+
+        if ( threads > 1 ) {
+            executor = new ThreadPoolExecutor( threads, threads, idleTimeout, unit,
+                new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory( "naether-download-" + POOL_COUNT.incrementAndGet() ) );
+            executor.allowCoreThreadTimeOut( true );
+        }
+    }
+
+    /**
+     * Resolve the artifacts of a collected dependency graph, updating each node
+     * with its resolved artifact. Nodes sharing an artifact are only resolved once.
+     *
+     * @param repoClient {@link RepositoryClient}
+     * @param root {@link DependencyNode}
+     * @return List of {@link ArtifactResult}
+     * @throws ArtifactResolutionException if any artifact failed to resolve
+     */
+    public List<ArtifactResult> resolveDependencies( RepositoryClient repoClient, DependencyNode root ) throws ArtifactResolutionException {
+        final Map<String,List<DependencyNode>> nodes = new LinkedHashMap<String,List<DependencyNode>>();
+
+        root.accept( new TreeDependencyVisitor( new DependencyVisitor() {
+            public boolean visitEnter( DependencyNode node ) {
+                if ( node.getDependency() != null ) {
+                    String key = node.getDependency().getArtifact().toString();
+                    List<DependencyNode> matches = nodes.get( key );
+                    if ( matches == null ) {
+                        matches = new ArrayList<DependencyNode>();
+                        nodes.put( key, matches );
+                    }
+                    matches.add( node );
+                }
+                return true;
+            }
+
+            public boolean visitLeave( DependencyNode node ) {
+                return true;
+            }
+        }));
+
+        List<ArtifactRequest> requests = new ArrayList<ArtifactRequest>();
+        for ( List<DependencyNode> matches : nodes.values() ) {
+            requests.add( new ArtifactRequest( matches.get(0) ) );
+        }
+
+        List<ArtifactResult> results;
+        ArtifactResolutionException failure = null;
+        try {
+            results = resolveArtifacts( repoClient, requests );
+        } catch ( ArtifactResolutionException e ) {
+            failure = e;
+            results = e.getResults();
+        }
+
+        int index = 0;
+        for ( List<DependencyNode> matches : nodes.values() ) {
+            Artifact artifact = results.get( index++ ).getArtifact();
+            if ( artifact != null ) {
+                for ( DependencyNode node : matches ) {
+                    node.setArtifact( artifact );
+                }
+            }
+        }
+
+        if ( failure != null ) {
+            throw failure;
+        }
+
+        return results;
+    }
+
+    /**
+     * Resolve artifacts concurrently. The requests are split into small chunks that each
+     * thread takes in turn, resolving a chunk with {@link RepositoryClient#resolveArtifacts(java.util.Collection)}
+     * so the connector can pipeline its transfers. The returned results are in the same order
+     * as the requests. Every request is attempted before a failure is reported.
+     *
+     * @param repoClient {@link RepositoryClient}
+     * @param requests List of {@link ArtifactRequest}
+     * @return List of {@link ArtifactResult}
+     * @throws ArtifactResolutionException if any artifact failed to resolve, contains all results
+     */
+    public List<ArtifactResult> resolveArtifacts( final RepositoryClient repoClient, final List<ArtifactRequest> requests ) throws ArtifactResolutionException {
+        List<ArtifactResult> results;
+
+        if ( executor == null || requests.size() < 2 ) {
+            results = repoClient.resolveArtifacts( requests );
+
+        } else {
+            final int chunkSize = Math.max( 1, requests.size() / ( threads * CHUNKS_PER_THREAD ) );
+            final AtomicInteger next = new AtomicInteger();
+            final AtomicReferenceArray<ArtifactResult> resolved = new AtomicReferenceArray<ArtifactResult>( requests.size() );
+
+            log.debug( "Resolving {} artifacts in chunks of {}", requests.size(), chunkSize );
+
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for ( int x = 0; x < Math.min( threads, requests.size() ); x++ ) {
+                futures.add( executor.submit( new Runnable() {
+                    public void run() {
+                        int start;
+                        while ( ( start = next.getAndAdd( chunkSize ) ) < requests.size() ) {
+                            List<ArtifactRequest> chunk = new ArrayList<ArtifactRequest>( requests.subList( start, Math.min( start + chunkSize, requests.size() ) ) );
+                            List<ArtifactResult> chunkResults;
+                            try {
+                                chunkResults = repoClient.resolveArtifacts( chunk );
+                            } catch ( RuntimeException e ) {
+                                chunkResults = failed( chunk, e );
+                            }
+
+                            for ( int y = 0; y < chunkResults.size(); y++ ) {
+                                resolved.set( start + y, chunkResults.get( y ) );
+                            }
+                        }
+                    }
+                }));
+            }
+
+            Exception interrupted = null;
+            for ( Future<?> future : futures ) {
+                try {
+                    future.get();
+                } catch ( InterruptedException e ) {
+                    Thread.currentThread().interrupt();
+                    interrupted = e;
+                    break;
+                } catch ( ExecutionException e ) {
+                    if ( e.getCause() instanceof Error ) {
+                        throw (Error) e.getCause();
+                    }
+                    interrupted = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+
+            results = new ArrayList<ArtifactResult>( requests.size() );
+            for ( int x = 0; x < resolved.length(); x++ ) {
+                ArtifactResult result = resolved.get( x );
+                results.add( result != null ? result : new ArtifactResult( requests.get( x ) ).addException( interrupted ) );
+            }
+        }
+
+        for ( ArtifactResult result : results ) {
+            if ( !result.isResolved() ) {
+                throw new ArtifactResolutionException( results );
+            }
+        }
+
+        return results;
+    }
+
+    private static List<ArtifactResult> failed( List<ArtifactRequest> requests, Exception exception ) {
+        List<ArtifactResult> results = new ArrayList<ArtifactResult>( requests.size() );
+        for ( ArtifactRequest request : requests ) {
+            results.add( new ArtifactResult( request ).addException( exception ) );
+        }
+
+        return results;
+    }
+
+    /**
+     * Number of concurrent downloads
+     *
+     * @return int
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Number of download threads running
+     *
+     * @return int
+     */
+    int getPoolSize() {
+        return executor != null ? executor.getPoolSize() : 0;
+    }
+
+    /**
+     * Share the resolver with another user, who releases it with {@link #shutdown()}
+     *
+     * @return this
+     */
+    public ParallelArtifactResolver retain() {
+        users.incrementAndGet();
+        return this;
+    }
+
+    /**
+     * Release the resolver, stopping the download threads once every user released it
+     */
+    public void shutdown() {
+        if ( users.decrementAndGet() == 0 && executor != null ) {
+            executor.shutdown();
+        }
+    }
+}
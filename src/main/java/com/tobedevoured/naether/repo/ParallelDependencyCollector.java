@@ -0,0 +1,308 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.collection.CollectRequest;
+import org.sonatype.aether.collection.CollectResult;
+import org.sonatype.aether.collection.DependencyCollectionContext;
+import org.sonatype.aether.collection.DependencyCollectionException;
+import org.sonatype.aether.collection.DependencyManagement;
+import org.sonatype.aether.collection.DependencyManager;
+import org.sonatype.aether.collection.DependencySelector;
+import org.sonatype.aether.collection.DependencyTraverser;
+import org.sonatype.aether.graph.Dependency;
+import org.sonatype.aether.impl.RemoteRepositoryManager;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.resolution.ArtifactDescriptorRequest;
+import org.sonatype.aether.resolution.ArtifactDescriptorResult;
+import org.sonatype.aether.util.artifact.ArtifactProperties;
+
+/**
+ * Collects dependency graphs after reading the descriptors of the graph concurrently. The
+ * graph is walked with a {@link ForkJoinPool}, reading the descriptors of sibling dependencies
+ * in parallel and applying the dependency selector, manager and traverser of the session the
+ * same way Aether's collector does. Aether then collects the graph from the prefetched
+ * descriptors, see {@link PrefetchingArtifactDescriptorReader}, so version mediation and the
+ * resulting graph are the same as collecting sequentially.
+ *
+ * Dependencies with a version range and relocated artifacts are not walked, their descriptors
+ * are read by Aether's collector. Descriptors already in the {@link DescriptorCache} are
+ * not prefetched.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class ParallelDependencyCollector {
+
+    private static Logger log = LoggerFactory.getLogger(ParallelDependencyCollector.class);
+
+    private final ForkJoinPool pool;
+    private final AtomicInteger users = new AtomicInteger( 1 );
+
+    /**
+     * Create new instance
+     *
+     * @param threads int max number of descriptors read concurrently
+     */
+    public ParallelDependencyCollector( int threads ) {
+        this.pool = new ForkJoinPool( threads );
+    }
+
+    /**
+     * Collect the dependencies of the request
+     *
+     * @param client {@link RepositoryClient}
+     * @param request {@link CollectRequest}
+     * @return {@link CollectResult}
+     * @throws DependencyCollectionException if collecting failed
+     */
+    public CollectResult collectDependencies( RepositoryClient client, CollectRequest request ) throws DependencyCollectionException {
+        RepositorySystemSession session = client.getSystemSession();
+        ConcurrentMap<String,FutureTask<ArtifactDescriptorResult>> prefetched = new ConcurrentHashMap<String,FutureTask<ArtifactDescriptorResult>>();
+
+        Walk walk = new Walk( client, request, prefetched );
+        DependencyCollectionContext context = new CollectionContext( session, request.getRoot(), request.getManagedDependencies() );
+        pool.invoke( walk.new Siblings( request.getDependencies(), request.getRepositories(),
+            session.getDependencySelector().deriveChildSelector( context ),
+            session.getDependencyManager().deriveChildManager( context ),
+            session.getDependencyTraverser().deriveChildTraverser( context ) ) );
+
+        log.debug( "Prefetched {} descriptors", prefetched.size() );
+
+        RepositoryClient collector = new RepositoryClient( client );
+        collector.getSystemSession().setConfigProperty( PrefetchingArtifactDescriptorReader.CONFIG_PREFETCHED, prefetched );
+        return collector.collectDependencies( request );
+    }
+
+    /**
+     * Number of threads reading descriptors
+     *
+     * @return int
+     */
+    public int getThreads() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Share the collector with another user, who releases it with {@link #shutdown()}
+     *
+     * @return this
+     */
+    public ParallelDependencyCollector retain() {
+        users.incrementAndGet();
+        return this;
+    }
+
+    /**
+     * Release the collector, stopping the threads reading descriptors once every user
+     * released it
+     */
+    public void shutdown() {
+        if ( users.decrementAndGet() == 0 ) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Apply the dependency management, as the collector does before reading a descriptor
+     */
+    static Dependency manage( Dependency dependency, DependencyManager manager ) {
+        DependencyManagement management = manager.manageDependency( dependency );
+        if ( management == null ) {
+            return dependency;
+        }
+
+        if ( management.getVersion() != null ) {
+            dependency = dependency.setArtifact( dependency.getArtifact().setVersion( management.getVersion() ) );
+        }
+        if ( management.getProperties() != null ) {
+            dependency = dependency.setArtifact( dependency.getArtifact().setProperties( management.getProperties() ) );
+        }
+        if ( management.getScope() != null ) {
+            dependency = dependency.setScope( management.getScope() );
+        }
+        if ( management.getExclusions() != null ) {
+            dependency = dependency.setExclusions( management.getExclusions() );
+        }
+
+        return dependency;
+    }
+
+    private static boolean isRange( Artifact artifact ) {
+        String version = artifact.getVersion();
+        return version.startsWith( "[" ) || version.startsWith( "(" ) || version.contains( "," );
+    }
+
+    /**
+     * State of walking the graph of a request
+     */
+    private static final class Walk {
+        private final RepositorySystemSession session;
+        private final CollectRequest request;
+        private final ConcurrentMap<String,FutureTask<ArtifactDescriptorResult>> prefetched;
+        private final RemoteRepositoryManager repositoryManager;
+        private final String partition;
+
+        Walk( RepositoryClient client, CollectRequest request, ConcurrentMap<String,FutureTask<ArtifactDescriptorResult>> prefetched ) {
+            this.session = client.getSystemSession();
+            this.request = request;
+            this.prefetched = prefetched;
+            this.repositoryManager = RepositoryClient.getSharedService( RemoteRepositoryManager.class );
+            this.partition = DescriptorCache.partition( session, request.getRepositories() );
+        }
+
+        /**
+         * Read the descriptors of sibling dependencies concurrently
+         */
+        private final class Siblings extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final List<Dependency> dependencies;
+            private final List<RemoteRepository> repositories;
+            private final DependencySelector selector;
+            private final DependencyManager manager;
+            private final DependencyTraverser traverser;
+
+            Siblings( List<Dependency> dependencies, List<RemoteRepository> repositories, DependencySelector selector,
+                    DependencyManager manager, DependencyTraverser traverser ) {
+                this.dependencies = dependencies;
+                this.repositories = repositories;
+                this.selector = selector;
+                this.manager = manager;
+                this.traverser = traverser;
+            }
+
+            @Override
+            protected void compute() {
+                List<Descriptor> descriptors = new ArrayList<Descriptor>();
+                for ( Dependency dependency : dependencies ) {
+                    if ( !selector.selectDependency( dependency ) ) {
+                        continue;
+                    }
+
+                    dependency = manage( dependency, manager );
+                    Artifact artifact = dependency.getArtifact();
+                    if ( artifact.getProperty( ArtifactProperties.LOCAL_PATH, null ) != null || isRange( artifact ) ) {
+                        continue;
+                    }
+
+                    descriptors.add( new Descriptor( dependency, this ) );
+                }
+
+                invokeAll( descriptors );
+            }
+        }
+
+        /**
+         * Read the descriptor of a dependency, then the descriptors of its dependencies
+         */
+        private final class Descriptor extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final Dependency dependency;
+            private final Siblings parent;
+
+            Descriptor( Dependency dependency, Siblings parent ) {
+                this.dependency = dependency;
+                this.parent = parent;
+            }
+
+            @Override
+            protected void compute() {
+                final Artifact artifact = dependency.getArtifact();
+                FutureTask<ArtifactDescriptorResult> task = new FutureTask<ArtifactDescriptorResult>( new Callable<ArtifactDescriptorResult>() {
+                    public ArtifactDescriptorResult call() throws Exception {
+                        ArtifactDescriptorRequest descriptorRequest = new ArtifactDescriptorRequest( artifact, parent.repositories, request.getRequestContext() );
+                        return RepositoryClient.getSharedRepositorySystem().readArtifactDescriptor( session, descriptorRequest );
+                    }
+                });
+
+                if ( RepositoryClient.getDescriptorCache().contains( partition, artifact ) ||
+                        prefetched.putIfAbsent( PrefetchingArtifactDescriptorReader.key( artifact ), task ) != null ) {
+                    return;
+                }
+
+                task.run();
+
+                ArtifactDescriptorResult result;
+                try {
+                    result = task.get();
+                } catch ( InterruptedException e ) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch ( ExecutionException e ) {
+                    log.debug( "Failed to prefetch descriptor of {}", artifact, e.getCause() );
+                    return;
+                }
+
+                if ( !result.getRelocations().isEmpty() || result.getDependencies().isEmpty() || !parent.traverser.traverseDependency( dependency ) ) {
+                    return;
+                }
+
+                Dependency resolved = dependency.setArtifact( result.getArtifact() );
+                DependencyCollectionContext context = new CollectionContext( session, resolved, result.getManagedDependencies() );
+                List<RemoteRepository> repositories = repositoryManager.aggregateRepositories( session, parent.repositories, result.getRepositories(), true );
+
+                new Siblings( result.getDependencies(), repositories,
+                    parent.selector.deriveChildSelector( context ),
+                    parent.manager.deriveChildManager( context ),
+                    parent.traverser.deriveChildTraverser( context ) ).compute();
+            }
+        }
+    }
+
+    private static final class CollectionContext implements DependencyCollectionContext {
+        private final RepositorySystemSession session;
+        private final Dependency dependency;
+        private final List<Dependency> managedDependencies;
+
+        CollectionContext( RepositorySystemSession session, Dependency dependency, List<Dependency> managedDependencies ) {
+            this.session = session;
+            this.dependency = dependency;
+            this.managedDependencies = managedDependencies != null ? managedDependencies : Collections.<Dependency>emptyList();
+        }
+
+        public RepositorySystemSession getSession() {
+            return session;
+        }
+
+        public Dependency getDependency() {
+            return dependency;
+        }
+
+        public List<Dependency> getManagedDependencies() {
+            return managedDependencies;
+        }
+    }
+}
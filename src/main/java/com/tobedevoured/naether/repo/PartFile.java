@@ -0,0 +1,214 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Partial download kept next to its target as <code>.part</code>, with the ETag or
+ * Last-Modified of the response in <code>.part.validator</code>, so a failed download
+ * can be resumed with a range request. The part is locked while downloading, a download
+ * that can not get the lock is not resumable.
+ *
+ * @author Michael Guymon
+ *
+ */
+class PartFile {
+
+    static final String EXTENSION = ".part";
+    static final String VALIDATOR_EXTENSION = ".validator";
+
+    private static Logger log = LoggerFactory.getLogger(PartFile.class);
+
+    private final File file;
+    private final File validatorFile;
+    private final FileChannel channel;
+    private final FileLock lock;
+    private String validator;
+    private boolean moved;
+
+    private PartFile( File file, FileChannel channel, FileLock lock ) {
+        this.file = file;
+        this.validatorFile = new File( file.getPath() + VALIDATOR_EXTENSION );
+        this.channel = channel;
+        this.lock = lock;
+        this.validator = readValidator( validatorFile );
+    }
+
+    /**
+     * Lock the part of a download
+     *
+     * @param target File the download is saved to
+     * @return {@link PartFile}, null if the part is locked by another download
+     * @throws IOException if the part could not be opened
+     */
+    static PartFile lock( File target ) throws IOException {
+        File parent = target.getAbsoluteFile().getParentFile();
+        if ( !parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory() ) {
+            throw new IOException( "Failed to create directory " + parent );
+        }
+
+        File file = new File( target.getAbsoluteFile().getPath() + EXTENSION );
+        FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE );
+        FileLock lock = null;
+        try {
+            lock = channel.tryLock();
+        } catch ( OverlappingFileLockException e ) {
+            // locked by another download in this JVM
+        }
+
+        if ( lock == null ) {
+            channel.close();
+            return null;
+        }
+
+        return new PartFile( file, channel, lock );
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    FileChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * The ETag or Last-Modified the part was downloaded with
+     *
+     * @return String, null if unknown
+     */
+    String getValidator() {
+        return validator;
+    }
+
+    /**
+     * Bytes downloaded that can be resumed from
+     *
+     * @return long, 0 if the part can not be resumed
+     */
+    long getResumeOffset() throws IOException {
+        return validator != null ? channel.size() : 0;
+    }
+
+    /**
+     * Start the download over
+     *
+     * @param validator String ETag or Last-Modified of the response, null if the response has neither
+     */
+    void restart( String validator ) throws IOException {
+        channel.truncate( 0 );
+        this.validator = validator;
+        if ( validator != null ) {
+            Files.write( validatorFile.toPath(), validator.getBytes( "UTF-8" ) );
+        } else {
+            validatorFile.delete();
+        }
+    }
+
+    /**
+     * Drop everything after the bytes that were downloaded without gaps
+     *
+     * @param size long
+     */
+    void truncate( long size ) throws IOException {
+        channel.truncate( size );
+    }
+
+    /**
+     * Move the completed download to its target
+     *
+     * @param target File
+     */
+    void moveTo( File target ) throws IOException {
+        try {
+            // moved while locked, so no other download can open the part in between
+            Files.move( file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING );
+        } catch ( FileSystemException e ) {
+            // an open file can not be moved on Windows
+            close();
+            Files.move( file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING );
+        }
+        moved = true;
+        validatorFile.delete();
+    }
+
+    /**
+     * Unlock the part
+     *
+     * @param keep boolean true to keep the part to resume from, otherwise it is deleted
+     */
+    void release( boolean keep ) {
+        if ( moved ) {
+            close();
+            return;
+        }
+
+        keep = keep && validator != null;
+        if ( !keep ) {
+            try {
+                channel.truncate( 0 );
+            } catch ( IOException e ) {
+                log.debug( "Failed to truncate {}", file, e );
+            }
+        }
+
+        close();
+
+        if ( !keep ) {
+            file.delete();
+            validatorFile.delete();
+        }
+    }
+
+    private void close() {
+        try {
+            if ( lock.isValid() ) {
+                lock.release();
+            }
+            channel.close();
+        } catch ( IOException e ) {
+            log.debug( "Failed to close {}", file, e );
+        }
+    }
+
+    private static String readValidator( File file ) {
+        if ( !file.isFile() ) {
+            return null;
+        }
+
+        try {
+            String validator = new String( Files.readAllBytes( file.toPath() ), "UTF-8" ).trim();
+            return validator.length() > 0 ? validator : null;
+        } catch ( IOException e ) {
+            log.debug( "Failed to read {}", file, e );
+            return null;
+        }
+    }
+}
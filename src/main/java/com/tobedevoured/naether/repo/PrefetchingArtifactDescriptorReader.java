@@ -0,0 +1,98 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.maven.repository.internal.DefaultArtifactDescriptorReader;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.impl.ArtifactDescriptorReader;
+import org.sonatype.aether.impl.RemoteRepositoryManager;
+import org.sonatype.aether.resolution.ArtifactDescriptorException;
+import org.sonatype.aether.resolution.ArtifactDescriptorRequest;
+import org.sonatype.aether.resolution.ArtifactDescriptorResult;
+import org.sonatype.aether.spi.locator.Service;
+import org.sonatype.aether.spi.locator.ServiceLocator;
+import org.sonatype.aether.util.ConfigUtils;
+
+/**
+ * {@link ArtifactDescriptorReader} that returns descriptors prefetched for a collection
+ * before reading them with Maven's {@link DefaultArtifactDescriptorReader}. The prefetched
+ * descriptors are passed with the session config property {@link #CONFIG_PREFETCHED}, a Map
+ * of {@link #key(Artifact)} to the {@link Future} of the descriptor, like Aether's collector
+ * only keying descriptors by artifact. A descriptor that failed to prefetch is read again.
+ *
+ * With the session config property {@link DescriptorPrefetcher#CONFIG_DEPTH}, the descriptors
+ * of the dependencies of every descriptor read are read ahead by the shared
+ * {@link DescriptorPrefetcher}.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class PrefetchingArtifactDescriptorReader implements ArtifactDescriptorReader, Service {
+
+    /**
+     * Session config property for the Map of prefetched descriptors
+     */
+    public static final String CONFIG_PREFETCHED = "naether.descriptors.prefetched";
+
+    private DefaultArtifactDescriptorReader delegate;
+    private RemoteRepositoryManager repositoryManager;
+
+    public void initService( ServiceLocator locator ) {
+        delegate = new DefaultArtifactDescriptorReader();
+        delegate.initService( locator );
+        repositoryManager = locator.getService( RemoteRepositoryManager.class );
+    }
+
+    public ArtifactDescriptorResult readArtifactDescriptor( RepositorySystemSession session, ArtifactDescriptorRequest request ) throws ArtifactDescriptorException {
+        Map<?,?> prefetched = (Map<?,?>)session.getConfigProperties().get( CONFIG_PREFETCHED );
+        if ( prefetched != null ) {
+            Future<?> descriptor = (Future<?>)prefetched.get( key( request.getArtifact() ) );
+            if ( descriptor != null ) {
+                try {
+                    return (ArtifactDescriptorResult)descriptor.get();
+                } catch ( InterruptedException e ) {
+                    Thread.currentThread().interrupt();
+                } catch ( ExecutionException e ) {
+                    // read again to report the failure for this request
+                }
+            }
+        }
+
+        int depth = ConfigUtils.getInteger( session, 0, DescriptorPrefetcher.CONFIG_DEPTH );
+        if ( depth > 0 ) {
+            return RepositoryClient.getDescriptorPrefetcher().read( delegate, repositoryManager, session, request, depth );
+        }
+
+        return delegate.readArtifactDescriptor( session, request );
+    }
+
+    /**
+     * Key of a prefetched descriptor
+     *
+     * @param artifact {@link Artifact}
+     * @return String
+     */
+    public static String key( Artifact artifact ) {
+        return artifact.toString();
+    }
+}
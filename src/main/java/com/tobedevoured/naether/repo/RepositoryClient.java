@@ -1,5 +1,7 @@
 package com.tobedevoured.naether.repo;
 
+import java.io.File;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -8,18 +10,24 @@ import org.apache.maven.repository.internal.DefaultServiceLocator;
 import org.apache.maven.repository.internal.MavenRepositorySystemSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.sonatype.aether.RepositoryListener;
 import org.sonatype.aether.RepositorySystem;
 import org.sonatype.aether.artifact.Artifact;
 import org.sonatype.aether.collection.CollectRequest;
 import org.sonatype.aether.collection.CollectResult;
 import org.sonatype.aether.collection.DependencyCollectionException;
+import org.sonatype.aether.connector.wagon.WagonConfigurator;
 import org.sonatype.aether.connector.wagon.WagonProvider;
 import org.sonatype.aether.connector.wagon.WagonRepositoryConnectorFactory;
 import org.sonatype.aether.deployment.DeployRequest;
 import org.sonatype.aether.deployment.DeploymentException;
+import org.sonatype.aether.impl.ArtifactDescriptorReader;
 import org.sonatype.aether.installation.InstallRequest;
 import org.sonatype.aether.installation.InstallationException;
 import org.sonatype.aether.repository.LocalRepository;
+import org.sonatype.aether.repository.LocalRepositoryManager;
+import org.sonatype.aether.repository.MirrorSelector;
+import org.sonatype.aether.repository.RepositoryPolicy;
 import org.sonatype.aether.resolution.ArtifactRequest;
 import org.sonatype.aether.resolution.ArtifactResolutionException;
 import org.sonatype.aether.resolution.ArtifactResult;
@@ -27,6 +35,9 @@ import org.sonatype.aether.resolution.DependencyRequest;
 import org.sonatype.aether.resolution.DependencyResolutionException;
 import org.sonatype.aether.resolution.DependencyResult;
 import org.sonatype.aether.spi.connector.RepositoryConnectorFactory;
+import org.sonatype.aether.spi.io.FileProcessor;
+import org.sonatype.aether.util.DefaultRepositorySystemSession;
+import org.sonatype.aether.util.DefaultSessionData;
 import org.sonatype.aether.util.graph.selector.AndDependencySelector;
 
 import com.tobedevoured.naether.aether.ValidSystemScopeDependencySelector;
@@ -34,21 +45,94 @@ import com.tobedevoured.naether.aether.ValidSystemScopeDependencySelector;
 /**
  * Repository Client, manages the {@link RepositorySystem} and the {@link MavenRepositorySystemSession}.
  * 
+ * The {@link RepositorySystem} is stateless and shared by every client in the JVM. A client
+ * owns a session bound to its local repository; per call state, such as user properties
+ * and the {@link BuildWorkspaceReader}, should be applied to a copy created with
+ * {@link #RepositoryClient(RepositoryClient)} so the base session can be reused.
+ * 
+ * Parsed artifact descriptors are shared between sessions by the {@link DescriptorCache}.
+ * 
  * @author Michael Guymon
  *
  */
 public class RepositoryClient {
     private static Logger log = LoggerFactory.getLogger(RepositoryClient.class);
 
+    private static final String WAGON_THREADS = "aether.connector.wagon.threads";
+    private static final String CONNECT_TIMEOUT = "aether.connector.connectTimeout";
+    private static final String REQUEST_TIMEOUT = "aether.connector.requestTimeout";
+
+    private static DefaultServiceLocator sharedServiceLocator = null;
+    private static RepositorySystem sharedRepositorySystem = null;
+    private static final DescriptorCache descriptorCache = new DescriptorCache();
+    private static final DescriptorPrefetcher descriptorPrefetcher = new DescriptorPrefetcher();
+    private static final ManualWagonProvider wagonProvider = new ManualWagonProvider();
+    private static final RepositoryHealth repositoryHealth = new RepositoryHealth();
+
     private RepositorySystem repositorySystem = null;
-    private MavenRepositorySystemSession systemSession = null;
+    // replaced on every setting, volatile so a resolve on another thread sees the latest session
+    private volatile MavenRepositorySystemSession systemSession = null;
     private String localRepoPath;
+    private LocalRepositoryManager localRepositoryManager;
+    private String contentStore;
+    private boolean indexedLocalRepository = false;
     
     public RepositoryClient( String localRepoPath ) {
         this.localRepoPath = localRepoPath;
         
         newRepositorySystem();
     }
+
+    /**
+     * Create a lightweight copy of a client. The copy shares the {@link RepositorySystem}
+     * and local repository manager of the original, but has its own session so
+     * changes to properties or the workspace reader do not leak back to the original.
+     *
+     * @param original {@link RepositoryClient}
+     */
+    public RepositoryClient( RepositoryClient original ) {
+        this.localRepoPath = original.localRepoPath;
+        this.repositorySystem = original.repositorySystem;
+        this.localRepositoryManager = original.localRepositoryManager;
+        this.contentStore = original.contentStore;
+        this.indexedLocalRepository = original.indexedLocalRepository;
+        this.systemSession = copy( original.systemSession );
+    }
+
+    /**
+     * Copy a {@link MavenRepositorySystemSession}, the config properties are copied so they
+     * can be changed without changing the original. Only the descriptor cache is shared, the
+     * copy gets new session data, where update checks are recorded, so every copy checks
+     * for updates again.
+     */
+    private static MavenRepositorySystemSession copy( MavenRepositorySystemSession original ) {
+        MavenRepositorySystemSession session = new MavenRepositorySystemSession();
+        session.setOffline( original.isOffline() );
+        session.setTransferErrorCachingEnabled( original.isTransferErrorCachingEnabled() );
+        session.setNotFoundCachingEnabled( original.isNotFoundCachingEnabled() );
+        session.setIgnoreInvalidArtifactDescriptor( original.isIgnoreInvalidArtifactDescriptor() );
+        session.setIgnoreMissingArtifactDescriptor( original.isIgnoreMissingArtifactDescriptor() );
+        session.setChecksumPolicy( original.getChecksumPolicy() );
+        session.setUpdatePolicy( original.getUpdatePolicy() );
+        session.setLocalRepositoryManager( original.getLocalRepositoryManager() );
+        session.setWorkspaceReader( original.getWorkspaceReader() );
+        session.setRepositoryListener( original.getRepositoryListener() );
+        session.setTransferListener( original.getTransferListener() );
+        session.setSystemProperties( original.getSystemProperties() );
+        session.setUserProperties( original.getUserProperties() );
+        session.setConfigProperties( new HashMap<String,Object>( original.getConfigProperties() ) );
+        session.setMirrorSelector( original.getMirrorSelector() );
+        session.setProxySelector( original.getProxySelector() );
+        session.setAuthenticationSelector( original.getAuthenticationSelector() );
+        session.setArtifactTypeRegistry( original.getArtifactTypeRegistry() );
+        session.setDependencyTraverser( original.getDependencyTraverser() );
+        session.setDependencyManager( original.getDependencyManager() );
+        session.setDependencySelector( original.getDependencySelector() );
+        session.setDependencyGraphTransformer( original.getDependencyGraphTransformer() );
+        session.setData( new DefaultSessionData() );
+        session.setCache( original.getCache() );
+        return session;
+    }
     
     /**
      * Set User Properties for a {@link MavenRepositorySystemSession}
@@ -56,9 +140,9 @@ public class RepositoryClient {
      * @param properties Map
      */
     public void setProperties( Map<String,String> properties ) {
-        Map<String,String> userProperties = systemSession.getUserProperties();
-        if ( userProperties == null ) {
-            userProperties = new HashMap<String,String>();
+        Map<String,String> userProperties = new HashMap<String,String>();
+        if ( systemSession.getUserProperties() != null ) {
+            userProperties.putAll( systemSession.getUserProperties() );
         }
         userProperties.putAll( properties );
         
@@ -67,6 +151,206 @@ public class RepositoryClient {
         systemSession = (MavenRepositorySystemSession)systemSession.setUserProperties( userProperties );
         
     }
+
+    /**
+     * Set the max number of concurrent transfers to a single remote repository. The
+     * wagon connector threads are capped to match.
+     *
+     * @param threads int, 0 or less is unbounded
+     */
+    public void setRepositoryThreads( int threads ) {
+        if ( threads > 0 ) {
+            systemSession = (MavenRepositorySystemSession)systemSession.setConfigProperty( DelegatingRepositoryConnectorFactory.CONFIG_REPOSITORY_THREADS, threads );
+            systemSession = (MavenRepositorySystemSession)systemSession.setConfigProperty( WAGON_THREADS, threads );
+            systemSession = (MavenRepositorySystemSession)systemSession.setConfigProperty( HttpRepositoryConnectorFactory.CONFIG_THREADS, threads );
+        } else {
+            systemSession = (MavenRepositorySystemSession)systemSession.setConfigProperty( DelegatingRepositoryConnectorFactory.CONFIG_REPOSITORY_THREADS, null );
+            systemSession = (MavenRepositorySystemSession)systemSession.setConfigProperty( WAGON_THREADS, null );
+            systemSession = (MavenRepositorySystemSession)systemSession.setConfigProperty( HttpRepositoryConnectorFactory.CONFIG_THREADS, null );
+        }
+    }
+
+    /**
+     * Set the max retries of a transfer failing with a transient error, see
+     * {@link RetryingRepositoryConnector}
+     *
+     * @param retries int, 0 or less does not retry
+     */
+    public void setRetries( int retries ) {
+        systemSession = (MavenRepositorySystemSession)systemSession.setConfigProperty( DelegatingRepositoryConnectorFactory.CONFIG_RETRIES, Math.max( 0, retries ) );
+    }
+
+    /**
+     * Set the backoff before the first retry of a transfer, doubled for every retry
+     *
+     * @param backoff long milliseconds
+     * @param maxBackoff long max milliseconds between retries
+     */
+    public void setRetryBackoff( long backoff, long maxBackoff ) {
+        systemSession = (MavenRepositorySystemSession)systemSession.setConfigProperty( DelegatingRepositoryConnectorFactory.CONFIG_RETRY_BACKOFF, backoff );
+        systemSession = (MavenRepositorySystemSession)systemSession.setConfigProperty( DelegatingRepositoryConnectorFactory.CONFIG_RETRY_MAX_BACKOFF, maxBackoff );
+    }
+
+    /**
+     * Set how long a resource not found in a remote repository is not requested again from
+     * the repository, see {@link NegativeCache}
+     *
+     * @param ttl long milliseconds, 0 or less does not cache resources not found
+     */
+    public void setNotFoundTtl( long ttl ) {
+        systemSession = (MavenRepositorySystemSession)systemSession.setConfigProperty( DelegatingRepositoryConnectorFactory.CONFIG_NOT_FOUND_TTL, ttl > 0 ? ttl : null );
+    }
+
+    /**
+     * Get the {@link NegativeCache} of the local repository
+     *
+     * @return {@link NegativeCache}
+     */
+    public NegativeCache getNegativeCache() {
+        return NegativeCache.get( systemSession.getLocalRepository().getBasedir() );
+    }
+
+    /**
+     * Use the {@link HttpRepositoryConnector} for http and https repositories instead of Wagon
+     *
+     * @param httpConnector boolean
+     */
+    public void setHttpConnector( boolean httpConnector ) {
+        systemSession = (MavenRepositorySystemSession)systemSession.setConfigProperty( HttpRepositoryConnectorFactory.CONFIG_ENABLED, httpConnector );
+    }
+
+    /**
+     * Set the size above which the {@link HttpRepositoryConnector} splits a download into
+     * chunks downloaded concurrently with range requests
+     *
+     * @param chunkSize long bytes, 0 or less does not split downloads
+     */
+    public void setDownloadChunkSize( long chunkSize ) {
+        systemSession = (MavenRepositorySystemSession)systemSession.setConfigProperty( HttpRepositoryConnectorFactory.CONFIG_CHUNK_SIZE, chunkSize > 0 ? chunkSize : null );
+    }
+
+    /**
+     * Set the timeout for connecting to a remote repository
+     *
+     * @param timeout int milliseconds, 0 or less uses the default
+     */
+    public void setConnectTimeout( int timeout ) {
+        systemSession = (MavenRepositorySystemSession)systemSession.setConfigProperty( CONNECT_TIMEOUT, timeout > 0 ? timeout : null );
+    }
+
+    /**
+     * Set the timeout for reading from a remote repository
+     *
+     * @param timeout int milliseconds, 0 or less uses the default
+     */
+    public void setReadTimeout( int timeout ) {
+        systemSession = (MavenRepositorySystemSession)systemSession.setConfigProperty( REQUEST_TIMEOUT, timeout > 0 ? timeout : null );
+    }
+
+    /**
+     * Set the number of levels of the dependency graph whose descriptors are read ahead
+     * of the collector, see {@link DescriptorPrefetcher}
+     *
+     * @param depth int, 0 or less disables reading ahead
+     */
+    public void setPrefetchDepth( int depth ) {
+        systemSession = (MavenRepositorySystemSession)systemSession.setConfigProperty( DescriptorPrefetcher.CONFIG_DEPTH, depth > 0 ? depth : null );
+    }
+
+    /**
+     * Set the {@link ContentStore} shared with other local repositories. Artifacts of the
+     * local repository are linked to the store, see {@link ContentAddressedLocalRepositoryManager}
+     *
+     * @param path String path to the store, null to not use a store
+     */
+    public void setContentStore( String path ) {
+        this.contentStore = path;
+        applyLocalRepositoryManager();
+    }
+
+    /**
+     * Set if finding artifacts in the local repository is answered from an index instead
+     * of the file system, see {@link IndexedLocalRepositoryManager}
+     *
+     * @param indexed boolean
+     */
+    public void setIndexedLocalRepository( boolean indexed ) {
+        this.indexedLocalRepository = indexed;
+        applyLocalRepositoryManager();
+    }
+
+    private void applyLocalRepositoryManager() {
+        LocalRepositoryManager manager = localRepositoryManager;
+        if ( contentStore != null ) {
+            manager = new ContentAddressedLocalRepositoryManager( manager, new ContentStore( new File( contentStore ) ) );
+        }
+
+        if ( indexedLocalRepository ) {
+            manager = new IndexedLocalRepositoryManager( manager );
+        }
+
+        systemSession = (MavenRepositorySystemSession)systemSession.setLocalRepositoryManager( manager );
+    }
+
+    /**
+     * Set the max concurrent connections to a single http host, across all repositories
+     * on the host
+     *
+     * @param connections int, 0 or less is unlimited
+     */
+    public void setMaxConnectionsPerHost( int connections ) {
+        systemSession = (MavenRepositorySystemSession)systemSession.setConfigProperty( DelegatingRepositoryConnectorFactory.CONFIG_MAX_CONNECTIONS_PER_HOST,
+            connections > 0 ? connections : null );
+    }
+
+    /**
+     * Set offline, artifacts and metadata are only resolved from the local repository
+     *
+     * @param offline boolean
+     */
+    public void setOffline( boolean offline ) {
+        systemSession = (MavenRepositorySystemSession)systemSession.setOffline( offline );
+    }
+
+    /**
+     * Set the {@link MirrorSelector}. The selector is applied by Aether to the repositories
+     * declared in poms, and a {@link FailoverMirrorSelector} fails over mirrors to healthy urls.
+     *
+     * @param mirrorSelector {@link MirrorSelector}
+     */
+    public void setMirrorSelector( MirrorSelector mirrorSelector ) {
+        systemSession = (MavenRepositorySystemSession)systemSession.setMirrorSelector( mirrorSelector );
+    }
+
+    /**
+     * Set the {@link RoutingRules} that limit the repositories artifacts are requested from
+     *
+     * @param rules {@link RoutingRules}, null to request artifacts from every repository
+     */
+    public void setRoutingRules( RoutingRules rules ) {
+        systemSession = (MavenRepositorySystemSession)systemSession.setConfigProperty( DelegatingRepositoryConnectorFactory.CONFIG_ROUTING_RULES, rules );
+    }
+
+    /**
+     * Set the {@link RepositoryListener} notified of the artifacts and metadata resolved
+     * with this client, replacing the {@link LogRepositoryListener}
+     *
+     * @param listener {@link RepositoryListener}
+     */
+    public void setRepositoryListener( RepositoryListener listener ) {
+        systemSession = (MavenRepositorySystemSession)systemSession.setRepositoryListener( listener );
+    }
+
+    /**
+     * Set local first, remote repositories are only checked for artifacts and metadata
+     * missing from the local repository. Overrides the update policy of every repository
+     * with {@link RepositoryPolicy#UPDATE_POLICY_NEVER}.
+     *
+     * @param localFirst boolean
+     */
+    public void setLocalFirst( boolean localFirst ) {
+        systemSession = (MavenRepositorySystemSession)systemSession.setUpdatePolicy( localFirst ? RepositoryPolicy.UPDATE_POLICY_NEVER : null );
+    }
     
     /**
      * Collect Dependencies
@@ -76,7 +360,16 @@ public class RepositoryClient {
      * @throws DependencyCollectionException exception
      */
     public CollectResult collectDependencies( CollectRequest collectRequest) throws DependencyCollectionException {
-        return repositorySystem.collectDependencies(systemSession,collectRequest);
+        // Partition the shared descriptor cache by the repositories of this request
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession( systemSession );
+        session.setConfigProperties( new HashMap<String,Object>( systemSession.getConfigProperties() ) );
+        session.setConfigProperty( DescriptorCache.CONFIG_PARTITION, DescriptorCache.partition( systemSession, collectRequest.getRepositories() ) );
+
+        try {
+            return repositorySystem.collectDependencies(session,collectRequest);
+        } finally {
+            flushIndex();
+        }
     }
     
     /**
@@ -87,7 +380,11 @@ public class RepositoryClient {
      * @throws DependencyResolutionException exception
      */
     public DependencyResult resolveDependencies( DependencyRequest dependencyRequest ) throws DependencyResolutionException {
-        return repositorySystem.resolveDependencies(systemSession, dependencyRequest);
+        try {
+            return repositorySystem.resolveDependencies(systemSession, dependencyRequest);
+        } finally {
+            flushIndex();
+        }
     }
     
     /**
@@ -107,7 +404,11 @@ public class RepositoryClient {
      * @throws InstallationException exception
      */
     public void install(InstallRequest installRequest) throws InstallationException {
-        repositorySystem.install(systemSession, installRequest);
+        try {
+            repositorySystem.install(systemSession, installRequest);
+        } finally {
+            flushIndex();
+        }
     }
     
     /**
@@ -118,7 +419,41 @@ public class RepositoryClient {
      * @throws ArtifactResolutionException exception
      */
     public ArtifactResult resolveArtifact(ArtifactRequest artifactRequest) throws ArtifactResolutionException {
-        return repositorySystem.resolveArtifact(systemSession, artifactRequest);
+        try {
+            return repositorySystem.resolveArtifact(systemSession, artifactRequest);
+        } finally {
+            flushIndex();
+        }
+    }
+
+    /**
+     * Resolve Artifacts in a single request, allowing the connector to batch the transfers
+     * for each repository. Resolution does not stop at the first failure, the result of an
+     * artifact that failed has {@link ArtifactResult#isResolved()} false and the cause in
+     * {@link ArtifactResult#getExceptions()}.
+     * 
+     * @param artifactRequests Collection of {@link ArtifactRequest}
+     * @return List of {@link ArtifactResult}, in the order of the requests
+     */
+    public List<ArtifactResult> resolveArtifacts(Collection<? extends ArtifactRequest> artifactRequests) {
+        try {
+            return repositorySystem.resolveArtifacts(systemSession, artifactRequests);
+        } catch (ArtifactResolutionException e) {
+            log.debug( "Failed to resolve artifacts", e );
+            return e.getResults();
+        } finally {
+            flushIndex();
+        }
+    }
+
+    /**
+     * Append the entries the resolve added to the index of the local repository, if indexed
+     */
+    private void flushIndex() {
+        LocalRepositoryManager manager = systemSession.getLocalRepositoryManager();
+        if ( manager instanceof IndexedLocalRepositoryManager ) {
+            ( (IndexedLocalRepositoryManager) manager ).flush();
+        }
     }
     
     
@@ -139,14 +474,11 @@ public class RepositoryClient {
     }
 
     /**
-     * Create new {@link RepositorySystem}
+     * Create new {@link MavenRepositorySystemSession} for the local repository, backed by
+     * the shared {@link RepositorySystem}
      */
     public void newRepositorySystem() {
-        DefaultServiceLocator locator = new DefaultServiceLocator();
-        locator.setServices(WagonProvider.class, new ManualWagonProvider());
-        locator.addService(RepositoryConnectorFactory.class, WagonRepositoryConnectorFactory.class);
-
-        repositorySystem = locator.getService(RepositorySystem.class);
+        repositorySystem = getSharedRepositorySystem();
 
         MavenRepositorySystemSession session = new MavenRepositorySystemSession();
         session = (MavenRepositorySystemSession)session.setDependencySelector( new AndDependencySelector( session.getDependencySelector(), new ValidSystemScopeDependencySelector() ) );
@@ -154,13 +486,97 @@ public class RepositoryClient {
         session = (MavenRepositorySystemSession)session.setRepositoryListener(new LogRepositoryListener());
 
         session = (MavenRepositorySystemSession)session.setIgnoreMissingArtifactDescriptor( false );
+        session = (MavenRepositorySystemSession)session.setCache( descriptorCache );
 
         LocalRepository localRepo = new LocalRepository( localRepoPath );
-        session.setLocalRepositoryManager(repositorySystem.newLocalRepositoryManager(localRepo));
+        localRepositoryManager = repositorySystem.newLocalRepositoryManager(localRepo);
+        session.setLocalRepositoryManager(localRepositoryManager);
 
         systemSession = session;
     }
 
+    /**
+     * Get the {@link RepositorySystem} shared by all clients in the JVM, creating it
+     * on first use.
+     *
+     * @return {@link RepositorySystem}
+     */
+    public static synchronized RepositorySystem getSharedRepositorySystem() {
+        if ( sharedRepositorySystem == null ) {
+            sharedServiceLocator = newServiceLocator();
+            sharedRepositorySystem = sharedServiceLocator.getService(RepositorySystem.class);
+        }
+
+        return sharedRepositorySystem;
+    }
+
+    /**
+     * Get a service of the shared {@link RepositorySystem}, such as the
+     * {@link org.sonatype.aether.impl.RemoteRepositoryManager} it aggregates repositories with
+     *
+     * @param type Class of the service
+     * @return service or null
+     */
+    public static synchronized <T> T getSharedService( Class<T> type ) {
+        getSharedRepositorySystem();
+        return sharedServiceLocator.getService( type );
+    }
+
+    /**
+     * Create a new {@link DefaultServiceLocator} with the services used by Naether
+     *
+     * @return {@link DefaultServiceLocator}
+     */
+    static DefaultServiceLocator newServiceLocator() {
+        DefaultServiceLocator locator = new DefaultServiceLocator();
+        locator.setServices(WagonProvider.class, wagonProvider);
+        locator.setServices(WagonConfigurator.class, wagonProvider);
+        locator.addService(RepositoryConnectorFactory.class, WagonRepositoryConnectorFactory.class);
+        locator.addService(RepositoryConnectorFactory.class, HttpRepositoryConnectorFactory.class);
+        locator.addService(RepositoryConnectorFactory.class, FileRepositoryConnectorFactory.class);
+        locator.addService(RepositoryConnectorFactory.class, DelegatingRepositoryConnectorFactory.class);
+        locator.setService(ArtifactDescriptorReader.class, PrefetchingArtifactDescriptorReader.class);
+        locator.setService(FileProcessor.class, ChannelFileProcessor.class);
+
+        return locator;
+    }
+
+    /**
+     * Get the {@link ManualWagonProvider} that pools the wagons of every client in the JVM
+     *
+     * @return {@link ManualWagonProvider}
+     */
+    public static ManualWagonProvider getWagonProvider() {
+        return wagonProvider;
+    }
+
+    /**
+     * Get the {@link RepositoryHealth} shared by all clients in the JVM
+     *
+     * @return {@link RepositoryHealth}
+     */
+    public static RepositoryHealth getRepositoryHealth() {
+        return repositoryHealth;
+    }
+
+    /**
+     * Get the {@link DescriptorCache} shared by all clients in the JVM
+     *
+     * @return {@link DescriptorCache}
+     */
+    public static DescriptorCache getDescriptorCache() {
+        return descriptorCache;
+    }
+
+    /**
+     * Get the {@link DescriptorPrefetcher} shared by all clients in the JVM
+     *
+     * @return {@link DescriptorPrefetcher}
+     */
+    public static DescriptorPrefetcher getDescriptorPrefetcher() {
+        return descriptorPrefetcher;
+    }
+
     public RepositorySystem getRepositorySystem() {
         return repositorySystem;
     }
@@ -169,4 +585,8 @@ public class RepositoryClient {
         return systemSession;
     }
 
+    public String getLocalRepoPath() {
+        return localRepoPath;
+    }
+
 }
@@ -0,0 +1,296 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonatype.aether.repository.RemoteRepository;
+
+/**
+ * Tracks the health of remote repositories by url. A repository is demoted for a cool-down
+ * period when its transfers are slow or after consecutive failed transfers. Demoted repositories
+ * are ordered after healthy ones, and a repository that keeps failing is down: no connections
+ * are made to it until the cool-down has passed.
+ *
+ * Artifacts that are not found and checksum failures do not count against a repository.
+ * Transfers retried by the {@link RetryingRepositoryConnector} are counted per repository.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class RepositoryHealth {
+
+    /**
+     * Default number of consecutive failures before a repository is down
+     */
+    public static final int DEFAULT_FAILURE_THRESHOLD = 3;
+
+    /**
+     * Default average milliseconds per transfer before a repository is slow
+     */
+    public static final long DEFAULT_SLOW_THRESHOLD = 10000;
+
+    /**
+     * Default milliseconds a repository stays demoted
+     */
+    public static final long DEFAULT_COOL_DOWN = 5 * 60 * 1000;
+
+    private static Logger log = LoggerFactory.getLogger(RepositoryHealth.class);
+
+    private final ConcurrentMap<String,Health> repositories = new ConcurrentHashMap<String,Health>();
+
+    private volatile int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+    private volatile long slowThreshold = DEFAULT_SLOW_THRESHOLD;
+    private volatile long coolDown = DEFAULT_COOL_DOWN;
+
+    /**
+     * Record a successful batch of transfers, clearing previous failures. The repository is
+     * demoted if the transfers were slow.
+     *
+     * @param url String of the repository
+     * @param millisPerTransfer long average milliseconds per transfer
+     */
+    public void recordSuccess( String url, long millisPerTransfer ) {
+        Health health = getHealth( url );
+        synchronized ( health ) {
+            health.failures = 0;
+            health.down = false;
+
+            if ( millisPerTransfer > slowThreshold ) {
+                log.info( "Demoting slow repository {}, {}ms per transfer", url, millisPerTransfer );
+                health.demotedUntil = System.currentTimeMillis() + coolDown;
+            } else {
+                health.demotedUntil = 0;
+            }
+        }
+    }
+
+    /**
+     * Record a failed batch of transfers. The repository is demoted and down once the
+     * failure threshold is reached.
+     *
+     * @param url String of the repository
+     */
+    public void recordFailure( String url ) {
+        Health health = getHealth( url );
+        synchronized ( health ) {
+            health.failures++;
+
+            if ( health.failures >= failureThreshold ) {
+                log.info( "Repository {} is down after {} failures", url, health.failures );
+                health.down = true;
+                health.demotedUntil = System.currentTimeMillis() + coolDown;
+            }
+        }
+    }
+
+    /**
+     * Record transfers retried after a transient failure
+     *
+     * @param url String of the repository
+     * @param count int transfers retried
+     */
+    public void recordRetries( String url, int count ) {
+        Health health = getHealth( url );
+        synchronized ( health ) {
+            health.retries += count;
+        }
+    }
+
+    /**
+     * Number of transfers retried from the repository
+     *
+     * @param url String of the repository
+     * @return long
+     */
+    public long getRetries( String url ) {
+        Health health = repositories.get( normalize( url ) );
+        if ( health == null ) {
+            return 0;
+        }
+
+        synchronized ( health ) {
+            return health.retries;
+        }
+    }
+
+    /**
+     * Number of transfers retried from all repositories
+     *
+     * @return long
+     */
+    public long getRetries() {
+        long retries = 0;
+        for ( Health health : repositories.values() ) {
+            synchronized ( health ) {
+                retries += health.retries;
+            }
+        }
+
+        return retries;
+    }
+
+    /**
+     * If the repository is demoted, because it is slow or down
+     *
+     * @param url String of the repository
+     * @return boolean
+     */
+    public boolean isDemoted( String url ) {
+        Health health = repositories.get( normalize( url ) );
+        if ( health == null ) {
+            return false;
+        }
+
+        synchronized ( health ) {
+            return health.demotedUntil > System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * If the repository is down, no connections should be made until the cool-down has passed
+     *
+     * @param url String of the repository
+     * @return boolean
+     */
+    public boolean isDown( String url ) {
+        Health health = repositories.get( normalize( url ) );
+        if ( health == null ) {
+            return false;
+        }
+
+        synchronized ( health ) {
+            return health.down && health.demotedUntil > System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Order repositories with healthy repositories first, otherwise keeping their order
+     *
+     * @param repositories Collection of {@link RemoteRepository}
+     * @return List of {@link RemoteRepository}
+     */
+    public List<RemoteRepository> order( Collection<RemoteRepository> repositories ) {
+        List<RemoteRepository> ordered = new ArrayList<RemoteRepository>( repositories.size() );
+        List<RemoteRepository> demoted = new ArrayList<RemoteRepository>();
+        for ( RemoteRepository repository : repositories ) {
+            if ( isDemoted( repository.getUrl() ) ) {
+                demoted.add( repository );
+            } else {
+                ordered.add( repository );
+            }
+        }
+        ordered.addAll( demoted );
+
+        return ordered;
+    }
+
+    /**
+     * Select the first url that is not demoted. If all are demoted, the url whose cool-down
+     * ends first.
+     *
+     * @param urls List of String
+     * @return String
+     */
+    public String select( List<String> urls ) {
+        String selected = null;
+        long selectedUntil = Long.MAX_VALUE;
+        for ( String url : urls ) {
+            Health health = repositories.get( normalize( url ) );
+            if ( health == null ) {
+                return url;
+            }
+
+            synchronized ( health ) {
+                if ( health.demotedUntil <= System.currentTimeMillis() ) {
+                    return url;
+                }
+
+                if ( health.demotedUntil < selectedUntil ) {
+                    selected = url;
+                    selectedUntil = health.demotedUntil;
+                }
+            }
+        }
+
+        return selected;
+    }
+
+    /**
+     * Forget the health of all repositories
+     */
+    public void clear() {
+        repositories.clear();
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold( int failureThreshold ) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    public long getSlowThreshold() {
+        return slowThreshold;
+    }
+
+    public void setSlowThreshold( long slowThreshold ) {
+        this.slowThreshold = slowThreshold;
+    }
+
+    public long getCoolDown() {
+        return coolDown;
+    }
+
+    public void setCoolDown( long coolDown ) {
+        this.coolDown = coolDown;
+    }
+
+    private Health getHealth( String url ) {
+        String key = normalize( url );
+        Health health = repositories.get( key );
+        if ( health == null ) {
+            Health created = new Health();
+            health = repositories.putIfAbsent( key, created );
+            if ( health == null ) {
+                health = created;
+            }
+        }
+
+        return health;
+    }
+
+    private static String normalize( String url ) {
+        return url.endsWith( "/" ) ? url.substring( 0, url.length() - 1 ) : url;
+    }
+
+    private static final class Health {
+        private int failures;
+        private boolean down;
+        private long demotedUntil;
+        private long retries;
+    }
+}
@@ -0,0 +1,435 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.graph.Dependency;
+import org.sonatype.aether.graph.DependencyNode;
+import org.sonatype.aether.graph.Exclusion;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+import org.sonatype.aether.util.graph.DefaultDependencyNode;
+
+import com.tobedevoured.naether.util.Notation;
+
+/**
+ * On disk cache of resolved dependency graphs, stored under the local repository. A graph
+ * is keyed by a hash of everything that affects resolution: the dependencies and their
+ * exclusions, the remote repositories, the user properties and the build artifacts.
+ *
+ * Graphs containing snapshots are not cached, since a snapshot can change without the
+ * key changing. A cached graph can be stale if a dependency uses a version range.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class ResolutionCache {
+
+    public static final String CACHE_DIR = ".naether" + File.separator + "resolution";
+
+    private static final String HEADER = "naether-resolution 1";
+    private static final String NODE = "n";
+    private static final String CHILDREN = "c";
+    private static final int ROOT = 0;
+
+    private static Logger log = LoggerFactory.getLogger(ResolutionCache.class);
+
+    private final File cacheDir;
+
+    /**
+     * Create new instance
+     *
+     * @param localRepoPath String path to the local repository
+     */
+    public ResolutionCache( String localRepoPath ) {
+        this.cacheDir = new File( localRepoPath, CACHE_DIR );
+    }
+
+    /**
+     * Generate the cache key for a resolution
+     *
+     * @param dependencies Collection of {@link Dependency}, order does not matter
+     * @param repositories Collection of {@link RemoteRepository}, in resolution order
+     * @param properties Map of user properties, may be null
+     * @param buildArtifacts Collection of build {@link Artifact}, may be null
+     * @param downloadArtifacts boolean if the artifacts are downloaded
+     * @return String hex SHA-1
+     */
+    public static String key( Collection<Dependency> dependencies, Collection<RemoteRepository> repositories,
+            Map<String,String> properties, Collection<Artifact> buildArtifacts, boolean downloadArtifacts ) {
+        return key( dependencies, repositories, null, properties, buildArtifacts, downloadArtifacts );
+    }
+
+    /**
+     * Generate the cache key for a resolution
+     *
+     * @param dependencies Collection of {@link Dependency}, order does not matter
+     * @param repositories Collection of {@link RemoteRepository} after mirroring, in resolution
+     *                     order, their policies are part of the key
+     * @param routingRules Map of groupId pattern to repository ids, see {@link RoutingRules#getRules()},
+     *                     may be null
+     * @param properties Map of user properties, may be null
+     * @param buildArtifacts Collection of build {@link Artifact}, may be null
+     * @param downloadArtifacts boolean if the artifacts are downloaded
+     * @return String hex SHA-1
+     */
+    public static String key( Collection<Dependency> dependencies, Collection<RemoteRepository> repositories,
+            Map<String,Set<String>> routingRules, Map<String,String> properties, Collection<Artifact> buildArtifacts,
+            boolean downloadArtifacts ) {
+
+        StringBuilder key = new StringBuilder( HEADER ).append( '\n' );
+
+        TreeSet<String> sortedDependencies = new TreeSet<String>();
+        for ( Dependency dependency : dependencies ) {
+            sortedDependencies.add( describe( dependency ) );
+        }
+        key.append( "dependencies " ).append( sortedDependencies ).append( '\n' );
+
+        for ( RemoteRepository repository : repositories ) {
+            key.append( "repository " ).append( repository.getId() ).append( ' ' ).append( repository.getUrl() )
+                .append( " releases " ).append( describe( repository.getPolicy( false ) ) )
+                .append( " snapshots " ).append( describe( repository.getPolicy( true ) ) ).append( '\n' );
+        }
+
+        if ( routingRules != null && !routingRules.isEmpty() ) {
+            TreeMap<String,TreeSet<String>> sortedRules = new TreeMap<String,TreeSet<String>>();
+            for ( Map.Entry<String,Set<String>> rule : routingRules.entrySet() ) {
+                sortedRules.put( rule.getKey(), new TreeSet<String>( rule.getValue() ) );
+            }
+            key.append( "routing " ).append( sortedRules ).append( '\n' );
+        }
+
+        if ( properties != null ) {
+            key.append( "properties " ).append( new TreeMap<String,String>( properties ) ).append( '\n' );
+        }
+
+        if ( buildArtifacts != null ) {
+            TreeSet<String> sortedArtifacts = new TreeSet<String>();
+            for ( Artifact artifact : buildArtifacts ) {
+                sortedArtifacts.add( artifact + " " + artifact.getFile() );
+            }
+            key.append( "build " ).append( sortedArtifacts ).append( '\n' );
+        }
+
+        key.append( "download " ).append( downloadArtifacts );
+
+        return sha1( key.toString() );
+    }
+
+    private static String describe( RepositoryPolicy policy ) {
+        return policy.isEnabled() + ":" + policy.getUpdatePolicy() + ":" + policy.getChecksumPolicy();
+    }
+
+    /**
+     * Describe everything about a dependency that affects its resolution
+     *
+     * @param dependency {@link Dependency}
+     * @return String
+     */
+    static String describe( Dependency dependency ) {
+        TreeSet<String> exclusions = new TreeSet<String>();
+        for ( Exclusion exclusion : dependency.getExclusions() ) {
+            exclusions.add( exclusion.getGroupId() + ":" + exclusion.getArtifactId() + ":" +
+                    exclusion.getExtension() + ":" + exclusion.getClassifier() );
+        }
+
+        return Notation.generate( dependency ) + " " + dependency.getScope() + " " +
+                dependency.isOptional() + " " + exclusions;
+    }
+
+    /**
+     * Load a cached graph
+     *
+     * @param key String
+     * @param verifyFiles boolean if every artifact must have a file that exists
+     * @return {@link DependencyNode} root of the graph, or null if not cached or invalid
+     */
+    public DependencyNode load( String key, boolean verifyFiles ) {
+        File file = getFile( key );
+        if ( !file.exists() ) {
+            return null;
+        }
+
+        Map<Integer,DependencyNode> nodes = new HashMap<Integer,DependencyNode>();
+        nodes.put( ROOT, new DefaultDependencyNode() );
+
+        List<String[]> children = new ArrayList<String[]>();
+
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader( new InputStreamReader( new FileInputStream( file ), "UTF-8" ) );
+
+            if ( !HEADER.equals( reader.readLine() ) ) {
+                log.debug( "Ignoring resolution cache {} with unknown format", file );
+                return null;
+            }
+
+            String line;
+            while ( ( line = reader.readLine() ) != null ) {
+                String[] fields = line.split( " ", -1 );
+
+                if ( NODE.equals( fields[0] ) ) {
+                    Artifact artifact = readArtifact( fields );
+                    if ( verifyFiles && ( artifact.getFile() == null || !artifact.getFile().exists() ) ) {
+                        log.debug( "Resolution cache {} is missing {}", key, artifact );
+                        return null;
+                    }
+
+                    Dependency dependency = new Dependency( artifact, decode( fields[3] ), Boolean.valueOf( fields[4] ) );
+                    nodes.put( Integer.valueOf( fields[1] ), new DefaultDependencyNode( dependency ) );
+
+                } else if ( CHILDREN.equals( fields[0] ) ) {
+                    children.add( fields );
+                }
+            }
+        } catch ( IOException e ) {
+            log.warn( "Failed to read resolution cache {}", file, e );
+            return null;
+        } catch ( RuntimeException e ) {
+            log.warn( "Ignoring corrupt resolution cache {}", file, e );
+            return null;
+        } finally {
+            close( reader );
+        }
+
+        for ( String[] fields : children ) {
+            DependencyNode parent = nodes.get( Integer.valueOf( fields[1] ) );
+            for ( int x = 2; x < fields.length; x++ ) {
+                DependencyNode child = nodes.get( Integer.valueOf( fields[x] ) );
+                if ( parent == null || child == null ) {
+                    log.warn( "Ignoring corrupt resolution cache {}", file );
+                    return null;
+                }
+                parent.getChildren().add( child );
+            }
+        }
+
+        return nodes.get( ROOT );
+    }
+
+    /**
+     * Store a resolved graph. Graphs that contain snapshots are not stored.
+     *
+     * @param key String
+     * @param root {@link DependencyNode}
+     */
+    public void store( String key, DependencyNode root ) {
+        StringBuilder content = new StringBuilder( HEADER ).append( '\n' );
+
+        try {
+            if ( !writeNode( root, new IdentityHashMap<DependencyNode,Integer>(), content ) ) {
+                log.debug( "Not caching resolution {} with snapshots", key );
+                return;
+            }
+        } catch ( UnsupportedEncodingException e ) {
+            throw new IllegalStateException( e );
+        }
+
+        File file = getFile( key );
+        File tmp = new File( file.getPath() + ".tmp" + Thread.currentThread().getId() );
+        BufferedWriter writer = null;
+        try {
+            cacheDir.mkdirs();
+
+            writer = new BufferedWriter( new OutputStreamWriter( new FileOutputStream( tmp ), "UTF-8" ) );
+            writer.write( content.toString() );
+            writer.close();
+            writer = null;
+
+            Files.move( tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+        } catch ( IOException e ) {
+            log.warn( "Failed to write resolution cache {}", file, e );
+        } finally {
+            close( writer );
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Remove all cached graphs
+     */
+    public void clear() {
+        File[] files = cacheDir.listFiles();
+        if ( files != null ) {
+            for ( File file : files ) {
+                file.delete();
+            }
+        }
+    }
+
+    public File getCacheDir() {
+        return cacheDir;
+    }
+
+    private File getFile( String key ) {
+        return new File( cacheDir, key );
+    }
+
+    /**
+     * Write the node and its children in preorder, nodes shared in the graph are written once.
+     *
+     * @return false if the graph contains a snapshot
+     */
+    private boolean writeNode( DependencyNode node, Map<DependencyNode,Integer> ids, StringBuilder content ) throws UnsupportedEncodingException {
+        ids.put( node, ids.size() );
+
+        Dependency dependency = node.getDependency();
+        if ( dependency != null ) {
+            Artifact artifact = dependency.getArtifact();
+            if ( artifact.isSnapshot() ) {
+                return false;
+            }
+
+            String coords = artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getExtension() +
+                    ":" + artifact.getClassifier() + ":" + artifact.getVersion();
+
+            content.append( NODE ).append( ' ' ).append( ids.get( node ) )
+                .append( ' ' ).append( encode( coords ) )
+                .append( ' ' ).append( encode( dependency.getScope() ) )
+                .append( ' ' ).append( dependency.isOptional() )
+                .append( ' ' ).append( artifact.getFile() != null ? encode( artifact.getFile().getAbsolutePath() ) : "" )
+                .append( ' ' ).append( encode( encodeProperties( artifact.getProperties() ) ) )
+                .append( '\n' );
+        }
+
+        StringBuilder children = new StringBuilder();
+        for ( DependencyNode child : node.getChildren() ) {
+            if ( !ids.containsKey( child ) ) {
+                if ( !writeNode( child, ids, content ) ) {
+                    return false;
+                }
+            }
+            children.append( ' ' ).append( ids.get( child ) );
+        }
+
+        if ( children.length() > 0 ) {
+            content.append( CHILDREN ).append( ' ' ).append( ids.get( node ) ).append( children ).append( '\n' );
+        }
+
+        return true;
+    }
+
+    private static Artifact readArtifact( String[] fields ) throws UnsupportedEncodingException {
+        String[] coords = decode( fields[2] ).split( ":", -1 );
+
+        File file = fields[5].length() > 0 ? new File( decode( fields[5] ) ) : null;
+
+        return new DefaultArtifact( coords[0], coords[1], coords[3], coords[2], coords[4], decodeProperties( decode( fields[6] ) ), file );
+    }
+
+    /**
+     * Encode the properties of an artifact, such as the local path of a system scope dependency
+     *
+     * @param properties Map
+     * @return String of url encoded key=value pairs joined by &amp;
+     * @throws UnsupportedEncodingException if UTF-8 is not supported
+     */
+    static String encodeProperties( Map<String,String> properties ) throws UnsupportedEncodingException {
+        StringBuilder encoded = new StringBuilder();
+        for ( Map.Entry<String,String> property : properties.entrySet() ) {
+            if ( encoded.length() > 0 ) {
+                encoded.append( '&' );
+            }
+            encoded.append( encode( property.getKey() ) ).append( '=' ).append( encode( property.getValue() ) );
+        }
+
+        return encoded.toString();
+    }
+
+    /**
+     * Decode the properties of an artifact, see {@link #encodeProperties(Map)}
+     *
+     * @param encoded String
+     * @return Map
+     * @throws UnsupportedEncodingException if UTF-8 is not supported
+     */
+    static Map<String,String> decodeProperties( String encoded ) throws UnsupportedEncodingException {
+        Map<String,String> properties = new HashMap<String,String>();
+        if ( encoded.length() > 0 ) {
+            for ( String property : encoded.split( "&" ) ) {
+                String[] pair = property.split( "=", 2 );
+                properties.put( decode( pair[0] ), decode( pair[1] ) );
+            }
+        }
+
+        return properties;
+    }
+
+    private static String encode( String value ) throws UnsupportedEncodingException {
+        return URLEncoder.encode( value != null ? value : "", "UTF-8" );
+    }
+
+    private static String decode( String value ) throws UnsupportedEncodingException {
+        return URLDecoder.decode( value, "UTF-8" );
+    }
+
+    private static String sha1( String value ) {
+        try {
+            byte[] digest = MessageDigest.getInstance( "SHA-1" ).digest( value.getBytes( "UTF-8" ) );
+            StringBuilder hex = new StringBuilder();
+            for ( byte b : digest ) {
+                hex.append( String.format( "%02x", b ) );
+            }
+            return hex.toString();
+        } catch ( NoSuchAlgorithmException e ) {
+            throw new IllegalStateException( e );
+        } catch ( UnsupportedEncodingException e ) {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    private static void close( Closeable closeable ) {
+        if ( closeable != null ) {
+            try {
+                closeable.close();
+            } catch ( IOException e ) {
+                log.debug( "Failed to close", e );
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonatype.aether.RepositoryEvent;
+import org.sonatype.aether.graph.DependencyNode;
+import org.sonatype.aether.util.graph.PreorderNodeListGenerator;
+
+import com.tobedevoured.naether.api.ResolutionListener;
+import com.tobedevoured.naether.util.Notation;
+
+/**
+ * {@link LogRepositoryListener} that also dispatches the artifacts resolved by Aether to
+ * {@link ResolutionListener}s. Only set on the sessions that download artifacts, since
+ * collecting the graph resolves poms that are not part of the resolution.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class ResolutionEventDispatcher extends LogRepositoryListener {
+
+    private static Logger log = LoggerFactory.getLogger(ResolutionEventDispatcher.class);
+
+    private final List<ResolutionListener> listeners = new CopyOnWriteArrayList<ResolutionListener>();
+
+    /**
+     * Create new instance without listeners
+     */
+    public ResolutionEventDispatcher() {
+    }
+
+    /**
+     * Create a copy notifying the listeners of the original. Listeners added to or removed
+     * from either afterwards do not change the other.
+     *
+     * @param original {@link ResolutionEventDispatcher}
+     */
+    public ResolutionEventDispatcher( ResolutionEventDispatcher original ) {
+        listeners.addAll( original.listeners );
+    }
+
+    public void addListener( ResolutionListener listener ) {
+        listeners.add( listener );
+    }
+
+    public void removeListener( ResolutionListener listener ) {
+        listeners.remove( listener );
+    }
+
+    public boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    @Override
+    public void artifactResolved( RepositoryEvent event ) {
+        super.artifactResolved( event );
+
+        File file = event.getArtifact().getFile();
+        if ( event.getExceptions().isEmpty() && file != null ) {
+            fireResolved( Notation.generate( event.getArtifact() ), file );
+        } else if ( !event.getExceptions().isEmpty() ) {
+            fireFailed( Notation.generate( event.getArtifact() ), event.getException() );
+        }
+    }
+
+    /**
+     * Fire a collected event for every dependency of the graph, in preorder
+     *
+     * @param root {@link DependencyNode}
+     */
+    public void fireCollected( DependencyNode root ) {
+        if ( listeners.isEmpty() ) {
+            return;
+        }
+
+        for ( DependencyNode node : nodes( root ) ) {
+            String notation = Notation.generate( node.getDependency().getArtifact() );
+            for ( ResolutionListener listener : listeners ) {
+                try {
+                    listener.dependencyCollected( notation, node.getDependency().getScope() );
+                } catch ( RuntimeException e ) {
+                    log.warn( "Resolution listener failed for {}", notation, e );
+                }
+            }
+        }
+    }
+
+    /**
+     * Fire a resolved event for every dependency of the graph with a file, such as a graph
+     * loaded from the resolution cache that was not downloaded
+     *
+     * @param root {@link DependencyNode}
+     */
+    public void fireResolved( DependencyNode root ) {
+        if ( listeners.isEmpty() ) {
+            return;
+        }
+
+        for ( DependencyNode node : nodes( root ) ) {
+            File file = node.getDependency().getArtifact().getFile();
+            if ( file != null ) {
+                fireResolved( Notation.generate( node.getDependency().getArtifact() ), file );
+            }
+        }
+    }
+
+    private void fireResolved( String notation, File file ) {
+        for ( ResolutionListener listener : listeners ) {
+            try {
+                listener.artifactResolved( notation, file );
+            } catch ( RuntimeException e ) {
+                log.warn( "Resolution listener failed for {}", notation, e );
+            }
+        }
+    }
+
+    private void fireFailed( String notation, Exception exception ) {
+        for ( ResolutionListener listener : listeners ) {
+            try {
+                listener.artifactFailed( notation, exception );
+            } catch ( RuntimeException e ) {
+                log.warn( "Resolution listener failed for {}", notation, e );
+            }
+        }
+    }
+
+    private static List<DependencyNode> nodes( DependencyNode root ) {
+        PreorderNodeListGenerator generator = new PreorderNodeListGenerator();
+        root.accept( generator );
+        return generator.getNodes();
+    }
+}
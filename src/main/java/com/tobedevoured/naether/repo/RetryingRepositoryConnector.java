@@ -0,0 +1,277 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonatype.aether.spi.connector.ArtifactDownload;
+import org.sonatype.aether.spi.connector.ArtifactUpload;
+import org.sonatype.aether.spi.connector.MetadataDownload;
+import org.sonatype.aether.spi.connector.MetadataUpload;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
+import org.sonatype.aether.spi.connector.Transfer;
+import org.sonatype.aether.transfer.ArtifactNotFoundException;
+import org.sonatype.aether.transfer.ChecksumFailureException;
+import org.sonatype.aether.transfer.MetadataNotFoundException;
+import org.sonatype.aether.transfer.TransferCancelledException;
+
+/**
+ * {@link RepositoryConnector} that retries transfers failing with a transient error, such as
+ * a reset connection, a timeout or a 503 from a proxy. Only the failed transfers of a batch are
+ * retried, after an exponential backoff with jitter so clients that failed together do not
+ * retry together.
+ *
+ * Missing artifacts, checksum failures, cancelled transfers and http status codes other than
+ * {@link #RETRYABLE_STATUS} are not retried. Retries are counted with the {@link RepositoryHealth},
+ * and a batch still failing after the retries is recorded as a single failure.
+ *
+ * The connector wraps the throttled connectors, so no permits are held while backing off.
+ *
+ * @author Michael Guymon
+ *
+ */
+class RetryingRepositoryConnector implements RepositoryConnector {
+
+    /**
+     * Http status codes of transient failures
+     */
+    static final Set<Integer> RETRYABLE_STATUS = new HashSet<Integer>( Arrays.asList( 408, 429, 500, 502, 503, 504 ) );
+
+    // both the wagon and http connector report the status code of a failed transfer this way
+    private static final Pattern RETURN_CODE = Pattern.compile( "Return code is: (\\d+)" );
+
+    private static Logger log = LoggerFactory.getLogger(RetryingRepositoryConnector.class);
+
+    private final RepositoryConnector connector;
+    private final RepositoryHealth health;
+    private final String url;
+    private final int retries;
+    private final long backoff;
+    private final long maxBackoff;
+
+    /**
+     * @param connector {@link RepositoryConnector} to retry the transfers of
+     * @param health {@link RepositoryHealth} counting the retries
+     * @param url String of the repository
+     * @param retries int max retries of a transfer
+     * @param backoff long milliseconds before the first retry, doubled for every retry
+     * @param maxBackoff long max milliseconds between retries
+     */
+    RetryingRepositoryConnector( RepositoryConnector connector, RepositoryHealth health, String url, int retries, long backoff, long maxBackoff ) {
+        this.connector = connector;
+        this.health = health;
+        this.url = url;
+        this.retries = retries;
+        this.backoff = backoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    public void get( Collection<? extends ArtifactDownload> artifactDownloads, Collection<? extends MetadataDownload> metadataDownloads ) {
+        connector.get( artifactDownloads, metadataDownloads );
+
+        List<ArtifactDownload> failedArtifacts = retryable( artifactDownloads );
+        List<MetadataDownload> failedMetadata = retryable( metadataDownloads );
+        for ( int attempt = 0; attempt < retries && ( !failedArtifacts.isEmpty() || !failedMetadata.isEmpty() ); attempt++ ) {
+            if ( !backoff( attempt, failedArtifacts.size() + failedMetadata.size(), failedArtifacts.isEmpty() ? failedMetadata : failedArtifacts ) ) {
+                break;
+            }
+
+            reset( failedArtifacts );
+            reset( failedMetadata );
+            connector.get( failedArtifacts, failedMetadata );
+
+            failedArtifacts = retryable( failedArtifacts );
+            failedMetadata = retryable( failedMetadata );
+        }
+
+        recordFailure( artifactDownloads, metadataDownloads );
+    }
+
+    public void put( Collection<? extends ArtifactUpload> artifactUploads, Collection<? extends MetadataUpload> metadataUploads ) {
+        connector.put( artifactUploads, metadataUploads );
+
+        List<ArtifactUpload> failedArtifacts = retryable( artifactUploads );
+        List<MetadataUpload> failedMetadata = retryable( metadataUploads );
+        for ( int attempt = 0; attempt < retries && ( !failedArtifacts.isEmpty() || !failedMetadata.isEmpty() ); attempt++ ) {
+            if ( !backoff( attempt, failedArtifacts.size() + failedMetadata.size(), failedArtifacts.isEmpty() ? failedMetadata : failedArtifacts ) ) {
+                return;
+            }
+
+            reset( failedArtifacts );
+            reset( failedMetadata );
+            connector.put( failedArtifacts, failedMetadata );
+
+            failedArtifacts = retryable( failedArtifacts );
+            failedMetadata = retryable( failedMetadata );
+        }
+    }
+
+    public void close() {
+        connector.close();
+    }
+
+    /**
+     * Record the batch as failed if a download still failed because of the repository
+     */
+    private void recordFailure( Collection<? extends ArtifactDownload> artifactDownloads, Collection<? extends MetadataDownload> metadataDownloads ) {
+        if ( artifactDownloads != null ) {
+            for ( ArtifactDownload download : artifactDownloads ) {
+                if ( HealthTrackingRepositoryConnector.isFailure( download ) ) {
+                    health.recordFailure( url );
+                    return;
+                }
+            }
+        }
+
+        if ( metadataDownloads != null ) {
+            for ( MetadataDownload download : metadataDownloads ) {
+                if ( HealthTrackingRepositoryConnector.isFailure( download ) ) {
+                    health.recordFailure( url );
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Wait before a retry, returns false if interrupted
+     */
+    private boolean backoff( int attempt, int count, List<? extends Transfer> failed ) {
+        long delay = delay( attempt );
+        log.info( "Retrying {} transfers from {} in {}ms, attempt {} of {}: {}", new Object[] {
+            count, url, delay, attempt + 1, retries, exception( failed.get( 0 ) ).getMessage() } );
+
+        try {
+            Thread.sleep( delay );
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        health.recordRetries( url, count );
+        return true;
+    }
+
+    /**
+     * The backoff before a retry, doubling for every attempt up to the max and randomized
+     * between half and the full backoff
+     *
+     * @param attempt int, 0 for the first retry
+     * @return long milliseconds
+     */
+    long delay( int attempt ) {
+        long delay = maxBackoff;
+        if ( attempt < 31 ) {
+            delay = Math.min( maxBackoff, backoff << attempt );
+        }
+
+        return delay / 2 + ThreadLocalRandom.current().nextLong( delay / 2 + 1 );
+    }
+
+    /**
+     * If a transfer failing with the exception can succeed when retried
+     *
+     * @param exception {@link Exception}, may be null
+     * @return boolean
+     */
+    static boolean isRetryable( Exception exception ) {
+        boolean io = false;
+        for ( Throwable cause = exception; cause != null; cause = cause.getCause() ) {
+            if ( cause instanceof ArtifactNotFoundException || cause instanceof MetadataNotFoundException ||
+                    cause instanceof ChecksumFailureException || cause instanceof TransferCancelledException ||
+                    cause instanceof FileNotFoundException ) {
+                return false;
+            }
+
+            if ( cause.getMessage() != null ) {
+                Matcher matcher = RETURN_CODE.matcher( cause.getMessage() );
+                if ( matcher.find() ) {
+                    return RETRYABLE_STATUS.contains( Integer.valueOf( matcher.group( 1 ) ) );
+                }
+            }
+
+            io = io || cause instanceof IOException;
+
+            if ( cause.getCause() == cause ) {
+                break;
+            }
+        }
+
+        return io;
+    }
+
+    private static <T extends Transfer> List<T> retryable( Collection<? extends T> transfers ) {
+        List<T> failed = new ArrayList<T>();
+        if ( transfers != null ) {
+            for ( T transfer : transfers ) {
+                if ( isRetryable( exception( transfer ) ) ) {
+                    failed.add( transfer );
+                }
+            }
+        }
+
+        return failed;
+    }
+
+    private static Exception exception( Transfer transfer ) {
+        if ( transfer instanceof ArtifactDownload ) {
+            return ( (ArtifactDownload) transfer ).getException();
+        } else if ( transfer instanceof MetadataDownload ) {
+            return ( (MetadataDownload) transfer ).getException();
+        } else if ( transfer instanceof ArtifactUpload ) {
+            return ( (ArtifactUpload) transfer ).getException();
+        } else if ( transfer instanceof MetadataUpload ) {
+            return ( (MetadataUpload) transfer ).getException();
+        }
+
+        return null;
+    }
+
+    private static void reset( Collection<? extends Transfer> transfers ) {
+        for ( Transfer transfer : transfers ) {
+            if ( transfer instanceof ArtifactDownload ) {
+                ( (ArtifactDownload) transfer ).setException( null );
+            } else if ( transfer instanceof MetadataDownload ) {
+                ( (MetadataDownload) transfer ).setException( null );
+            } else if ( transfer instanceof ArtifactUpload ) {
+                ( (ArtifactUpload) transfer ).setException( null );
+            } else if ( transfer instanceof MetadataUpload ) {
+                ( (MetadataUpload) transfer ).setException( null );
+            }
+            transfer.setState( Transfer.State.NEW );
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "retrying(" + retries + ") " + connector;
+    }
+}
@@ -0,0 +1,107 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.spi.connector.ArtifactDownload;
+import org.sonatype.aether.spi.connector.ArtifactUpload;
+import org.sonatype.aether.spi.connector.MetadataDownload;
+import org.sonatype.aether.spi.connector.MetadataUpload;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
+import org.sonatype.aether.spi.connector.Transfer;
+import org.sonatype.aether.transfer.ArtifactNotFoundException;
+import org.sonatype.aether.transfer.MetadataNotFoundException;
+
+/**
+ * {@link RepositoryConnector} that fails the downloads of artifacts and metadata that the
+ * {@link RoutingRules} do not route to the repository, without making a request. Uploads are
+ * not routed, they go where they are deployed.
+ *
+ * @author Michael Guymon
+ *
+ */
+class RoutingRepositoryConnector implements RepositoryConnector {
+
+    private static Logger log = LoggerFactory.getLogger(RoutingRepositoryConnector.class);
+
+    private final RepositoryConnector connector;
+    private final RoutingRules rules;
+    private final RemoteRepository repository;
+
+    RoutingRepositoryConnector( RepositoryConnector connector, RoutingRules rules, RemoteRepository repository ) {
+        this.connector = connector;
+        this.rules = rules;
+        this.repository = repository;
+    }
+
+    public void get( Collection<? extends ArtifactDownload> artifactDownloads, Collection<? extends MetadataDownload> metadataDownloads ) {
+        List<ArtifactDownload> artifacts = new ArrayList<ArtifactDownload>();
+        if ( artifactDownloads != null ) {
+            for ( ArtifactDownload download : artifactDownloads ) {
+                if ( rules.isAllowed( download.getArtifact().getGroupId(), repository ) ) {
+                    artifacts.add( download );
+                } else {
+                    log.debug( "Not requesting {} from {}, it is routed to {}", new Object[] {
+                        download.getArtifact(), repository.getId(), rules.getRepositoryIds( download.getArtifact().getGroupId() ) } );
+                    download.setException( new ArtifactNotFoundException( download.getArtifact(), repository,
+                        "Artifact " + download.getArtifact() + " is not routed to " + repository.getId() + " (" + repository.getUrl() + ")" ) );
+                    download.setState( Transfer.State.DONE );
+                }
+            }
+        }
+
+        List<MetadataDownload> metadata = new ArrayList<MetadataDownload>();
+        if ( metadataDownloads != null ) {
+            for ( MetadataDownload download : metadataDownloads ) {
+                // metadata of the repository itself, without a groupId, is not routed
+                String groupId = download.getMetadata().getGroupId();
+                if ( groupId.length() == 0 || rules.isAllowed( groupId, repository ) ) {
+                    metadata.add( download );
+                } else {
+                    download.setException( new MetadataNotFoundException( download.getMetadata(), repository,
+                        "Metadata " + download.getMetadata() + " is not routed to " + repository.getId() + " (" + repository.getUrl() + ")" ) );
+                    download.setState( Transfer.State.DONE );
+                }
+            }
+        }
+
+        if ( !artifacts.isEmpty() || !metadata.isEmpty() ) {
+            connector.get( artifacts, metadata );
+        }
+    }
+
+    public void put( Collection<? extends ArtifactUpload> artifactUploads, Collection<? extends MetadataUpload> metadataUploads ) {
+        connector.put( artifactUploads, metadataUploads );
+    }
+
+    public void close() {
+        connector.close();
+    }
+
+    @Override
+    public String toString() {
+        return "routed " + connector;
+    }
+}
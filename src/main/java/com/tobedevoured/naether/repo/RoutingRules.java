@@ -0,0 +1,185 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.sonatype.aether.repository.RemoteRepository;
+
+/**
+ * Routes artifacts to remote repositories by groupId. A rule maps a groupId pattern to the
+ * repositories its artifacts are resolved from, artifacts matching a rule are never requested
+ * from any other repository, including repositories declared in poms. Artifacts matching no
+ * rule are requested from every repository.
+ *
+ * A pattern is a groupId, matching only that groupId, or a groupId followed by
+ * <code>.*</code>, matching that groupId and every groupId below it. The pattern <code>*</code>
+ * matches every groupId. When several patterns match, the most specific one applies.
+ *
+ * The rules are enforced by the {@link RoutingRepositoryConnector}, a mirror is routed to if
+ * any repository it mirrors is.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class RoutingRules {
+
+    private static final String ANY = "*";
+    private static final String SUBGROUPS = ".*";
+
+    private final Map<String,Set<String>> rules = new LinkedHashMap<String,Set<String>>();
+
+    /**
+     * Create new instance without rules
+     */
+    public RoutingRules() {
+    }
+
+    /**
+     * Create a copy with the rules of the original. Rules added to either afterwards are not
+     * seen by the other.
+     *
+     * @param original {@link RoutingRules}
+     */
+    public RoutingRules( RoutingRules original ) {
+        for ( Map.Entry<String,Set<String>> rule : original.getRules().entrySet() ) {
+            rules.put( rule.getKey(), new LinkedHashSet<String>( rule.getValue() ) );
+        }
+    }
+
+    /**
+     * Route the groupIds matching the pattern to a repository, in addition to the repositories
+     * the pattern is already routed to
+     *
+     * @param groupPattern String such as <code>com.example.*</code>
+     * @param repositoryId String id of the repository
+     * @return {@link RoutingRules}
+     */
+    public synchronized RoutingRules add( String groupPattern, String repositoryId ) {
+        if ( groupPattern == null || groupPattern.trim().length() == 0 || groupPattern.trim().equals( SUBGROUPS ) ) {
+            throw new IllegalArgumentException( "Invalid groupId pattern: " + groupPattern );
+        }
+        if ( repositoryId == null ) {
+            throw new IllegalArgumentException( "Repository id required for groupId pattern " + groupPattern );
+        }
+
+        String pattern = groupPattern.trim();
+        Set<String> repositoryIds = rules.get( pattern );
+        if ( repositoryIds == null ) {
+            repositoryIds = new LinkedHashSet<String>();
+            rules.put( pattern, repositoryIds );
+        }
+        repositoryIds.add( repositoryId );
+
+        return this;
+    }
+
+    /**
+     * Ids of the repositories the groupId is routed to
+     *
+     * @param groupId String
+     * @return Set of String, null if no rule matches the groupId
+     */
+    public synchronized Set<String> getRepositoryIds( String groupId ) {
+        String matched = null;
+        int specificity = -1;
+        for ( String pattern : rules.keySet() ) {
+            int patternSpecificity = specificity( pattern, groupId );
+            if ( patternSpecificity > specificity ) {
+                matched = pattern;
+                specificity = patternSpecificity;
+            }
+        }
+
+        return matched != null ? Collections.unmodifiableSet( new LinkedHashSet<String>( rules.get( matched ) ) ) : null;
+    }
+
+    /**
+     * If artifacts of the groupId can be requested from the repository
+     *
+     * @param groupId String
+     * @param repository {@link RemoteRepository}
+     * @return boolean
+     */
+    public boolean isAllowed( String groupId, RemoteRepository repository ) {
+        Set<String> repositoryIds = getRepositoryIds( groupId );
+        if ( repositoryIds == null || repositoryIds.contains( repository.getId() ) ) {
+            return true;
+        }
+
+        for ( RemoteRepository mirrored : repository.getMirroredRepositories() ) {
+            if ( repositoryIds.contains( mirrored.getId() ) ) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Rules by groupId pattern
+     *
+     * @return Map of pattern to the ids of the repositories
+     */
+    public synchronized Map<String,Set<String>> getRules() {
+        Map<String,Set<String>> copy = new LinkedHashMap<String,Set<String>>();
+        for ( Map.Entry<String,Set<String>> rule : rules.entrySet() ) {
+            copy.put( rule.getKey(), Collections.unmodifiableSet( new LinkedHashSet<String>( rule.getValue() ) ) );
+        }
+
+        return copy;
+    }
+
+    public synchronized boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    public synchronized void clear() {
+        rules.clear();
+    }
+
+    /**
+     * How specific the pattern is for the groupId, -1 if it does not match. An exact groupId
+     * is more specific than any pattern of subgroups.
+     */
+    private static int specificity( String pattern, String groupId ) {
+        if ( ANY.equals( pattern ) ) {
+            return 0;
+        }
+
+        if ( pattern.endsWith( SUBGROUPS ) ) {
+            String prefix = pattern.substring( 0, pattern.length() - SUBGROUPS.length() );
+            if ( groupId.equals( prefix ) || groupId.startsWith( prefix + "." ) ) {
+                return 2 * prefix.length();
+            }
+            return -1;
+        }
+
+        return pattern.equals( groupId ) ? 2 * pattern.length() + 1 : -1;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return rules.toString();
+    }
+}
@@ -0,0 +1,89 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Collection;
+import java.util.concurrent.Semaphore;
+
+import org.sonatype.aether.spi.connector.ArtifactDownload;
+import org.sonatype.aether.spi.connector.ArtifactUpload;
+import org.sonatype.aether.spi.connector.MetadataDownload;
+import org.sonatype.aether.spi.connector.MetadataUpload;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
+
+/**
+ * {@link RepositoryConnector} that holds a permit for each transfer of a batch, up to
+ * the limit, while the wrapped connector runs.
+ *
+ * @author Michael Guymon
+ *
+ */
+class ThrottledRepositoryConnector implements RepositoryConnector {
+
+    private final RepositoryConnector connector;
+    private final Semaphore permits;
+    private final int limit;
+
+    ThrottledRepositoryConnector( RepositoryConnector connector, Semaphore permits, int limit ) {
+        this.connector = connector;
+        this.permits = permits;
+        this.limit = limit;
+    }
+
+    public void get( Collection<? extends ArtifactDownload> artifactDownloads, Collection<? extends MetadataDownload> metadataDownloads ) {
+        int count = acquire( size( artifactDownloads ) + size( metadataDownloads ) );
+        try {
+            connector.get( artifactDownloads, metadataDownloads );
+        } finally {
+            permits.release( count );
+        }
+    }
+
+    public void put( Collection<? extends ArtifactUpload> artifactUploads, Collection<? extends MetadataUpload> metadataUploads ) {
+        int count = acquire( size( artifactUploads ) + size( metadataUploads ) );
+        try {
+            connector.put( artifactUploads, metadataUploads );
+        } finally {
+            permits.release( count );
+        }
+    }
+
+    public void close() {
+        connector.close();
+    }
+
+    RepositoryConnector getConnector() {
+        return connector;
+    }
+
+    private int acquire( int transfers ) {
+        int count = Math.max( 1, Math.min( transfers, limit ) );
+        permits.acquireUninterruptibly( count );
+        return count;
+    }
+
+    private static int size( Collection<?> collection ) {
+        return collection != null ? collection.size() : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "throttled(" + limit + ") " + connector;
+    }
+}
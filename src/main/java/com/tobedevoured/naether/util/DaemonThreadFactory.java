@@ -0,0 +1,50 @@
+package com.tobedevoured.naether.util;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link ThreadFactory} of daemon threads named after their pool, such as
+ * <code>naether-download-1-3</code>, so the threads of Naether never keep the JVM alive
+ * and are easy to tell apart in a thread dump.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class DaemonThreadFactory implements ThreadFactory {
+
+    private final String name;
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * Create new instance
+     *
+     * @param name String of the pool, the threads are named name-1, name-2 and so on
+     */
+    public DaemonThreadFactory( String name ) {
+        this.name = name;
+    }
+
+    public Thread newThread( Runnable runnable ) {
+        Thread thread = new Thread( runnable, name + "-" + count.incrementAndGet() );
+        thread.setDaemon( true );
+        return thread;
+    }
+}
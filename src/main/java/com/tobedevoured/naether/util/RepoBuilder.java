@@ -23,6 +23,7 @@ import java.net.URL;
 
 import org.apache.maven.model.Repository;
 import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
 
 /**
  * Helper for creating repository objects
@@ -59,6 +60,66 @@ public final class RepoBuilder {
 
         return new RemoteRepository(id.toString(), "default", url);
     }
+
+    /**
+     * Create a {@link RemoteRepository} from a String url with an update and checksum policy
+     * 
+     * @param url String
+     * @param updatePolicy String never, always, daily or interval:N minutes, null for daily
+     * @param checksumPolicy String ignore, warn or fail, null for warn
+     * @return {@link RemoteRepository}
+     * @throws MalformedURLException exceptions
+     * @throws IllegalArgumentException if a policy is not valid
+     */
+    public static RemoteRepository remoteRepositoryFromUrl(String url, String updatePolicy, String checksumPolicy) throws MalformedURLException {
+        return setPolicy( remoteRepositoryFromUrl(url), updatePolicy, checksumPolicy );
+    }
+
+    /**
+     * Set the update and checksum policy of a {@link RemoteRepository} for both releases and snapshots
+     * 
+     * @param remoteRepository {@link RemoteRepository}
+     * @param updatePolicy String never, always, daily or interval:N minutes, null for daily
+     * @param checksumPolicy String ignore, warn or fail, null for warn
+     * @return {@link RemoteRepository}
+     * @throws IllegalArgumentException if a policy is not valid
+     */
+    public static RemoteRepository setPolicy(RemoteRepository remoteRepository, String updatePolicy, String checksumPolicy) {
+        RepositoryPolicy policy = repositoryPolicy( updatePolicy, checksumPolicy );
+        remoteRepository.setPolicy( false, policy );
+        remoteRepository.setPolicy( true, policy );
+
+        return remoteRepository;
+    }
+
+    /**
+     * Create a {@link RepositoryPolicy}
+     * 
+     * @param updatePolicy String never, always, daily or interval:N minutes, null for daily
+     * @param checksumPolicy String ignore, warn or fail, null for warn
+     * @return {@link RepositoryPolicy}
+     * @throws IllegalArgumentException if a policy is not valid
+     */
+    public static RepositoryPolicy repositoryPolicy(String updatePolicy, String checksumPolicy) {
+        if ( updatePolicy == null ) {
+            updatePolicy = RepositoryPolicy.UPDATE_POLICY_DAILY;
+        } else if ( !RepositoryPolicy.UPDATE_POLICY_NEVER.equals( updatePolicy ) &&
+                !RepositoryPolicy.UPDATE_POLICY_ALWAYS.equals( updatePolicy ) &&
+                !RepositoryPolicy.UPDATE_POLICY_DAILY.equals( updatePolicy ) &&
+                !updatePolicy.matches( RepositoryPolicy.UPDATE_POLICY_INTERVAL + ":\\d+" ) ) {
+            throw new IllegalArgumentException( "Invalid update policy: " + updatePolicy );
+        }
+
+        if ( checksumPolicy == null ) {
+            checksumPolicy = RepositoryPolicy.CHECKSUM_POLICY_WARN;
+        } else if ( !RepositoryPolicy.CHECKSUM_POLICY_IGNORE.equals( checksumPolicy ) &&
+                !RepositoryPolicy.CHECKSUM_POLICY_WARN.equals( checksumPolicy ) &&
+                !RepositoryPolicy.CHECKSUM_POLICY_FAIL.equals( checksumPolicy ) ) {
+            throw new IllegalArgumentException( "Invalid checksum policy: " + checksumPolicy );
+        }
+
+        return new RepositoryPolicy( true, updatePolicy, checksumPolicy );
+    }
     
     /**
      * Create a {@link Repository} from a String url
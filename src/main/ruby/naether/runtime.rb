@@ -43,14 +43,36 @@ module Naether
     # @param [String] url of remote repo
     # @param [String] username optional
     # @param [String] password optioanl
-    def add_remote_repository( url, username = nil, password = nil )
-      if username
+    # @param [Hash] opts optional :update_policy of never, always, daily or interval:N
+    #   and :checksum_policy of ignore, warn or fail
+    def add_remote_repository( url, username = nil, password = nil, opts = {} )
+      if opts[:update_policy] || opts[:checksum_policy]
+        @resolver.addRemoteRepositoryByUrl( url, username, password, opts[:update_policy], opts[:checksum_policy] )
+      elsif username
         @resolver.addRemoteRepositoryByUrl( url, username, password )
       else
         @resolver.addRemoteRepositoryByUrl( url )
       end
     end
 
+    # Add a mirror of remote repositories, failing over to the next url
+    # when the current url is slow or failing
+    #
+    # @param [String] id of the mirror
+    # @param [String, Array] urls of the mirror, the primary url first
+    # @param [String] mirror_of pattern of the repository ids to mirror, such as central
+    def add_mirror( id, urls, mirror_of = '*' )
+      @resolver.addMirror( id, Naether::Java.convert_to_java_list( Array(urls) ), mirror_of )
+    end
+
+    # Resolve artifacts of the groupIds matching a pattern only from a repository
+    #
+    # @param [String] group_pattern groupId, or groupId followed by .* to match the groupIds below it
+    # @param [String] repository_id of the repository
+    def add_routing_rule( group_pattern, repository_id )
+      @resolver.addRoutingRule( group_pattern, repository_id )
+    end
+
     # Get remote repositories
     #
     # @return [Array] of remote repos
@@ -79,6 +101,176 @@ module Naether
       @resolver.setLocalRepoPath( path )
     end
 
+    # Resolve only from the local repo, remote repositories are never contacted
+    #
+    # @param [Boolean] offline
+    def offline=( offline )
+      @resolver.setOffline( offline )
+    end
+
+    # If only the local repo is used for resolution
+    #
+    # @return [Boolean]
+    def offline?
+      @resolver.isOffline()
+    end
+
+    # Resolve from the local repo first, remote repositories are only contacted
+    # for artifacts missing from the local repo
+    #
+    # @param [Boolean] local_first
+    def local_first=( local_first )
+      @resolver.setLocalFirst( local_first )
+    end
+
+    # If the local repo is used before checking remote repositories
+    #
+    # @return [Boolean]
+    def local_first?
+      @resolver.isLocalFirst()
+    end
+
+    # Find artifacts in the local repo from an index instead of the file system
+    #
+    # @param [Boolean] indexed
+    def indexed_local_repo=( indexed )
+      @resolver.setIndexedLocalRepository( indexed )
+    end
+
+    # If artifacts in the local repo are found from an index
+    #
+    # @return [Boolean]
+    def indexed_local_repo?
+      @resolver.isIndexedLocalRepository()
+    end
+
+    # Cache resolved dependencies under the local repo, so resolving the same
+    # dependencies again skips collecting the graph
+    #
+    # @param [Boolean] cache
+    def cache_resolution=( cache )
+      @resolver.setCacheResolution( cache )
+    end
+
+    # Keep the graph collected for each dependency, so resolving again after
+    # adding a dependency only collects the new dependency
+    #
+    # @param [Boolean] incremental
+    def incremental_resolution=( incremental )
+      @resolver.setIncrementalResolution( incremental )
+    end
+
+    # Add a listener notified as dependencies are collected and artifacts are
+    # resolved, implementing com.tobedevoured.naether.api.ResolutionListener
+    #
+    # @param [ResolutionListener] listener
+    def add_resolution_listener( listener )
+      @resolver.addResolutionListener( listener )
+    end
+
+    # Resolve dependencies from a lockfile, skipping collecting the graph when
+    # the lockfile matches the dependencies. Otherwise the lockfile is rewritten.
+    #
+    # @param [String] path of the lockfile
+    def lockfile=( path )
+      @resolver.setLockfile( path )
+    end
+
+    # Write a lockfile of the resolved dependencies
+    #
+    # @param [String] path of the lockfile
+    def write_lockfile( path )
+      @resolver.writeLockfile( path )
+    end
+
+    # Number of dependency descriptors read concurrently while collecting
+    #
+    # @param [Integer] threads
+    def collect_threads=( threads )
+      @resolver.setCollectThreads( threads )
+    end
+
+    # Number of levels of the dependency graph read ahead of collecting them
+    #
+    # @param [Integer] depth
+    def prefetch_depth=( depth )
+      @resolver.setPrefetchDepth( depth )
+    end
+
+    # Path to a content store shared by local repositories, artifacts are
+    # hard linked from the store instead of downloaded
+    #
+    # @param [String] path
+    def content_store=( path )
+      @resolver.setContentStore( path )
+    end
+
+    # Timeout in milliseconds for connecting to a remote repository
+    #
+    # @param [Integer] timeout
+    def connect_timeout=( timeout )
+      @resolver.setConnectTimeout( timeout )
+    end
+
+    # Timeout in milliseconds for reading from a remote repository
+    #
+    # @param [Integer] timeout
+    def read_timeout=( timeout )
+      @resolver.setReadTimeout( timeout )
+    end
+
+    # Max concurrent connections to a single http host
+    #
+    # @param [Integer] connections
+    def max_connections_per_host=( connections )
+      @resolver.setMaxConnectionsPerHost( connections )
+    end
+
+    # Download from http repositories with the HttpURLConnection connector
+    # instead of Wagon
+    #
+    # @param [Boolean] http_connector
+    def http_connector=( http_connector )
+      @resolver.setHttpConnector( http_connector )
+    end
+
+    # Size in bytes above which the http connector splits a download into
+    # concurrent range requests
+    #
+    # @param [Integer] chunk_size
+    def download_chunk_size=( chunk_size )
+      @resolver.setDownloadChunkSize( chunk_size )
+    end
+
+    # Max retries of a transfer that failed with a transient error
+    #
+    # @param [Integer] retries
+    def retries=( retries )
+      @resolver.setRetries( retries )
+    end
+
+    # Milliseconds an artifact not found in a remote repository is not requested
+    # again from that repository
+    #
+    # @param [Integer] ttl
+    def not_found_ttl=( ttl )
+      @resolver.setNotFoundTtl( ttl )
+    end
+
+    # Forget the artifacts not found in a remote repository
+    #
+    # @param [String] url of the remote repository, nil for all repositories
+    def invalidate_not_found( url = nil )
+      @resolver.invalidateNotFound( url )
+    end
+
+    # Number of transfers retried after a transient error
+    #
+    # @return [Integer]
+    def retry_count
+      @resolver.getRetryCount()
+    end
+
     #
     # Add a local Build Artifact, that will be used in the Dependency Resolution
     #
@@ -349,6 +541,41 @@ module Naether
       paths
     end
 
+    # Download artifacts in a single batch. An artifact that fails to download
+    # does not stop the batch, it is returned with the failures.
+    #
+    # @param [Array<String>] notations
+    # @return [Hash] :paths of downloaded artifacts by notation and :failures error messages by notation
+    def batch_download_artifacts( notations )
+      if( notations.is_a? String )
+        notations = [notations]
+      end
+
+      result = nil
+      if Naether.platform == 'java'
+        result = @resolver.batchDownloadArtifacts( notations )
+      else
+        list = Naether::Java.convert_to_java_list( notations )
+        result = @resolver._invoke('batchDownloadArtifacts', 'Ljava.util.List;', list)
+      end
+
+      paths = {}
+      iterator = result.getFiles().entrySet().iterator()
+      while iterator.hasNext()
+        entry = iterator.next()
+        paths[entry.getKey().toString()] = entry.getValue().getAbsolutePath()
+      end
+
+      failures = {}
+      iterator = result.getFailures().entrySet().iterator()
+      while iterator.hasNext()
+        entry = iterator.next()
+        failures[entry.getKey().toString()] = entry.getValue().getMessage()
+      end
+
+      { :paths => paths, :failures => failures }
+    end
+
 
     # Deploy artifact to remote repo url
     #
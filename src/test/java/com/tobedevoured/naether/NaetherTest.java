@@ -51,11 +51,13 @@ import com.tobedevoured.naether.Bootstrap;
 import com.tobedevoured.naether.DependencyException;
 import com.tobedevoured.naether.NaetherException;
 import com.tobedevoured.naether.URLException;
+import com.tobedevoured.naether.api.DownloadResult;
 import com.tobedevoured.naether.api.Naether;
 import com.tobedevoured.naether.deploy.DeployArtifact;
 import com.tobedevoured.naether.impl.NaetherImpl;
 import com.tobedevoured.naether.maven.Project;
 import com.tobedevoured.naether.maven.ProjectException;
+import com.tobedevoured.naether.repo.ResolutionCache;
 import com.tobedevoured.naether.util.Notation;
 
 import static org.hamcrest.Matchers.containsInAnyOrder;
@@ -100,6 +102,27 @@ public class NaetherTest {
 
     }
 
+    @Test
+    public void addRemoteRepositoryWithPolicy() throws NaetherException {
+        naether.addRemoteRepository( "releases", "default", "http://test.net/releases", "never", "fail" );
+        naether.addRemoteRepositoryByUrl( "http://test.net/internal", "user", "pass", "interval:60", null );
+
+        List<RemoteRepository> repos = new ArrayList<RemoteRepository>( naether.getRemoteRepositories() );
+        assertEquals( "releases", repos.get(1).getId() );
+        assertEquals( "never", repos.get(1).getPolicy( false ).getUpdatePolicy() );
+        assertEquals( "fail", repos.get(1).getPolicy( true ).getChecksumPolicy() );
+
+        assertEquals( "test.net-internal", repos.get(2).getId() );
+        assertEquals( "interval:60", repos.get(2).getPolicy( false ).getUpdatePolicy() );
+        assertEquals( "warn", repos.get(2).getPolicy( false ).getChecksumPolicy() );
+        assertEquals( "user", repos.get(2).getAuthentication().getUsername() );
+    }
+
+    @Test(expected=NaetherException.class)
+    public void addRemoteRepositoryWithInvalidPolicy() throws NaetherException {
+        naether.addRemoteRepository( "releases", "default", "http://test.net/releases", "sometimes", null );
+    }
+
     @Test
     public void addRemoteRepositoryByUrl() throws NaetherException {
         List<RemoteRepository> repos = new ArrayList<RemoteRepository>( naether.getRemoteRepositories() );
@@ -630,6 +653,44 @@ public class NaetherTest {
         assertTrue( "Jar2 downloaded", jar2.exists() );
     }
 
+    @Test
+    public void resolveDependenciesFromCache() throws IOException, NaetherException {
+        File cacheDir = new File( "target/test-repo", ResolutionCache.CACHE_DIR );
+        FileUtils.deleteDirectory( cacheDir );
+
+        naether.setCacheResolution( true );
+        naether.addDependency( "junit:junit:jar:4.10" );
+        naether.resolveDependencies();
+
+        assertEquals( 1, cacheDir.list().length );
+
+        Naether cachedNaether = new NaetherImpl();
+        cachedNaether.setLocalRepoPath( "target/test-repo" );
+        cachedNaether.setCacheResolution( true );
+        cachedNaether.addDependency( "junit:junit:jar:4.10" );
+        cachedNaether.resolveDependencies();
+
+        assertEquals( naether.getDependenciesNotation(), cachedNaether.getDependenciesNotation() );
+        assertEquals( naether.getDependenciesPath(), cachedNaether.getDependenciesPath() );
+        assertEquals( naether.getDependenciesGraph(), cachedNaether.getDependenciesGraph() );
+    }
+
+    @Test
+    public void batchDownloadArtifactsReportsFailures() throws IOException, NaetherException {
+        File jar = new File( "target/test-repo/junit/junit/4.10/junit-4.10.jar");
+        if ( jar.exists() ) {
+            FileUtils.deleteDirectory( jar.getParentFile() );
+        }
+
+        List<String> notations = Arrays.asList( "junit:junit:4.10", "naether:does-not-exist:1.0" );
+        DownloadResult result = naether.batchDownloadArtifacts( notations );
+
+        assertTrue( "Jar downloaded", jar.exists() );
+        assertEquals( jar.getAbsoluteFile(), result.getFiles().get( "junit:junit:jar:4.10" ).getAbsoluteFile() );
+        assertTrue( result.hasFailures() );
+        assertTrue( result.getFailures().containsKey( "naether:does-not-exist:jar:1.0" ) );
+    }
+
     @Test
     public void hasParentPom() throws ProjectException, DependencyException, URLException {
         naether.addDependencies("./src/test/resources/pomWithRemoteParent.xml");
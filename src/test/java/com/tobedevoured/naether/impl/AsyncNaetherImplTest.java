@@ -0,0 +1,186 @@
+package com.tobedevoured.naether.impl;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tobedevoured.naether.DependencyException;
+import com.tobedevoured.naether.api.DownloadResult;
+import com.tobedevoured.naether.api.ResolutionRequest;
+import com.tobedevoured.naether.api.ResolutionResult;
+import com.tobedevoured.naether.deploy.DeployArtifact;
+import com.tobedevoured.naether.repo.HttpRepositoryServer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link AsyncNaetherImpl}
+ *
+ * @author Michael Guymon
+ *
+ */
+public class AsyncNaetherImplTest {
+
+    private static final String POM = "<project><modelVersion>4.0.0</modelVersion>" +
+        "<groupId>naether.async</groupId><artifactId>%s</artifactId><version>1.0</version>" +
+        "<dependencies>%s</dependencies></project>";
+
+    private static final String DEPENDENCY = "<dependency><groupId>naether.async</groupId>" +
+        "<artifactId>%s</artifactId><version>1.0</version></dependency>";
+
+    private HttpRepositoryServer server;
+    private File localRepo;
+    private NaetherImpl template;
+    private AsyncNaetherImpl async;
+
+    @Before
+    public void setup() throws IOException {
+        localRepo = new File( "target/test-repo-async" );
+        FileUtils.deleteDirectory( localRepo );
+
+        server = new HttpRepositoryServer();
+        addArtifact( "app1", "lib" );
+        addArtifact( "app2", "util" );
+        addArtifact( "lib", null );
+        addArtifact( "util", null );
+
+        template = new NaetherImpl();
+        template.setLocalRepoPath( localRepo.getPath() );
+        template.clearRemoteRepositories();
+        template.addRemoteRepository( "async", "default", server.getUrl() );
+
+        async = new AsyncNaetherImpl( template );
+    }
+
+    @After
+    public void teardown() {
+        async.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void resolvesRequestsConcurrently() throws Exception {
+        List<Future<ResolutionResult>> results = new ArrayList<Future<ResolutionResult>>();
+        for ( int x = 0; x < 8; x++ ) {
+            results.add( async.resolveAsync( new ResolutionRequest().addDependency( "naether.async:app" + ( x % 2 + 1 ) + ":jar:1.0" ) ) );
+        }
+
+        for ( int x = 0; x < results.size(); x++ ) {
+            ResolutionResult result = results.get( x ).get();
+            String dependency = x % 2 == 0 ? "lib" : "util";
+            assertEquals( new HashSet<String>( Arrays.asList( "naether.async:app" + ( x % 2 + 1 ) + ":jar:1.0", "naether.async:" + dependency + ":jar:1.0" ) ),
+                result.getDependenciesNotation() );
+            assertTrue( new File( result.getDependenciesPath().get( "naether.async:" + dependency + ":jar:1.0" ) ).exists() );
+            assertTrue( result.getResolvedClassPath().contains( dependency + "-1.0.jar" ) );
+        }
+
+        assertTrue( "template is not changed", template.getDependencies().isEmpty() );
+    }
+
+    @Test
+    public void requestIsCopiedWhenSubmitted() throws Exception {
+        ResolutionRequest request = new ResolutionRequest().addDependency( "naether.async:app1:jar:1.0" ).setDownloadArtifacts( false );
+        Future<ResolutionResult> result = async.resolveAsync( request );
+        request.addDependency( "naether.async:app2:jar:1.0" );
+
+        assertEquals( 2, result.get().getDependenciesNotation().size() );
+        assertTrue( result.get().getDependenciesPath().isEmpty() );
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    @Test
+    public void resultIsImmutable() throws Exception {
+        ResolutionResult result = async.resolveAsync( new ResolutionRequest().addDependency( "naether.async:app1:jar:1.0" ) ).get();
+
+        Map<String,Map> graph = result.getDependenciesGraph();
+        Map transitive = graph.get( "naether.async:app1:jar:1.0" );
+        assertTrue( transitive.containsKey( "naether.async:lib:jar:1.0" ) );
+        try {
+            transitive.put( "naether.async:other:jar:1.0", new HashMap() );
+            fail( "transitive dependencies are modifiable" );
+        } catch ( UnsupportedOperationException e ) {
+            // expected
+        }
+
+        DownloadResult download = async.downloadAsync( Arrays.asList( "naether.async:lib:jar:1.0" ) ).get();
+        try {
+            download.getFiles().clear();
+            fail( "downloaded files are modifiable" );
+        } catch ( UnsupportedOperationException e ) {
+            // expected
+        }
+    }
+
+    @Test
+    public void failureIsThrownByFuture() throws Exception {
+        Future<ResolutionResult> result = async.resolveAsync( new ResolutionRequest().addDependency( "naether.async:missing:jar:1.0" ) );
+        try {
+            result.get();
+            fail( "missing dependency resolved" );
+        } catch ( ExecutionException e ) {
+            assertTrue( e.getCause() instanceof DependencyException );
+        }
+    }
+
+    @Test
+    public void downloadCopiesNotations() throws Exception {
+        List<String> notations = new ArrayList<String>( Arrays.asList( "naether.async:lib:jar:1.0" ) );
+        Future<DownloadResult> download = async.downloadAsync( notations );
+        notations.clear();
+
+        assertTrue( download.get().getFiles().containsKey( "naether.async:lib:jar:1.0" ) );
+    }
+
+    @Test
+    public void downloadAndDeploy() throws Exception {
+        DownloadResult download = async.downloadAsync( Arrays.asList( "naether.async:lib:jar:1.0" ) ).get();
+        File jar = download.getFiles().get( "naether.async:lib:jar:1.0" );
+        assertTrue( jar.exists() );
+
+        File deployRepo = new File( "target/test-repo-async-deploy" );
+        FileUtils.deleteDirectory( deployRepo );
+
+        DeployArtifact deployArtifact = new DeployArtifact();
+        deployArtifact.setFilePath( jar.getAbsolutePath() );
+        deployArtifact.setNotation( "naether.async:deployed:jar:1.0" );
+        deployArtifact.setRemoteRepo( deployRepo.toURI().toString() );
+        async.deployAsync( deployArtifact ).get();
+
+        assertTrue( new File( deployRepo, "naether/async/deployed/1.0/deployed-1.0.jar" ).exists() );
+    }
+
+    private void addArtifact( String artifactId, String dependency ) throws IOException {
+        String path = "naether/async/" + artifactId + "/1.0/" + artifactId + "-1.0";
+        server.addArtifact( path + ".jar", "jar " + artifactId );
+        server.addArtifact( path + ".pom", String.format( POM, artifactId, dependency != null ? String.format( DEPENDENCY, dependency ) : "" ) );
+    }
+}
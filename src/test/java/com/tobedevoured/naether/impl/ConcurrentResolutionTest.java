@@ -0,0 +1,189 @@
+package com.tobedevoured.naether.impl;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tobedevoured.naether.api.ResolutionRequest;
+import com.tobedevoured.naether.api.ResolutionResult;
+import com.tobedevoured.naether.repo.HttpRepositoryServer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Stress test of {@link NaetherImpl#resolve(ResolutionRequest)} resolving many different
+ * graphs concurrently
+ *
+ * @author Michael Guymon
+ *
+ */
+public class ConcurrentResolutionTest {
+
+    private static final int THREADS = 8;
+    private static final int REQUESTS = 64;
+    private static final int LIBS = 6;
+    private static final int BASES = 3;
+
+    private static final String POM = "<project><modelVersion>4.0.0</modelVersion>" +
+        "<groupId>naether.concurrent</groupId><artifactId>%s</artifactId><version>1.0</version>" +
+        "<dependencies>%s</dependencies></project>";
+
+    private static final String DEPENDENCY = "<dependency><groupId>naether.concurrent</groupId>" +
+        "<artifactId>%s</artifactId><version>1.0</version></dependency>";
+
+    private HttpRepositoryServer server;
+    private File localRepo;
+    private ExecutorService executor;
+
+    @Before
+    public void setup() throws IOException {
+        localRepo = new File( "target/test-repo-concurrent" );
+        FileUtils.deleteDirectory( localRepo );
+
+        server = new HttpRepositoryServer();
+        for ( int x = 0; x < BASES; x++ ) {
+            addArtifact( "base" + x, "" );
+        }
+        for ( int x = 0; x < LIBS; x++ ) {
+            addArtifact( "lib" + x, String.format( DEPENDENCY, "base" + ( x % BASES ) ) );
+        }
+
+        executor = Executors.newFixedThreadPool( THREADS );
+    }
+
+    @After
+    public void teardown() {
+        executor.shutdownNow();
+        server.stop();
+    }
+
+    @Test
+    public void resolvesDifferentGraphsConcurrently() throws Exception {
+        final NaetherImpl naether = new NaetherImpl();
+        naether.setLocalRepoPath( localRepo.getPath() );
+        naether.clearRemoteRepositories();
+        naether.addRemoteRepository( "concurrent", "default", server.getUrl() );
+
+        final CountDownLatch start = new CountDownLatch( 1 );
+        List<Future<ResolutionResult>> results = new ArrayList<Future<ResolutionResult>>();
+        for ( int x = 0; x < REQUESTS; x++ ) {
+            final ResolutionRequest request = request( x );
+            results.add( executor.submit( new Callable<ResolutionResult>() {
+                public ResolutionResult call() throws Exception {
+                    start.await();
+                    return naether.resolve( request );
+                }
+            }));
+        }
+        start.countDown();
+
+        for ( int x = 0; x < REQUESTS; x++ ) {
+            ResolutionResult result = results.get( x ).get( 2, TimeUnit.MINUTES );
+            assertEquals( "request " + x, expected( x ), result.getDependenciesNotation() );
+            assertEquals( "request " + x, expected( x ), result.getDependenciesPath().keySet() );
+            for ( String path : result.getDependenciesPath().values() ) {
+                assertTrue( new File( path ).exists() );
+            }
+        }
+
+        assertTrue( "resolving requests does not change naether", naether.getDependencies().isEmpty() );
+        assertNull( naether.getResolvedClassPath() );
+    }
+
+    @Test
+    public void reconfiguringTemplateDoesNotStopResolvingCopies() throws Exception {
+        final NaetherImpl naether = new NaetherImpl();
+        naether.setLocalRepoPath( localRepo.getPath() );
+        naether.clearRemoteRepositories();
+        naether.addRemoteRepository( "concurrent", "default", server.getUrl() );
+        naether.setCollectThreads( 4 );
+
+        List<Future<ResolutionResult>> results = new ArrayList<Future<ResolutionResult>>();
+        for ( int x = 0; x < REQUESTS; x++ ) {
+            final ResolutionRequest request = request( x );
+            results.add( executor.submit( new Callable<ResolutionResult>() {
+                public ResolutionResult call() throws Exception {
+                    return naether.resolve( request );
+                }
+            }));
+
+            naether.setCollectThreads( 2 + x % 3 );
+            naether.setDownloadThreads( 2 + x % 3 );
+            naether.addRoutingRule( "naether.unused." + x, "concurrent" );
+        }
+
+        for ( int x = 0; x < REQUESTS; x++ ) {
+            ResolutionResult result = results.get( x ).get( 2, TimeUnit.MINUTES );
+            assertEquals( "request " + x, expected( x ), result.getDependenciesNotation() );
+        }
+
+        naether.shutdown();
+    }
+
+    private static ResolutionRequest request( int x ) {
+        ResolutionRequest request = new ResolutionRequest();
+        for ( int lib : libs( x ) ) {
+            request.addDependency( "naether.concurrent:lib" + lib + ":jar:1.0" );
+        }
+
+        return request;
+    }
+
+    private static Set<String> expected( int x ) {
+        Set<String> notations = new HashSet<String>();
+        for ( int lib : libs( x ) ) {
+            notations.add( "naether.concurrent:lib" + lib + ":jar:1.0" );
+            notations.add( "naether.concurrent:base" + ( lib % BASES ) + ":jar:1.0" );
+        }
+
+        return notations;
+    }
+
+    private static Set<Integer> libs( int x ) {
+        Set<Integer> libs = new HashSet<Integer>();
+        libs.add( x % LIBS );
+        libs.add( ( x / LIBS ) % LIBS );
+        if ( x % 2 == 0 ) {
+            libs.add( ( x + 3 ) % LIBS );
+        }
+
+        return libs;
+    }
+
+    private void addArtifact( String artifactId, String dependencies ) throws IOException {
+        String path = "naether/concurrent/" + artifactId + "/1.0/" + artifactId + "-1.0";
+        server.addArtifact( path + ".jar", "jar " + artifactId );
+        server.addArtifact( path + ".pom", String.format( POM, artifactId, dependencies ) );
+    }
+}
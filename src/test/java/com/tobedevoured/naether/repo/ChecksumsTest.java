@@ -0,0 +1,131 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.resolution.ArtifactRequest;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link Checksums}
+ *
+ * @author Michael Guymon
+ *
+ */
+public class ChecksumsTest {
+
+    private File dir;
+
+    @Before
+    public void setup() throws IOException {
+        dir = new File( "target/test-checksums" );
+        FileUtils.deleteDirectory( dir );
+        dir.mkdirs();
+    }
+
+    @Test
+    public void calcDigestsInOnePass() throws Exception {
+        // larger than the buffer, so it is read in several chunks
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        new Random( 42 ).nextBytes( content );
+        File file = new File( dir, "large.jar" );
+        FileUtils.writeByteArrayToFile( file, content );
+
+        Map<String,String> digests = Checksums.calc( file, Checksums.ALGORITHMS );
+        for ( String algorithm : Checksums.ALGORITHMS ) {
+            assertEquals( algorithm, hex( MessageDigest.getInstance( algorithm ).digest( content ) ), digests.get( algorithm ) );
+        }
+    }
+
+    @Test
+    public void wagonDownloadsAreDigested() throws Exception {
+        HttpRepositoryServer server = new HttpRepositoryServer();
+        try {
+            server.addArtifact( "naether/digest/wagon/1.0/wagon-1.0.jar", "wagon jar" );
+
+            RepositoryClient client = new RepositoryClient( new File( dir, "repo" ).getPath() );
+            ArtifactRequest request = new ArtifactRequest();
+            request.setArtifact( new DefaultArtifact( "naether.digest:wagon:jar:1.0" ) );
+            request.addRepository( new RemoteRepository( "digest", "default", server.getUrl() ) );
+
+            File file = client.resolveArtifact( request ).getArtifact().getFile();
+            Map<String,String> recorded = Checksums.recorded( file );
+            assertNotNull( "digests recorded after the wagon download", recorded );
+            assertEquals( Checksums.calc( file, Checksums.ALGORITHMS ), recorded );
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void recordedDigestsAreTrusted() throws Exception {
+        File file = new File( dir, "artifact.jar" );
+        FileUtils.writeStringToFile( file, "artifact" );
+        assertNull( Checksums.recorded( file ) );
+
+        assertEquals( HttpRepositoryServer.sha1( "artifact" ), Checksums.sha1( file ) );
+        assertNotNull( Checksums.recorded( file ) );
+
+        // not hashed again while the size and modified time are unchanged
+        File recorded = new File( file.getPath() + Checksums.EXTENSION );
+        String digests = FileUtils.readFileToString( recorded );
+        FileUtils.writeStringToFile( recorded, digests.replace( HttpRepositoryServer.sha1( "artifact" ), "recorded" ) );
+        assertEquals( "recorded", Checksums.sha1( file ) );
+
+        FileUtils.writeStringToFile( file, "changed artifact" );
+        assertNull( Checksums.recorded( file ) );
+        assertEquals( HttpRepositoryServer.sha1( "changed artifact" ), Checksums.sha1( file ) );
+    }
+
+    @Test
+    public void digestsOfManyFiles() throws Exception {
+        List<File> files = new ArrayList<File>();
+        for ( int x = 0; x < 16; x++ ) {
+            File file = new File( dir, "artifact" + x + ".jar" );
+            FileUtils.writeStringToFile( file, "jar " + x );
+            files.add( file );
+        }
+
+        Map<File,Map<String,String>> digests = Checksums.digests( files );
+        assertEquals( files.size(), digests.size() );
+        for ( int x = 0; x < files.size(); x++ ) {
+            assertEquals( HttpRepositoryServer.sha1( "jar " + x ), digests.get( files.get( x ) ).get( Checksums.SHA1 ) );
+        }
+    }
+
+    private static String hex( byte[] bytes ) {
+        StringBuilder hex = new StringBuilder();
+        for ( byte b : bytes ) {
+            hex.append( String.format( "%02x", b ) );
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,182 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.repository.RemoteRepository;
+
+import com.tobedevoured.naether.impl.NaetherImpl;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link ContentStore}
+ *
+ * @author Michael Guymon
+ *
+ */
+public class ContentStoreTest {
+
+    private static final String POM = "<project><modelVersion>4.0.0</modelVersion>" +
+        "<groupId>naether.store</groupId><artifactId>%s</artifactId><version>1.0</version>" +
+        "<dependencies>%s</dependencies></project>";
+
+    private static final String DEPENDENCY = "<dependency><groupId>naether.store</groupId>" +
+        "<artifactId>%s</artifactId><version>1.0</version></dependency>";
+
+    private HttpRepositoryServer server;
+    private File store;
+    private File workspace1;
+    private File workspace2;
+
+    @Before
+    public void setup() throws IOException {
+        store = new File( "target/test-content-store" );
+        workspace1 = new File( "target/test-repo-store1" );
+        workspace2 = new File( "target/test-repo-store2" );
+        FileUtils.deleteDirectory( store );
+        FileUtils.deleteDirectory( workspace1 );
+        FileUtils.deleteDirectory( workspace2 );
+
+        server = new HttpRepositoryServer();
+        addArtifact( "app", "lib" );
+        addArtifact( "lib", null );
+    }
+
+    @After
+    public void teardown() {
+        server.stop();
+    }
+
+    @Test
+    public void linksArtifactsAcrossLocalRepositories() throws Exception {
+        NaetherImpl first = newNaether( workspace1 );
+        first.addDependency( "naether.store:app:jar:1.0" );
+        first.resolveDependencies();
+
+        // nothing left to download from
+        server.stop();
+        RepositoryClient.getDescriptorCache().clear();
+
+        NaetherImpl second = newNaether( workspace2 );
+        second.addDependency( "naether.store:app:jar:1.0" );
+        second.resolveDependencies();
+
+        assertEquals( first.getDependenciesNotation(), second.getDependenciesNotation() );
+
+        File jar1 = new File( workspace1, "naether/store/lib/1.0/lib-1.0.jar" );
+        File jar2 = new File( workspace2, "naether/store/lib/1.0/lib-1.0.jar" );
+        assertEquals( "jar lib", FileUtils.readFileToString( jar2 ) );
+        assertTrue( "hard linked", Files.isSameFile( jar1.toPath(), jar2.toPath() ) );
+    }
+
+    @Test
+    public void storesContentOnce() throws Exception {
+        File file1 = new File( workspace1, "a/a-1.0.jar" );
+        File file2 = new File( workspace2, "b/b-1.0.jar" );
+        FileUtils.writeStringToFile( file1, "same content" );
+        FileUtils.writeStringToFile( file2, "same content" );
+
+        RemoteRepository central = new RemoteRepository( "central", "default", "http://repo1.maven.org/maven2/" );
+        ContentStore contentStore = new ContentStore( store );
+        String sha1 = contentStore.store( "a/a-1.0.jar", file1, central );
+        assertEquals( sha1, contentStore.store( "b/b-1.0.jar", file2, central ) );
+
+        assertEquals( 1, contentStore.getStored() );
+        assertTrue( Files.isSameFile( file1.toPath(), file2.toPath() ) );
+        assertTrue( Files.isSameFile( contentStore.getObject( sha1 ).toPath(), file2.toPath() ) );
+
+        File linked = new File( workspace2, "a/a-1.0.jar" );
+        assertEquals( central, contentStore.link( "a/a-1.0.jar", linked, Arrays.asList( central ) ) );
+        assertEquals( "same content", FileUtils.readFileToString( linked ) );
+        assertNull( contentStore.link( "c/c-1.0.jar", new File( workspace2, "c/c-1.0.jar" ), Arrays.asList( central ) ) );
+    }
+
+    @Test
+    public void linksOnlyForSourceRepository() throws Exception {
+        File file = new File( workspace1, "a/a-1.0.jar" );
+        FileUtils.writeStringToFile( file, "content" );
+
+        RemoteRepository central = new RemoteRepository( "central", "default", "http://repo1.maven.org/maven2" );
+        RemoteRepository other = new RemoteRepository( "other", "default", "http://example.com/maven2" );
+        ContentStore contentStore = new ContentStore( store );
+        contentStore.store( "a/a-1.0.jar", file, central );
+
+        File linked = new File( workspace2, "a/a-1.0.jar" );
+        assertNull( "not downloaded from other", contentStore.link( "a/a-1.0.jar", linked, Arrays.asList( other ) ) );
+        assertFalse( linked.exists() );
+
+        RemoteRepository sameUrl = new RemoteRepository( "central", "default", "http://repo1.maven.org/maven2/" );
+        assertEquals( sameUrl, contentStore.link( "a/a-1.0.jar", linked, Arrays.asList( other, sameUrl ) ) );
+        assertTrue( linked.exists() );
+    }
+
+    @Test
+    public void dropsChangedContent() throws Exception {
+        File file = new File( workspace1, "a/a-1.0.jar" );
+        FileUtils.writeStringToFile( file, "content" );
+
+        RemoteRepository central = new RemoteRepository( "central", "default", "http://repo1.maven.org/maven2/" );
+        ContentStore contentStore = new ContentStore( store );
+        String sha1 = contentStore.store( "a/a-1.0.jar", file, central );
+
+        // rewritten in place, as Aether copies into an existing file
+        FileUtils.writeStringToFile( file, "changed" );
+
+        File linked = new File( workspace2, "a/a-1.0.jar" );
+        assertNull( contentStore.link( "a/a-1.0.jar", linked, Arrays.asList( central ) ) );
+        assertFalse( linked.exists() );
+        assertFalse( contentStore.getObject( sha1 ).exists() );
+    }
+
+    @Test
+    public void doesNotStoreInstalledArtifacts() throws Exception {
+        File jar = new File( workspace1, "installed.jar" );
+        FileUtils.writeStringToFile( jar, "installed" );
+
+        NaetherImpl naether = newNaether( workspace2 );
+        naether.install( "naether.store:installed:jar:1.0", null, jar.getPath() );
+
+        assertTrue( new File( workspace2, "naether/store/installed/1.0/installed-1.0.jar" ).isFile() );
+        assertFalse( new File( store, "paths/naether/store/installed/1.0/installed-1.0.jar.sha1" ).exists() );
+        assertFalse( new File( store, "objects" ).exists() );
+    }
+
+    private NaetherImpl newNaether( File localRepo ) {
+        NaetherImpl naether = new NaetherImpl();
+        naether.setLocalRepoPath( localRepo.getPath() );
+        naether.setContentStore( store.getPath() );
+        naether.clearRemoteRepositories();
+        naether.addRemoteRepository( "store", "default", server.getUrl() );
+        return naether;
+    }
+
+    private void addArtifact( String artifactId, String dependency ) throws IOException {
+        String path = "naether/store/" + artifactId + "/1.0/" + artifactId + "-1.0";
+        server.addArtifact( path + ".jar", "jar " + artifactId );
+        server.addArtifact( path + ".pom", String.format( POM, artifactId, dependency != null ? String.format( DEPENDENCY, dependency ) : "" ) );
+    }
+}
@@ -0,0 +1,156 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.sonatype.aether.collection.CollectRequest;
+import org.sonatype.aether.collection.CollectResult;
+import org.sonatype.aether.graph.Dependency;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.util.DefaultRepositorySystemSession;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link DescriptorCache}
+ *
+ * @author Michael Guymon
+ *
+ */
+public class DescriptorCacheTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void sharesDescriptorsBetweenSessions() {
+        DescriptorCache cache = new DescriptorCache();
+        DefaultRepositorySystemSession session1 = partitioned( "repos" );
+        DefaultRepositorySystemSession session2 = partitioned( "repos" );
+        DefaultRepositorySystemSession otherRepos = partitioned( "other" );
+
+        Map<Object,Object> descriptors = (Map<Object,Object>) cache.get( session1, DescriptorCache.DESCRIPTORS );
+        assertNull( descriptors.get( new DefaultArtifact( "naether:a:1.0" ) ) );
+        descriptors.put( new DefaultArtifact( "naether:a:1.0" ), "descriptor" );
+
+        descriptors = (Map<Object,Object>) cache.get( session2, DescriptorCache.DESCRIPTORS );
+        assertEquals( "descriptor", descriptors.get( new DefaultArtifact( "naether:a:1.0" ) ) );
+
+        descriptors = (Map<Object,Object>) cache.get( otherRepos, DescriptorCache.DESCRIPTORS );
+        assertNull( descriptors.get( new DefaultArtifact( "naether:a:1.0" ) ) );
+
+        assertEquals( 1, cache.getHits() );
+        assertEquals( 2, cache.getMisses() );
+        assertEquals( 1, cache.size() );
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void snapshotsAndOtherDataStayInSession() {
+        DescriptorCache cache = new DescriptorCache();
+        DefaultRepositorySystemSession session1 = partitioned( "repos" );
+        DefaultRepositorySystemSession session2 = partitioned( "repos" );
+
+        Map<Object,Object> descriptors = (Map<Object,Object>) cache.get( session1, DescriptorCache.DESCRIPTORS );
+        descriptors.put( new DefaultArtifact( "naether:a:1.0-SNAPSHOT" ), "snapshot" );
+        assertEquals( "snapshot", descriptors.get( new DefaultArtifact( "naether:a:1.0-SNAPSHOT" ) ) );
+
+        descriptors = (Map<Object,Object>) cache.get( session2, DescriptorCache.DESCRIPTORS );
+        assertNull( descriptors.get( new DefaultArtifact( "naether:a:1.0-SNAPSHOT" ) ) );
+
+        cache.put( session1, "pool", "data" );
+        assertEquals( "data", cache.get( session1, "pool" ) );
+        assertNull( cache.get( session2, "pool" ) );
+
+        assertNull( "no partition, no shared descriptors", cache.get( new DefaultRepositorySystemSession(), DescriptorCache.DESCRIPTORS ) );
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void evictsLeastRecentlyUsed() {
+        DescriptorCache cache = new DescriptorCache( 2 );
+        Map<Object,Object> descriptors = (Map<Object,Object>) cache.get( partitioned( "repos" ), DescriptorCache.DESCRIPTORS );
+
+        descriptors.put( new DefaultArtifact( "naether:a:1.0" ), "a" );
+        descriptors.put( new DefaultArtifact( "naether:b:1.0" ), "b" );
+        descriptors.get( new DefaultArtifact( "naether:a:1.0" ) );
+        descriptors.put( new DefaultArtifact( "naether:c:1.0" ), "c" );
+
+        assertEquals( 2, cache.size() );
+        assertEquals( 1, cache.getEvictions() );
+        assertEquals( "a", descriptors.get( new DefaultArtifact( "naether:a:1.0" ) ) );
+        assertNull( descriptors.get( new DefaultArtifact( "naether:b:1.0" ) ) );
+
+        cache.setMaxEntries( 1 );
+        assertEquals( 1, cache.size() );
+    }
+
+    @Test
+    public void repeatedCollectionsHitTheCache() throws Exception {
+        File remoteRepo = new File( "target/test-repo-descriptor-remote" );
+        File localRepo = new File( "target/test-repo-descriptor" );
+        FileUtils.deleteDirectory( remoteRepo );
+        FileUtils.deleteDirectory( localRepo );
+
+        writePom( remoteRepo, "a", "<dependency><groupId>naether.descriptor</groupId><artifactId>b</artifactId><version>1.0</version></dependency>" );
+        writePom( remoteRepo, "b", "" );
+
+        RemoteRepository remote = new RemoteRepository( "descriptor", "default", remoteRepo.getAbsoluteFile().toURI().toString() );
+        CollectRequest request = new CollectRequest();
+        request.setDependencies( Arrays.asList( new Dependency( new DefaultArtifact( "naether.descriptor:a:1.0" ), "compile" ) ) );
+        request.addRepository( remote );
+
+        DescriptorCache cache = RepositoryClient.getDescriptorCache();
+        cache.clear();
+
+        CollectResult result = new RepositoryClient( localRepo.getPath() ).collectDependencies( request );
+        assertEquals( 1, result.getRoot().getChildren().get( 0 ).getChildren().size() );
+        long misses = cache.getMisses();
+        assertTrue( misses > 0 );
+        assertEquals( 0, cache.getHits() );
+
+        result = new RepositoryClient( localRepo.getPath() ).collectDependencies( request );
+        assertEquals( 1, result.getRoot().getChildren().get( 0 ).getChildren().size() );
+        assertTrue( "second collection should hit the cache " + cache, cache.getHits() > 0 );
+        assertEquals( misses, cache.getMisses() );
+
+        File pom = new File( localRepo, "naether/descriptor/b/1.0/b-1.0.pom" );
+        assertTrue( pom.delete() );
+        new RepositoryClient( localRepo.getPath() ).collectDependencies( request );
+        assertTrue( "removed pom is downloaded again", pom.exists() );
+    }
+
+    private DefaultRepositorySystemSession partitioned( String partition ) {
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        session.setConfigProperty( DescriptorCache.CONFIG_PARTITION, partition );
+        return session;
+    }
+
+    private void writePom( File repo, String artifactId, String dependencies ) throws IOException {
+        String pom = "<project><modelVersion>4.0.0</modelVersion><groupId>naether.descriptor</groupId>" +
+            "<artifactId>" + artifactId + "</artifactId><version>1.0</version>" +
+            "<dependencies>" + dependencies + "</dependencies></project>";
+        FileUtils.writeStringToFile( new File( repo, "naether/descriptor/" + artifactId + "/1.0/" + artifactId + "-1.0.pom" ), pom );
+    }
+}
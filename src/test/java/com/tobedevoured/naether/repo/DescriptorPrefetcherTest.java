@@ -0,0 +1,170 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.collection.CollectRequest;
+import org.sonatype.aether.graph.Dependency;
+import org.sonatype.aether.graph.DependencyNode;
+import org.sonatype.aether.impl.ArtifactDescriptorReader;
+import org.sonatype.aether.impl.RemoteRepositoryManager;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.resolution.ArtifactDescriptorRequest;
+import org.sonatype.aether.resolution.ArtifactDescriptorResult;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+import org.sonatype.aether.util.graph.PreorderNodeListGenerator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link DescriptorPrefetcher}
+ *
+ * @author Michael Guymon
+ *
+ */
+public class DescriptorPrefetcherTest {
+
+    private static final int LIBS = 5;
+
+    private static final String POM = "<project><modelVersion>4.0.0</modelVersion>" +
+        "<groupId>naether.prefetch</groupId><artifactId>%s</artifactId><version>1.0</version>" +
+        "<dependencies>%s</dependencies></project>";
+
+    private static final String DEPENDENCY = "<dependency><groupId>naether.prefetch</groupId>" +
+        "<artifactId>%s</artifactId><version>1.0</version>%s</dependency>";
+
+    private HttpRepositoryServer server;
+    private File dir;
+    private RemoteRepository remote;
+    private DescriptorPrefetcher prefetcher;
+
+    @Before
+    public void setup() throws IOException {
+        dir = new File( "target/test-prefetch" );
+        FileUtils.deleteDirectory( dir );
+
+        server = new HttpRepositoryServer();
+        remote = new RemoteRepository( "prefetch", "default", server.getUrl() );
+
+        StringBuilder libs = new StringBuilder();
+        for ( int x = 0; x < LIBS; x++ ) {
+            libs.append( String.format( DEPENDENCY, "lib" + x, "" ) );
+            addArtifact( "lib" + x, String.format( DEPENDENCY, "common", "" ) + String.format( DEPENDENCY, "testlib", "<scope>test</scope>" ) );
+        }
+        addArtifact( "app", libs.toString() );
+        addArtifact( "common", "" );
+        addArtifact( "testlib", "" );
+
+        RepositoryClient.getDescriptorCache().clear();
+        prefetcher = RepositoryClient.getDescriptorPrefetcher();
+        prefetcher.clear();
+    }
+
+    @After
+    public void teardown() {
+        server.stop();
+        RepositoryClient.getDescriptorCache().clear();
+        prefetcher.clear();
+    }
+
+    @Test
+    public void collectorUsesPrefetchedDescriptors() throws Exception {
+        server.setDelay( 50 );
+        String prefetched = collect( "prefetched", 2 );
+
+        assertEquals( "only the direct dependency is not prefetched", 1, prefetcher.getMisses() );
+        assertEquals( LIBS + 1, prefetcher.getHits() );
+        assertEquals( LIBS + 1, prefetcher.getScheduled() );
+        assertEquals( (double)( LIBS + 1 ) / ( LIBS + 2 ), prefetcher.getHitRate(), 0.001 );
+        assertFalse( "test scope is not read ahead", new File( dir, "prefetched/naether/prefetch/testlib" ).exists() );
+
+        RepositoryClient.getDescriptorCache().clear();
+        assertEquals( collect( "sequential", 0 ), prefetched );
+    }
+
+    @Test
+    public void pendingReadsAreBounded() throws Exception {
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final List<Dependency> libs = new ArrayList<Dependency>();
+        for ( int x = 0; x < LIBS; x++ ) {
+            libs.add( new Dependency( new DefaultArtifact( "naether.prefetch:lib" + x + ":jar:1.0" ), "compile" ) );
+        }
+
+        ArtifactDescriptorReader reader = new ArtifactDescriptorReader() {
+            public ArtifactDescriptorResult readArtifactDescriptor( RepositorySystemSession session, ArtifactDescriptorRequest request ) {
+                ArtifactDescriptorResult result = new ArtifactDescriptorResult( request );
+                if ( "app".equals( request.getArtifact().getArtifactId() ) ) {
+                    result.setDependencies( libs );
+                } else {
+                    try {
+                        release.await();
+                    } catch ( InterruptedException e ) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return result;
+            }
+        };
+
+        DescriptorPrefetcher bounded = new DescriptorPrefetcher( 1, 1 );
+        RepositorySystemSession session = new RepositoryClient( new File( dir, "bounded" ).getPath() ).getSystemSession();
+        ArtifactDescriptorRequest request = new ArtifactDescriptorRequest( new DefaultArtifact( "naether.prefetch:app:jar:1.0" ),
+            Collections.singletonList( remote ), null );
+        bounded.read( reader, RepositoryClient.getSharedService( RemoteRepositoryManager.class ), session, request, 1 );
+        release.countDown();
+
+        assertEquals( "one reading and one waiting", 2, bounded.getScheduled() );
+        assertEquals( LIBS - 2, bounded.getDropped() );
+    }
+
+    private String collect( String localRepo, int depth ) throws Exception {
+        RepositoryClient client = new RepositoryClient( new File( dir, localRepo ).getPath() );
+        client.setPrefetchDepth( depth );
+
+        CollectRequest request = new CollectRequest();
+        request.addDependency( new Dependency( new DefaultArtifact( "naether.prefetch:app:jar:1.0" ), "compile" ) );
+        request.addRepository( remote );
+
+        PreorderNodeListGenerator generator = new PreorderNodeListGenerator();
+        client.collectDependencies( request ).getRoot().accept( generator );
+
+        List<String> artifacts = new ArrayList<String>();
+        for ( DependencyNode node : generator.getNodes() ) {
+            artifacts.add( node.getDependency().getArtifact() + " " + node.getDependency().getScope() );
+        }
+
+        return artifacts.toString();
+    }
+
+    private void addArtifact( String artifactId, String dependencies ) throws IOException {
+        String path = "naether/prefetch/" + artifactId + "/1.0/" + artifactId + "-1.0";
+        server.addArtifact( path + ".jar", "jar " + artifactId );
+        server.addArtifact( path + ".pom", String.format( POM, artifactId, dependencies ) );
+    }
+}
@@ -0,0 +1,152 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.repository.RemoteRepository;
+
+import com.tobedevoured.naether.URLException;
+import com.tobedevoured.naether.impl.NaetherImpl;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link FailoverMirrorSelector}
+ *
+ * @author Michael Guymon
+ *
+ */
+public class FailoverMirrorSelectorTest {
+
+    private RepositoryHealth health;
+    private HttpRepositoryServer server;
+    private String deadUrl;
+
+    @Before
+    public void setup() throws IOException {
+        health = RepositoryClient.getRepositoryHealth();
+        health.clear();
+
+        server = new HttpRepositoryServer();
+        server.addArtifact( "naether/mirror/artifact/1.0/artifact-1.0.jar", "mirrored" );
+
+        // nothing listens on the port once the socket is closed
+        ServerSocket socket = new ServerSocket( 0 );
+        deadUrl = "http://127.0.0.1:" + socket.getLocalPort() + "/repo";
+        socket.close();
+    }
+
+    @After
+    public void teardown() {
+        server.stop();
+        health.clear();
+    }
+
+    @Test
+    public void mirrorOfSemantics() {
+        FailoverMirrorSelector selector = new FailoverMirrorSelector( new RepositoryHealth() );
+        selector.add( "central-mirror", Arrays.asList( "http://mirror/central" ), "central" );
+        selector.add( "all-mirror", Arrays.asList( "http://mirror/all" ), "*,!central,!snapshots" );
+
+        RemoteRepository mirror = selector.getMirror( new RemoteRepository( "central", "default", "http://central" ) );
+        assertEquals( "central-mirror", mirror.getId() );
+        assertEquals( "http://mirror/central", mirror.getUrl() );
+        assertEquals( "central", mirror.getMirroredRepositories().get( 0 ).getId() );
+
+        assertEquals( "all-mirror", selector.getMirror( new RemoteRepository( "other", "default", "http://other" ) ).getId() );
+        assertNull( selector.getMirror( new RemoteRepository( "snapshots", "default", "http://snapshots" ) ) );
+    }
+
+    @Test
+    public void mirrorUsesHealthyUrl() {
+        RepositoryHealth health = new RepositoryHealth();
+        health.setSlowThreshold( 100 );
+
+        FailoverMirrorSelector selector = new FailoverMirrorSelector( health );
+        selector.add( "mirror", Arrays.asList( "http://primary/repo", "http://secondary/repo" ), "*" );
+
+        RemoteRepository central = new RemoteRepository( "central", "default", "http://central" );
+        RemoteRepository mirror = selector.getMirror( central );
+        assertEquals( "http://primary/repo", mirror.getUrl() );
+        assertSame( mirror, selector.failover( mirror ) );
+        assertEquals( "http://secondary/repo", selector.getFailovers( mirror ).get( 0 ).getUrl() );
+
+        health.recordSuccess( "http://primary/repo", 500 );
+        assertEquals( "http://secondary/repo", selector.getMirror( central ).getUrl() );
+        assertEquals( "http://secondary/repo", selector.failover( mirror ).getUrl() );
+        assertEquals( "http://primary/repo", mirror.getUrl() );
+    }
+
+    @Test
+    public void downloadFailsOverToSecondaryUrl() throws Exception {
+        File localRepo = new File( "target/test-repo-failover" );
+        FileUtils.deleteDirectory( localRepo );
+
+        NaetherImpl naether = new NaetherImpl();
+        naether.setLocalRepoPath( localRepo.getPath() );
+        naether.clearRemoteRepositories();
+        naether.addRemoteRepository( "failover-remote", "default", deadUrl + "/unmirrored" );
+        naether.addMirror( "failover-mirror", Arrays.asList( deadUrl, server.getUrl() ), "*" );
+
+        List<File> files = naether.downloadArtifacts( Arrays.asList( "naether.mirror:artifact:jar:1.0" ) );
+
+        assertEquals( "mirrored", FileUtils.readFileToString( files.get( 0 ) ) );
+        assertTrue( server.getRequests() > 0 );
+    }
+
+    @Test
+    public void downRepositoryIsSkipped() throws Exception {
+        health.setFailureThreshold( 1 );
+        try {
+            File localRepo = new File( "target/test-repo-failover-down" );
+            FileUtils.deleteDirectory( localRepo );
+
+            NaetherImpl naether = new NaetherImpl();
+            naether.setLocalRepoPath( localRepo.getPath() );
+            naether.clearRemoteRepositories();
+            naether.addRemoteRepository( "failover-remote", "default", deadUrl + "/unmirrored" );
+            naether.addMirror( "failover-mirror", Arrays.asList( deadUrl, server.getUrl() ), "*" );
+
+            naether.downloadArtifacts( Arrays.asList( "naether.mirror:artifact:jar:1.0" ) );
+            assertTrue( health.isDown( deadUrl ) );
+
+            FileUtils.deleteDirectory( localRepo );
+            int requests = server.getRequests();
+            naether.downloadArtifacts( Arrays.asList( "naether.mirror:artifact:jar:1.0" ) );
+
+            assertTrue( "secondary is used directly", server.getRequests() > requests );
+        } finally {
+            health.setFailureThreshold( RepositoryHealth.DEFAULT_FAILURE_THRESHOLD );
+        }
+    }
+
+    @Test(expected=URLException.class)
+    public void invalidMirrorUrl() throws URLException {
+        new NaetherImpl().addMirror( "invalid", "not a url", "*" );
+    }
+}
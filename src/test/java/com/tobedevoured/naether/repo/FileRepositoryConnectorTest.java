@@ -0,0 +1,143 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.resolution.ArtifactRequest;
+import org.sonatype.aether.resolution.ArtifactResult;
+import org.sonatype.aether.spi.connector.ArtifactUpload;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
+import org.sonatype.aether.transfer.ArtifactNotFoundException;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+import com.tobedevoured.naether.impl.NaetherImpl;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link FileRepositoryConnector}
+ *
+ * @author Michael Guymon
+ *
+ */
+public class FileRepositoryConnectorTest {
+
+    private File fileRepo;
+    private File localRepo;
+    private RepositoryClient client;
+
+    @Before
+    public void setup() throws IOException {
+        fileRepo = new File( "target/test-repo-file-remote" );
+        localRepo = new File( "target/test-repo-file-local" );
+        FileUtils.deleteDirectory( fileRepo );
+        FileUtils.deleteDirectory( localRepo );
+
+        client = new RepositoryClient( localRepo.getPath() );
+    }
+
+    @Test
+    public void putThenGet() throws Exception {
+        File jar = new File( "target/test-file-connector.jar" );
+        FileUtils.writeStringToFile( jar, "file jar" );
+
+        RepositoryConnector connector = new FileRepositoryConnectorFactory().newInstance( client.getSystemSession(), remote() );
+        ArtifactUpload upload = new ArtifactUpload( new DefaultArtifact( "naether.file:lib:jar:1.0" ), jar );
+        try {
+            connector.put( Arrays.asList( upload ), null );
+        } finally {
+            connector.close();
+        }
+
+        assertNull( upload.getException() );
+        File deployed = new File( fileRepo, "naether/file/lib/1.0/lib-1.0.jar" );
+        assertEquals( "file jar", FileUtils.readFileToString( deployed ) );
+        assertEquals( HttpRepositoryServer.sha1( "file jar" ), FileUtils.readFileToString( new File( deployed.getPath() + ".sha1" ) ) );
+        assertTrue( new File( deployed.getPath() + ".md5" ).exists() );
+
+        List<ArtifactResult> results = client.resolveArtifacts( Arrays.asList( request( "naether.file:lib:jar:1.0", remote() ) ) );
+        File resolved = results.get( 0 ).getArtifact().getFile();
+        assertEquals( new File( localRepo, "naether/file/lib/1.0/lib-1.0.jar" ).getAbsoluteFile(), resolved.getAbsoluteFile() );
+        assertEquals( "file jar", FileUtils.readFileToString( resolved ) );
+        assertTrue( new File( resolved.getPath() + ".sha1" ).exists() );
+        assertEquals( HttpRepositoryServer.sha1( "file jar" ), Checksums.recorded( resolved ).get( Checksums.SHA1 ) );
+    }
+
+    @Test
+    public void missingArtifactIsNotFound() {
+        List<ArtifactResult> results = client.resolveArtifacts( Arrays.asList( request( "naether.file:missing:jar:1.0", remote() ) ) );
+
+        assertFalse( results.get( 0 ).isResolved() );
+        assertTrue( results.get( 0 ).getExceptions().get( 0 ) instanceof ArtifactNotFoundException );
+    }
+
+    @Test
+    public void localRepositoryIsNotCopiedOntoItself() throws Exception {
+        // downloaded from another repository, so not available for the local repository as a file repository
+        File jar = new File( localRepo, "naether/file/lib/1.0/lib-1.0.jar" );
+        FileUtils.writeStringToFile( jar, "local jar" );
+        FileUtils.writeStringToFile( new File( jar.getParentFile(), "_remote.repositories" ), "lib-1.0.jar>other=\n" );
+        long modified = jar.lastModified() - 60000;
+        jar.setLastModified( modified );
+
+        RemoteRepository self = new RemoteRepository( "local", "default", "file:" + localRepo.getPath() );
+        List<ArtifactResult> results = client.resolveArtifacts( Arrays.asList( request( "naether.file:lib:jar:1.0", self ) ) );
+
+        assertTrue( results.get( 0 ).isResolved() );
+        assertEquals( "local jar", FileUtils.readFileToString( jar ) );
+        assertEquals( "not copied", modified, jar.lastModified() );
+    }
+
+    @Test
+    public void installCopiesThroughChannels() throws Exception {
+        File jar = new File( "target/test-file-install.jar" );
+        FileUtils.writeStringToFile( jar, "installed jar" );
+
+        NaetherImpl naether = new NaetherImpl();
+        naether.setLocalRepoPath( localRepo.getPath() );
+        naether.install( "naether.file:installed:jar:1.0", null, jar.getPath() );
+
+        assertEquals( "installed jar", FileUtils.readFileToString( new File( localRepo, "naether/file/installed/1.0/installed-1.0.jar" ) ) );
+    }
+
+    @Test
+    public void basedirOfUrls() {
+        assertEquals( new File( "/tmp/repo" ), FileRepositoryConnector.basedir( "file:///tmp/repo" ) );
+        assertEquals( new File( "target/repo" ), FileRepositoryConnector.basedir( "file:target/repo" ) );
+        assertEquals( new File( "/tmp/my repo" ), FileRepositoryConnector.basedir( "file:/tmp/my%20repo" ) );
+    }
+
+    private ArtifactRequest request( String notation, RemoteRepository remote ) {
+        ArtifactRequest request = new ArtifactRequest();
+        request.setArtifact( new DefaultArtifact( notation ) );
+        request.addRepository( remote );
+        return request;
+    }
+
+    private RemoteRepository remote() {
+        return new RemoteRepository( "file-connector", "default", "file:" + fileRepo.getPath() );
+    }
+}
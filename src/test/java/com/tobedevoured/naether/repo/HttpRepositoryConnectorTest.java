@@ -0,0 +1,247 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.repository.Authentication;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
+import org.sonatype.aether.resolution.ArtifactRequest;
+import org.sonatype.aether.resolution.ArtifactResult;
+import org.sonatype.aether.spi.connector.ArtifactUpload;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
+import org.sonatype.aether.transfer.ArtifactNotFoundException;
+import org.sonatype.aether.transfer.ChecksumFailureException;
+import org.sonatype.aether.transfer.NoRepositoryConnectorException;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link HttpRepositoryConnector}
+ *
+ * @author Michael Guymon
+ *
+ */
+public class HttpRepositoryConnectorTest {
+
+    private static Logger log = LoggerFactory.getLogger(HttpRepositoryConnectorTest.class);
+
+    private static final int ARTIFACTS = 20;
+
+    private HttpRepositoryServer server;
+    private File localRepo;
+    private RepositoryClient client;
+
+    @Before
+    public void setup() throws IOException {
+        server = new HttpRepositoryServer();
+        for ( int x = 0; x < ARTIFACTS; x++ ) {
+            server.addArtifact( "naether/connector/artifact" + x + "/1.0/artifact" + x + "-1.0.jar", "jar " + x );
+        }
+
+        localRepo = new File( "target/test-repo-http-connector" );
+        FileUtils.deleteDirectory( localRepo );
+
+        client = new RepositoryClient( localRepo.getPath() );
+        client.setHttpConnector( true );
+    }
+
+    @After
+    public void teardown() {
+        server.stop();
+    }
+
+    @Test
+    public void resolveArtifactsOverKeepAliveConnections() throws Exception {
+        List<ArtifactRequest> requests = new ArrayList<ArtifactRequest>();
+        for ( int x = 0; x < ARTIFACTS; x++ ) {
+            requests.add( request( "naether.connector:artifact" + x + ":jar:1.0", remote() ) );
+        }
+
+        long start = System.nanoTime();
+        List<ArtifactResult> results = client.resolveArtifacts( requests );
+        long elapsed = System.nanoTime() - start;
+
+        log.info( "{} requests over {} connections, {} requests/sec", new Object[] {
+            server.getRequests(), server.getConnections(), (long)( server.getRequests() / ( elapsed / 1e9 ) ) } );
+
+        for ( int x = 0; x < ARTIFACTS; x++ ) {
+            Artifact artifact = results.get( x ).getArtifact();
+            assertEquals( "jar " + x, FileUtils.readFileToString( artifact.getFile() ) );
+            assertTrue( new File( artifact.getFile().getPath() + ".sha1" ).exists() );
+            assertEquals( HttpRepositoryServer.sha1( "jar " + x ), Checksums.recorded( artifact.getFile() ).get( Checksums.SHA1 ) );
+        }
+
+        assertEquals( ARTIFACTS * 2, server.getRequests() );
+        assertTrue( "connections " + server.getConnections(), server.getConnections() <= 5 );
+    }
+
+    @Test
+    public void missingArtifactIsNotFound() {
+        List<ArtifactResult> results = client.resolveArtifacts( Arrays.asList( request( "naether.connector:missing:jar:1.0", remote() ) ) );
+
+        assertFalse( results.get( 0 ).isResolved() );
+        assertTrue( results.get( 0 ).getExceptions().get( 0 ) instanceof ArtifactNotFoundException );
+    }
+
+    @Test
+    public void checksumMismatchFails() throws Exception {
+        server.addResource( "naether/connector/corrupt/1.0/corrupt-1.0.jar", "jar".getBytes( "UTF-8" ) );
+        server.addResource( "naether/connector/corrupt/1.0/corrupt-1.0.jar.sha1", HttpRepositoryServer.sha1( "other" ).getBytes( "UTF-8" ) );
+
+        RemoteRepository remote = remote();
+        remote.setPolicy( false, new RepositoryPolicy( true, RepositoryPolicy.UPDATE_POLICY_DAILY, RepositoryPolicy.CHECKSUM_POLICY_FAIL ) );
+        List<ArtifactResult> results = client.resolveArtifacts( Arrays.asList( request( "naether.connector:corrupt:jar:1.0", remote ) ) );
+
+        assertFalse( results.get( 0 ).isResolved() );
+        assertTrue( results.get( 0 ).getExceptions().get( 0 ).getCause() instanceof ChecksumFailureException );
+        assertFalse( new File( localRepo, "naether/connector/corrupt/1.0/corrupt-1.0.jar" ).exists() );
+    }
+
+    @Test
+    public void putUploadsChecksums() throws Exception {
+        File jar = new File( localRepo, "upload.jar" );
+        FileUtils.writeStringToFile( jar, "uploaded" );
+
+        RepositoryConnector connector = new HttpRepositoryConnectorFactory().newInstance( client.getSystemSession(), remote() );
+        ArtifactUpload upload = new ArtifactUpload( new DefaultArtifact( "naether.connector:upload:jar:1.0" ), jar );
+        try {
+            connector.put( Arrays.asList( upload ), null );
+        } finally {
+            connector.close();
+        }
+
+        assertNull( upload.getException() );
+        assertEquals( "uploaded", new String( server.getResource( "naether/connector/upload/1.0/upload-1.0.jar" ), "UTF-8" ) );
+        assertEquals( HttpRepositoryServer.sha1( "uploaded" ),
+            new String( server.getResource( "naether/connector/upload/1.0/upload-1.0.jar.sha1" ), "UTF-8" ) );
+        assertNotNull( server.getResource( "naether/connector/upload/1.0/upload-1.0.jar.md5" ) );
+    }
+
+    @Test
+    public void factoryOnlyServesEnabledHttpRepositories() throws Exception {
+        HttpRepositoryConnectorFactory factory = new HttpRepositoryConnectorFactory();
+
+        try {
+            factory.newInstance( client.getSystemSession(), new RemoteRepository( "file", "default", localRepo.toURI().toString() ) );
+            fail( "file repository is not supported" );
+        } catch ( NoRepositoryConnectorException e ) {
+            // expected
+        }
+
+        client.setHttpConnector( false );
+        try {
+            factory.newInstance( client.getSystemSession(), remote() );
+            fail( "http connector is disabled" );
+        } catch ( NoRepositoryConnectorException e ) {
+            // expected
+        }
+    }
+
+    @Test
+    public void resumeInterruptedDownload() throws Exception {
+        String content = content( 4096 );
+        String path = "naether/connector/large/1.0/large-1.0.jar";
+        server.addArtifact( path, content );
+        server.failAfter( path, 1000 );
+        client.setRetries( 0 );
+
+        List<ArtifactResult> results = client.resolveArtifacts( Arrays.asList( request( "naether.connector:large:jar:1.0", remote() ) ) );
+        assertFalse( results.get( 0 ).isResolved() );
+        File part = new File( localRepo, path + ".part" );
+        assertEquals( 1000, part.length() );
+        assertTrue( new File( localRepo, path + ".part.validator" ).exists() );
+
+        results = client.resolveArtifacts( Arrays.asList( request( "naether.connector:large:jar:1.0", remote() ) ) );
+        assertEquals( content, FileUtils.readFileToString( results.get( 0 ).getArtifact().getFile() ) );
+        assertEquals( Collections.singleton( "bytes=1000-" ), server.getRanges() );
+        assertFalse( part.exists() );
+        assertFalse( new File( localRepo, path + ".part.validator" ).exists() );
+    }
+
+    @Test
+    public void changedResourceRestartsDownload() throws Exception {
+        String path = "naether/connector/changed/1.0/changed-1.0.jar";
+        server.addArtifact( path, content( 4096 ) );
+        server.failAfter( path, 1000 );
+        client.setRetries( 0 );
+        client.resolveArtifacts( Arrays.asList( request( "naether.connector:changed:jar:1.0", remote() ) ) );
+
+        String content = "changed " + content( 2048 );
+        server.addArtifact( path, content );
+        List<ArtifactResult> results = client.resolveArtifacts( Arrays.asList( request( "naether.connector:changed:jar:1.0", remote() ) ) );
+
+        assertEquals( "If-Range did not match the new ETag", 1, server.getRangeRequests() );
+        assertEquals( content, FileUtils.readFileToString( results.get( 0 ).getArtifact().getFile() ) );
+    }
+
+    @Test
+    public void chunkedDownload() throws Exception {
+        String content = content( 10000 );
+        server.addArtifact( "naether/connector/chunked/1.0/chunked-1.0.jar", content );
+        client.setDownloadChunkSize( 1024 );
+
+        List<ArtifactResult> results = client.resolveArtifacts( Arrays.asList( request( "naether.connector:chunked:jar:1.0", remote() ) ) );
+
+        assertEquals( content, FileUtils.readFileToString( results.get( 0 ).getArtifact().getFile() ) );
+        assertEquals( "every chunk but the first", 9, server.getRangeRequests() );
+        assertTrue( server.getRanges().contains( "bytes=9216-9999" ) );
+    }
+
+    @Test
+    public void basicAuthorization() {
+        assertEquals( "Basic QWxhZGRpbjpvcGVuIHNlc2FtZQ==",
+            HttpRepositoryConnector.basic( new Authentication( "Aladdin", "open sesame" ), "ISO-8859-1" ) );
+        assertEquals( "Basic YTo=", HttpRepositoryConnector.basic( new Authentication( "a", (String) null ), "UTF-8" ) );
+        assertEquals( "Basic YTpi", HttpRepositoryConnector.basic( new Authentication( "a", "b" ), "UTF-8" ) );
+    }
+
+    private ArtifactRequest request( String notation, RemoteRepository remote ) {
+        ArtifactRequest request = new ArtifactRequest();
+        request.setArtifact( new DefaultArtifact( notation ) );
+        request.addRepository( remote );
+        return request;
+    }
+
+    private static String content( int length ) {
+        StringBuilder content = new StringBuilder( length );
+        for ( int x = 0; x < length; x++ ) {
+            content.append( (char) ( 'a' + x % 26 ) );
+        }
+        return content.toString();
+    }
+
+    private RemoteRepository remote() {
+        return new RemoteRepository( "http-connector", "default", server.getUrl() );
+    }
+}
@@ -0,0 +1,298 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local http server standing in for a remote repository in tests. Serves resources from
+ * memory under <code>/repo</code>, stores PUT uploads and counts requests, client
+ * connections and the peak number of concurrent requests.
+ *
+ * @author Michael Guymon
+ *
+ */
+public class HttpRepositoryServer {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private final Map<String,byte[]> resources = new ConcurrentHashMap<String,byte[]>();
+    private final Set<Integer> clientPorts = Collections.synchronizedSet( new HashSet<Integer>() );
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+    private volatile int delay = 0;
+    private final Map<String,Integer> failures = new ConcurrentHashMap<String,Integer>();
+    private final Map<String,Queue<Integer>> statuses = new ConcurrentHashMap<String,Queue<Integer>>();
+    private final Set<String> ranges = Collections.synchronizedSet( new HashSet<String>() );
+    private final AtomicInteger rangeRequests = new AtomicInteger();
+
+    public HttpRepositoryServer() throws IOException {
+        server = HttpServer.create( new InetSocketAddress( "127.0.0.1", 0 ), 0 );
+        server.createContext( "/", new HttpHandler() {
+            public void handle( HttpExchange exchange ) throws IOException {
+                serve( exchange );
+            }
+        });
+        executor = Executors.newFixedThreadPool( 8 );
+        server.setExecutor( executor );
+        server.start();
+    }
+
+    /**
+     * Url of the repository
+     *
+     * @return String
+     */
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/repo";
+    }
+
+    /**
+     * Add a resource and its sha1 checksum
+     *
+     * @param path String relative to the repository
+     * @param content String
+     * @throws IOException
+     */
+    public void addArtifact( String path, String content ) throws IOException {
+        addResource( path, content.getBytes( "UTF-8" ) );
+        addResource( path + ".sha1", sha1( content ).getBytes( "UTF-8" ) );
+    }
+
+    public void addResource( String path, byte[] content ) {
+        resources.put( "/repo/" + path, content );
+    }
+
+    public byte[] getResource( String path ) {
+        return resources.get( "/repo/" + path );
+    }
+
+    public int getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * Number of distinct client connections
+     *
+     * @return int
+     */
+    public int getConnections() {
+        return clientPorts.size();
+    }
+
+    public int getPeak() {
+        return peak.get();
+    }
+
+    /**
+     * Delay every response
+     *
+     * @param delay int milliseconds
+     */
+    public void setDelay( int delay ) {
+        this.delay = delay;
+    }
+
+    /**
+     * Cut the connection of the next download of a resource after some bytes
+     *
+     * @param path String relative to the repository
+     * @param bytes int sent before the connection is cut
+     */
+    public void failAfter( String path, int bytes ) {
+        failures.put( "/repo/" + path, bytes );
+    }
+
+    /**
+     * Answer the next requests of a resource with a status code instead of the resource
+     *
+     * @param path String relative to the repository
+     * @param status int status code
+     * @param times int requests answered with the status code
+     */
+    public void failWith( String path, int status, int times ) {
+        Queue<Integer> queue = new ConcurrentLinkedQueue<Integer>();
+        for ( int x = 0; x < times; x++ ) {
+            queue.add( status );
+        }
+        statuses.put( "/repo/" + path, queue );
+    }
+
+    /**
+     * Number of requests with a Range header
+     *
+     * @return int
+     */
+    public int getRangeRequests() {
+        return rangeRequests.get();
+    }
+
+    /**
+     * Range headers requested
+     *
+     * @return Set of String
+     */
+    public Set<String> getRanges() {
+        return ranges;
+    }
+
+    public void stop() {
+        server.stop( 0 );
+        executor.shutdownNow();
+    }
+
+    private void serve( HttpExchange exchange ) throws IOException {
+        requests.incrementAndGet();
+        clientPorts.add( exchange.getRemoteAddress().getPort() );
+
+        int current = active.incrementAndGet();
+        synchronized ( peak ) {
+            peak.set( Math.max( peak.get(), current ) );
+        }
+
+        boolean counted = true;
+        try {
+            ByteArrayOutputStream requestBody = new ByteArrayOutputStream();
+            InputStream in = exchange.getRequestBody();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ( ( read = in.read( buffer ) ) != -1 ) {
+                requestBody.write( buffer, 0, read );
+            }
+
+            if ( delay > 0 ) {
+                try {
+                    Thread.sleep( delay );
+                } catch ( InterruptedException e ) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            // the client may start its next request as soon as the response is sent
+            active.decrementAndGet();
+            counted = false;
+
+            String path = exchange.getRequestURI().getPath();
+            if ( "PUT".equals( exchange.getRequestMethod() ) ) {
+                resources.put( path, requestBody.toByteArray() );
+                exchange.sendResponseHeaders( 201, -1 );
+                return;
+            }
+
+            byte[] body = resources.get( path );
+            int status = 200;
+            Queue<Integer> failWith = statuses.get( path );
+            Integer failStatus = failWith != null ? failWith.poll() : null;
+            if ( failStatus != null ) {
+                body = "failed".getBytes( "UTF-8" );
+                status = failStatus;
+            } else if ( body == null ) {
+                body = "not found".getBytes( "UTF-8" );
+                status = 404;
+            }
+
+            int start = 0;
+            int end = body.length - 1;
+            if ( status == 200 ) {
+                String etag = "\"" + sha1( body ) + "\"";
+                exchange.getResponseHeaders().set( "ETag", etag );
+                exchange.getResponseHeaders().set( "Accept-Ranges", "bytes" );
+
+                String range = exchange.getRequestHeaders().getFirst( "Range" );
+                String ifRange = exchange.getRequestHeaders().getFirst( "If-Range" );
+                if ( range != null ) {
+                    rangeRequests.incrementAndGet();
+                    ranges.add( range );
+                }
+                if ( range != null && range.startsWith( "bytes=" ) && ( ifRange == null || ifRange.equals( etag ) ) ) {
+                    String[] bounds = range.substring( "bytes=".length() ).split( "-", -1 );
+                    start = Integer.parseInt( bounds[0] );
+                    end = bounds[1].length() > 0 ? Math.min( Integer.parseInt( bounds[1] ), body.length - 1 ) : body.length - 1;
+                    if ( start >= body.length ) {
+                        exchange.sendResponseHeaders( 416, -1 );
+                        return;
+                    }
+                    exchange.getResponseHeaders().set( "Content-Range", "bytes " + start + "-" + end + "/" + body.length );
+                    status = 206;
+                }
+            }
+
+            if ( "HEAD".equals( exchange.getRequestMethod() ) ) {
+                exchange.sendResponseHeaders( status, -1 );
+            } else {
+                int length = end - start + 1;
+                exchange.sendResponseHeaders( status, length );
+                OutputStream responseBody = exchange.getResponseBody();
+                Integer failAfter = failures.remove( path );
+                if ( failAfter != null ) {
+                    responseBody.write( body, start, Math.min( failAfter, length ) );
+                    responseBody.flush();
+                    // the server drops the connection of a response shorter than its length
+                    throw new IOException( "Connection cut by test" );
+                }
+                responseBody.write( body, start, length );
+                responseBody.close();
+            }
+        } finally {
+            if ( counted ) {
+                active.decrementAndGet();
+            }
+            exchange.close();
+        }
+    }
+
+    static String sha1( String content ) throws IOException {
+        return sha1( content.getBytes( "UTF-8" ) );
+    }
+
+    static String sha1( byte[] content ) throws IOException {
+        try {
+            byte[] digest = MessageDigest.getInstance( "SHA-1" ).digest( content );
+            StringBuilder hex = new StringBuilder();
+            for ( byte b : digest ) {
+                hex.append( String.format( "%02x", b ) );
+            }
+            return hex.toString();
+        } catch ( NoSuchAlgorithmException e ) {
+            throw new IOException( e );
+        }
+    }
+}
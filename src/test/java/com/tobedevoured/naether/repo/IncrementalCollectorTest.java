@@ -0,0 +1,195 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.collection.CollectRequest;
+import org.sonatype.aether.graph.Dependency;
+import org.sonatype.aether.graph.DependencyNode;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+import org.sonatype.aether.util.graph.PreorderNodeListGenerator;
+
+import com.tobedevoured.naether.impl.NaetherImpl;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link IncrementalCollector}
+ *
+ * @author Michael Guymon
+ *
+ */
+public class IncrementalCollectorTest {
+
+    private static final String POM = "<project><modelVersion>4.0.0</modelVersion>" +
+        "<groupId>naether.incremental</groupId><artifactId>%s</artifactId><version>%s</version>" +
+        "<dependencies>%s</dependencies></project>";
+
+    private static final String DEPENDENCY = "<dependency><groupId>naether.incremental</groupId>" +
+        "<artifactId>%s</artifactId><version>%s</version></dependency>";
+
+    private HttpRepositoryServer server;
+    private File localRepo;
+    private RepositoryClient client;
+    private RemoteRepository remote;
+
+    @Before
+    public void setup() throws IOException {
+        localRepo = new File( "target/test-repo-incremental" );
+        FileUtils.deleteDirectory( localRepo );
+
+        server = new HttpRepositoryServer();
+        addArtifact( "app1", "1.0", String.format( DEPENDENCY, "lib", "1.0" ) );
+        addArtifact( "app2", "1.0", String.format( DEPENDENCY, "lib", "2.0" ) + String.format( DEPENDENCY, "util", "1.0" ) );
+        addArtifact( "lib", "1.0", "" );
+        addArtifact( "lib", "2.0", "" );
+        addArtifact( "util", "1.0", "" );
+
+        client = new RepositoryClient( localRepo.getPath() );
+        remote = new RemoteRepository( "incremental", "default", server.getUrl() );
+    }
+
+    @After
+    public void teardown() {
+        server.stop();
+    }
+
+    @Test
+    public void reusesCollectedSubtrees() throws Exception {
+        IncrementalCollector collector = new IncrementalCollector();
+        assertEquals( "[app1:1.0, lib:1.0]", collect( collector, "context", "app1" ) );
+        assertEquals( 1, collector.size() );
+
+        // nothing left to read the descriptors from
+        server.stop();
+        FileUtils.deleteDirectory( localRepo );
+        RepositoryClient.getDescriptorCache().clear();
+
+        assertEquals( "[app1:1.0, lib:1.0]", collect( collector, "context", "app1" ) );
+    }
+
+    @Test
+    public void mediatesVersionsOverMergedGraph() throws Exception {
+        IncrementalCollector collector = new IncrementalCollector();
+        collect( collector, "context", "app1" );
+
+        String incremental = collect( collector, "context", "app1", "app2" );
+        assertEquals( "[app1:1.0, lib:1.0, app2:1.0, util:1.0]", incremental );
+        assertEquals( 2, collector.size() );
+
+        assertEquals( "first subtree is not changed by mediation", "[app1:1.0, lib:1.0]", collect( collector, "context", "app1" ) );
+        assertEquals( incremental, collect( new IncrementalCollector(), "context", "app1", "app2" ) );
+    }
+
+    @Test
+    public void subtreesAreKeptByContext() throws Exception {
+        IncrementalCollector collector = new IncrementalCollector( 2 );
+        collect( collector, "context", "app1" );
+        collect( collector, "context", "app2" );
+        assertEquals( 2, collector.size() );
+
+        collect( collector, "other", "app2" );
+        assertEquals( "other context does not drop subtrees", 3, collector.size() );
+
+        collect( collector, "third", "app1" );
+        assertEquals( "least recently used context dropped", 2, collector.size() );
+
+        // nothing left to read the descriptors from
+        server.stop();
+        FileUtils.deleteDirectory( localRepo );
+        RepositoryClient.getDescriptorCache().clear();
+
+        assertEquals( "[app2:1.0, lib:2.0, util:1.0]", collect( collector, "other", "app2" ) );
+    }
+
+    @Test
+    public void collectsMissingInParallel() throws Exception {
+        ParallelDependencyCollector parallelCollector = new ParallelDependencyCollector( 4 );
+        try {
+            IncrementalCollector collector = new IncrementalCollector();
+            assertEquals( "[app1:1.0, lib:1.0]", collect( collector, parallelCollector, "context", "app1" ) );
+            assertEquals( "[app1:1.0, lib:1.0, app2:1.0, util:1.0]", collect( collector, parallelCollector, "context", "app1", "app2" ) );
+            assertEquals( 2, collector.size() );
+        } finally {
+            parallelCollector.shutdown();
+        }
+    }
+
+    @Test
+    public void naetherResolvesIncrementally() throws Exception {
+        NaetherImpl naether = new NaetherImpl();
+        naether.setLocalRepoPath( localRepo.getPath() );
+        naether.clearRemoteRepositories();
+        naether.addRemoteRepository( remote );
+        naether.setIncrementalResolution( true );
+
+        naether.addDependency( "naether.incremental:app1:jar:1.0" );
+        naether.resolveDependencies();
+        naether.addDependency( "naether.incremental:app2:jar:1.0" );
+        naether.resolveDependencies();
+
+        NaetherImpl full = new NaetherImpl();
+        full.setLocalRepoPath( localRepo.getPath() );
+        full.clearRemoteRepositories();
+        full.addRemoteRepository( remote );
+        full.addDependency( "naether.incremental:app1:jar:1.0" );
+        full.addDependency( "naether.incremental:app2:jar:1.0" );
+        full.resolveDependencies();
+
+        assertEquals( full.getDependenciesNotation(), naether.getDependenciesNotation() );
+        assertEquals( "one version of lib", 4, naether.getDependenciesNotation().size() );
+    }
+
+    private String collect( IncrementalCollector collector, String context, String... artifactIds ) throws Exception {
+        return collect( collector, null, context, artifactIds );
+    }
+
+    private String collect( IncrementalCollector collector, ParallelDependencyCollector parallelCollector, String context, String... artifactIds ) throws Exception {
+        CollectRequest request = new CollectRequest();
+        for ( String artifactId : artifactIds ) {
+            request.addDependency( new Dependency( new DefaultArtifact( "naether.incremental:" + artifactId + ":jar:1.0" ), "compile" ) );
+        }
+        request.addRepository( remote );
+
+        PreorderNodeListGenerator generator = new PreorderNodeListGenerator();
+        collector.collectDependencies( client, request, context, parallelCollector ).getRoot().accept( generator );
+
+        List<String> artifacts = new ArrayList<String>();
+        for ( DependencyNode node : generator.getNodes() ) {
+            artifacts.add( node.getDependency().getArtifact().getArtifactId() + ":" + node.getDependency().getArtifact().getVersion() );
+        }
+
+        return artifacts.toString();
+    }
+
+    private void addArtifact( String artifactId, String version, String dependencies ) throws IOException {
+        String path = "naether/incremental/" + artifactId + "/" + version + "/" + artifactId + "-" + version;
+        server.addArtifact( path + ".jar", "jar " + artifactId );
+        server.addArtifact( path + ".pom", String.format( POM, artifactId, version, dependencies ) );
+    }
+}
@@ -0,0 +1,176 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.repository.LocalArtifactRequest;
+import org.sonatype.aether.repository.LocalArtifactResult;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+import com.tobedevoured.naether.impl.NaetherImpl;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link IndexedLocalRepositoryManager}
+ *
+ * @author Michael Guymon
+ *
+ */
+public class IndexedLocalRepositoryManagerTest {
+
+    private static final String POM = "<project><modelVersion>4.0.0</modelVersion>" +
+        "<groupId>naether.indexed</groupId><artifactId>%s</artifactId><version>1.0</version>" +
+        "<dependencies>%s</dependencies></project>";
+
+    private static final String DEPENDENCY = "<dependency><groupId>naether.indexed</groupId>" +
+        "<artifactId>%s</artifactId><version>1.0</version></dependency>";
+
+    private HttpRepositoryServer server;
+    private File localRepo;
+    private File copiedRepo;
+
+    @Before
+    public void setup() throws IOException {
+        localRepo = new File( "target/test-repo-indexed" );
+        copiedRepo = new File( "target/test-repo-indexed-copy" );
+        FileUtils.deleteDirectory( localRepo );
+        FileUtils.deleteDirectory( copiedRepo );
+
+        server = new HttpRepositoryServer();
+        addArtifact( "app", "lib" );
+        addArtifact( "lib", null );
+    }
+
+    @After
+    public void teardown() {
+        server.stop();
+    }
+
+    @Test
+    public void warmResolveIsAnsweredFromIndex() throws Exception {
+        resolve();
+        assertTrue( new File( localRepo, IndexedLocalRepositoryManager.INDEX ).isFile() );
+
+        IndexedLocalRepositoryManager manager = newManager( localRepo );
+        long misses = manager.getMisses();
+        long hits = manager.getHits();
+
+        resolve();
+        assertEquals( misses, manager.getMisses() );
+        assertTrue( manager.getHits() > hits );
+    }
+
+    @Test
+    public void indexIsLoadedFromLocalRepository() throws Exception {
+        resolve();
+        FileUtils.copyDirectory( localRepo, copiedRepo );
+
+        IndexedLocalRepositoryManager manager = newManager( copiedRepo );
+        assertEquals( 0, manager.getHits() );
+
+        LocalArtifactResult result = find( manager, "naether.indexed:lib:jar:1.0" );
+        assertTrue( result.isAvailable() );
+        assertEquals( "indexed", result.getRepository().getId() );
+        assertEquals( new File( copiedRepo, "naether/indexed/lib/1.0/lib-1.0.jar" ).getAbsoluteFile(), result.getFile().getAbsoluteFile() );
+        assertEquals( 1, manager.getHits() );
+        assertEquals( 0, manager.getMisses() );
+
+        assertFalse( "not available from other repositories",
+            manager.find( session( manager ), new LocalArtifactRequest( new DefaultArtifact( "naether.indexed:lib:jar:1.0" ),
+                Arrays.asList( new RemoteRepository( "other", "default", server.getUrl() ) ), "" ) ).isAvailable() );
+    }
+
+    @Test
+    public void dropsDeletedArtifacts() throws Exception {
+        resolve();
+        IndexedLocalRepositoryManager manager = newManager( localRepo );
+        assertTrue( find( manager, "naether.indexed:lib:jar:1.0" ).isAvailable() );
+        long misses = manager.getMisses();
+
+        FileUtils.deleteQuietly( new File( localRepo, "naether/indexed/lib/1.0/lib-1.0.jar" ) );
+        assertFalse( find( manager, "naether.indexed:lib:jar:1.0" ).isAvailable() );
+        assertEquals( "found with the wrapped manager", misses + 1, manager.getMisses() );
+
+        resolve();
+        assertTrue( "downloaded again", find( manager, "naether.indexed:lib:jar:1.0" ).isAvailable() );
+    }
+
+    @Test
+    public void appendsAreBufferedUntilFlushed() throws Exception {
+        resolve();
+        File index = new File( localRepo, IndexedLocalRepositoryManager.INDEX );
+        long length = index.length();
+
+        FileUtils.copyDirectory( new File( localRepo, "naether/indexed/lib" ), new File( localRepo, "naether/indexed/lib2" ) );
+        FileUtils.moveFile( new File( localRepo, "naether/indexed/lib2/1.0/lib-1.0.jar" ), new File( localRepo, "naether/indexed/lib2/1.0/lib2-1.0.jar" ) );
+
+        IndexedLocalRepositoryManager manager = newManager( localRepo );
+        manager.find( session( manager ), new LocalArtifactRequest( new DefaultArtifact( "naether.indexed:lib2:jar:1.0" ),
+            Arrays.asList( new RemoteRepository( "indexed", "default", server.getUrl() ) ), "" ) );
+        assertEquals( length, index.length() );
+
+        manager.flush();
+        assertTrue( index.length() > length );
+
+        manager.clear();
+        assertFalse( index.exists() );
+    }
+
+    private void resolve() throws Exception {
+        NaetherImpl naether = new NaetherImpl();
+        naether.setLocalRepoPath( localRepo.getPath() );
+        naether.setIndexedLocalRepository( true );
+        naether.clearRemoteRepositories();
+        naether.addRemoteRepository( "indexed", "default", server.getUrl() );
+        naether.addDependency( "naether.indexed:app:jar:1.0" );
+        naether.resolveDependencies();
+        assertEquals( 2, naether.getDependenciesNotation().size() );
+    }
+
+    private IndexedLocalRepositoryManager newManager( File repo ) {
+        RepositoryClient client = new RepositoryClient( repo.getPath() );
+        client.setIndexedLocalRepository( true );
+        return (IndexedLocalRepositoryManager)client.getSystemSession().getLocalRepositoryManager();
+    }
+
+    private LocalArtifactResult find( IndexedLocalRepositoryManager manager, String notation ) {
+        return manager.find( session( manager ), new LocalArtifactRequest( new DefaultArtifact( notation ),
+            Arrays.asList( new RemoteRepository( "indexed", "default", server.getUrl() ) ), "" ) );
+    }
+
+    private RepositorySystemSession session( IndexedLocalRepositoryManager manager ) {
+        RepositoryClient client = new RepositoryClient( manager.getRepository().getBasedir().getPath() );
+        return client.getSystemSession();
+    }
+
+    private void addArtifact( String artifactId, String dependency ) throws IOException {
+        String path = "naether/indexed/" + artifactId + "/1.0/" + artifactId + "-1.0";
+        server.addArtifact( path + ".jar", "jar " + artifactId );
+        server.addArtifact( path + ".pom", String.format( POM, artifactId, dependency != null ? String.format( DEPENDENCY, dependency ) : "" ) );
+    }
+}
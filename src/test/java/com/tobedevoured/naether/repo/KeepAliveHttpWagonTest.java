@@ -0,0 +1,196 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.TransferFailedException;
+import org.apache.maven.wagon.Wagon;
+import org.apache.maven.wagon.repository.Repository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.resolution.ArtifactRequest;
+import org.sonatype.aether.resolution.ArtifactResult;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link KeepAliveHttpWagon} and the wagon pool of {@link ManualWagonProvider},
+ * against a local http server
+ *
+ * @author Michael Guymon
+ *
+ */
+public class KeepAliveHttpWagonTest {
+
+    private static Logger log = LoggerFactory.getLogger(KeepAliveHttpWagonTest.class);
+
+    private static final int ARTIFACTS = 12;
+
+    private HttpRepositoryServer server;
+    private String url;
+    private File localRepo;
+
+    @Before
+    public void setup() throws IOException {
+        server = new HttpRepositoryServer();
+        for ( int x = 0; x < ARTIFACTS; x++ ) {
+            server.addArtifact( "naether/http/artifact" + x + "/1.0/artifact" + x + "-1.0.jar", "jar " + x );
+        }
+
+        url = server.getUrl();
+
+        localRepo = new File( "target/test-repo-http" );
+        FileUtils.deleteDirectory( localRepo );
+    }
+
+    @After
+    public void teardown() {
+        server.stop();
+    }
+
+    @Test
+    public void downloadsReuseConnection() throws Exception {
+        KeepAliveHttpWagon wagon = new KeepAliveHttpWagon();
+        wagon.connect( new Repository( "test", url ) );
+
+        File destination = new File( localRepo, "download.jar" );
+        int downloads = 200;
+        long start = System.nanoTime();
+        try {
+            for ( int x = 0; x < downloads; x++ ) {
+                int artifact = x % ARTIFACTS;
+                wagon.get( "naether/http/artifact" + artifact + "/1.0/artifact" + artifact + "-1.0.jar", destination );
+                assertEquals( "jar " + artifact, FileUtils.readFileToString( destination ) );
+
+                if ( x % 50 == 0 ) {
+                    try {
+                        wagon.get( "naether/http/missing/1.0/missing-1.0.jar", destination );
+                        fail( "missing resource should fail" );
+                    } catch ( ResourceDoesNotExistException e ) {
+                        // error responses are drained and keep the connection
+                    }
+                }
+            }
+        } finally {
+            wagon.disconnect();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        log.info( "{} requests over {} connections, {} requests/sec", new Object[] {
+            server.getRequests(), server.getConnections(), (long)( server.getRequests() / ( elapsed / 1e9 ) ) } );
+
+        assertTrue( "connections " + server.getConnections(), server.getConnections() < 5 );
+    }
+
+    @Test
+    public void readTimeout() throws Exception {
+        server.setDelay( 2000 );
+
+        KeepAliveHttpWagon wagon = new KeepAliveHttpWagon();
+        wagon.setReadTimeout( 200 );
+        wagon.connect( new Repository( "test", url ) );
+
+        long start = System.currentTimeMillis();
+        try {
+            wagon.get( "naether/http/artifact0/1.0/artifact0-1.0.jar", new File( localRepo, "slow.jar" ) );
+            fail( "slow resource should time out" );
+        } catch ( TransferFailedException e ) {
+            assertTrue( System.currentTimeMillis() - start < 1500 );
+        } finally {
+            wagon.disconnect();
+        }
+    }
+
+    @Test
+    public void providerPoolsReleasedWagons() throws Exception {
+        ManualWagonProvider provider = new ManualWagonProvider( 1 );
+
+        Wagon wagon = provider.lookup( "http" );
+        assertTrue( wagon instanceof KeepAliveHttpWagon );
+        assertSame( KeepAliveHttpWagon.class, provider.lookup( "https" ).getClass() );
+
+        Map<String,Integer> config = new HashMap<String,Integer>();
+        config.put( "connectTimeout", 1000 );
+        config.put( "readTimeout", 2000 );
+        provider.configure( wagon, config );
+        assertEquals( 1000, ( (KeepAliveHttpWagon) wagon ).getConnectTimeout() );
+        assertEquals( 2000, ( (KeepAliveHttpWagon) wagon ).getReadTimeout() );
+
+        provider.release( wagon );
+        provider.release( new KeepAliveHttpWagon() );
+        assertEquals( 1, provider.getIdleCount() );
+
+        Wagon pooled = provider.lookup( "https" );
+        assertSame( wagon, pooled );
+        assertNull( pooled.getRepository() );
+        assertEquals( wagon.getTimeout(), ( (KeepAliveHttpWagon) pooled ).getReadTimeout() );
+        assertEquals( 0, provider.getIdleCount() );
+    }
+
+    @Test
+    public void resolveLimitsConnectionsPerHost() throws Exception {
+        server.setDelay( 20 );
+
+        RepositoryClient client = new RepositoryClient( localRepo.getPath() );
+        client.setMaxConnectionsPerHost( 2 );
+        client.setConnectTimeout( 5000 );
+        client.setReadTimeout( 5000 );
+
+        List<ArtifactRequest> artifactRequests = new ArrayList<ArtifactRequest>();
+        RemoteRepository remote = new RemoteRepository( "http-test", "default", url );
+        for ( int x = 0; x < ARTIFACTS; x++ ) {
+            ArtifactRequest request = new ArtifactRequest();
+            request.setArtifact( new DefaultArtifact( "naether.http:artifact" + x + ":jar:1.0" ) );
+            request.addRepository( remote );
+            artifactRequests.add( request );
+        }
+
+        ParallelArtifactResolver resolver = new ParallelArtifactResolver( 4 );
+        long start = System.nanoTime();
+        List<ArtifactResult> results;
+        try {
+            results = resolver.resolveArtifacts( client, artifactRequests );
+        } finally {
+            resolver.shutdown();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        log.info( "{} requests, peak {} concurrent, {} requests/sec", new Object[] {
+            server.getRequests(), server.getPeak(), (long)( server.getRequests() / ( elapsed / 1e9 ) ) } );
+
+        assertEquals( ARTIFACTS, results.size() );
+        for ( ArtifactResult result : results ) {
+            assertTrue( result.getArtifact().getFile().exists() );
+        }
+        assertTrue( "peak concurrent requests " + server.getPeak(), server.getPeak() <= 2 );
+    }
+}
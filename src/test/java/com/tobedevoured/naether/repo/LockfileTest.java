@@ -0,0 +1,223 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.graph.Dependency;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+import org.sonatype.aether.util.graph.DefaultDependencyNode;
+import org.sonatype.aether.util.graph.PreorderNodeListGenerator;
+
+import com.tobedevoured.naether.DependencyException;
+import com.tobedevoured.naether.impl.NaetherImpl;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link Lockfile}
+ *
+ * @author Michael Guymon
+ *
+ */
+public class LockfileTest {
+
+    private static final String POM = "<project><modelVersion>4.0.0</modelVersion>" +
+        "<groupId>naether.lock</groupId><artifactId>%s</artifactId><version>1.0</version>" +
+        "<dependencies>%s</dependencies></project>";
+
+    private static final String DEPENDENCY = "<dependency><groupId>naether.lock</groupId>" +
+        "<artifactId>%s</artifactId><version>1.0</version></dependency>";
+
+    private HttpRepositoryServer server;
+    private File dir;
+
+    @Before
+    public void setup() throws IOException {
+        dir = new File( "target/test-lockfile" );
+        FileUtils.deleteDirectory( dir );
+        dir.mkdirs();
+
+        server = new HttpRepositoryServer();
+        addArtifact( "app", "lib" );
+        addArtifact( "lib", "util" );
+        addArtifact( "util", null );
+    }
+
+    @After
+    public void teardown() {
+        server.stop();
+    }
+
+    @Test
+    public void writeAndReadKeepsGraph() throws IOException {
+        DefaultDependencyNode a = node( "a" );
+        DefaultDependencyNode b = node( "b" );
+        DefaultDependencyNode c = node( "c" );
+        DefaultDependencyNode d = node( "d" );
+        a.getChildren().add( b );
+        a.getChildren().add( c );
+        b.getChildren().add( c );
+        c.getChildren().add( d );
+
+        DefaultDependencyNode root = new DefaultDependencyNode();
+        root.getChildren().add( a );
+        root.getChildren().add( d );
+
+        PreorderNodeListGenerator generator = new PreorderNodeListGenerator();
+        root.accept( generator );
+
+        File file = new File( dir, "naether.lock" );
+        Lockfile.create( "key", generator.getNodes(), null ).write( file );
+        Lockfile lockfile = Lockfile.read( file );
+
+        assertEquals( "key", lockfile.getKey() );
+        assertEquals( 4, lockfile.getEntries().size() );
+        assertEquals( "c", lockfile.getEntries().get( 2 ).getArtifact().getArtifactId() );
+        assertEquals( "c is a child of b, where it was visited", 1, lockfile.getEntries().get( 2 ).getParent() );
+        assertEquals( "test", lockfile.getEntries().get( 2 ).getScope() );
+
+        PreorderNodeListGenerator rebuilt = new PreorderNodeListGenerator();
+        lockfile.toGraph( Collections.<RemoteRepository>emptyList() ).accept( rebuilt );
+        assertEquals( generator.getDependencies( true ).toString(), rebuilt.getDependencies( true ).toString() );
+    }
+
+    @Test
+    public void resolveFromLockfileSkipsDescriptors() throws Exception {
+        File lock = new File( dir, "naether.lock" );
+
+        NaetherImpl naether = naether( "repo1" );
+        naether.resolveDependencies();
+        assertTrue( lock.exists() );
+        assertEquals( 3, naether.getDependenciesNotation().size() );
+
+        Lockfile lockfile = Lockfile.read( lock );
+        assertEquals( "lock-test", lockfile.getEntries().get( 0 ).getRepositoryId() );
+        assertEquals( HttpRepositoryServer.sha1( "jar util" ), lockfile.getEntries().get( 2 ).getSha1() );
+
+        int requests = server.getRequests();
+        naether = naether( "repo2" );
+        naether.resolveDependencies();
+
+        assertEquals( 3, naether.getDependenciesNotation().size() );
+        assertTrue( new File( dir, "repo2/naether/lock/util/1.0/util-1.0.jar" ).exists() );
+        assertFalse( "no descriptors read", new File( dir, "repo2/naether/lock/util/1.0/util-1.0.pom" ).exists() );
+        assertEquals( "only the jars and their checksums", requests + 6, server.getRequests() );
+    }
+
+    @Test
+    public void resolveFromLockfileKeepsSystemScope() throws Exception {
+        File tool = new File( dir, "tool.jar" ).getAbsoluteFile();
+        FileUtils.writeStringToFile( tool, "jar tool" );
+        server.addArtifact( "naether/lock/system-app/1.0/system-app-1.0.jar", "jar system-app" );
+        server.addArtifact( "naether/lock/system-app/1.0/system-app-1.0.pom", String.format( POM, "system-app",
+            "<dependency><groupId>naether.lock</groupId><artifactId>tool</artifactId><version>1.0</version>" +
+            "<scope>system</scope><systemPath>" + tool.getPath() + "</systemPath></dependency>" ) );
+
+        File lock = new File( dir, "naether.lock" );
+        NaetherImpl naether = naether( "repo1" );
+        naether.clearDependencies();
+        naether.addDependency( "naether.lock:system-app:jar:1.0" );
+        naether.resolveDependencies();
+        assertEquals( 2, naether.getDependenciesNotation().size() );
+
+        String content = FileUtils.readFileToString( lock );
+        assertFalse( "no local files", content.contains( new File( dir, "repo1" ).getAbsolutePath() ) );
+
+        Lockfile.Entry entry = Lockfile.read( lock ).getEntries().get( 1 );
+        assertEquals( "system", entry.getScope() );
+        assertEquals( tool.getPath(), entry.getArtifact().getProperty( "localPath", null ) );
+
+        naether = naether( "repo2" );
+        naether.clearDependencies();
+        naether.addDependency( "naether.lock:system-app:jar:1.0" );
+        naether.resolveDependencies();
+
+        assertEquals( 2, naether.getDependenciesNotation().size() );
+        assertFalse( "not fetched from the remote", new File( dir, "repo2/naether/lock/tool" ).exists() );
+        assertTrue( naether.getDependenciesPath().containsValue( tool.getPath() ) );
+    }
+
+    @Test(expected=DependencyException.class)
+    public void resolveFromLockfileVerifiesSha1() throws Exception {
+        naether( "repo1" ).resolveDependencies();
+
+        server.addArtifact( "naether/lock/util/1.0/util-1.0.jar", "tampered" );
+        naether( "repo2" ).resolveDependencies();
+    }
+
+    @Test
+    public void outOfDateLockfileIsRewritten() throws Exception {
+        File lock = new File( dir, "naether.lock" );
+        naether( "repo1" ).resolveDependencies();
+        String key = Lockfile.read( lock ).getKey();
+
+        NaetherImpl naether = naether( "repo1" );
+        naether.addDependency( "naether.lock:util:jar:1.0" );
+        naether.resolveDependencies();
+
+        assertFalse( key.equals( Lockfile.read( lock ).getKey() ) );
+    }
+
+    @Test
+    public void mirrorsAndRoutingRulesChangeKey() throws Exception {
+        File lock = new File( dir, "naether.lock" );
+        naether( "repo1" ).resolveDependencies();
+        String key = Lockfile.read( lock ).getKey();
+
+        NaetherImpl naether = naether( "repo1" );
+        naether.addRoutingRule( "naether.lock", "lock-test" );
+        naether.resolveDependencies();
+        String routedKey = Lockfile.read( lock ).getKey();
+        assertFalse( key.equals( routedKey ) );
+
+        naether = naether( "repo1" );
+        naether.addRoutingRule( "naether.lock", "lock-test" );
+        naether.addMirror( "lock-mirror", server.getUrl(), "lock-test" );
+        naether.resolveDependencies();
+        assertFalse( routedKey.equals( Lockfile.read( lock ).getKey() ) );
+    }
+
+    private NaetherImpl naether( String localRepo ) {
+        NaetherImpl naether = new NaetherImpl();
+        naether.setLocalRepoPath( new File( dir, localRepo ).getPath() );
+        naether.clearRemoteRepositories();
+        naether.addRemoteRepository( "lock-test", "default", server.getUrl() );
+        naether.setLockfile( new File( dir, "naether.lock" ).getPath() );
+        naether.addDependency( "naether.lock:app:jar:1.0" );
+        return naether;
+    }
+
+    private void addArtifact( String artifactId, String dependency ) throws IOException {
+        String path = "naether/lock/" + artifactId + "/1.0/" + artifactId + "-1.0";
+        server.addArtifact( path + ".jar", "jar " + artifactId );
+        server.addArtifact( path + ".pom", String.format( POM, artifactId, dependency != null ? String.format( DEPENDENCY, dependency ) : "" ) );
+    }
+
+    private static DefaultDependencyNode node( String artifactId ) {
+        return new DefaultDependencyNode( new Dependency( new DefaultArtifact( "naether.lock:" + artifactId + ":jar:1.0" ), "test" ) );
+    }
+}
@@ -0,0 +1,160 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.resolution.ArtifactRequest;
+import org.sonatype.aether.resolution.ArtifactResult;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link NegativeCache}
+ *
+ * @author Michael Guymon
+ *
+ */
+public class NegativeCacheTest {
+
+    private static final String NOTATION = "naether.negative:lib:jar:1.0";
+    private static final String PATH = "naether/negative/lib/1.0/lib-1.0.jar";
+
+    private HttpRepositoryServer first;
+    private HttpRepositoryServer last;
+    private File localRepo;
+
+    @Before
+    public void setup() throws IOException {
+        first = new HttpRepositoryServer();
+        last = new HttpRepositoryServer();
+        last.addArtifact( PATH, "lib" );
+
+        localRepo = new File( "target/test-repo-negative" );
+        FileUtils.deleteDirectory( localRepo );
+    }
+
+    @After
+    public void teardown() {
+        first.stop();
+        last.stop();
+    }
+
+    @Test
+    public void missingArtifactIsNotRequestedAgain() throws Exception {
+        assertTrue( resolve( 60000 ).isResolved() );
+        int probes = first.getRequests();
+        assertEquals( 1, probes );
+
+        FileUtils.deleteDirectory( new File( localRepo, "naether" ) );
+        assertTrue( resolve( 60000 ).isResolved() );
+
+        assertEquals( "first repository is not probed again", probes, first.getRequests() );
+        assertEquals( 4, last.getRequests() );
+    }
+
+    @Test
+    public void expiredMissIsRequestedAgain() throws Exception {
+        resolve( 1 );
+        Thread.sleep( 5 );
+
+        FileUtils.deleteDirectory( new File( localRepo, "naether" ) );
+        resolve( 1 );
+
+        assertEquals( 2, first.getRequests() );
+    }
+
+    @Test
+    public void invalidateRepository() throws Exception {
+        RepositoryClient client = client( 60000 );
+        resolve( client );
+
+        client.getNegativeCache().invalidate( first.getUrl() + "/" );
+        assertEquals( 0, client.getNegativeCache().size() );
+
+        FileUtils.deleteDirectory( new File( localRepo, "naether" ) );
+        resolve( client );
+
+        assertEquals( 2, first.getRequests() );
+    }
+
+    @Test
+    public void cacheIsDisabledByDefault() throws Exception {
+        resolve( 0 );
+        FileUtils.deleteDirectory( new File( localRepo, "naether" ) );
+        resolve( 0 );
+
+        assertEquals( 2, first.getRequests() );
+        assertFalse( new File( localRepo, NegativeCache.CACHE ).exists() );
+    }
+
+    @Test
+    public void persistsMisses() throws Exception {
+        localRepo.mkdirs();
+        File file = new File( localRepo, NegativeCache.CACHE );
+
+        NegativeCache cache = new NegativeCache( file );
+        cache.addMissing( "http://repo1", "a.jar", 60000 );
+        cache.addMissing( "http://repo1", "b.jar", 60000 );
+        cache.addMissing( "http://repo2/", "a.jar", 60000 );
+        cache.addMissing( "http://repo2", "expired.jar", -1 );
+        cache.remove( "http://repo1", "b.jar" );
+        assertEquals( 5, FileUtils.readLines( file ).size() );
+
+        NegativeCache loaded = new NegativeCache( file );
+        assertTrue( loaded.isMissing( "http://repo1/", "a.jar" ) );
+        assertFalse( loaded.isMissing( "http://repo1", "b.jar" ) );
+        assertTrue( loaded.isMissing( "http://repo2", "a.jar" ) );
+        assertFalse( loaded.isMissing( "http://repo2", "expired.jar" ) );
+        assertEquals( "compacted when loaded", 2, FileUtils.readLines( file ).size() );
+
+        loaded.invalidate( "http://repo2" );
+        assertEquals( 1, new NegativeCache( file ).size() );
+    }
+
+    private ArtifactResult resolve( long ttl ) {
+        return resolve( client( ttl ) );
+    }
+
+    private ArtifactResult resolve( RepositoryClient client ) {
+        ArtifactRequest request = new ArtifactRequest();
+        request.setArtifact( new DefaultArtifact( NOTATION ) );
+        request.addRepository( new RemoteRepository( "first", "default", first.getUrl() ) );
+        request.addRepository( new RemoteRepository( "last", "default", last.getUrl() ) );
+
+        List<ArtifactResult> results = client.resolveArtifacts( Arrays.asList( request ) );
+        return results.get( 0 );
+    }
+
+    private RepositoryClient client( long ttl ) {
+        RepositoryClient client = new RepositoryClient( localRepo.getPath() );
+        client.setHttpConnector( true );
+        client.setNotFoundTtl( ttl );
+        return client;
+    }
+}
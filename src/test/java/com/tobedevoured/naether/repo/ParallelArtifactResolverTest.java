@@ -0,0 +1,204 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.resolution.ArtifactRequest;
+import org.sonatype.aether.resolution.ArtifactResolutionException;
+import org.sonatype.aether.resolution.ArtifactResult;
+import org.sonatype.aether.spi.connector.ArtifactDownload;
+import org.sonatype.aether.spi.connector.ArtifactUpload;
+import org.sonatype.aether.spi.connector.MetadataDownload;
+import org.sonatype.aether.spi.connector.MetadataUpload;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link ParallelArtifactResolver}
+ *
+ * @author Michael Guymon
+ *
+ */
+public class ParallelArtifactResolverTest {
+
+    private static final int ARTIFACTS = 12;
+
+    private File remoteRepo;
+    private File localRepo;
+    private ParallelArtifactResolver resolver;
+
+    @Before
+    public void setup() throws IOException {
+        remoteRepo = new File( "target/test-repo-parallel-remote" );
+        localRepo = new File( "target/test-repo-parallel" );
+        FileUtils.deleteDirectory( remoteRepo );
+        FileUtils.deleteDirectory( localRepo );
+
+        for ( int x = 0; x < ARTIFACTS; x++ ) {
+            File dir = new File( remoteRepo, "naether/parallel/artifact" + x + "/1.0" );
+            FileUtils.writeStringToFile( new File( dir, "artifact" + x + "-1.0.jar" ), "jar " + x );
+            FileUtils.writeStringToFile( new File( dir, "artifact" + x + "-1.0.jar.sha1" ), sha1( "jar " + x ) );
+        }
+
+        resolver = new ParallelArtifactResolver( 4 );
+    }
+
+    @After
+    public void teardown() {
+        resolver.shutdown();
+    }
+
+    @Test
+    public void resolveArtifactsInRequestOrder() throws Exception {
+        RepositoryClient client = new RepositoryClient( localRepo.getPath() );
+
+        List<ArtifactResult> results = resolver.resolveArtifacts( client, requests( ARTIFACTS ) );
+
+        assertEquals( ARTIFACTS, results.size() );
+        for ( int x = 0; x < ARTIFACTS; x++ ) {
+            ArtifactResult result = results.get( x );
+            assertEquals( "artifact" + x, result.getArtifact().getArtifactId() );
+            assertTrue( result.getArtifact().getFile().exists() );
+            assertEquals( "jar " + x, FileUtils.readFileToString( result.getArtifact().getFile() ) );
+        }
+    }
+
+    @Test
+    public void failureContainsAllResults() {
+        RepositoryClient client = new RepositoryClient( localRepo.getPath() );
+
+        List<ArtifactRequest> requests = requests( 3 );
+        ArtifactRequest missing = new ArtifactRequest();
+        missing.setArtifact( new DefaultArtifact( "naether.parallel:missing:jar:1.0" ) );
+        missing.addRepository( remote() );
+        requests.add( 1, missing );
+
+        try {
+            resolver.resolveArtifacts( client, requests );
+            fail( "missing artifact should fail" );
+        } catch ( ArtifactResolutionException e ) {
+            assertEquals( 4, e.getResults().size() );
+            assertTrue( e.getResults().get( 0 ).isResolved() );
+            assertFalse( e.getResults().get( 1 ).isResolved() );
+            assertTrue( e.getResults().get( 2 ).isResolved() );
+            assertTrue( e.getResults().get( 3 ).isResolved() );
+        }
+    }
+
+    @Test
+    public void idleThreadsStop() throws Exception {
+        ParallelArtifactResolver idleResolver = new ParallelArtifactResolver( 4, 50, TimeUnit.MILLISECONDS );
+        idleResolver.resolveArtifacts( new RepositoryClient( localRepo.getPath() ), requests( ARTIFACTS ) );
+        assertTrue( idleResolver.getPoolSize() > 0 );
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while ( idleResolver.getPoolSize() > 0 && System.currentTimeMillis() < deadline ) {
+            Thread.sleep( 20 );
+        }
+        assertEquals( "idle threads stopped without a shutdown", 0, idleResolver.getPoolSize() );
+    }
+
+    @Test
+    public void throttleLimitsConcurrentTransfers() throws Exception {
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+
+        RepositoryConnector connector = new RepositoryConnector() {
+            public void get( Collection<? extends ArtifactDownload> artifactDownloads, Collection<? extends MetadataDownload> metadataDownloads ) {
+                int current = active.incrementAndGet();
+                synchronized ( peak ) {
+                    peak.set( Math.max( peak.get(), current ) );
+                }
+                try {
+                    Thread.sleep( 20 );
+                } catch ( InterruptedException e ) {
+                    Thread.currentThread().interrupt();
+                }
+                active.decrementAndGet();
+            }
+
+            public void put( Collection<? extends ArtifactUpload> artifactUploads, Collection<? extends MetadataUpload> metadataUploads ) {
+            }
+
+            public void close() {
+            }
+        };
+
+        final ThrottledRepositoryConnector throttled = new ThrottledRepositoryConnector( connector, new Semaphore( 2, true ), 2 );
+        final CountDownLatch done = new CountDownLatch( 8 );
+        for ( int x = 0; x < 8; x++ ) {
+            new Thread( new Runnable() {
+                public void run() {
+                    throttled.get( new ArrayList<ArtifactDownload>( 1 ), null );
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+
+        assertTrue( "peak concurrent transfers " + peak.get(), peak.get() <= 2 );
+    }
+
+    private List<ArtifactRequest> requests( int count ) {
+        List<ArtifactRequest> requests = new ArrayList<ArtifactRequest>();
+        for ( int x = 0; x < count; x++ ) {
+            ArtifactRequest request = new ArtifactRequest();
+            request.setArtifact( new DefaultArtifact( "naether.parallel:artifact" + x + ":jar:1.0" ) );
+            request.addRepository( remote() );
+            requests.add( request );
+        }
+
+        return requests;
+    }
+
+    private static String sha1( String content ) throws IOException {
+        try {
+            byte[] digest = MessageDigest.getInstance( "SHA-1" ).digest( content.getBytes( "UTF-8" ) );
+            StringBuilder hex = new StringBuilder();
+            for ( byte b : digest ) {
+                hex.append( String.format( "%02x", b ) );
+            }
+            return hex.toString();
+        } catch ( NoSuchAlgorithmException e ) {
+            throw new IOException( e );
+        }
+    }
+
+    private RemoteRepository remote() {
+        return new RemoteRepository( "parallel", "default", remoteRepo.getAbsoluteFile().toURI().toString() );
+    }
+}
@@ -0,0 +1,155 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.collection.CollectRequest;
+import org.sonatype.aether.collection.CollectResult;
+import org.sonatype.aether.graph.Dependency;
+import org.sonatype.aether.graph.DependencyNode;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+import org.sonatype.aether.util.graph.PreorderNodeListGenerator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link ParallelDependencyCollector}
+ *
+ * @author Michael Guymon
+ *
+ */
+public class ParallelDependencyCollectorTest {
+
+    private static final int LIBS = 10;
+
+    private static final String POM = "<project><modelVersion>4.0.0</modelVersion>" +
+        "<groupId>naether.parallel</groupId><artifactId>%s</artifactId><version>%s</version>" +
+        "<dependencies>%s</dependencies></project>";
+
+    private static final String DEPENDENCY = "<dependency><groupId>naether.parallel</groupId>" +
+        "<artifactId>%s</artifactId><version>%s</version>%s</dependency>";
+
+    private HttpRepositoryServer server;
+    private File dir;
+    private RemoteRepository remote;
+    private ParallelDependencyCollector collector;
+
+    @Before
+    public void setup() throws IOException {
+        dir = new File( "target/test-parallel-collect" );
+        FileUtils.deleteDirectory( dir );
+
+        server = new HttpRepositoryServer();
+        remote = new RemoteRepository( "parallel", "default", server.getUrl() );
+        collector = new ParallelDependencyCollector( 8 );
+
+        StringBuilder libs = new StringBuilder();
+        for ( int x = 0; x < LIBS; x++ ) {
+            String exclusions = x == 0 ? "<exclusions><exclusion><groupId>naether.parallel</groupId><artifactId>util</artifactId></exclusion></exclusions>" : "";
+            libs.append( String.format( DEPENDENCY, "lib" + x, "1.0", exclusions ) );
+
+            String dependencies = String.format( DEPENDENCY, "common", ( x % 3 + 1 ) + ".0", "" );
+            if ( x == 0 ) {
+                dependencies += String.format( DEPENDENCY, "util", "1.0", "" );
+            } else if ( x == 1 ) {
+                dependencies += String.format( DEPENDENCY, "system", "1.0", "<scope>system</scope><systemPath>" + new File( dir, "missing.jar" ).getAbsolutePath() + "</systemPath>" );
+            }
+            addArtifact( "lib" + x, "1.0", dependencies );
+        }
+        addArtifact( "app", "1.0", libs.toString() );
+        addArtifact( "util", "1.0", "" );
+        for ( int x = 1; x <= 3; x++ ) {
+            addArtifact( "common", x + ".0", "" );
+        }
+
+        RepositoryClient.getDescriptorCache().clear();
+    }
+
+    @After
+    public void teardown() {
+        collector.shutdown();
+        server.stop();
+        RepositoryClient.getDescriptorCache().clear();
+    }
+
+    @Test
+    public void collectsSameGraphAsSequential() throws Exception {
+        int requests = server.getRequests();
+        String sequential = collect( null, "sequential" );
+        int sequentialRequests = server.getRequests() - requests;
+
+        RepositoryClient.getDescriptorCache().clear();
+        requests = server.getRequests();
+        String parallel = collect( collector, "parallel" );
+
+        assertEquals( sequential, parallel );
+        assertEquals( "each pom is only read once", sequentialRequests, server.getRequests() - requests );
+        assertTrue( parallel.contains( "common:jar:1.0" ) );
+        assertFalse( "mediated", parallel.contains( "common:jar:2.0" ) );
+        assertFalse( "excluded", parallel.contains( "util" ) );
+        assertFalse( "invalid system scope", parallel.contains( "system" ) );
+        assertFalse( "excluded descriptor is not prefetched", new File( dir, "parallel/naether/parallel/util" ).exists() );
+    }
+
+    @Test
+    public void readsSiblingDescriptorsConcurrently() throws Exception {
+        server.setDelay( 100 );
+
+        long start = System.currentTimeMillis();
+        collect( collector, "parallel" );
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue( "peak " + server.getPeak(), server.getPeak() > 1 );
+        assertTrue( "collected in " + elapsed + "ms", elapsed < LIBS * 2 * 100 );
+    }
+
+    private String collect( ParallelDependencyCollector collector, String localRepo ) throws Exception {
+        RepositoryClient client = new RepositoryClient( new File( dir, localRepo ).getPath() );
+
+        CollectRequest request = new CollectRequest();
+        request.addDependency( new Dependency( new DefaultArtifact( "naether.parallel:app:jar:1.0" ), "compile" ) );
+        request.addRepository( remote );
+
+        CollectResult result = collector != null ? collector.collectDependencies( client, request ) : client.collectDependencies( request );
+
+        PreorderNodeListGenerator generator = new PreorderNodeListGenerator();
+        result.getRoot().accept( generator );
+
+        List<String> artifacts = new ArrayList<String>();
+        for ( DependencyNode node : generator.getNodes() ) {
+            artifacts.add( node.getDependency().getArtifact() + " " + node.getDependency().getScope() );
+        }
+
+        return artifacts.toString();
+    }
+
+    private void addArtifact( String artifactId, String version, String dependencies ) throws IOException {
+        String path = "naether/parallel/" + artifactId + "/" + version + "/" + artifactId + "-" + version;
+        server.addArtifact( path + ".jar", "jar " + artifactId );
+        server.addArtifact( path + ".pom", String.format( POM, artifactId, version, dependencies ) );
+    }
+}
@@ -0,0 +1,144 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonatype.aether.RepositorySystem;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
+import org.sonatype.aether.resolution.ArtifactRequest;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link RepositoryClient}
+ *
+ * @author Michael Guymon
+ *
+ */
+public class RepositoryClientTest {
+
+    private static Logger log = LoggerFactory.getLogger(RepositoryClientTest.class);
+
+    private static final int ITERATIONS = 200;
+
+    @Test
+    public void repositorySystemIsShared() {
+        RepositoryClient client1 = new RepositoryClient( "target/test-repo" );
+        RepositoryClient client2 = new RepositoryClient( "target/test-repo-2" );
+
+        assertSame( client1.getRepositorySystem(), client2.getRepositorySystem() );
+        assertSame( RepositoryClient.getSharedRepositorySystem(), client1.getRepositorySystem() );
+    }
+
+    @Test
+    public void copyIsolatesSessionState() {
+        RepositoryClient client = new RepositoryClient( "target/test-repo" );
+
+        RepositoryClient copy = new RepositoryClient( client );
+        Map<String,String> properties = new HashMap<String,String>();
+        properties.put( "naether.test", "copy" );
+        copy.setProperties( properties );
+
+        ArrayList<Artifact> artifacts = new ArrayList<Artifact>();
+        artifacts.add( new DefaultArtifact( "buildArtifact:test:jar:0.1" ) );
+        copy.setBuildWorkspaceReader( artifacts );
+
+        assertEquals( "copy", copy.getSystemSession().getUserProperties().get( "naether.test" ) );
+        assertNull( client.getSystemSession().getUserProperties().get( "naether.test" ) );
+        assertTrue( copy.getSystemSession().getWorkspaceReader() instanceof BuildWorkspaceReader );
+        assertNull( client.getSystemSession().getWorkspaceReader() );
+
+        assertSame( client.getRepositorySystem(), copy.getRepositorySystem() );
+        assertSame( client.getSystemSession().getLocalRepositoryManager(), copy.getSystemSession().getLocalRepositoryManager() );
+        assertSame( client.getSystemSession().getDependencySelector(), copy.getSystemSession().getDependencySelector() );
+        assertSame( client.getSystemSession().getCache(), copy.getSystemSession().getCache() );
+        assertNotSame( "update checks are not shared", client.getSystemSession().getData(), copy.getSystemSession().getData() );
+    }
+
+    @Test
+    public void offlineResolvesOnlyFromLocalRepository() throws IOException {
+        File remoteRepo = new File( "target/test-repo-offline-remote" );
+        File localRepo = new File( "target/test-repo-offline" );
+        FileUtils.deleteDirectory( remoteRepo );
+        FileUtils.deleteDirectory( localRepo );
+        FileUtils.writeStringToFile( new File( remoteRepo, "naether/offline/artifact/1.0/artifact-1.0.jar" ), "jar" );
+
+        ArtifactRequest request = new ArtifactRequest();
+        request.setArtifact( new DefaultArtifact( "naether.offline:artifact:jar:1.0" ) );
+        request.addRepository( new RemoteRepository( "offline", "default", remoteRepo.getAbsoluteFile().toURI().toString() ) );
+
+        RepositoryClient client = new RepositoryClient( localRepo.getPath() );
+        client.setOffline( true );
+        assertFalse( "not in the local repo", client.resolveArtifacts( Arrays.asList( request ) ).get(0).isResolved() );
+
+        client.setOffline( false );
+        assertTrue( client.resolveArtifacts( Arrays.asList( request ) ).get(0).isResolved() );
+
+        client.setOffline( true );
+        assertTrue( "resolved from the local repo", client.resolveArtifacts( Arrays.asList( request ) ).get(0).isResolved() );
+    }
+
+    @Test
+    public void localFirstNeverUpdates() {
+        RepositoryClient client = new RepositoryClient( "target/test-repo" );
+
+        client.setLocalFirst( true );
+        assertEquals( RepositoryPolicy.UPDATE_POLICY_NEVER, client.getSystemSession().getUpdatePolicy() );
+
+        client.setLocalFirst( false );
+        assertNull( client.getSystemSession().getUpdatePolicy() );
+    }
+
+    @Test
+    public void benchmarkPerCallOverhead() {
+        // warm up class loading before measuring
+        RepositoryClient client = new RepositoryClient( "target/test-repo" );
+        RepositoryClient.newServiceLocator().getService( RepositorySystem.class );
+
+        long start = System.nanoTime();
+        for ( int x = 0; x < ITERATIONS; x++ ) {
+            RepositoryClient.newServiceLocator().getService( RepositorySystem.class );
+            new RepositoryClient( "target/test-repo" );
+        }
+        long perCallRebuild = ( System.nanoTime() - start ) / ITERATIONS;
+
+        start = System.nanoTime();
+        for ( int x = 0; x < ITERATIONS; x++ ) {
+            new RepositoryClient( client );
+        }
+        long perCallCopy = ( System.nanoTime() - start ) / ITERATIONS;
+
+        log.info( "Per call overhead: rebuild {} ns, session copy {} ns", perCallRebuild, perCallCopy );
+
+        assertTrue( "session copy should be cheaper than rebuilding the repository system", perCallCopy < perCallRebuild );
+    }
+}
@@ -0,0 +1,112 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.repository.RemoteRepository;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link RepositoryHealth}
+ *
+ * @author Michael Guymon
+ *
+ */
+public class RepositoryHealthTest {
+
+    private RepositoryHealth health;
+
+    @Before
+    public void setup() {
+        health = new RepositoryHealth();
+        health.setFailureThreshold( 2 );
+        health.setSlowThreshold( 100 );
+    }
+
+    @Test
+    public void failuresMarkRepositoryDown() {
+        health.recordFailure( "http://a/repo" );
+        assertFalse( health.isDemoted( "http://a/repo" ) );
+        assertFalse( health.isDown( "http://a/repo" ) );
+
+        health.recordFailure( "http://a/repo/" );
+        assertTrue( health.isDemoted( "http://a/repo" ) );
+        assertTrue( health.isDown( "http://a/repo" ) );
+    }
+
+    @Test
+    public void successClearsFailures() {
+        health.recordFailure( "http://a/repo" );
+        health.recordSuccess( "http://a/repo", 10 );
+        health.recordFailure( "http://a/repo" );
+
+        assertFalse( health.isDown( "http://a/repo" ) );
+    }
+
+    @Test
+    public void slowRepositoryIsDemotedButNotDown() {
+        health.recordSuccess( "http://slow/repo", 500 );
+
+        assertTrue( health.isDemoted( "http://slow/repo" ) );
+        assertFalse( health.isDown( "http://slow/repo" ) );
+    }
+
+    @Test
+    public void coolDownExpires() throws InterruptedException {
+        health.setCoolDown( 50 );
+        health.recordFailure( "http://a/repo" );
+        health.recordFailure( "http://a/repo" );
+        assertTrue( health.isDown( "http://a/repo" ) );
+
+        Thread.sleep( 100 );
+        assertFalse( health.isDown( "http://a/repo" ) );
+        assertFalse( health.isDemoted( "http://a/repo" ) );
+    }
+
+    @Test
+    public void orderPutsHealthyRepositoriesFirst() {
+        health.recordSuccess( "http://slow/repo", 500 );
+
+        List<RemoteRepository> ordered = health.order( Arrays.asList(
+            new RemoteRepository( "slow", "default", "http://slow/repo" ),
+            new RemoteRepository( "a", "default", "http://a/repo" ),
+            new RemoteRepository( "b", "default", "http://b/repo" ) ) );
+
+        assertEquals( "a", ordered.get( 0 ).getId() );
+        assertEquals( "b", ordered.get( 1 ).getId() );
+        assertEquals( "slow", ordered.get( 2 ).getId() );
+    }
+
+    @Test
+    public void selectSkipsDemotedUrls() {
+        List<String> urls = Arrays.asList( "http://a/repo", "http://b/repo" );
+        assertEquals( "http://a/repo", health.select( urls ) );
+
+        health.recordSuccess( "http://a/repo", 500 );
+        assertEquals( "http://b/repo", health.select( urls ) );
+
+        health.recordSuccess( "http://b/repo", 500 );
+        assertEquals( "all demoted, first to cool down", "http://a/repo", health.select( urls ) );
+    }
+}
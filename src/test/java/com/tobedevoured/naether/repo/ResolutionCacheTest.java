@@ -0,0 +1,152 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.graph.Dependency;
+import org.sonatype.aether.graph.DependencyNode;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+import org.sonatype.aether.util.graph.DefaultDependencyNode;
+import org.sonatype.aether.util.graph.PreorderNodeListGenerator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link ResolutionCache}
+ *
+ * @author Michael Guymon
+ *
+ */
+public class ResolutionCacheTest {
+
+    private File localRepo;
+    private ResolutionCache cache;
+    private List<RemoteRepository> repositories;
+
+    @Before
+    public void setup() throws IOException {
+        localRepo = new File( "target/test-repo-resolution-cache" );
+        FileUtils.deleteDirectory( localRepo );
+
+        cache = new ResolutionCache( localRepo.getPath() );
+        repositories = Arrays.asList( new RemoteRepository( "central", "default", "https://repo1.maven.org/maven2/" ) );
+    }
+
+    @Test
+    public void keyIsStable() {
+        Dependency junit = new Dependency( new DefaultArtifact( "junit:junit:jar:4.10" ), "test" );
+        Dependency hamcrest = new Dependency( new DefaultArtifact( "org.hamcrest:hamcrest-core:jar:1.1" ), "compile" );
+
+        String key = ResolutionCache.key( Arrays.asList( junit, hamcrest ), repositories, null, null, true );
+
+        assertEquals( key, ResolutionCache.key( Arrays.asList( hamcrest, junit ), repositories, null, null, true ) );
+        assertFalse( key.equals( ResolutionCache.key( Arrays.asList( junit, hamcrest ), repositories, null, null, false ) ) );
+        assertFalse( key.equals( ResolutionCache.key( Arrays.asList( junit ), repositories, null, null, true ) ) );
+
+        Map<String,String> properties = new HashMap<String,String>();
+        properties.put( "env", "ci" );
+        assertFalse( key.equals( ResolutionCache.key( Arrays.asList( junit, hamcrest ), repositories, properties, null, true ) ) );
+
+        List<Artifact> buildArtifacts = new ArrayList<Artifact>();
+        buildArtifacts.add( new DefaultArtifact( "build:artifact:jar:0.1" ) );
+        assertFalse( key.equals( ResolutionCache.key( Arrays.asList( junit, hamcrest ), repositories, null, buildArtifacts, true ) ) );
+
+        List<RemoteRepository> otherRepositories = Arrays.asList( new RemoteRepository( "other", "default", "http://example.com/maven2/" ) );
+        assertFalse( key.equals( ResolutionCache.key( Arrays.asList( junit, hamcrest ), otherRepositories, null, null, true ) ) );
+
+        RemoteRepository neverUpdated = new RemoteRepository( "central", "default", "https://repo1.maven.org/maven2/" );
+        neverUpdated.setPolicy( false, new RepositoryPolicy( true, RepositoryPolicy.UPDATE_POLICY_NEVER, RepositoryPolicy.CHECKSUM_POLICY_WARN ) );
+        assertFalse( key.equals( ResolutionCache.key( Arrays.asList( junit, hamcrest ), Arrays.asList( neverUpdated ), null, null, true ) ) );
+
+        Map<String,Set<String>> routingRules = new HashMap<String,Set<String>>();
+        routingRules.put( "junit", new HashSet<String>( Arrays.asList( "central" ) ) );
+        assertEquals( key, ResolutionCache.key( Arrays.asList( junit, hamcrest ), repositories, new HashMap<String,Set<String>>(), null, null, true ) );
+        assertFalse( key.equals( ResolutionCache.key( Arrays.asList( junit, hamcrest ), repositories, routingRules, null, null, true ) ) );
+    }
+
+    @Test
+    public void storeAndLoad() throws IOException {
+        File junitJar = new File( localRepo, "junit-4.10.jar" );
+        File hamcrestJar = new File( localRepo, "hamcrest core.jar" );
+        FileUtils.writeStringToFile( junitJar, "junit" );
+        FileUtils.writeStringToFile( hamcrestJar, "hamcrest" );
+
+        Map<String,String> properties = Collections.singletonMap( "localPath", "/tmp/a b" );
+        DefaultDependencyNode junit = new DefaultDependencyNode(
+            new Dependency( new DefaultArtifact( "junit:junit:jar:4.10" ).setFile( junitJar ), "test" ) );
+        DefaultDependencyNode hamcrest = new DefaultDependencyNode(
+            new Dependency( new DefaultArtifact( "org.hamcrest", "hamcrest-core", "sources", "jar", "1.1", properties, hamcrestJar ), "test", true ) );
+        junit.getChildren().add( hamcrest );
+
+        DefaultDependencyNode root = new DefaultDependencyNode();
+        root.getChildren().add( junit );
+
+        cache.store( "key", root );
+
+        DependencyNode loaded = cache.load( "key", true );
+        assertNotNull( loaded );
+
+        PreorderNodeListGenerator nodes = new PreorderNodeListGenerator();
+        loaded.accept( nodes );
+        assertEquals( 2, nodes.getNodes().size() );
+
+        Dependency loadedJunit = nodes.getNodes().get( 0 ).getDependency();
+        assertEquals( "junit:junit:jar:4.10", loadedJunit.getArtifact().toString() );
+        assertEquals( "test", loadedJunit.getScope() );
+        assertEquals( junitJar.getAbsoluteFile(), loadedJunit.getArtifact().getFile() );
+
+        Dependency loadedHamcrest = nodes.getNodes().get( 1 ).getDependency();
+        assertEquals( "org.hamcrest:hamcrest-core:jar:sources:1.1", loadedHamcrest.getArtifact().toString() );
+        assertTrue( loadedHamcrest.isOptional() );
+        assertEquals( "/tmp/a b", loadedHamcrest.getArtifact().getProperty( "localPath", null ) );
+        assertEquals( hamcrestJar.getAbsoluteFile(), loadedHamcrest.getArtifact().getFile() );
+        assertSame( nodes.getNodes().get( 1 ), nodes.getNodes().get( 0 ).getChildren().get( 0 ) );
+
+        assertTrue( hamcrestJar.delete() );
+        assertNull( "missing file invalidates the cache", cache.load( "key", true ) );
+        assertNotNull( "files are not verified without downloads", cache.load( "key", false ) );
+    }
+
+    @Test
+    public void snapshotsAreNotCached() {
+        DefaultDependencyNode root = new DefaultDependencyNode();
+        root.getChildren().add( new DefaultDependencyNode(
+            new Dependency( new DefaultArtifact( "naether:snapshot:jar:1.0-SNAPSHOT" ), "compile" ) ) );
+
+        cache.store( "snapshot", root );
+
+        assertNull( cache.load( "snapshot", false ) );
+    }
+}
@@ -0,0 +1,163 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tobedevoured.naether.api.DownloadResult;
+import com.tobedevoured.naether.api.ResolutionListener;
+import com.tobedevoured.naether.impl.NaetherImpl;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link ResolutionEventDispatcher}
+ *
+ * @author Michael Guymon
+ *
+ */
+public class ResolutionEventDispatcherTest {
+
+    private static final String POM = "<project><modelVersion>4.0.0</modelVersion>" +
+        "<groupId>naether.events</groupId><artifactId>%s</artifactId><version>1.0</version>" +
+        "<dependencies>%s</dependencies></project>";
+
+    private static final String DEPENDENCY = "<dependency><groupId>naether.events</groupId>" +
+        "<artifactId>%s</artifactId><version>1.0</version></dependency>";
+
+    private HttpRepositoryServer server;
+    private File localRepo;
+    private RecordingListener listener;
+    private NaetherImpl naether;
+
+    @Before
+    public void setup() throws IOException {
+        localRepo = new File( "target/test-repo-events" );
+        FileUtils.deleteDirectory( localRepo );
+
+        server = new HttpRepositoryServer();
+        addArtifact( "app", "lib" );
+        addArtifact( "lib", null );
+
+        listener = new RecordingListener();
+        naether = new NaetherImpl();
+        naether.setLocalRepoPath( localRepo.getPath() );
+        naether.clearRemoteRepositories();
+        naether.addRemoteRepository( "events", "default", server.getUrl() );
+        naether.addResolutionListener( listener );
+    }
+
+    @After
+    public void teardown() {
+        server.stop();
+    }
+
+    @Test
+    public void resolveDependenciesFiresEvents() throws Exception {
+        naether.addDependency( "naether.events:app:jar:1.0" );
+        naether.resolveDependencies();
+
+        assertEquals( Arrays.asList( "naether.events:app:jar:1.0 compile", "naether.events:lib:jar:1.0 compile" ), listener.collected );
+        assertEquals( "only the jars, not the poms", 2, listener.resolved.size() );
+        for ( File file : listener.resolved.values() ) {
+            assertTrue( file.exists() );
+        }
+        assertEquals( new File( localRepo, "naether/events/lib/1.0/lib-1.0.jar" ).getAbsoluteFile(),
+            listener.resolved.get( "naether.events:lib:jar:1.0" ).getAbsoluteFile() );
+        assertTrue( listener.failed.isEmpty() );
+    }
+
+    @Test
+    public void downloadArtifactsFiresFailures() throws Exception {
+        DownloadResult result = naether.batchDownloadArtifacts( Arrays.asList( "naether.events:lib:jar:1.0", "naether.events:missing:jar:1.0" ) );
+
+        assertEquals( 1, result.getFailures().size() );
+        assertEquals( Collections.singleton( "naether.events:lib:jar:1.0" ), listener.resolved.keySet() );
+        assertEquals( Collections.singleton( "naether.events:missing:jar:1.0" ), listener.failed.keySet() );
+    }
+
+    @Test
+    public void failingListenerDoesNotStopResolution() throws Exception {
+        naether.addResolutionListener( new ResolutionListener() {
+            public void dependencyCollected( String notation, String scope ) {
+                throw new IllegalStateException( "collected" );
+            }
+
+            public void artifactResolved( String notation, File file ) {
+                throw new IllegalStateException( "resolved" );
+            }
+
+            public void artifactFailed( String notation, Exception exception ) {
+                throw new IllegalStateException( "failed" );
+            }
+        } );
+
+        naether.addDependency( "naether.events:app:jar:1.0" );
+        naether.resolveDependencies();
+
+        assertEquals( 2, naether.getDependenciesNotation().size() );
+        assertEquals( 2, listener.resolved.size() );
+    }
+
+    @Test
+    public void removedListenerIsNotNotified() throws Exception {
+        naether.removeResolutionListener( listener );
+        naether.addDependency( "naether.events:app:jar:1.0" );
+        naether.resolveDependencies();
+
+        assertTrue( listener.collected.isEmpty() );
+        assertTrue( listener.resolved.isEmpty() );
+    }
+
+    private void addArtifact( String artifactId, String dependency ) throws IOException {
+        String path = "naether/events/" + artifactId + "/1.0/" + artifactId + "-1.0";
+        server.addArtifact( path + ".jar", "jar " + artifactId );
+        server.addArtifact( path + ".pom", String.format( POM, artifactId, dependency != null ? String.format( DEPENDENCY, dependency ) : "" ) );
+    }
+
+    private static class RecordingListener implements ResolutionListener {
+        final List<String> collected = Collections.synchronizedList( new ArrayList<String>() );
+        final Map<String,File> resolved = new ConcurrentHashMap<String,File>();
+        final Map<String,Exception> failed = new ConcurrentHashMap<String,Exception>();
+
+        public void dependencyCollected( String notation, String scope ) {
+            collected.add( notation + " " + scope );
+        }
+
+        public void artifactResolved( String notation, File file ) {
+            resolved.put( notation, file );
+        }
+
+        public void artifactFailed( String notation, Exception exception ) {
+            failed.put( notation, exception );
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.SocketException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.resolution.ArtifactRequest;
+import org.sonatype.aether.resolution.ArtifactResult;
+import org.sonatype.aether.transfer.ArtifactNotFoundException;
+import org.sonatype.aether.transfer.ArtifactTransferException;
+import org.sonatype.aether.transfer.ChecksumFailureException;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link RetryingRepositoryConnector}
+ *
+ * @author Michael Guymon
+ *
+ */
+public class RetryingRepositoryConnectorTest {
+
+    private static final String PATH = "naether/retry/flaky/1.0/flaky-1.0.jar";
+
+    private HttpRepositoryServer server;
+    private File localRepo;
+    private RepositoryClient client;
+
+    @Before
+    public void setup() throws IOException {
+        server = new HttpRepositoryServer();
+        server.addArtifact( PATH, "flaky jar" );
+
+        localRepo = new File( "target/test-repo-retry" );
+        FileUtils.deleteDirectory( localRepo );
+
+        client = new RepositoryClient( localRepo.getPath() );
+        client.setHttpConnector( true );
+        client.setRetries( 2 );
+        client.setRetryBackoff( 10, 50 );
+        RepositoryClient.getRepositoryHealth().clear();
+    }
+
+    @After
+    public void teardown() {
+        server.stop();
+        RepositoryClient.getRepositoryHealth().clear();
+    }
+
+    @Test
+    public void retriesTransientStatus() throws Exception {
+        server.failWith( PATH, 503, 2 );
+
+        ArtifactResult result = resolve( "naether.retry:flaky:jar:1.0" );
+
+        assertTrue( result.isResolved() );
+        assertEquals( "flaky jar", FileUtils.readFileToString( result.getArtifact().getFile() ) );
+        assertEquals( 2, RepositoryClient.getRepositoryHealth().getRetries( server.getUrl() ) );
+        assertFalse( "only the final outcome counts", RepositoryClient.getRepositoryHealth().isDemoted( server.getUrl() ) );
+    }
+
+    @Test
+    public void retriesResetConnection() throws Exception {
+        server.failAfter( PATH, 3 );
+
+        ArtifactResult result = resolve( "naether.retry:flaky:jar:1.0" );
+
+        assertEquals( "flaky jar", FileUtils.readFileToString( result.getArtifact().getFile() ) );
+        assertEquals( 1, RepositoryClient.getRepositoryHealth().getRetries() );
+    }
+
+    @Test
+    public void giveUpAfterRetries() throws Exception {
+        server.failWith( PATH, 502, 5 );
+
+        ArtifactResult result = resolve( "naether.retry:flaky:jar:1.0" );
+
+        assertFalse( result.isResolved() );
+        assertEquals( 2, RepositoryClient.getRepositoryHealth().getRetries( server.getUrl() ) );
+        assertEquals( "first request and two retries", 3, server.getRequests() );
+    }
+
+    @Test
+    public void permanentFailuresAreNotRetried() throws Exception {
+        server.failWith( PATH, 401, 1 );
+        assertFalse( resolve( "naether.retry:flaky:jar:1.0" ).isResolved() );
+        assertFalse( resolve( "naether.retry:missing:jar:1.0" ).isResolved() );
+
+        assertEquals( 0, RepositoryClient.getRepositoryHealth().getRetries() );
+    }
+
+    @Test
+    public void backoffHoldsNoPermits() throws Exception {
+        server.addArtifact( "naether/retry/steady/1.0/steady-1.0.jar", "steady jar" );
+        server.failWith( PATH, 503, 1 );
+        client.setRepositoryThreads( 1 );
+        client.setRetryBackoff( 3000, 3000 );
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ArtifactResult> flaky = executor.submit( new Callable<ArtifactResult>() {
+                public ArtifactResult call() {
+                    return resolve( "naether.retry:flaky:jar:1.0" );
+                }
+            });
+
+            // wait for the flaky download to back off, then take the only permit
+            while ( server.getRequests() == 0 ) {
+                Thread.sleep( 10 );
+            }
+            Thread.sleep( 200 );
+
+            long start = System.currentTimeMillis();
+            assertTrue( resolve( "naether.retry:steady:jar:1.0" ).isResolved() );
+            assertTrue( "not blocked by the backoff", System.currentTimeMillis() - start < 1000 );
+            assertFalse( flaky.isDone() );
+
+            assertTrue( flaky.get( 30, TimeUnit.SECONDS ).isResolved() );
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void classifiesFailures() {
+        DefaultArtifact artifact = new DefaultArtifact( "naether.retry:flaky:jar:1.0" );
+        RemoteRepository remote = remote();
+
+        assertTrue( RetryingRepositoryConnector.isRetryable( new ArtifactTransferException( artifact, remote, new SocketException( "Connection reset" ) ) ) );
+        assertTrue( RetryingRepositoryConnector.isRetryable( new ArtifactTransferException( artifact, remote,
+            new IOException( "Failed to transfer http://localhost/flaky-1.0.jar. Return code is: 503, ReasonPhrase: Service Unavailable." ) ) ) );
+        assertTrue( RetryingRepositoryConnector.isRetryable( new ArtifactTransferException( artifact, remote,
+            new Exception( "Failed to transfer file: http://localhost/flaky-1.0.jar. Return code is: 429" ) ) ) );
+
+        assertFalse( RetryingRepositoryConnector.isRetryable( null ) );
+        assertFalse( RetryingRepositoryConnector.isRetryable( new ArtifactNotFoundException( artifact, remote ) ) );
+        assertFalse( RetryingRepositoryConnector.isRetryable( new ArtifactTransferException( artifact, remote, new FileNotFoundException() ) ) );
+        assertFalse( RetryingRepositoryConnector.isRetryable( new ArtifactTransferException( artifact, remote, new ChecksumFailureException( "mismatch" ) ) ) );
+        assertFalse( RetryingRepositoryConnector.isRetryable( new ArtifactTransferException( artifact, remote,
+            new IOException( "Failed to transfer http://localhost/flaky-1.0.jar. Return code is: 403" ) ) ) );
+    }
+
+    @Test
+    public void backoffGrowsWithJitter() {
+        RetryingRepositoryConnector connector = new RetryingRepositoryConnector( null, new RepositoryHealth(), server.getUrl(), 10, 100, 1000 );
+
+        for ( int x = 0; x < 20; x++ ) {
+            long first = connector.delay( 0 );
+            assertTrue( "first " + first, first >= 50 && first <= 100 );
+            long third = connector.delay( 2 );
+            assertTrue( "third " + third, third >= 200 && third <= 400 );
+            long capped = connector.delay( 40 );
+            assertTrue( "capped " + capped, capped >= 500 && capped <= 1000 );
+        }
+    }
+
+    private ArtifactResult resolve( String notation ) {
+        ArtifactRequest request = new ArtifactRequest();
+        request.setArtifact( new DefaultArtifact( notation ) );
+        request.addRepository( remote() );
+
+        List<ArtifactResult> results = client.resolveArtifacts( Arrays.asList( request ) );
+        return results.get( 0 );
+    }
+
+    private RemoteRepository remote() {
+        return new RemoteRepository( "retry", "default", server.getUrl() );
+    }
+}
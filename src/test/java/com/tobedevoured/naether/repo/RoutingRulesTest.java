@@ -0,0 +1,132 @@
+package com.tobedevoured.naether.repo;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.aether.repository.RemoteRepository;
+
+import com.tobedevoured.naether.impl.NaetherImpl;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link RoutingRules}
+ *
+ * @author Michael Guymon
+ *
+ */
+public class RoutingRulesTest {
+
+    private HttpRepositoryServer internal;
+    private HttpRepositoryServer external;
+    private File localRepo;
+
+    @Before
+    public void setup() throws IOException {
+        internal = new HttpRepositoryServer();
+        internal.addArtifact( "com/ourco/app/1.0/app-1.0.jar", "internal app" );
+        internal.addArtifact( "com/ourco/app/1.0/app-1.0.pom", pom( "com.ourco", "app" ) );
+
+        // the same coordinates published externally, which must never be resolved
+        external = new HttpRepositoryServer();
+        external.addArtifact( "com/ourco/app/1.0/app-1.0.jar", "external app" );
+        external.addArtifact( "com/ourco/app/1.0/app-1.0.pom", pom( "com.ourco", "app" ) );
+        external.addArtifact( "org/other/lib/1.0/lib-1.0.jar", "lib" );
+        external.addArtifact( "org/other/lib/1.0/lib-1.0.pom", pom( "org.other", "lib" ) );
+
+        localRepo = new File( "target/test-repo-routing" );
+        FileUtils.deleteDirectory( localRepo );
+    }
+
+    @After
+    public void teardown() {
+        internal.stop();
+        external.stop();
+    }
+
+    @Test
+    public void patterns() {
+        RoutingRules rules = new RoutingRules()
+            .add( "com.ourco.*", "internal" )
+            .add( "com.ourco.thirdparty", "external" )
+            .add( "org.apache.*", "central" )
+            .add( "org.apache.*", "apache" );
+
+        assertEquals( Collections.singleton( "internal" ), rules.getRepositoryIds( "com.ourco" ) );
+        assertEquals( Collections.singleton( "internal" ), rules.getRepositoryIds( "com.ourco.web" ) );
+        assertEquals( "exact groupId is most specific", Collections.singleton( "external" ), rules.getRepositoryIds( "com.ourco.thirdparty" ) );
+        assertEquals( Collections.singleton( "internal" ), rules.getRepositoryIds( "com.ourco.thirdparty.sub" ) );
+        assertEquals( new HashSet<String>( Arrays.asList( "central", "apache" ) ), rules.getRepositoryIds( "org.apache.commons" ) );
+        assertNull( rules.getRepositoryIds( "com.ourcompany" ) );
+        assertNull( rules.getRepositoryIds( "org.other" ) );
+
+        rules.add( "*", "central" );
+        assertEquals( Collections.singleton( "central" ), rules.getRepositoryIds( "org.other" ) );
+        assertEquals( Collections.singleton( "internal" ), rules.getRepositoryIds( "com.ourco" ) );
+    }
+
+    @Test
+    public void mirrorOfRoutedRepository() {
+        RoutingRules rules = new RoutingRules().add( "com.ourco.*", "internal" );
+
+        RemoteRepository mirror = new RemoteRepository( "mirror", "default", "http://mirror" );
+        assertFalse( rules.isAllowed( "com.ourco", mirror ) );
+        assertTrue( rules.isAllowed( "org.other", mirror ) );
+
+        mirror.setMirroredRepositories( Arrays.asList( new RemoteRepository( "internal", "default", "http://internal" ) ) );
+        assertTrue( rules.isAllowed( "com.ourco", mirror ) );
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void invalidPattern() {
+        new RoutingRules().add( " ", "internal" );
+    }
+
+    @Test
+    public void routedArtifactsAreOnlyRequestedFromTheirRepository() throws Exception {
+        NaetherImpl naether = new NaetherImpl();
+        naether.setLocalRepoPath( localRepo.getPath() );
+        naether.clearRemoteRepositories();
+        naether.addRemoteRepository( "external", "default", external.getUrl() );
+        naether.addRemoteRepository( "internal", "default", internal.getUrl(), Arrays.asList( "com.ourco.*" ) );
+
+        naether.addDependency( "com.ourco:app:jar:1.0" );
+        naether.addDependency( "org.other:lib:jar:1.0" );
+        naether.resolveDependencies();
+
+        assertEquals( "internal app", FileUtils.readFileToString( new File( naether.getDependenciesPath().get( "com.ourco:app:jar:1.0" ) ) ) );
+        assertEquals( "lib", FileUtils.readFileToString( new File( naether.getDependenciesPath().get( "org.other:lib:jar:1.0" ) ) ) );
+        assertEquals( "only lib jar, pom and checksums", 4, external.getRequests() );
+        assertEquals( Collections.singletonMap( "com.ourco.*", Collections.singleton( "internal" ) ), naether.getRoutingRules() );
+    }
+
+    private static String pom( String groupId, String artifactId ) {
+        return "<project><modelVersion>4.0.0</modelVersion><groupId>" + groupId + "</groupId><artifactId>" + artifactId +
+            "</artifactId><version>1.0</version></project>";
+    }
+}
@@ -0,0 +1,82 @@
+package com.tobedevoured.naether.util;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+   *
+ * http://www.apache.org/licenses/LICENSE-2.0
+   *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import static org.junit.Assert.*;
+
+import java.net.MalformedURLException;
+
+import org.junit.Test;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
+
+/**
+ * RepoBuilder test
+ * 
+ * @author Michael Guymon
+ *
+ */
+public class RepoBuilderTest {
+
+    @Test
+    public void remoteRepositoryFromUrl() throws MalformedURLException {
+        RemoteRepository repo = RepoBuilder.remoteRepositoryFromUrl( "http://test.net:7011/repo/releases" );
+
+        assertEquals( "test.net-repo-releases-7011", repo.getId() );
+        assertEquals( "default", repo.getContentType() );
+        assertEquals( "http://test.net:7011/repo/releases", repo.getUrl() );
+    }
+
+    @Test
+    public void remoteRepositoryFromUrlWithPolicy() throws MalformedURLException {
+        RemoteRepository repo = RepoBuilder.remoteRepositoryFromUrl( "http://test.net/releases",
+            RepositoryPolicy.UPDATE_POLICY_NEVER, RepositoryPolicy.CHECKSUM_POLICY_FAIL );
+
+        for ( boolean snapshot : new boolean[] { false, true } ) {
+            assertTrue( repo.getPolicy( snapshot ).isEnabled() );
+            assertEquals( RepositoryPolicy.UPDATE_POLICY_NEVER, repo.getPolicy( snapshot ).getUpdatePolicy() );
+            assertEquals( RepositoryPolicy.CHECKSUM_POLICY_FAIL, repo.getPolicy( snapshot ).getChecksumPolicy() );
+        }
+    }
+
+    @Test
+    public void repositoryPolicyDefaults() {
+        RepositoryPolicy policy = RepoBuilder.repositoryPolicy( null, null );
+
+        assertEquals( RepositoryPolicy.UPDATE_POLICY_DAILY, policy.getUpdatePolicy() );
+        assertEquals( RepositoryPolicy.CHECKSUM_POLICY_WARN, policy.getChecksumPolicy() );
+
+        assertEquals( "interval:30", RepoBuilder.repositoryPolicy( "interval:30", "ignore" ).getUpdatePolicy() );
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void invalidUpdatePolicy() {
+        RepoBuilder.repositoryPolicy( "hourly", null );
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void invalidIntervalPolicy() {
+        RepoBuilder.repositoryPolicy( "interval:", null );
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void invalidChecksumPolicy() {
+        RepoBuilder.repositoryPolicy( null, "strict" );
+    }
+}
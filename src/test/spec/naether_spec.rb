@@ -182,6 +182,13 @@ describe Naether do
       File.exists?("target/test-repo/junit/junit/4.10/junit-4.10.jar").should be_truthy
     end
 
+    it "should batch download artifacts with failures" do
+      result = @naether.batch_download_artifacts(["junit:junit:4.10", "naether:does-not-exist:1.0"])
+
+      result[:paths]["junit:junit:jar:4.10"].should match /junit-4.10.jar$/
+      result[:failures].keys.should eql ["naether:does-not-exist:jar:1.0"]
+    end
+
     it "should deploy artifact" do
       if File.exists?("target/test-repo/test/test/22.3/test-22.3.jar")
         File.delete("target/test-repo/test/test/22.3/test-22.3.jar")